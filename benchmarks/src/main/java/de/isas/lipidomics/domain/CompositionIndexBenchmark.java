@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time to group the element tables of a generated library of PC,
+ * PE and TAG molecular subspecies by elemental composition, once with a
+ * composition index and once with a hash map keyed by sum formula. The element
+ * tables are computed up front, since computing them costs the same for both.
+ *
+ * @author nils.hoffmann
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class CompositionIndexBenchmark {
+
+    private List<ElementTable> elements;
+
+    @Setup
+    public void setup() {
+        List<LipidSpecies> generated = new ArrayList<>();
+        LipidLibraryGenerator.builder().
+                lipidClasses(Arrays.asList(LipidClass.PC, LipidClass.PE, LipidClass.TAG)).
+                minCarbon(12).
+                maxCarbon(24).
+                maxDoubleBonds(6).
+                bondTypes(Arrays.asList(LipidFaBondType.ESTER, LipidFaBondType.ETHER_PLASMENYL)).
+                parallelism(1).
+                build().
+                generate(generated::add);
+        elements = new ArrayList<>();
+        for (LipidSpecies lipid : generated) {
+            elements.add(lipid.getElements());
+        }
+    }
+
+    @Benchmark
+    public CompositionIndex compositionIndex() {
+        return CompositionIndex.of(elements, (table) -> {
+            return table;
+        });
+    }
+
+    @Benchmark
+    public Map<String, List<Integer>> groupBySumFormula() {
+        Map<String, List<Integer>> groups = new HashMap<>();
+        for (int id = 0; id < elements.size(); id++) {
+            groups.computeIfAbsent(elements.get(id).getSumFormula(), (sumFormula) -> {
+                return new ArrayList<>();
+            }).add(id);
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the average time per isotope pattern for the distinct elemental
+ * compositions of a generated library of PC, PE, TAG and SM species, one
+ * composition after the other and in parallel with the batch API.
+ *
+ * @author nils.hoffmann
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class IsotopePatternCalculatorBenchmark {
+
+    private static final int COMPOSITIONS = 2048;
+
+    @Param({"0.5", "0.001"})
+    public double resolution;
+
+    private IsotopePatternCalculator calculator;
+
+    private List<ElementTable> elements;
+
+    @Setup
+    public void setup() {
+        calculator = IsotopePatternCalculator.builder().resolution(resolution).build();
+        List<LipidSpecies> species = new ArrayList<>();
+        LipidLibraryGenerator.builder().
+                lipidClasses(Arrays.asList(LipidClass.PC, LipidClass.PE, LipidClass.TAG, LipidClass.SM)).
+                level(LipidLevel.SPECIES).
+                minCarbon(12).
+                maxCarbon(26).
+                maxDoubleBonds(6).
+                minLcbHydroxy(2).
+                maxLcbHydroxy(3).
+                parallelism(1).
+                build().
+                generate(species::add);
+        CompositionIndex index = CompositionIndex.ofSpecies(species);
+        elements = new ArrayList<>();
+        for (int i = 0; i < COMPOSITIONS; i++) {
+            elements.add(index.getKey(i % index.getGroupCount()).toElementTable());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMPOSITIONS)
+    public void calculate(Blackhole blackhole) {
+        for (ElementTable table : elements) {
+            blackhole.consume(calculator.calculate(table));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMPOSITIONS)
+    public List<IsotopePattern> calculateAll() {
+        return calculator.calculateAll(elements);
+    }
+}
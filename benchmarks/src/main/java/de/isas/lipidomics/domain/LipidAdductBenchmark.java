@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.BenchmarkCorpus;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the average time to calculate the mass and sum formula of the
+ * lipids in the benchmark corpus.
+ *
+ * @author nils.hoffmann
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LipidAdductBenchmark {
+
+    private LipidAdduct[] lipids;
+
+    private int index;
+
+    @Setup
+    public void setup() throws ParsingException {
+        lipids = BenchmarkCorpus.getLipids().toArray(new LipidAdduct[0]);
+    }
+
+    private LipidAdduct next() {
+        index = (index + 1) % lipids.length;
+        return lipids[index];
+    }
+
+    @Benchmark
+    public Double getMass() {
+        return next().getMass();
+    }
+
+    @Benchmark
+    public String getSumFormula() {
+        return next().getSumFormula();
+    }
+}
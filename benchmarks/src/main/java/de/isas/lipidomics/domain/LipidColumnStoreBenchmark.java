@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a scan over a generated library of PC, PE and TAG molecular
+ * subspecies [M+H]1+ adducts, which sums the carbon atoms of all PC with two
+ * double bonds, once over the lipid objects and once over a columnar store on
+ * the heap or off-heap. Also measures a scan of the precomputed masses of the
+ * store, which counts the lipids within a mass range.
+ *
+ * @author nils.hoffmann
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class LipidColumnStoreBenchmark {
+
+    @Param({"false", "true"})
+    public boolean offHeap;
+
+    private List<LipidAdduct> lipids;
+
+    private LipidColumnStore store;
+
+    @Setup
+    public void setup() {
+        Adduct adduct = new Adduct("", "+H", 1, 1);
+        lipids = new ArrayList<>();
+        LipidLibraryGenerator.builder().
+                lipidClasses(Arrays.asList(LipidClass.PC, LipidClass.PE, LipidClass.TAG)).
+                minCarbon(12).
+                maxCarbon(24).
+                maxDoubleBonds(6).
+                bondTypes(Arrays.asList(LipidFaBondType.ESTER, LipidFaBondType.ETHER_PLASMENYL)).
+                parallelism(1).
+                build().
+                generate((lipid) -> {
+                    lipids.add(new LipidAdduct(lipid, adduct, new Fragment("")));
+                });
+        LipidColumnStore.Builder builder = LipidColumnStore.builder().offHeap(offHeap);
+        for (LipidAdduct lipid : lipids) {
+            builder.add(lipid);
+        }
+        store = builder.build();
+    }
+
+    @Benchmark
+    public long scanObjects() {
+        long nCarbon = 0;
+        for (LipidAdduct lipidAdduct : lipids) {
+            LipidSpecies lipid = lipidAdduct.getLipid();
+            if (lipid.getLipidClass() == LipidClass.PC && lipid.getInfo().getNDoubleBonds() == 2) {
+                nCarbon += lipid.getInfo().getNCarbon();
+            }
+        }
+        return nCarbon;
+    }
+
+    @Benchmark
+    public long scanStore() {
+        long nCarbon = 0;
+        for (int row = 0; row < store.size(); row++) {
+            if (store.getLipidClass(row) == LipidClass.PC && store.getNDoubleBonds(row) == 2) {
+                nCarbon += store.getNCarbon(row);
+            }
+        }
+        return nCarbon;
+    }
+
+    @Benchmark
+    public long scanStoreViews() {
+        long nCarbon = 0;
+        LipidColumnStore.View view = store.view();
+        for (int row = 0; row < store.size(); row++) {
+            view.moveTo(row);
+            if (view.getLipidClass() == LipidClass.PC && view.getNDoubleBonds() == 2) {
+                nCarbon += view.getNCarbon();
+            }
+        }
+        return nCarbon;
+    }
+
+    @Benchmark
+    public int scanStoreMasses() {
+        int count = 0;
+        for (int row = 0; row < store.size(); row++) {
+            double mass = store.getMass(row);
+            if (mass >= 750 && mass <= 800) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the join of two equal, but separately generated libraries of PC,
+ * PE and TAG molecular subspecies on molecular subspecies level, once with a
+ * hash map keyed by the normalized lipid names and once with the lipid
+ * fingerprints.
+ *
+ * @author nils.hoffmann
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class LipidFingerprintBenchmark {
+
+    private static final LipidLevel LEVEL = LipidLevel.MOLECULAR_SUBSPECIES;
+
+    private List<LipidSpecies> left;
+    private List<LipidSpecies> right;
+
+    @Setup
+    public void setup() {
+        left = generate();
+        right = generate();
+    }
+
+    private static List<LipidSpecies> generate() {
+        List<LipidSpecies> lipids = new ArrayList<>();
+        LipidLibraryGenerator.builder().
+                lipidClasses(Arrays.asList(LipidClass.PC, LipidClass.PE, LipidClass.TAG)).
+                minCarbon(12).
+                maxCarbon(24).
+                maxDoubleBonds(6).
+                bondTypes(Arrays.asList(LipidFaBondType.ESTER, LipidFaBondType.ETHER_PLASMENYL)).
+                parallelism(1).
+                build().
+                generate(lipids::add);
+        return lipids;
+    }
+
+    @Benchmark
+    public int normalizedNames() {
+        Map<String, List<Integer>> index = new HashMap<>(right.size() * 2);
+        for (int j = 0; j < right.size(); j++) {
+            index.computeIfAbsent(right.get(j).getLipidString(LEVEL, true), (name) -> {
+                return new ArrayList<>(1);
+            }).add(j);
+        }
+        int matches = 0;
+        for (LipidSpecies lipid : left) {
+            List<Integer> rows = index.get(lipid.getLipidString(LEVEL, true));
+            if (rows != null) {
+                matches += rows.size();
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int fingerprints() {
+        AtomicInteger matches = new AtomicInteger();
+        LipidFingerprint.join(left, right, LEVEL, (l, r) -> {
+            matches.incrementAndGet();
+        });
+        return matches.get();
+    }
+}
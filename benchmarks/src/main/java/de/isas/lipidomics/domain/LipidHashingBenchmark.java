@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the deduplication of two equal, but separately generated libraries
+ * of PC, PE and TAG molecular subspecies, once with a hash set of the lipids
+ * and once with a hash map keyed by their canonical keys. Each lipid of the
+ * second library is compared with its equal lipid of the first library.
+ *
+ * @author nils.hoffmann
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class LipidHashingBenchmark {
+
+    private List<LipidSpecies> lipids;
+
+    @Setup
+    public void setup() {
+        lipids = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            LipidLibraryGenerator.builder().
+                    lipidClasses(Arrays.asList(LipidClass.PC, LipidClass.PE, LipidClass.TAG)).
+                    minCarbon(12).
+                    maxCarbon(24).
+                    maxDoubleBonds(6).
+                    bondTypes(Arrays.asList(LipidFaBondType.ESTER, LipidFaBondType.ETHER_PLASMENYL)).
+                    parallelism(1).
+                    build().
+                    generate(lipids::add);
+        }
+    }
+
+    @Benchmark
+    public int hashSet() {
+        Set<LipidSpecies> unique = new HashSet<>(lipids.size());
+        for (LipidSpecies lipid : lipids) {
+            unique.add(lipid);
+        }
+        return unique.size();
+    }
+
+    @Benchmark
+    public int canonicalKeys() {
+        Map<String, LipidSpecies> unique = new HashMap<>(lipids.size());
+        for (LipidSpecies lipid : lipids) {
+            unique.putIfAbsent(lipid.getCanonicalKey(), lipid);
+        }
+        return unique.size();
+    }
+}
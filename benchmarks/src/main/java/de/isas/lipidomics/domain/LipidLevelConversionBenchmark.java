@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.VisitorParser;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the average time to convert a structural subspecies to a coarser
+ * level, by {@link LipidSpecies#toLevel(LipidLevel)} on a new lipid instance
+ * (no cached conversions) versus writing and parsing the name on that level.
+ *
+ * @author nils.hoffmann
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LipidLevelConversionBenchmark {
+
+    @Param({"PE 18:1/22:6", "TAG 16:0/18:1/18:2"})
+    public String lipidName;
+
+    @Param({"MOLECULAR_SUBSPECIES", "SPECIES"})
+    public LipidLevel level;
+
+    private VisitorParser<LipidAdduct> parser;
+
+    private LipidSpecies lipid;
+
+    private FattyAcid[] fas;
+
+    @Setup
+    public void setup() throws ParsingException {
+        parser = Grammar.GOSLIN.newParser();
+        lipid = parser.parse(lipidName).getLipid();
+        fas = lipid.getFa().values().toArray(new FattyAcid[0]);
+    }
+
+    @Benchmark
+    public LipidSpecies toLevel() {
+        return new LipidStructuralSubspecies(lipid.getHeadGroup(), fas).toLevel(level);
+    }
+
+    @Benchmark
+    public LipidSpecies formatAndParse() throws ParsingException {
+        return parser.parse(lipid.getLipidString(level)).getLipid();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.VisitorParser;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the time to generate a PC, PE and TAG library on molecular
+ * subspecies level and to compute the mass of each lipid, once with the
+ * generated lipids and once by formatting the name of each lipid and parsing
+ * it back.
+ *
+ * @author nils.hoffmann
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LipidLibraryGeneratorBenchmark {
+
+    @Param({"0", "1"})
+    public int parallelism;
+
+    private LipidLibraryGenerator generator;
+
+    /*
+     * The consumer is called concurrently, parsers are not thread-safe.
+     */
+    private final ThreadLocal<VisitorParser<LipidAdduct>> parser = ThreadLocal.withInitial(() -> {
+        return Grammar.GOSLIN.newParser();
+    });
+
+    @Setup
+    public void setup() {
+        generator = LipidLibraryGenerator.builder().
+                lipidClasses(Arrays.asList(LipidClass.PC, LipidClass.PE, LipidClass.TAG)).
+                minCarbon(14).
+                maxCarbon(22).
+                minDoubleBonds(0).
+                maxDoubleBonds(3).
+                parallelism(parallelism).
+                build();
+    }
+
+    @Benchmark
+    public long generate(Blackhole blackhole) {
+        return generator.generate((lipid) -> {
+            blackhole.consume(lipid.getElements().getMass());
+        });
+    }
+
+    @Benchmark
+    public long formatAndParse(Blackhole blackhole) {
+        return generator.generate((lipid) -> {
+            try {
+                blackhole.consume(parser.get().parse(lipid.getLipidString()).getMass());
+            } catch (ParsingException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+    }
+}
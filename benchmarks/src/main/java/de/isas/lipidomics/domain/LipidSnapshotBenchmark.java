@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.BenchmarkCorpus;
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.VisitorParser;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures loading the benchmark corpora of all grammars, once by parsing the
+ * names again, and once from a snapshot of the parsed lipids, by decoding all
+ * records, or by looking up each name.
+ *
+ * @author nils.hoffmann
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class LipidSnapshotBenchmark {
+
+    private final List<VisitorParser<LipidAdduct>> parsers = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private Path path;
+
+    @Setup
+    public void setup() throws IOException, ParsingException {
+        path = Files.createTempFile("lipids", ".snapshot");
+        try (LipidSnapshot.Writer writer = LipidSnapshot.writer(path)) {
+            for (Grammar grammar : Grammar.values()) {
+                VisitorParser<LipidAdduct> parser = grammar.newParser();
+                for (String name : BenchmarkCorpus.getLipidNames(grammar)) {
+                    writer.add(name, parser.parse(name));
+                    parsers.add(parser);
+                    names.add(name);
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    public int parse() throws ParsingException {
+        int nFa = 0;
+        for (int i = 0; i < names.size(); i++) {
+            nFa += parsers.get(i).parse(names.get(i)).getLipid().getFa().size();
+        }
+        return nFa;
+    }
+
+    @Benchmark
+    public int decodeAll() throws IOException {
+        LipidSnapshot snapshot = LipidSnapshot.open(path);
+        int nFa = 0;
+        for (int record = 0; record < snapshot.size(); record++) {
+            nFa += snapshot.get(record).getLipid().getFa().size();
+        }
+        return nFa;
+    }
+
+    @Benchmark
+    public int findAll() throws IOException {
+        LipidSnapshot snapshot = LipidSnapshot.open(path);
+        int nFa = 0;
+        for (String name : names) {
+            nFa += snapshot.find(name).get().getLipid().getFa().size();
+        }
+        return nFa;
+    }
+}
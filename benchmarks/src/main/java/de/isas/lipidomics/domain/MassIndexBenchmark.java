@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the average time per m/z query against a mass index of random
+ * masses between 100 and 2000 Da, for single ppm window queries and for a
+ * merge-join of a sorted peak list.
+ *
+ * @author nils.hoffmann
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class MassIndexBenchmark {
+
+    private static final int PEAKS = 10000;
+
+    @Param({"100000", "5000000"})
+    public int size;
+
+    @Param({"5"})
+    public double ppm;
+
+    private MassIndex index;
+
+    private double[] peaks;
+
+    private int peak;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        double[] masses = new double[size];
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            masses[i] = 100 + random.nextDouble() * 1900;
+            ids[i] = i;
+        }
+        index = new MassIndex(masses, ids, ids.clone(), null, null, null);
+        peaks = new double[PEAKS];
+        for (int i = 0; i < PEAKS; i++) {
+            peaks[i] = 100 + random.nextDouble() * 1900;
+        }
+        Arrays.sort(peaks);
+    }
+
+    @Benchmark
+    public MassIndex.Window findPpm() {
+        peak = (peak + 1) % PEAKS;
+        return index.findPpm(peaks[peak], ppm);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PEAKS)
+    public void joinPpm(Blackhole blackhole) {
+        index.joinPpm(peaks, ppm, (peak, entry) -> {
+            blackhole.consume(entry);
+        });
+    }
+}
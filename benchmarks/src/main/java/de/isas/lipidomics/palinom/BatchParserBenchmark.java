@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the average time per name of a batch of tasks that each block for
+ * a simulated I/O call, e.g. a database lookup, and then parse a lipid name
+ * with a {@link BatchParser}, on a pool of one platform thread per processor,
+ * on a pool of 256 platform threads, and on a virtual thread per task.
+ *
+ * The VIRTUAL executor requires Java 21 or later, where the benchmark jar
+ * contains the Java 21 classes of the multi-release jgoslin-parsers jar. It
+ * fails on earlier versions.
+ *
+ * @author nils.hoffmann
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchParserBenchmark {
+
+    private static final int BATCH = 1024;
+
+    @Param({"PLATFORM_CORES", "PLATFORM_256", "VIRTUAL"})
+    public String executorType;
+
+    @Param({"0", "1000"})
+    public long ioMicros;
+
+    private ExecutorService executor;
+
+    private BatchParser parser;
+
+    private List<String> names;
+
+    @Setup
+    public void setup() {
+        switch (executorType) {
+            case "PLATFORM_CORES":
+                executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+                break;
+            case "PLATFORM_256":
+                executor = Executors.newFixedThreadPool(256);
+                break;
+            case "VIRTUAL":
+                if (!BatchParser.isVirtualThreadExecutor()) {
+                    throw new IllegalStateException("Virtual threads require Java 21 or later! Was: " + Runtime.version());
+                }
+                executor = BatchParser.newDefaultExecutor();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown executor type: " + executorType);
+        }
+        parser = BatchParser.builder().grammars(List.of(Grammar.GOSLIN)).executor(executor).build();
+        List<String> corpus = BenchmarkCorpus.getLipidNames(Grammar.GOSLIN);
+        names = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            names.add(corpus.get(i % corpus.size()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int lookUpAndParse() {
+        List<CompletableFuture<ParseResult<LipidAdduct>>> futures = new ArrayList<>(BATCH);
+        for (String name : names) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                if (ioMicros > 0) {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(ioMicros));
+                }
+                return parser.parse(name);
+            }, executor));
+        }
+        int parsed = 0;
+        for (CompletableFuture<ParseResult<LipidAdduct>> future : futures) {
+            if (future.join().isSuccess()) {
+                parsed++;
+            }
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.domain.LipidCategory;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Provides the lipid names used by the benchmarks. Each grammar has a bundled
+ * tab-separated corpus of lipid category and lipid name, with up to 200 valid
+ * names per lipid category, drawn from the grammar's test files. Invalid names
+ * are derived from the valid ones.
+ *
+ * @author nils.hoffmann
+ */
+public final class BenchmarkCorpus {
+
+    private static final String CORPUS_LOCATION = "/de/isas/lipidomics/palinom/benchmark/";
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * Returns the valid lipid names of the given grammar and lipid category.
+     *
+     * @param grammar the grammar.
+     * @param category the lipid category.
+     * @return the lipid names.
+     * @throws IllegalArgumentException if the corpus contains no names for
+     * the category.
+     */
+    public static List<String> getLipidNames(Grammar grammar, LipidCategory category) {
+        List<String> names = readCorpus(grammar).stream().filter((line) -> {
+            return line[0].equals(category.name());
+        }).map((line) -> {
+            return line[1];
+        }).collect(Collectors.toList());
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("No lipid names for category " + category + " in benchmark corpus of grammar " + grammar + "!");
+        }
+        return names;
+    }
+
+    /**
+     * Returns all valid lipid names of the given grammar.
+     *
+     * @param grammar the grammar.
+     * @return the lipid names.
+     */
+    public static List<String> getLipidNames(Grammar grammar) {
+        return readCorpus(grammar).stream().map((line) -> {
+            return line[1];
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns invalid lipid names of the given grammar and lipid category.
+     * These are derived from the valid names by truncation, by doubling the
+     * first separator, or by appending unbalanced brackets, and are
+     * guaranteed to fail parsing.
+     *
+     * @param grammar the grammar.
+     * @param category the lipid category.
+     * @return the invalid lipid names.
+     */
+    public static List<String> getInvalidLipidNames(Grammar grammar, LipidCategory category) {
+        VisitorParser<LipidAdduct> parser = grammar.newParser();
+        List<String> invalidNames = new ArrayList<>();
+        List<String> names = getLipidNames(grammar, category);
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            String invalidName;
+            switch (i % 3) {
+                case 0:
+                    invalidName = name.substring(0, name.length() * 2 / 3);
+                    break;
+                case 1:
+                    invalidName = name.replaceFirst(":", "::");
+                    break;
+                default:
+                    invalidName = name + ")(";
+            }
+            try {
+                parser.parse(invalidName);
+            } catch (ParsingException | RuntimeException ex) {
+                invalidNames.add(invalidName);
+            }
+        }
+        return invalidNames;
+    }
+
+    /**
+     * Parses the lipid names of all grammars with their respective grammar.
+     *
+     * @return the parsed lipids.
+     * @throws ParsingException if a lipid name could not be parsed.
+     */
+    public static List<LipidAdduct> getLipids() throws ParsingException {
+        List<LipidAdduct> lipids = new ArrayList<>();
+        for (Grammar grammar : Grammar.values()) {
+            VisitorParser<LipidAdduct> parser = grammar.newParser();
+            for (String name : getLipidNames(grammar)) {
+                lipids.add(parser.parse(name));
+            }
+        }
+        return lipids;
+    }
+
+    private static List<String[]> readCorpus(Grammar grammar) {
+        String resource = CORPUS_LOCATION + grammar.name().toLowerCase(Locale.ROOT).replace('_', '-') + ".tsv";
+        InputStream is = BenchmarkCorpus.class.getResourceAsStream(resource);
+        if (is == null) {
+            throw new UncheckedIOException(new IOException("Could not find benchmark corpus " + resource + " on classpath!"));
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            return reader.lines().filter((line) -> {
+                return !line.isEmpty();
+            }).map((line) -> {
+                return line.split("\t", 2);
+            }).collect(Collectors.toList());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read benchmark corpus " + resource + "!", ex);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the average time to reject a string that is not a lipid name, by
+ * the {@link GrammarPreFilter} of a grammar versus a failing parse with the
+ * grammar's parser.
+ *
+ * @author nils.hoffmann
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GrammarPreFilterBenchmark {
+
+    /*
+     * Compound ids, metabolite names, empty cells and numeric junk, all of
+     * which are rejected by the pre-filter of the Goslin grammar.
+     */
+    private static final String[] NON_LIPIDS = {
+        "HMDB0000564", "2-Methoxyestrone", "Cortexolone", "", "NA", "12345.678",
+        "L-Glutamine", "C00031", "Glucose 6-phosphate", "#N/A", "alpha-Tocopherol", "3-Hydroxybutyric acid"
+    };
+
+    @Param({"GOSLIN", "GOSLIN_FRAGMENTS"})
+    public Grammar grammar;
+
+    private GrammarPreFilter filter;
+
+    private VisitorParser<LipidAdduct> parser;
+
+    private int index;
+
+    @Setup
+    public void setup() {
+        filter = grammar.getPreFilter();
+        parser = grammar.newParser();
+    }
+
+    private String next() {
+        index = (index + 1) % NON_LIPIDS.length;
+        return NON_LIPIDS[index];
+    }
+
+    @Benchmark
+    public boolean preFilter() {
+        return filter.accepts(next());
+    }
+
+    @Benchmark
+    public boolean parse() {
+        try {
+            return parser.parse(next()) != null;
+        } catch (ParsingException ex) {
+            return false;
+        }
+    }
+}
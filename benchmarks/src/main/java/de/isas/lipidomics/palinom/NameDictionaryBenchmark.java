@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the average time to parse the benchmark corpus of a grammar with
+ * the ANTLR parser versus with the {@link NameDictionary} enabled, which
+ * decodes the known names and parses the others. The dictionaries are only
+ * bundled if jgoslin-parsers was built with the name-dictionaries profile.
+ *
+ * @author nils.hoffmann
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class NameDictionaryBenchmark {
+
+    @Param({"SWISSLIPIDS", "LIPIDMAPS", "HMDB"})
+    public Grammar grammar;
+
+    private List<String> names;
+
+    private VisitorParser<LipidAdduct> parser;
+
+    private VisitorParser<LipidAdduct> dictionaryParser;
+
+    @Setup
+    public void setup() {
+        names = BenchmarkCorpus.getLipidNames(grammar);
+        parser = grammar.newParser();
+        dictionaryParser = grammar.newParser(ParserOptions.builder().
+                useNameDictionary(true).
+                build());
+        grammar.getNameDictionary();
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) throws ParsingException {
+        for (String name : names) {
+            blackhole.consume(parser.parse(name));
+        }
+    }
+
+    @Benchmark
+    public void parseWithDictionary(Blackhole blackhole) throws ParsingException {
+        for (String name : names) {
+            blackhole.consume(dictionaryParser.parse(name));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.domain.LipidCategory;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the average time to parse a single valid or invalid lipid name
+ * with each grammar's {@link VisitorParser}, per lipid category. Lipid names
+ * are parsed round-robin from the {@link BenchmarkCorpus}.
+ *
+ * Not every grammar covers every category, e.g. LIPIDMAPS has no ST or FA
+ * names in its corpus, so additional categories should be selected per
+ * grammar with -p grammar=... -p category=...
+ *
+ * @author nils.hoffmann
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class VisitorParserBenchmark {
+
+    @Param({"GOSLIN", "GOSLIN_FRAGMENTS", "LIPIDMAPS", "SWISSLIPIDS", "HMDB"})
+    public Grammar grammar;
+
+    @Param({"GL", "GP", "SP"})
+    public LipidCategory category;
+
+    private VisitorParser<LipidAdduct> parser;
+
+    private String[] validNames;
+
+    private String[] invalidNames;
+
+    private int validIndex;
+
+    private int invalidIndex;
+
+    @Setup
+    public void setup() {
+        parser = grammar.newParser();
+        List<String> names = BenchmarkCorpus.getLipidNames(grammar, category);
+        validNames = names.toArray(new String[names.size()]);
+        List<String> invalid = BenchmarkCorpus.getInvalidLipidNames(grammar, category);
+        invalidNames = invalid.toArray(new String[invalid.size()]);
+    }
+
+    @Benchmark
+    public LipidAdduct parseValid() throws ParsingException {
+        validIndex = (validIndex + 1) % validNames.length;
+        return parser.parse(validNames[validIndex]);
+    }
+
+    @Benchmark
+    public Object parseInvalid() {
+        invalidIndex = (invalidIndex + 1) % invalidNames.length;
+        try {
+            return parser.parse(invalidNames[invalidIndex]);
+        } catch (ParsingException | RuntimeException ex) {
+            return ex;
+        }
+    }
+}
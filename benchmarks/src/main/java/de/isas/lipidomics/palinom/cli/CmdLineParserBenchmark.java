@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom.cli;
+
+import de.isas.lipidomics.palinom.BenchmarkCorpus;
+import de.isas.lipidomics.palinom.Grammar;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the average time to render the tab-separated output table of the
+ * command line interface with {@link CmdLineParser#toTable(List)}. The
+ * validation results are created once, by parsing the benchmark corpus of the
+ * given grammar with all grammars, as the command line interface does by
+ * default.
+ *
+ * @author nils.hoffmann
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CmdLineParserBenchmark {
+
+    @Param({"GOSLIN", "LIPIDMAPS"})
+    public Grammar grammar;
+
+    private List<Pair<String, List<CmdLineParser.ValidationResult>>> results;
+
+    @Setup
+    public void setup() {
+        results = CmdLineParser.parseNames(BenchmarkCorpus.getLipidNames(grammar).stream());
+    }
+
+    @Benchmark
+    public String toTable() {
+        return CmdLineParser.toTable(results);
+    }
+}
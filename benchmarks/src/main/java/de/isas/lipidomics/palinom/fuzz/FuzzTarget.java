@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom.fuzz;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.palinom.BenchmarkCorpus;
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.SumFormulaLexer;
+import de.isas.lipidomics.palinom.SumFormulaParser;
+import de.isas.lipidomics.palinom.VisitorParser;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import de.isas.lipidomics.palinom.sumformula.SumFormulaVisitorParser;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import lombok.Value;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Vocabulary;
+
+/**
+ * A parser under test, together with the literal tokens of its grammar and
+ * valid seed inputs that the fuzzer derives its inputs from.
+ *
+ * @author nils.hoffmann
+ */
+@Value
+public class FuzzTarget {
+
+    /**
+     * Name of the target for the sum formula grammar.
+     */
+    public static final String SUM_FORMULA = "SUM_FORMULA";
+
+    private final String name;
+    private final VisitorParser<?> parser;
+    private final List<String> literals;
+    private final List<String> seeds;
+
+    /**
+     * Creates the fuzz target for the given lipid name grammar.
+     *
+     * @param grammar the grammar.
+     * @return the fuzz target.
+     */
+    public static FuzzTarget of(Grammar grammar) {
+        return new FuzzTarget(grammar.name(), grammar.newParser(), getLiterals(grammar.newAntlrParser().getVocabulary()), BenchmarkCorpus.getLipidNames(grammar));
+    }
+
+    /**
+     * Creates the fuzz target for the sum formula grammar, seeded with the sum
+     * formulas of the lipids in the benchmark corpus.
+     *
+     * @return the fuzz target.
+     * @throws ParsingException if a lipid name of the benchmark corpus could
+     * not be parsed.
+     */
+    public static FuzzTarget sumFormula() throws ParsingException {
+        SumFormulaParser parser = new SumFormulaParser(new CommonTokenStream(new SumFormulaLexer(CharStreams.fromString(""))));
+        List<String> seeds = BenchmarkCorpus.getLipids().stream().map(LipidAdduct::getSumFormula).filter((sumFormula) -> {
+            return !sumFormula.isEmpty();
+        }).distinct().collect(Collectors.toList());
+        return new FuzzTarget(SUM_FORMULA, new SumFormulaVisitorParser(), getLiterals(parser.getVocabulary()), seeds);
+    }
+
+    /**
+     * Returns the literals that consist of a single punctuation or whitespace
+     * character, e.g. '(' or ':'.
+     *
+     * @return the punctuation literals.
+     */
+    public List<String> getPunctuation() {
+        return literals.stream().filter((literal) -> {
+            return literal.length() == 1 && !Character.isLetterOrDigit(literal.charAt(0));
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns true, if the grammar has a literal token with the given text.
+     *
+     * @param literal the literal.
+     * @return true if the literal is defined by the grammar.
+     */
+    public boolean hasLiteral(String literal) {
+        return literals.contains(literal);
+    }
+
+    private static List<String> getLiterals(Vocabulary vocabulary) {
+        Set<String> literals = new TreeSet<>();
+        for (int i = 0; i <= vocabulary.getMaxTokenType(); i++) {
+            String literal = vocabulary.getLiteralName(i);
+            if (literal != null && literal.length() > 2) {
+                // strip the quotes and unescape
+                literals.add(literal.substring(1, literal.length() - 1).replace("\\'", "'").replace("\\\\", "\\"));
+            }
+        }
+        return new ArrayList<>(literals);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom.fuzz;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.Value;
+
+/**
+ * A class of fuzzer inputs that can be generated at any requested length. All
+ * inputs of a class share the same structure, so that their parse times can be
+ * compared across lengths.
+ *
+ * @author nils.hoffmann
+ */
+@Value
+public class InputClass {
+
+    /**
+     * Generates an input of a given length.
+     */
+    @FunctionalInterface
+    public static interface Generator {
+
+        String generate(int length, Random random);
+    }
+
+    private static final Pattern CHAIN = Pattern.compile("[/_]\\d+:\\d+");
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+
+    private final String name;
+    private final Generator generator;
+
+    /**
+     * Generates an input of the given length.
+     *
+     * @param length the length.
+     * @param random the source of randomness.
+     * @return the input.
+     */
+    public String generate(int length, Random random) {
+        return generator.generate(length, random);
+    }
+
+    /**
+     * Creates the input classes for the given target. These are
+     * <ul>
+     * <li>runs of each punctuation literal of the grammar, on their own and
+     * appended to a valid seed,</li>
+     * <li>balanced, nested parentheses,</li>
+     * <li>valid seeds, repeated,</li>
+     * <li>seeds with a repeated fatty acyl chain, valid or with a single
+     * inserted literal (near-miss),</li>
+     * <li>seeds with an oversized number,</li>
+     * <li>seeds with an oversized arbitrary adduct, if the grammar supports
+     * adducts,</li>
+     * <li>runs of element symbols and counts, for the sum formula grammar.</li>
+     * </ul>
+     *
+     * @param target the fuzz target.
+     * @return the input classes.
+     */
+    public static List<InputClass> forTarget(FuzzTarget target) {
+        List<InputClass> inputClasses = new ArrayList<>();
+        List<String> seeds = target.getSeeds();
+        List<String> literals = target.getLiterals();
+        for (String punctuation : target.getPunctuation()) {
+            inputClasses.add(new InputClass("run of '" + punctuation + "'", (length, random) -> {
+                return repeat(punctuation, length);
+            }));
+            inputClasses.add(new InputClass("seed + run of '" + punctuation + "'", (length, random) -> {
+                String seed = pick(seeds, random);
+                return seed + repeat(punctuation, length - seed.length());
+            }));
+        }
+        if (target.hasLiteral("(") && target.hasLiteral(")")) {
+            inputClasses.add(new InputClass("nested parentheses", (length, random) -> {
+                return repeat("(", length / 2) + repeat(")", length - length / 2);
+            }));
+        }
+        inputClasses.add(new InputClass("repeated seed", (length, random) -> {
+            StringBuilder sb = new StringBuilder();
+            while (sb.length() < length) {
+                sb.append(pick(seeds, random));
+            }
+            return sb.substring(0, length);
+        }));
+        if (seeds.stream().anyMatch((seed) -> CHAIN.matcher(seed).find())) {
+            inputClasses.add(new InputClass("repeated chain", (length, random) -> {
+                return repeatChain(pickMatching(seeds, CHAIN, random), length);
+            }));
+            inputClasses.add(new InputClass("near-miss repeated chain", (length, random) -> {
+                StringBuilder sb = new StringBuilder(repeatChain(pickMatching(seeds, CHAIN, random), length - 1));
+                sb.insert(random.nextInt(sb.length()), pick(literals, random));
+                return sb.toString();
+            }));
+        }
+        inputClasses.add(new InputClass("oversized number", (length, random) -> {
+            String seed = pickMatching(seeds, NUMBER, random);
+            Matcher matcher = NUMBER.matcher(seed);
+            matcher.find();
+            return seed.substring(0, matcher.start()) + repeat("9", length - seed.length() + matcher.end() - matcher.start()) + seed.substring(matcher.end());
+        }));
+        if (target.hasLiteral("[M")) {
+            inputClasses.add(new InputClass("oversized adduct", (length, random) -> {
+                String seed = pick(seeds, random);
+                int bracket = seed.indexOf('[');
+                String lipid = bracket > 0 ? seed.substring(0, bracket).trim() : seed;
+                return lipid + " [M+" + repeat("H", length - lipid.length() - 7) + "]1+";
+            }));
+        }
+        if (FuzzTarget.SUM_FORMULA.equals(target.getName())) {
+            inputClasses.add(new InputClass("run of elements", (length, random) -> {
+                StringBuilder sb = new StringBuilder();
+                while (sb.length() < length) {
+                    sb.append(pick(literals, random));
+                }
+                return sb.substring(0, length);
+            }));
+        }
+        return inputClasses;
+    }
+
+    private static String repeat(String s, int length) {
+        StringBuilder sb = new StringBuilder(Math.max(0, length));
+        while (sb.length() < length) {
+            sb.append(s);
+        }
+        return sb.substring(0, Math.max(0, length));
+    }
+
+    private static String repeatChain(String seed, int length) {
+        Matcher matcher = CHAIN.matcher(seed);
+        matcher.find();
+        String chain = matcher.group();
+        String head = seed.substring(0, matcher.end());
+        String tail = seed.substring(matcher.end());
+        return head + repeat(chain, length - head.length() - tail.length()) + tail;
+    }
+
+    private static String pick(List<String> strings, Random random) {
+        return strings.get(random.nextInt(strings.size()));
+    }
+
+    private static String pickMatching(List<String> seeds, Pattern pattern, Random random) {
+        String seed = pick(seeds, random);
+        while (!pattern.matcher(seed).find()) {
+            seed = pick(seeds, random);
+        }
+        return seed;
+    }
+}
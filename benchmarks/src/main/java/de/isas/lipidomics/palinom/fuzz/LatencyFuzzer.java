@@ -0,0 +1,299 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom.fuzz;
+
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.VisitorParser;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.Value;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+/**
+ * Generates near-miss and oversized inputs for the lipid name grammars and the
+ * sum formula grammar and reports the worst-case parse latencies per input
+ * class.
+ *
+ * The inputs of each {@link InputClass} are generated at doubling lengths,
+ * from 16 characters up to the maximum length. For each length, a number of
+ * samples is generated and each sample is parsed repeatedly. The report
+ * contains the 99th percentile and maximum latency over all parses of an input
+ * class, the median latency per length and the growth exponent, which is the
+ * slope of the least-squares fit of log(median latency) over log(length) for
+ * lengths of at least 256 characters. An exponent of 1 means linear growth.
+ * Input classes with an exponent above the threshold are flagged as
+ * SUPERLINEAR, input classes where a single parse exceeded the time limit are
+ * flagged as TIMEOUT and are not grown any further. The slowest input of each
+ * input class is reported, truncated, to help reproduce the worst case.
+ *
+ * @author nils.hoffmann
+ */
+public final class LatencyFuzzer {
+
+    public static final String HEADER = "Target\tInput Class\tMax Length\tParses\tp99 [us]\tMax [us]\tExponent\tMedians [us]\tFlag\tSlowest Input";
+    public static final String SUPERLINEAR = "SUPERLINEAR";
+    public static final String TIMEOUT = "TIMEOUT";
+
+    private static final int MIN_LENGTH = 16;
+    private static final int MIN_FIT_LENGTH = 256;
+    private static final int MAX_INPUT_PREFIX = 48;
+
+    private final int maxLength;
+    private final int samples;
+    private final int repeats;
+    private final double maxExponent;
+    private final long timeLimitNanos;
+    private final long randomSeed;
+
+    /**
+     * The latencies of one input class.
+     */
+    @Value
+    public static class Result {
+
+        private final String target;
+        private final String inputClass;
+        private final int maxLength;
+        private final int parses;
+        private final long p99Nanos;
+        private final long maxNanos;
+        private final double exponent;
+        private final List<Long> medianNanos;
+        private final String flag;
+        private final String slowestInput;
+
+        public String toRow() {
+            String input = slowestInput.length() > MAX_INPUT_PREFIX ? slowestInput.substring(0, MAX_INPUT_PREFIX) + "... (" + slowestInput.length() + " chars)" : slowestInput;
+            return String.format(Locale.US, "%s\t%s\t%d\t%d\t%.1f\t%.1f\t%.2f\t%s\t%s\t%s",
+                    target, inputClass, maxLength, parses, p99Nanos / 1000.0d, maxNanos / 1000.0d, exponent,
+                    medianNanos.stream().map((nanos) -> {
+                        return String.format(Locale.US, "%.1f", nanos / 1000.0d);
+                    }).collect(Collectors.joining(",")), flag, input.replace('\t', ' '));
+        }
+    }
+
+    public LatencyFuzzer(int maxLength, int samples, int repeats, double maxExponent, long timeLimitMillis, long randomSeed) {
+        this.maxLength = maxLength;
+        this.samples = samples;
+        this.repeats = repeats;
+        this.maxExponent = maxExponent;
+        this.timeLimitNanos = TimeUnit.MILLISECONDS.toNanos(timeLimitMillis);
+        this.randomSeed = randomSeed;
+    }
+
+    public static void main(String[] args) throws IOException, ParsingException {
+        Options options = new Options();
+        options.addOption("t", "target", true, "A target to fuzz. May be repeated. Default: all of " + Arrays.toString(Grammar.values()) + " and " + FuzzTarget.SUM_FORMULA);
+        options.addOption("l", "maxLength", true, "Maximum input length. Default: 2048");
+        options.addOption("s", "samples", true, "Number of inputs per input class and length. Default: 5");
+        options.addOption("r", "repeats", true, "Number of parses per input. Default: 3");
+        options.addOption("x", "maxExponent", true, "Growth exponent above which an input class is flagged. Default: 1.3");
+        options.addOption("m", "timeLimit", true, "Time limit of a single parse in milliseconds. Default: 1000");
+        options.addOption("e", "seed", true, "Seed of the random number generator. Default: 42");
+        options.addOption("f", "failOnFlag", false, "Exit with status 1 if an input class was flagged.");
+        options.addOption("o", "output", true, "Write the report to the given file in addition to std out.");
+        options.addOption("h", "help", false, "Print help message.");
+        CommandLine line;
+        try {
+            line = new DefaultParser().parse(options, args);
+        } catch (ParseException ex) {
+            System.err.println(ex.getMessage());
+            new HelpFormatter().printHelp("java -cp benchmarks.jar " + LatencyFuzzer.class.getName(), options);
+            System.exit(1);
+            return;
+        }
+        if (line.hasOption("h")) {
+            new HelpFormatter().printHelp("java -cp benchmarks.jar " + LatencyFuzzer.class.getName(), options);
+            return;
+        }
+        List<FuzzTarget> targets = new ArrayList<>();
+        if (line.hasOption("t")) {
+            for (String target : line.getOptionValues("t")) {
+                targets.add(FuzzTarget.SUM_FORMULA.equals(target.trim()) ? FuzzTarget.sumFormula() : FuzzTarget.of(Grammar.valueOf(target.trim())));
+            }
+        } else {
+            for (Grammar grammar : Grammar.values()) {
+                targets.add(FuzzTarget.of(grammar));
+            }
+            targets.add(FuzzTarget.sumFormula());
+        }
+        LatencyFuzzer fuzzer = new LatencyFuzzer(
+                Integer.parseInt(line.getOptionValue("l", "2048")),
+                Integer.parseInt(line.getOptionValue("s", "5")),
+                Integer.parseInt(line.getOptionValue("r", "3")),
+                Double.parseDouble(line.getOptionValue("x", "1.3")),
+                Long.parseLong(line.getOptionValue("m", "1000")),
+                Long.parseLong(line.getOptionValue("e", "42")));
+        List<Result> results = new ArrayList<>();
+        String report = fuzzer.run(targets, results);
+        System.out.print(report);
+        if (line.hasOption("o")) {
+            Path output = Paths.get(line.getOptionValue("o"));
+            if (output.getParent() != null) {
+                Files.createDirectories(output.getParent());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                writer.write(report);
+            }
+        }
+        if (line.hasOption("f") && results.stream().anyMatch((result) -> {
+            return !result.getFlag().isEmpty();
+        })) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Fuzzes all input classes of the given targets and returns the report.
+     *
+     * @param targets the targets to fuzz.
+     * @param results receives the result of each input class.
+     * @return the tab-separated report.
+     */
+    public String run(List<FuzzTarget> targets, List<Result> results) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# jgoslin worst-case latency report\n");
+        sb.append("# java: ").append(System.getProperty("java.vm.name")).append(" ").append(System.getProperty("java.version")).append("\n");
+        sb.append(String.format(Locale.US, "# max length: %d, samples: %d, repeats: %d, max exponent: %.2f, time limit: %d ms, seed: %d%n",
+                maxLength, samples, repeats, maxExponent, TimeUnit.NANOSECONDS.toMillis(timeLimitNanos), randomSeed));
+        List<Result> targetResults = new ArrayList<>();
+        for (FuzzTarget target : targets) {
+            warmUp(target);
+            for (InputClass inputClass : InputClass.forTarget(target)) {
+                targetResults.add(fuzz(target, inputClass));
+            }
+        }
+        long flagged = targetResults.stream().filter((result) -> {
+            return !result.getFlag().isEmpty();
+        }).count();
+        sb.append("# flagged input classes: ").append(flagged).append(" of ").append(targetResults.size()).append("\n");
+        sb.append(HEADER).append("\n");
+        for (Result result : targetResults) {
+            sb.append(result.toRow()).append("\n");
+        }
+        results.addAll(targetResults);
+        return sb.toString();
+    }
+
+    /**
+     * Parses the inputs of the given input class at doubling lengths and
+     * returns the latencies.
+     *
+     * @param target the target to fuzz.
+     * @param inputClass the input class.
+     * @return the latencies of the input class.
+     */
+    public Result fuzz(FuzzTarget target, InputClass inputClass) {
+        Random random = new Random(randomSeed);
+        List<Long> allNanos = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        List<Long> medianNanos = new ArrayList<>();
+        boolean timedOut = false;
+        String slowestInput = "";
+        long slowestNanos = -1;
+        for (int length = MIN_LENGTH; length <= maxLength && !timedOut; length *= 2) {
+            List<Long> lengthNanos = new ArrayList<>();
+            for (int i = 0; i < samples; i++) {
+                String input = inputClass.generate(length, random);
+                for (int j = 0; j < repeats; j++) {
+                    long nanos = parse(target.getParser(), input);
+                    lengthNanos.add(nanos);
+                    if (nanos > slowestNanos) {
+                        slowestNanos = nanos;
+                        slowestInput = input;
+                    }
+                    timedOut |= nanos > timeLimitNanos;
+                }
+            }
+            allNanos.addAll(lengthNanos);
+            lengths.add(length);
+            medianNanos.add(getPercentile(lengthNanos, 50));
+        }
+        double exponent = getExponent(lengths, medianNanos);
+        String flag = timedOut ? TIMEOUT : (exponent > maxExponent ? SUPERLINEAR : "");
+        return new Result(target.getName(), inputClass.getName(), lengths.get(lengths.size() - 1), allNanos.size(),
+                getPercentile(allNanos, 99), getPercentile(allNanos, 100), exponent, medianNanos, flag, slowestInput);
+    }
+
+    private static void warmUp(FuzzTarget target) {
+        for (int i = 0; i < 3; i++) {
+            for (String seed : target.getSeeds()) {
+                parse(target.getParser(), seed);
+            }
+        }
+    }
+
+    private static long parse(VisitorParser<?> parser, String input) {
+        long start = System.nanoTime();
+        try {
+            parser.parse(input);
+        } catch (ParsingException | RuntimeException ex) {
+            // invalid inputs are expected
+        }
+        return System.nanoTime() - start;
+    }
+
+    /*
+     * Nearest-rank percentile.
+     */
+    private static long getPercentile(List<Long> nanos, int percentile) {
+        List<Long> sorted = new ArrayList<>(nanos);
+        sorted.sort(null);
+        int rank = (int) Math.ceil(percentile / 100.0d * sorted.size());
+        return sorted.get(Math.max(0, rank - 1));
+    }
+
+    /*
+     * Slope of the least-squares fit of log(nanos) over log(length), for
+     * lengths where the per-parse overhead no longer dominates. Returns NaN if
+     * there are fewer than two such lengths.
+     */
+    private static double getExponent(List<Integer> lengths, List<Long> nanos) {
+        double n = 0, sumX = 0, sumY = 0, sumXX = 0, sumXY = 0;
+        for (int i = 0; i < lengths.size(); i++) {
+            if (lengths.get(i) < MIN_FIT_LENGTH) {
+                continue;
+            }
+            double x = Math.log(lengths.get(i));
+            double y = Math.log(Math.max(1, nanos.get(i)));
+            n++;
+            sumX += x;
+            sumY += y;
+            sumXX += x * x;
+            sumXY += x * y;
+        }
+        if (n < 2) {
+            return Double.NaN;
+        }
+        return (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom.sumformula;
+
+import de.isas.lipidomics.domain.ElementTable;
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.palinom.BenchmarkCorpus;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the average time to parse a sum formula with the
+ * {@link SumFormulaVisitorParser}. The sum formulas are those of the lipids in
+ * the benchmark corpus.
+ *
+ * @author nils.hoffmann
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SumFormulaVisitorParserBenchmark {
+
+    private SumFormulaVisitorParser parser;
+
+    private String[] sumFormulas;
+
+    private int index;
+
+    @Setup
+    public void setup() throws ParsingException {
+        parser = new SumFormulaVisitorParser();
+        sumFormulas = BenchmarkCorpus.getLipids().stream().map(LipidAdduct::getSumFormula).filter((sumFormula) -> {
+            return !sumFormula.isEmpty();
+        }).distinct().toArray(String[]::new);
+    }
+
+    @Benchmark
+    public ElementTable parse() throws ParsingException {
+        index = (index + 1) % sumFormulas.length;
+        return parser.parse(sumFormulas[index]);
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom.throughput;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.domain.LipidCategory;
+import de.isas.lipidomics.domain.LipidClass;
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.VisitorParser;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+/**
+ * Streams lipid name corpora through the grammar parsers and reports, per
+ * grammar and lipid category, the throughput in names per second, the failure
+ * rate, the bytes allocated per name and the parse latency percentiles.
+ *
+ * Each corpus is a file with one lipid name per line, or a tab-separated file
+ * with the lipid name in the first column. Each corpus is parsed with its
+ * grammar in one or more untimed warm-up passes first, followed by one
+ * measured pass. The lipid category of a name is derived from its head group
+ * prefix, e.g. 'PC' in 'PC(16:0/18:1)', so that it is independent of the parse
+ * outcome.
+ *
+ * The report is a tab-separated table with one row per grammar and category,
+ * in grammar and category declaration order, and a row with category 'ALL'
+ * for the totals of each grammar. Lines starting with '#' describe the
+ * environment.
+ *
+ * @author nils.hoffmann
+ */
+public final class CorpusThroughputHarness {
+
+    public static final String ALL_CATEGORIES = "ALL";
+
+    private final int warmUpPasses;
+    private final com.sun.management.ThreadMXBean threadMXBean;
+    private final long allocationOverhead;
+
+    public CorpusThroughputHarness(int warmUpPasses) {
+        this.warmUpPasses = warmUpPasses;
+        this.threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (threadMXBean.isThreadAllocatedMemorySupported()) {
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        this.allocationOverhead = measureAllocationOverhead();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options = new Options();
+        options.addOption("c", "corpus", true, "A corpus to parse, as GRAMMAR=FILE. May be repeated. Grammars are: " + Arrays.toString(Grammar.values()));
+        options.addOption("w", "warmUpPasses", true, "Number of untimed passes over each corpus before the measured pass. Default: 1");
+        options.addOption("o", "output", true, "Write the report to the given file in addition to std out.");
+        options.addOption("h", "help", false, "Print help message.");
+        CommandLine line;
+        try {
+            line = new DefaultParser().parse(options, args);
+        } catch (ParseException ex) {
+            System.err.println(ex.getMessage());
+            new HelpFormatter().printHelp("java -cp benchmarks.jar " + CorpusThroughputHarness.class.getName(), options);
+            System.exit(1);
+            return;
+        }
+        if (line.hasOption("h") || !line.hasOption("c")) {
+            new HelpFormatter().printHelp("java -cp benchmarks.jar " + CorpusThroughputHarness.class.getName(), options);
+            return;
+        }
+        Map<Grammar, Path> corpora = new LinkedHashMap<>();
+        for (String corpus : line.getOptionValues("c")) {
+            String[] grammarAndFile = corpus.split("=", 2);
+            if (grammarAndFile.length != 2) {
+                throw new IllegalArgumentException("Expected corpus as GRAMMAR=FILE, but was: " + corpus);
+            }
+            corpora.put(Grammar.valueOf(grammarAndFile[0].trim()), Paths.get(grammarAndFile[1].trim()));
+        }
+        int warmUpPasses = Integer.parseInt(line.getOptionValue("w", "1"));
+        String report = new CorpusThroughputHarness(warmUpPasses).run(corpora);
+        System.out.print(report);
+        if (line.hasOption("o")) {
+            Path output = Paths.get(line.getOptionValue("o"));
+            if (output.getParent() != null) {
+                Files.createDirectories(output.getParent());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                writer.write(report);
+            }
+        }
+    }
+
+    /**
+     * Parses each corpus with its grammar and returns the report.
+     *
+     * @param corpora the corpus file per grammar.
+     * @return the tab-separated report.
+     * @throws IOException if a corpus could not be read.
+     */
+    public String run(Map<Grammar, Path> corpora) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# jgoslin corpus throughput report\n");
+        sb.append("# java: ").append(System.getProperty("java.vm.name")).append(" ").append(System.getProperty("java.version")).append("\n");
+        sb.append("# os: ").append(System.getProperty("os.name")).append(" ").append(System.getProperty("os.arch")).append(", ").append(Runtime.getRuntime().availableProcessors()).append(" processors\n");
+        sb.append("# warm-up passes: ").append(warmUpPasses).append("\n");
+        List<String> rows = new ArrayList<>();
+        for (Grammar grammar : Grammar.values()) {
+            Path corpus = corpora.get(grammar);
+            if (corpus == null) {
+                continue;
+            }
+            List<String> names = readCorpus(corpus);
+            sb.append("# corpus: ").append(grammar).append("=").append(corpus.getFileName()).append(", ").append(names.size()).append(" names\n");
+            Map<LipidCategory, ThroughputStatistics> statistics = measure(grammar, names);
+            ThroughputStatistics all = new ThroughputStatistics(grammar.name(), ALL_CATEGORIES);
+            for (ThroughputStatistics categoryStatistics : statistics.values()) {
+                rows.add(categoryStatistics.toRow());
+                all.add(categoryStatistics);
+            }
+            rows.add(all.toRow());
+        }
+        sb.append(ThroughputStatistics.HEADER).append("\n");
+        for (String row : rows) {
+            sb.append(row).append("\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parses the lipid names with the given grammar and records the
+     * statistics of the measured pass per lipid category.
+     *
+     * @param grammar the grammar to use.
+     * @param names the lipid names.
+     * @return the statistics per lipid category, in declaration order.
+     */
+    public Map<LipidCategory, ThroughputStatistics> measure(Grammar grammar, List<String> names) {
+        VisitorParser<LipidAdduct> parser = grammar.newParser();
+        for (int i = 0; i < warmUpPasses; i++) {
+            for (String name : names) {
+                parse(parser, name);
+            }
+        }
+        Map<LipidCategory, ThroughputStatistics> statistics = new EnumMap<>(LipidCategory.class);
+        long threadId = Thread.currentThread().getId();
+        for (String name : names) {
+            LipidCategory category = getCategory(name);
+            long bytesBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            boolean success = parse(parser, name);
+            long nanos = System.nanoTime() - start;
+            long bytes = threadMXBean.getThreadAllocatedBytes(threadId) - bytesBefore - allocationOverhead;
+            statistics.computeIfAbsent(category, (key) -> {
+                return new ThroughputStatistics(grammar.name(), key.name());
+            }).record(nanos, Math.max(0, bytes), success);
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the lipid category for the head group prefix of the given lipid
+     * name, or {@link LipidCategory#UNDEFINED}.
+     *
+     * @param lipidName the lipid name.
+     * @return the lipid category.
+     */
+    public static LipidCategory getCategory(String lipidName) {
+        int end = 0;
+        while (end < lipidName.length() && "( [".indexOf(lipidName.charAt(end)) < 0) {
+            end++;
+        }
+        return LipidClass.forHeadGroup(lipidName.substring(0, end)).getCategory();
+    }
+
+    private static boolean parse(VisitorParser<LipidAdduct> parser, String name) {
+        try {
+            parser.parse(name);
+            return true;
+        } catch (ParsingException | RuntimeException ex) {
+            return false;
+        }
+    }
+
+    /*
+     * Reading the allocated bytes of a thread allocates itself, this is
+     * subtracted from the measured bytes per name.
+     */
+    private long measureAllocationOverhead() {
+        long threadId = Thread.currentThread().getId();
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long bytesBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+            overhead = Math.min(overhead, threadMXBean.getThreadAllocatedBytes(threadId) - bytesBefore);
+        }
+        return overhead;
+    }
+
+    private static List<String> readCorpus(Path corpus) throws IOException {
+        try (Stream<String> lines = Files.lines(corpus, StandardCharsets.UTF_8)) {
+            return lines.map((line) -> {
+                String name = line.split("\t", 2)[0].trim();
+                if (name.length() > 1 && name.startsWith("\"") && name.endsWith("\"")) {
+                    name = name.substring(1, name.length() - 1);
+                }
+                return name;
+            }).filter((name) -> {
+                return !name.isEmpty() && !name.startsWith("#");
+            }).collect(Collectors.toList());
+        }
+    }
+}
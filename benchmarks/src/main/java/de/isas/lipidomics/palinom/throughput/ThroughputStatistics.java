@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom.throughput;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Accumulates the parse outcomes, latencies and allocated bytes of the lipid
+ * names of one grammar and lipid category.
+ *
+ * @author nils.hoffmann
+ */
+public final class ThroughputStatistics {
+
+    /**
+     * The column names of {@link #toRow()}, tab-separated.
+     */
+    public static final String HEADER = String.join("\t",
+            "Grammar", "Category", "Names", "Failed", "Failure Rate",
+            "Names/s", "Bytes/Name", "p50 [us]", "p90 [us]", "p99 [us]", "p99.9 [us]", "Max [us]");
+
+    private final String grammar;
+    private final String category;
+    private long[] latencies = new long[1024];
+    private int names;
+    private int failed;
+    private long totalNanos;
+    private long totalBytes;
+
+    public ThroughputStatistics(String grammar, String category) {
+        this.grammar = grammar;
+        this.category = category;
+    }
+
+    /**
+     * Records the outcome of parsing a single lipid name.
+     *
+     * @param nanos the parse latency in nanoseconds.
+     * @param bytes the number of bytes allocated while parsing.
+     * @param success true, if the lipid name was parsed successfully.
+     */
+    public void record(long nanos, long bytes, boolean success) {
+        if (names == latencies.length) {
+            latencies = Arrays.copyOf(latencies, names * 2);
+        }
+        latencies[names++] = nanos;
+        totalNanos += nanos;
+        totalBytes += bytes;
+        if (!success) {
+            failed++;
+        }
+    }
+
+    /**
+     * Adds all recorded outcomes of other to these statistics.
+     *
+     * @param other the statistics to add.
+     */
+    public void add(ThroughputStatistics other) {
+        latencies = Arrays.copyOf(latencies, Math.max(latencies.length, names + other.names));
+        System.arraycopy(other.latencies, 0, latencies, names, other.names);
+        names += other.names;
+        failed += other.failed;
+        totalNanos += other.totalNanos;
+        totalBytes += other.totalBytes;
+    }
+
+    public int getNames() {
+        return names;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Returns the latency at the given percentile, using the nearest-rank
+     * method.
+     *
+     * @param percentile the percentile, between 0 and 100.
+     * @return the latency in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        if (names == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencies, names);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0d * names);
+        return sorted[Math.min(names, Math.max(1, rank)) - 1];
+    }
+
+    /**
+     * Returns the statistics as a tab-separated row with the columns of
+     * {@link #HEADER}.
+     *
+     * @return the row.
+     */
+    public String toRow() {
+        double seconds = totalNanos / 1e9d;
+        return String.join("\t",
+                grammar,
+                category,
+                Integer.toString(names),
+                Integer.toString(failed),
+                String.format(Locale.US, "%.4f", names == 0 ? 0.0d : failed / (double) names),
+                String.format(Locale.US, "%.1f", seconds == 0 ? 0.0d : names / seconds),
+                String.format(Locale.US, "%.0f", names == 0 ? 0.0d : totalBytes / (double) names),
+                toMicros(getPercentile(50)),
+                toMicros(getPercentile(90)),
+                toMicros(getPercentile(99)),
+                toMicros(getPercentile(99.9)),
+                toMicros(getPercentile(100)));
+    }
+
+    private static String toMicros(long nanos) {
+        return String.format(Locale.US, "%.1f", nanos / 1e3d);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom.cli;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads lines from a reader on a separate daemon thread and hands them over to
+ * the consuming thread in batches. This is used to overlap the decompression of
+ * gzip compressed input with lipid name parsing.
+ *
+ * @author nils.hoffmann
+ */
+@Slf4j
+class AsyncLineReader implements Iterator<String>, Closeable {
+
+    private static final int BATCH_SIZE = 1024;
+    private static final int QUEUE_CAPACITY = 16;
+    private static final List<String> END_OF_INPUT = Collections.emptyList();
+
+    private final BlockingQueue<List<String>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread readerThread;
+    private volatile Throwable failure;
+    private Iterator<String> current = Collections.emptyIterator();
+    private boolean finished = false;
+
+    /**
+     * Starts reading from the provided reader on a new daemon thread.
+     *
+     * @param reader the reader to read lines from. Will be closed when all
+     * lines have been read, or when reading fails. Any failure of the reader
+     * thread is rethrown to the consumer after the lines read before it.
+     * @param name the name of the reader thread.
+     */
+    AsyncLineReader(BufferedReader reader, String name) {
+        this.readerThread = new Thread(() -> {
+            List<String> batch = new ArrayList<>(BATCH_SIZE);
+            try (BufferedReader br = reader) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    batch.add(line);
+                    if (batch.size() == BATCH_SIZE) {
+                        queue.put(batch);
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                log.debug("Reader thread {} was interrupted.", name);
+                Thread.currentThread().interrupt();
+            } catch (Throwable ex) {
+                failure = ex;
+            } finally {
+                /* always hand over the last batch and signal the end, unless the consumer closed the reader */
+                if (!Thread.currentThread().isInterrupted()) {
+                    try {
+                        if (!batch.isEmpty()) {
+                            queue.put(batch);
+                        }
+                        queue.put(END_OF_INPUT);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }, name);
+        this.readerThread.setDaemon(true);
+        this.readerThread.start();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext() && !finished) {
+            try {
+                List<String> batch = queue.take();
+                if (batch == END_OF_INPUT) {
+                    finished = true;
+                    if (failure instanceof IOException) {
+                        throw new UncheckedIOException("Caught exception while reading input!", (IOException) failure);
+                    } else if (failure != null) {
+                        throw new IllegalStateException("Caught exception while reading input!", failure);
+                    }
+                } else {
+                    current = batch.iterator();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for input!", ex);
+            }
+        }
+        return current.hasNext();
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * Returns a sequential stream of the lines. Closing the stream stops the
+     * reader thread.
+     *
+     * @return the stream of lines.
+     */
+    Stream<String> lines() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+                false
+        ).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        readerThread.interrupt();
+    }
+
+}
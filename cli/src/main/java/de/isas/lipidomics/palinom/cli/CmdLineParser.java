@@ -20,24 +20,30 @@ import de.isas.lipidomics.domain.LipidAdduct;
 import de.isas.lipidomics.domain.LipidClass;
 import de.isas.lipidomics.domain.LipidLevel;
 import de.isas.lipidomics.domain.LipidSpeciesInfo;
+import de.isas.lipidomics.palinom.Goslin;
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.GrammarFallback;
+import de.isas.lipidomics.palinom.ParseResult;
+import de.isas.lipidomics.palinom.ParserOptions;
 import de.isas.lipidomics.palinom.SyntaxErrorListener;
-import de.isas.lipidomics.palinom.VisitorParser;
 import de.isas.lipidomics.palinom.exceptions.ConstraintViolationException;
-import de.isas.lipidomics.palinom.exceptions.ParsingException;
-import de.isas.lipidomics.palinom.goslin.GoslinVisitorParser;
-import de.isas.lipidomics.palinom.goslinfragments.GoslinFragmentsVisitorParser;
-import de.isas.lipidomics.palinom.hmdb.HmdbVisitorParser;
-import de.isas.lipidomics.palinom.lipidmaps.LipidMapsVisitorParser;
-import de.isas.lipidomics.palinom.swisslipids.SwissLipidsVisitorParser;
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -47,10 +53,14 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.cli.CommandLine;
@@ -70,6 +80,55 @@ public class CmdLineParser {
 
     public static final String LIPIDMAPS_CLASS_REGEXP = ".+\\[([A-Z0-9]+)\\]";
 
+    public static final String DEFAULT_OUTPUT_FILE = "goslin-out.tsv";
+
+    public static final String GZIP_EXTENSION = ".gz";
+
+    private static final int GZIP_BUFFER_SIZE = 65536;
+
+    /*
+     * The grammar option of parse cache entries that were parsed with all
+     * grammars.
+     */
+    private static final String ALL_GRAMMARS = "ALL";
+
+    /*
+     * Parse with all grammars in their declaration order, or with a single
+     * grammar, and record the fallback decisions like the BatchParser.
+     */
+    private static final GrammarFallback FALLBACK = new GrammarFallback(Arrays.asList(Grammar.values()), ParserOptions.DEFAULT);
+    private static final Map<Grammar, GrammarFallback> GRAMMAR_FALLBACKS = new EnumMap<>(Grammar.class);
+
+    static {
+        for (Grammar grammar : Grammar.values()) {
+            GRAMMAR_FALLBACKS.put(grammar, new GrammarFallback(Arrays.asList(grammar), ParserOptions.DEFAULT));
+        }
+    }
+
+    /*
+     * Creates a syntax error listener for each grammar that a grammar fallback
+     * parses a name with. Grammars whose pre-filter rejected the name have
+     * none.
+     */
+    private static final class SyntaxErrorListeners implements Function<Grammar, SyntaxErrorListener> {
+
+        private final Map<Grammar, SyntaxErrorListener> listeners = new EnumMap<>(Grammar.class);
+
+        @Override
+        public SyntaxErrorListener apply(Grammar grammar) {
+            SyntaxErrorListener listener = new SyntaxErrorListener();
+            listeners.put(grammar, listener);
+            return listener;
+        }
+    }
+
+    private static String getAppVersion() throws IOException {
+        Properties p = new Properties();
+        p.load(CmdLineParser.class.getResourceAsStream(
+                "/application.properties"));
+        return p.getProperty("app.version", "unknown version");
+    }
+
     private static String getAppInfo() throws IOException {
         Properties p = new Properties();
         p.load(CmdLineParser.class.getResourceAsStream(
@@ -125,7 +184,12 @@ public class CmdLineParser {
         String lipidNameOpt = addLipidNameInputOption(options);
         String lipidFileOpt = addLipidFileInputOption(options);
         String outputToFileOpt = addOutputToFileOption(options);
+        String outputPathOpt = addOutputPathOption(options);
+        String gzipOpt = addGzipOption(options);
         String grammarOpt = addGrammarOption(options);
+        String dfaCacheOpt = addDfaCacheOption(options);
+        String parseCacheOpt = addParseCacheOption(options);
+        String parseCacheSizeOpt = addParseCacheSizeOption(options);
 
         CommandLine line = parser.parse(options, args);
         if (line.getOptions().length == 0 || line.hasOption(helpOpt)) {
@@ -135,30 +199,62 @@ public class CmdLineParser {
             log.info(getAppInfo());
         } else {
             boolean toFile = false;
-            if (line.hasOption(outputToFileOpt)) {
+            if (line.hasOption(outputToFileOpt) || line.hasOption(outputPathOpt)) {
                 toFile = true;
             }
+            boolean gzip = line.hasOption(gzipOpt);
             Stream<String> lipidNames = Stream.empty();
             if (line.hasOption(lipidNameOpt)) {
                 lipidNames = Stream.of(line.getOptionValues(lipidNameOpt));
             } else if (line.hasOption(lipidFileOpt)) {
-                lipidNames = Files.lines(new File(line.getOptionValue(lipidFileOpt)).toPath()).filter((t) -> {
+                File inputFile = new File(line.getOptionValue(lipidFileOpt));
+                lipidNames = readLines(inputFile, gzip || isGzipped(inputFile)).filter((t) -> {
                     return !t.isEmpty();
                 });
             }
-            List<Pair<String, List<ValidationResult>>> results = Collections.emptyList();
+            Set<Grammar> grammars = EnumSet.allOf(Grammar.class);
             if (line.hasOption(grammarOpt)) {
-                results = parseNamesWith(lipidNames, ValidationResult.Grammar.valueOf(line.getOptionValue(grammarOpt)));
-            } else {
-                results = parseNames(lipidNames);
+                ValidationResult.Grammar grammar = ValidationResult.Grammar.valueOf(line.getOptionValue(grammarOpt));
+                grammars = grammar == ValidationResult.Grammar.NONE ? EnumSet.noneOf(Grammar.class) : EnumSet.of(Grammar.valueOf(grammar.name()));
+            }
+            Path dfaCache = null;
+            if (line.hasOption(dfaCacheOpt)) {
+                dfaCache = Paths.get(line.getOptionValue(dfaCacheOpt));
+                Set<Grammar> restored = Goslin.loadDfaSnapshots(grammars, dfaCache);
+                log.info("Restored parser caches for {} from '{}'.", restored, dfaCache);
+            }
+            ParseCache parseCache = null;
+            if (line.hasOption(parseCacheOpt)) {
+                long maxBytes = ParseCache.DEFAULT_MAX_BYTES;
+                if (line.hasOption(parseCacheSizeOpt)) {
+                    maxBytes = Long.parseLong(line.getOptionValue(parseCacheSizeOpt)) * 1024 * 1024;
+                }
+                parseCache = new ParseCache(Paths.get(line.getOptionValue(parseCacheOpt)), maxBytes, getAppVersion());
+            }
+            List<Pair<String, List<ValidationResult>>> results = Collections.emptyList();
+            try (Stream<String> names = lipidNames) {
+                if (line.hasOption(grammarOpt)) {
+                    results = parseNamesWith(names, ValidationResult.Grammar.valueOf(line.getOptionValue(grammarOpt)), parseCache);
+                } else {
+                    results = parseNames(names, parseCache);
+                }
+            } finally {
+                if (parseCache != null) {
+                    parseCache.close();
+                }
+            }
+            if (dfaCache != null) {
+                Goslin.saveDfaSnapshots(grammars, dfaCache);
+                log.info("Saved parser caches for {} to '{}'.", grammars, dfaCache);
             }
             if (results.isEmpty()) {
                 log.info("No results generated. Please check input file or lipid names passed on the cli!");
                 System.exit(1);
             }
             if (toFile) {
-                log.info("Saving output to 'goslin-out.tsv'.");
-                boolean successful = writeToFile(new File("goslin-out.tsv"), results);
+                File outputFile = new File(line.getOptionValue(outputPathOpt, gzip ? DEFAULT_OUTPUT_FILE + GZIP_EXTENSION : DEFAULT_OUTPUT_FILE));
+                log.info("Saving output to '{}'.", outputFile);
+                boolean successful = writeToFile(outputFile, results, gzip || isGzipped(outputFile));
                 if (!successful) {
                     System.exit(1);
                 }
@@ -173,7 +269,7 @@ public class CmdLineParser {
     }
 
     @Data
-    private static class ValidationResult {
+    static class ValidationResult {
 
         public static enum Grammar {
             GOSLIN, GOSLIN_FRAGMENTS, LIPIDMAPS, SWISSLIPIDS, HMDB, NONE
@@ -218,8 +314,12 @@ public class CmdLineParser {
     }
 
     protected static boolean writeToFile(File f, List<Pair<String, List<ValidationResult>>> results) {
+        return writeToFile(f, results, isGzipped(f));
+    }
 
-        try (BufferedWriter bw = Files.newBufferedWriter(f.toPath())) {
+    protected static boolean writeToFile(File f, List<Pair<String, List<ValidationResult>>> results, boolean gzip) {
+
+        try (BufferedWriter bw = newWriter(f, gzip)) {
             writeToWriter(bw, results);
             return true;
         } catch (IOException ex) {
@@ -228,6 +328,60 @@ public class CmdLineParser {
         }
     }
 
+    /**
+     * Returns true, if the file name ends with the gzip extension '.gz'.
+     *
+     * @param f the file to check.
+     * @return true if the file is expected to contain gzip compressed data.
+     */
+    protected static boolean isGzipped(File f) {
+        return f.getName().toLowerCase(Locale.US).endsWith(GZIP_EXTENSION);
+    }
+
+    /**
+     * Returns a stream of the lines in the provided file. If gzip is true, the
+     * file is decompressed on a separate thread while the returned stream is
+     * consumed.
+     *
+     * @param f the file to read.
+     * @param gzip whether the file contains gzip compressed data.
+     * @return the lines of the file. Close the stream to release the file.
+     * @throws IOException if the file can not be opened.
+     */
+    protected static Stream<String> readLines(File f, boolean gzip) throws IOException {
+        if (!gzip) {
+            return Files.lines(f.toPath());
+        }
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(
+                        new GZIPInputStream(Files.newInputStream(f.toPath()), GZIP_BUFFER_SIZE),
+                        StandardCharsets.UTF_8
+                )
+        );
+        return new AsyncLineReader(reader, "jgoslin-gunzip-" + f.getName()).lines();
+    }
+
+    /**
+     * Returns a new writer for the provided file, optionally compressing the
+     * output with gzip.
+     *
+     * @param f the file to write to.
+     * @param gzip whether to compress the output with gzip.
+     * @return the writer.
+     * @throws IOException if the file can not be created.
+     */
+    protected static BufferedWriter newWriter(File f, boolean gzip) throws IOException {
+        if (!gzip) {
+            return Files.newBufferedWriter(f.toPath());
+        }
+        return new BufferedWriter(
+                new OutputStreamWriter(
+                        new GZIPOutputStream(Files.newOutputStream(f.toPath()), GZIP_BUFFER_SIZE),
+                        StandardCharsets.UTF_8
+                )
+        );
+    }
+
     protected static String toTable(List<Pair<String, List<ValidationResult>>> results) {
         StringBuilder sb = new StringBuilder();
         HashSet<String> keys = new LinkedHashSet<>();
@@ -298,99 +452,137 @@ public class CmdLineParser {
     }
 
     protected static List<Pair<String, List<ValidationResult>>> parseNames(Stream<String> lipidNames) {
+        return parseNames(lipidNames, null);
+    }
+
+    /**
+     * Parses the lipid names with all grammars, or returns their cached
+     * results.
+     *
+     * @param lipidNames the lipid names.
+     * @param parseCache the parse cache, or null.
+     * @return the lipid names and their validation results.
+     */
+    protected static List<Pair<String, List<ValidationResult>>> parseNames(Stream<String> lipidNames, ParseCache parseCache) {
         return lipidNames.map((t) -> {
-            return parseName(t);
+            return parseCached(parseCache, ALL_GRAMMARS, t, (name) -> {
+                return parseName(name).getValue();
+            });
         }).collect(Collectors.toList());
     }
 
     protected static List<Pair<String, List<ValidationResult>>> parseNamesWith(Stream<String> lipidNames, ValidationResult.Grammar grammar) {
+        return parseNamesWith(lipidNames, grammar, null);
+    }
+
+    /**
+     * Parses the lipid names with the given grammar, or returns their cached
+     * results.
+     *
+     * @param lipidNames the lipid names.
+     * @param grammar the grammar.
+     * @param parseCache the parse cache, or null.
+     * @return the lipid names and their validation results.
+     */
+    protected static List<Pair<String, List<ValidationResult>>> parseNamesWith(Stream<String> lipidNames, ValidationResult.Grammar grammar, ParseCache parseCache) {
         return lipidNames.map((t) -> {
-            return parseNameWith(t, grammar);
-        }).collect(Collectors.toList()).stream().map((t) -> {
-            return Pair.of(t.getKey(), Arrays.asList(t.getValue()));
+            return parseCached(parseCache, grammar.name(), t, (name) -> {
+                return Arrays.asList(parseNameWith(name, grammar).getValue());
+            });
         }).collect(Collectors.toList());
     }
 
-    protected static Pair<String, ValidationResult> parseNameWith(String lipidName, ValidationResult.Grammar grammar) {
-        VisitorParser<LipidAdduct> parser;
-        SyntaxErrorListener listener = new SyntaxErrorListener();
-        ValidationResult validationResult = new ValidationResult();
-        switch (grammar) {
-            case GOSLIN:
-                parser = new GoslinVisitorParser();
-                break;
-            case GOSLIN_FRAGMENTS:
-                parser = new GoslinFragmentsVisitorParser();
-                break;
-            case LIPIDMAPS:
-                parser = new LipidMapsVisitorParser();
-                break;
-            case SWISSLIPIDS:
-                parser = new SwissLipidsVisitorParser();
-                break;
-            case HMDB:
-                parser = new HmdbVisitorParser();
-                break;
-            default:
-                throw new ConstraintViolationException("Unsupported grammar: " + grammar);
+    private static Pair<String, List<ValidationResult>> parseCached(ParseCache parseCache, String grammar, String lipidName, Function<String, List<ValidationResult>> parse) {
+        if (parseCache == null) {
+            return Pair.of(lipidName, parse.apply(lipidName));
         }
-        try {
-            LipidAdduct la = parser.parse(lipidName, listener);
-            validationResult.setLipidName(lipidName);
-            validationResult.setLipidAdduct(la);
-            validationResult.setGrammar(grammar);
-            validationResult.setLevel(la.getLipid().getInfo().getLevel());
-            validationResult.setMessages(toStringMessages(listener));
-            validationResult.setLipidMapsCategory(la.getLipid().getLipidCategory().name());
-            validationResult.setLipidMapsClass(getLipidMapsClassAbbreviation(la));
-            validationResult.setLipidSpeciesInfo(la.getLipid().getInfo());
-            try {
-                String normalizedName = la.getLipid().getLipidString();
-                validationResult.setGoslinName(normalizedName);
-            } catch (RuntimeException re) {
-                log.debug("Parsing error for {}!", lipidName);
-            }
-            extractFas(la, validationResult);
-        } catch (ParsingException ex) {
-            validationResult.setLipidName(lipidName);
-            validationResult.setMessages(toStringMessages(listener));
-            validationResult.setGrammar(grammar);
-            log.debug("Caught exception while parsing " + lipidName + " with " + grammar + " grammar: ", ex);
+        Optional<List<ValidationResult>> cached = parseCache.get(grammar, lipidName);
+        if (cached.isPresent()) {
+            return Pair.of(lipidName, cached.get());
+        }
+        List<ValidationResult> results = parse.apply(lipidName);
+        parseCache.put(grammar, lipidName, results);
+        return Pair.of(lipidName, results);
+    }
 
+    protected static Pair<String, ValidationResult> parseNameWith(String lipidName, ValidationResult.Grammar grammar) {
+        if (grammar == ValidationResult.Grammar.NONE) {
+            throw new ConstraintViolationException("Unsupported grammar: " + grammar);
         }
-        return Pair.of(lipidName, validationResult);
+        SyntaxErrorListeners listeners = new SyntaxErrorListeners();
+        ParseResult<LipidAdduct> result = GRAMMAR_FALLBACKS.get(Grammar.valueOf(grammar.name())).parse(0, lipidName, listeners);
+        return Pair.of(lipidName, toGrammarValidationResult(lipidName, grammar, result, listeners));
     }
 
-    protected static Pair<String, List<ValidationResult>> parseName(String lipidName) {
-        List<ValidationResult> results = new ArrayList<>();
-        Pair<String, ValidationResult> goslinResult = parseNameWith(lipidName, ValidationResult.Grammar.GOSLIN);
-        if (goslinResult.getValue().getMessages().isEmpty()) {
-            return Pair.of(goslinResult.getKey(), Arrays.asList(goslinResult.getValue()));
+    /*
+     * Creates the validation result of the given grammar from the result of a
+     * grammar fallback, which either parsed the name with that grammar or
+     * failed.
+     */
+    private static ValidationResult toGrammarValidationResult(String lipidName, ValidationResult.Grammar grammar, ParseResult<LipidAdduct> result, SyntaxErrorListeners listeners) {
+        SyntaxErrorListener listener = listeners.listeners.get(Grammar.valueOf(grammar.name()));
+        if (listener == null) {
+            ValidationResult validationResult = new ValidationResult();
+            validationResult.setLipidName(lipidName);
+            validationResult.setMessages(Arrays.asList("Lipid name contains characters or starts with a head group not supported by the " + grammar + " grammar!"));
+            validationResult.setGrammar(grammar);
+            return validationResult;
         }
-        Pair<String, ValidationResult> goslinFragmentsResult = parseNameWith(lipidName, ValidationResult.Grammar.GOSLIN_FRAGMENTS);
-        if (goslinFragmentsResult.getValue().getMessages().isEmpty()) {
-            return Pair.of(goslinFragmentsResult.getKey(), Arrays.asList(goslinFragmentsResult.getValue()));
+        if (!result.isSuccess()) {
+            log.debug("Caught exception while parsing " + lipidName + " with " + grammar + " grammar: ", result.getError());
         }
-        Pair<String, ValidationResult> lipidMapsResult = parseNameWith(lipidName, ValidationResult.Grammar.LIPIDMAPS);
-        if (lipidMapsResult.getValue().getMessages().isEmpty()) {
-            return Pair.of(lipidMapsResult.getKey(), Arrays.asList(lipidMapsResult.getValue()));
+        return toValidationResult(lipidName, grammar, result.getValue(), toStringMessages(listener));
+    }
+
+    /**
+     * Creates the validation result of a lipid name, e.g. from a parsed or
+     * cached lipid adduct.
+     *
+     * @param lipidName the lipid name.
+     * @param grammar the grammar.
+     * @param la the lipid adduct, or null if the name could not be parsed.
+     * @param messages the syntax error messages.
+     * @return the validation result.
+     */
+    static ValidationResult toValidationResult(String lipidName, ValidationResult.Grammar grammar, LipidAdduct la, List<String> messages) {
+        ValidationResult validationResult = new ValidationResult();
+        validationResult.setLipidName(lipidName);
+        validationResult.setGrammar(grammar);
+        validationResult.setMessages(messages);
+        if (la == null) {
+            if (grammar == ValidationResult.Grammar.NONE) {
+                validationResult.setGoslinName("");
+            }
+            return validationResult;
         }
-        Pair<String, ValidationResult> swissLipidsResult = parseNameWith(lipidName, ValidationResult.Grammar.SWISSLIPIDS);
-        if (swissLipidsResult.getValue().getMessages().isEmpty()) {
-            return Pair.of(swissLipidsResult.getKey(), Arrays.asList(swissLipidsResult.getValue()));
+        validationResult.setLipidAdduct(la);
+        validationResult.setLevel(la.getLipid().getInfo().getLevel());
+        validationResult.setLipidMapsCategory(la.getLipid().getLipidCategory().name());
+        validationResult.setLipidMapsClass(getLipidMapsClassAbbreviation(la));
+        validationResult.setLipidSpeciesInfo(la.getLipid().getInfo());
+        try {
+            String normalizedName = la.getLipid().getLipidString();
+            validationResult.setGoslinName(normalizedName);
+        } catch (RuntimeException re) {
+            log.debug("Parsing error for {}!", lipidName);
         }
-        Pair<String, ValidationResult> hmdbResult = parseNameWith(lipidName, ValidationResult.Grammar.HMDB);
-        if (hmdbResult.getValue().getMessages().isEmpty()) {
-            return Pair.of(hmdbResult.getKey(), Arrays.asList(hmdbResult.getValue()));
+        extractFas(la, validationResult);
+        return validationResult;
+    }
+
+    protected static Pair<String, List<ValidationResult>> parseName(String lipidName) {
+        SyntaxErrorListeners listeners = new SyntaxErrorListeners();
+        ParseResult<LipidAdduct> result = FALLBACK.parse(0, lipidName, listeners);
+        if (result.isSuccess()) {
+            ValidationResult.Grammar grammar = ValidationResult.Grammar.valueOf(result.getGrammar().name());
+            return Pair.of(lipidName, Arrays.asList(toGrammarValidationResult(lipidName, grammar, result, listeners)));
         }
-        ValidationResult r = new ValidationResult();
-        r.setGoslinName("");
-        r.setLipidName(lipidName);
-        r.setGrammar(ValidationResult.Grammar.NONE);
-        List<String> messages = new ArrayList<>(hmdbResult.getValue().getMessages());
+        List<Grammar> grammars = FALLBACK.getGrammars();
+        ValidationResult.Grammar lastGrammar = ValidationResult.Grammar.valueOf(grammars.get(grammars.size() - 1).name());
+        List<String> messages = new ArrayList<>(toGrammarValidationResult(lipidName, lastGrammar, result, listeners).getMessages());
         messages.add("Lipid name could not be parsed with any grammar!");
-        r.setMessages(messages);
-        results.add(r);
+        List<ValidationResult> results = new ArrayList<>();
+        results.add(toValidationResult(lipidName, ValidationResult.Grammar.NONE, null, messages));
         return Pair.of(lipidName, results);
     }
 
@@ -442,10 +634,40 @@ public class CmdLineParser {
 
     protected static String addOutputToFileOption(Options options) {
         String outputToFileOpt = "outputFile";
-        options.addOption("o", outputToFileOpt, false, "Write output to file 'goslin-out.tsv' instead of to std out.");
+        options.addOption("o", outputToFileOpt, false, "Write output to file '" + DEFAULT_OUTPUT_FILE + "' instead of to std out.");
         return outputToFileOpt;
     }
 
+    protected static String addOutputPathOption(Options options) {
+        String outputPathOpt = "outputPath";
+        options.addOption("p", outputPathOpt, true, "Write output to the given file instead of to std out. Output is gzip compressed if the file name ends with '" + GZIP_EXTENSION + "'.");
+        return outputPathOpt;
+    }
+
+    protected static String addGzipOption(Options options) {
+        String gzipOpt = "gzip";
+        options.addOption("z", gzipOpt, false, "Read gzip compressed input from the lipid name file and write gzip compressed output, independent of the file extensions. Files ending with '" + GZIP_EXTENSION + "' are always treated as gzip compressed.");
+        return gzipOpt;
+    }
+
+    protected static String addDfaCacheOption(Options options) {
+        String dfaCacheOpt = "dfaCache";
+        options.addOption("c", dfaCacheOpt, true, "Restore the parser prediction caches from the given directory before parsing and save them there afterwards. Speeds up repeated runs on short inputs.");
+        return dfaCacheOpt;
+    }
+
+    protected static String addParseCacheOption(Options options) {
+        String parseCacheOpt = "parseCache";
+        options.addOption("k", parseCacheOpt, true, "Read the results of previously parsed lipid names from the given cache file and add the results of new names to it. The cache is cleared when the version of jgoslin changes.");
+        return parseCacheOpt;
+    }
+
+    protected static String addParseCacheSizeOption(Options options) {
+        String parseCacheSizeOpt = "parseCacheMaxMb";
+        options.addOption("m", parseCacheSizeOpt, true, "The maximum size of the parse cache file in MB, " + ParseCache.DEFAULT_MAX_BYTES / (1024 * 1024) + " by default. Entries that have been unused for the longest time are evicted first.");
+        return parseCacheSizeOpt;
+    }
+
     protected static String addGrammarOption(Options options) {
         String grammarOpt = "grammar";
         options.addOption("g", grammarOpt, true, "Use the provided grammar explicitly instead of all grammars. Options are: " + Arrays.toString(ValidationResult.Grammar.values()));
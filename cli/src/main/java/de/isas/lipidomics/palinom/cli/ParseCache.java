@@ -0,0 +1,463 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom.cli;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.domain.LipidCodec;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caches the validation results of lipid names across runs of the command line
+ * parser in an append-only log file. Entries are keyed by the lipid name and
+ * the grammar option, the file by the version of jgoslin and of the lipid
+ * encoding, see {@link LipidCodec}. A file of another version is cleared.
+ *
+ * The log is scanned into an in-memory index of entry offsets on first use, an
+ * entry is only read and decoded on a cache hit. Results of cache misses are
+ * appended. When the cache is closed, the log is compacted if it exceeds the
+ * maximum size or consists of more stale than live entries. Compaction keeps
+ * the entries used in this run and evicts the entries that have been unused
+ * for the longest time, until the log fits the maximum size. A truncated last
+ * entry, e.g. after a crash, is dropped.
+ *
+ * The log is locked from first use until the cache is closed. If another
+ * process, or another cache in this JVM, holds the lock, a warning is logged
+ * and the run continues without the cache, so that concurrent runs do not
+ * overwrite each other's entries or compact the log under another run.
+ *
+ * The cache is not thread-safe. Failures to read or write the log are logged
+ * and disable the cache for the rest of the run.
+ *
+ * @author nils.hoffmann
+ */
+@Slf4j
+class ParseCache implements Closeable {
+
+    static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    /*
+     * "JGPL", followed by the format and encoding versions and the jgoslin
+     * version.
+     */
+    private static final int MAGIC = 0x4A47504C;
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path path;
+    private final long maxBytes;
+    private final String libraryVersion;
+    private final Map<String, Entry> index = new HashMap<>();
+    private FileChannel channel;
+    private long headerBytes;
+    private long fileBytes;
+    private long liveBytes;
+    private long lastUse;
+    private long hits;
+    private long misses;
+    private boolean disabled;
+
+    /*
+     * The location of an entry in the log, and when it was last used in this
+     * run, 0 if unused.
+     */
+    private static final class Entry {
+
+        private long offset;
+        private final int length;
+        private long lastUse;
+
+        private Entry(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private long bytes() {
+            return 4L + length;
+        }
+    }
+
+    /**
+     * Creates a cache on the given log file, which is created or read on first
+     * use.
+     *
+     * @param path the log file.
+     * @param maxBytes the maximum size of the log file after compaction.
+     * @param libraryVersion the version of jgoslin.
+     */
+    ParseCache(Path path, long maxBytes, String libraryVersion) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be greater than 0! Was: " + maxBytes);
+        }
+        this.path = path;
+        this.maxBytes = maxBytes;
+        this.libraryVersion = libraryVersion;
+    }
+
+    /**
+     * Returns the cached validation results of the given lipid name and grammar
+     * option.
+     *
+     * @param grammar the grammar option, e.g. ALL for all grammars.
+     * @param lipidName the lipid name.
+     * @return the validation results, or an empty optional on a cache miss.
+     */
+    Optional<List<CmdLineParser.ValidationResult>> get(String grammar, String lipidName) {
+        if (!open()) {
+            return Optional.empty();
+        }
+        Entry entry = index.get(key(grammar, lipidName));
+        if (entry == null) {
+            misses++;
+            return Optional.empty();
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, entry.offset + 4 + buffer.position()) < 0) {
+                    throw new EOFException("Parse cache entry ends after " + buffer.position() + " of " + entry.length + " bytes!");
+                }
+            }
+            entry.lastUse = ++lastUse;
+            hits++;
+            return Optional.of(readResults(new DataInputStream(new ByteArrayInputStream(buffer.array())), lipidName));
+        } catch (IOException | IllegalArgumentException ex) {
+            disable(ex);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Appends the validation results of the given lipid name and grammar
+     * option.
+     *
+     * @param grammar the grammar option, e.g. ALL for all grammars.
+     * @param lipidName the lipid name.
+     * @param results the validation results.
+     */
+    void put(String grammar, String lipidName, List<CmdLineParser.ValidationResult> results) {
+        if (!open()) {
+            return;
+        }
+        String key = key(grammar, lipidName);
+        byte[] payload;
+        try {
+            payload = writeResults(key, results);
+        } catch (IllegalArgumentException ex) {
+            log.debug("Not caching results of lipid that can not be encoded: " + lipidName, ex);
+            return;
+        } catch (IOException ex) {
+            disable(ex);
+            return;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(4 + payload.length);
+            buffer.putInt(payload.length).put(payload).flip();
+            long offset = fileBytes;
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, offset + buffer.position());
+            }
+            fileBytes += buffer.limit();
+            Entry entry = new Entry(offset, payload.length);
+            entry.lastUse = ++lastUse;
+            Entry stale = index.put(key, entry);
+            if (stale != null) {
+                liveBytes -= stale.bytes();
+            }
+            liveBytes += entry.bytes();
+        } catch (IOException ex) {
+            disable(ex);
+        }
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Compacts the log if necessary and closes it.
+     *
+     * @throws IOException if the log can not be compacted or closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        try {
+            if (!disabled && (fileBytes > maxBytes || fileBytes - headerBytes - liveBytes > liveBytes)) {
+                compact();
+            }
+            log.info("Parse cache '{}': {} hits, {} misses, {} entries, {} bytes.", path, hits, misses, index.size(), fileBytes);
+        } finally {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private static String key(String grammar, String lipidName) {
+        return grammar + "\t" + lipidName;
+    }
+
+    private void disable(Exception ex) {
+        log.warn("Disabling parse cache '" + path + "' after failure: ", ex);
+        disabled = true;
+    }
+
+    /*
+     * Opens the log and scans it into the index on first use.
+     */
+    private boolean open() {
+        if (disabled) {
+            return false;
+        }
+        if (channel != null) {
+            return true;
+        }
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (!lock()) {
+                log.warn("Parse cache '{}' is in use by another run, continuing without the cache.", path);
+                disabled = true;
+                channel.close();
+                channel = null;
+                return false;
+            }
+            byte[] header = header();
+            headerBytes = header.length;
+            if (!scan(header)) {
+                if (channel.size() > 0) {
+                    log.info("Clearing parse cache '{}' of another version.", path);
+                }
+                channel.truncate(0);
+                channel.write(ByteBuffer.wrap(header), 0);
+                fileBytes = headerBytes;
+                index.clear();
+                liveBytes = 0;
+            }
+            return true;
+        } catch (IOException ex) {
+            disable(ex);
+            return false;
+        }
+    }
+
+    /*
+     * The lock is released when the channel is closed.
+     */
+    private boolean lock() throws IOException {
+        try {
+            FileLock lock = channel.tryLock();
+            return lock != null;
+        } catch (OverlappingFileLockException ex) {
+            // held by another cache in this JVM
+            return false;
+        }
+    }
+
+    private byte[] header() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(LipidCodec.VERSION);
+            writeString(out, libraryVersion);
+        }
+        return bytes.toByteArray();
+    }
+
+    /*
+     * Returns false, if the log is empty or of another version.
+     */
+    private boolean scan(byte[] header) throws IOException {
+        long size = channel.size();
+        if (size < header.length) {
+            return false;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0))));
+        byte[] fileHeader = new byte[header.length];
+        in.readFully(fileHeader);
+        if (!Arrays.equals(header, fileHeader)) {
+            return false;
+        }
+        long offset = header.length;
+        while (offset < size) {
+            try {
+                int length = in.readInt();
+                if (length < 4 || offset + 4 + length > size) {
+                    break;
+                }
+                int keyLength = in.readInt();
+                if (keyLength < 0 || keyLength > length - 4) {
+                    break;
+                }
+                byte[] key = new byte[keyLength];
+                in.readFully(key);
+                int skip = length - 4 - key.length;
+                if (skip < 0 || in.skipBytes(skip) != skip) {
+                    break;
+                }
+                Entry entry = new Entry(offset, length);
+                Entry stale = index.put(new String(key, StandardCharsets.UTF_8), entry);
+                if (stale != null) {
+                    liveBytes -= stale.bytes();
+                }
+                liveBytes += entry.bytes();
+                offset += entry.bytes();
+            } catch (EOFException ex) {
+                break;
+            }
+        }
+        if (offset < size) {
+            log.info("Dropping truncated entry at offset {} of parse cache '{}'.", offset, path);
+            channel.truncate(offset);
+        }
+        fileBytes = offset;
+        return true;
+    }
+
+    /*
+     * Copies the entries to a new log, unused entries in log order first, then
+     * used ones in order of use, and evicts from the start until the log fits.
+     * The lock on the old log is held until the new one has replaced it, runs
+     * that open the log afterwards lock the new one.
+     */
+    private void compact() throws IOException {
+        List<Entry> entries = new ArrayList<>(index.values());
+        Collections.sort(entries, Comparator.comparingLong((Entry entry) -> {
+            return entry.lastUse;
+        }).thenComparingLong((entry) -> {
+            return entry.offset;
+        }));
+        long bytes = headerBytes + liveBytes;
+        int first = 0;
+        while (bytes > maxBytes && first < entries.size()) {
+            bytes -= entries.get(first++).bytes();
+        }
+        List<Entry> kept = entries.subList(first, entries.size());
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            out.write(ByteBuffer.wrap(header()));
+            long offset = headerBytes;
+            for (Entry entry : kept) {
+                long copied = 0;
+                while (copied < entry.bytes()) {
+                    copied += channel.transferTo(entry.offset + copied, entry.bytes() - copied, out);
+                }
+                entry.offset = offset;
+                offset += entry.bytes();
+            }
+        }
+        try {
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        index.values().retainAll(new HashSet<>(kept));
+        log.info("Compacted parse cache '{}' from {} to {} bytes, evicted {} entries.", path, fileBytes, bytes, first);
+        fileBytes = bytes;
+        liveBytes = bytes - headerBytes;
+    }
+
+    private static byte[] writeResults(String key, List<CmdLineParser.ValidationResult> results) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeString(out, key);
+            out.writeInt(results.size());
+            for (CmdLineParser.ValidationResult result : results) {
+                writeString(out, result.getGrammar().name());
+                out.writeInt(result.getMessages().size());
+                for (String message : result.getMessages()) {
+                    writeString(out, message);
+                }
+                if (result.getLipidAdduct() == null) {
+                    out.writeInt(-1);
+                } else {
+                    byte[] lipid = LipidCodec.encode(result.getLipidAdduct());
+                    out.writeInt(lipid.length);
+                    out.write(lipid);
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<CmdLineParser.ValidationResult> readResults(DataInputStream in, String lipidName) throws IOException {
+        // the key
+        readString(in);
+        int nResults = in.readInt();
+        List<CmdLineParser.ValidationResult> results = new ArrayList<>(nResults);
+        for (int i = 0; i < nResults; i++) {
+            CmdLineParser.ValidationResult.Grammar grammar = CmdLineParser.ValidationResult.Grammar.valueOf(readString(in));
+            int nMessages = in.readInt();
+            List<String> messages = new ArrayList<>(nMessages);
+            for (int j = 0; j < nMessages; j++) {
+                messages.add(readString(in));
+            }
+            LipidAdduct lipidAdduct = null;
+            int length = in.readInt();
+            if (length >= 0) {
+                byte[] lipid = new byte[length];
+                in.readFully(lipid);
+                lipidAdduct = LipidCodec.decode(lipid);
+            }
+            results.add(CmdLineParser.toValidationResult(lipidName, grammar, lipidAdduct, messages));
+        }
+        return results;
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] utf8 = new byte[in.readInt()];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class AsyncLineReaderTest {
+
+    @Test
+    public void testReadsAllLinesInOrder() {
+        List<String> lines = IntStream.range(0, 5000).mapToObj((i) -> {
+            return "PC " + i + ":0";
+        }).collect(Collectors.toList());
+        BufferedReader reader = new BufferedReader(new StringReader(String.join("\n", lines)));
+        try (Stream<String> read = new AsyncLineReader(reader, "test").lines()) {
+            assertEquals(lines, read.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testIOExceptionIsRethrown() {
+        BufferedReader reader = failingReader(new IOException("broken"));
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            AsyncLineReader lines = new AsyncLineReader(reader, "test");
+            assertEquals(Arrays.asList("PC 32:0", "PE 34:1"), Arrays.asList(lines.next(), lines.next()));
+            UncheckedIOException ex = assertThrows(UncheckedIOException.class, lines::hasNext);
+            assertEquals("broken", ex.getCause().getMessage());
+        });
+    }
+
+    @Test
+    public void testRuntimeExceptionEndsInput() {
+        BufferedReader reader = failingReader(new IllegalArgumentException("broken"));
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            AsyncLineReader lines = new AsyncLineReader(reader, "test");
+            lines.next();
+            lines.next();
+            IllegalStateException ex = assertThrows(IllegalStateException.class, lines::hasNext);
+            assertTrue(ex.getCause() instanceof IllegalArgumentException);
+        });
+    }
+
+    @Test
+    public void testErrorEndsInput() {
+        BufferedReader reader = failingReader(new StackOverflowError());
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            AsyncLineReader lines = new AsyncLineReader(reader, "test");
+            lines.next();
+            lines.next();
+            IllegalStateException ex = assertThrows(IllegalStateException.class, lines::hasNext);
+            assertTrue(ex.getCause() instanceof StackOverflowError);
+        });
+    }
+
+    /*
+     * Returns two lines, then throws the given exception.
+     */
+    private static BufferedReader failingReader(Throwable failure) {
+        return new BufferedReader(new StringReader("PC 32:0\nPE 34:1\n")) {
+            private int read;
+
+            @Override
+            public String readLine() throws IOException {
+                if (read++ < 2) {
+                    return super.readLine();
+                }
+                if (failure instanceof IOException) {
+                    throw (IOException) failure;
+                } else if (failure instanceof RuntimeException) {
+                    throw (RuntimeException) failure;
+                }
+                throw (Error) failure;
+            }
+        };
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom.cli;
+
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.ParserStatistics;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class CmdLineParserTest {
+
+    private static final List<String> NAMES = Arrays.asList("PC 16:0/18:1", "PE(18:0/20:4(5Z,8Z,11Z,14Z))", "TG 16:0_18:1_18:2", "not a lipid");
+
+    @Test
+    public void testIsGzipped() {
+        assertTrue(CmdLineParser.isGzipped(Path.of("names.txt.gz").toFile()));
+        assertTrue(CmdLineParser.isGzipped(Path.of("NAMES.TXT.GZ").toFile()));
+        assertFalse(CmdLineParser.isGzipped(Path.of("names.txt").toFile()));
+        assertFalse(CmdLineParser.isGzipped(Path.of("names.gzip").toFile()));
+    }
+
+    @Test
+    public void testGzipRoundTripByExtension(@TempDir Path directory) throws Exception {
+        Path input = directory.resolve("names.txt.gz");
+        Path output = directory.resolve("out.tsv.gz");
+        writeGzip(input, String.join("\n", NAMES) + "\n\n");
+
+        CmdLineParser.main(new String[]{"-f", input.toString(), "-p", output.toString()});
+
+        assertEquals(expectedTable(), readGzip(output));
+    }
+
+    @Test
+    public void testGzipOptionOverridesExtensions(@TempDir Path directory) throws Exception {
+        Path input = directory.resolve("names.txt");
+        Path output = directory.resolve("out.tsv");
+        writeGzip(input, String.join("\n", NAMES));
+
+        CmdLineParser.main(new String[]{"-z", "-f", input.toString(), "-p", output.toString()});
+
+        assertEquals(expectedTable(), readGzip(output));
+    }
+
+    @Test
+    public void testPlainOutputPath(@TempDir Path directory) throws Exception {
+        Path input = directory.resolve("names.txt");
+        Path output = directory.resolve("out.tsv");
+        Files.write(input, NAMES);
+
+        CmdLineParser.main(new String[]{"-f", input.toString(), "-p", output.toString()});
+
+        assertEquals(expectedTable(), new String(Files.readAllBytes(output), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testReadLines(@TempDir Path directory) throws IOException {
+        Path input = directory.resolve("names.txt.gz");
+        writeGzip(input, String.join("\n", NAMES));
+        try (Stream<String> lines = CmdLineParser.readLines(input.toFile(), true)) {
+            assertEquals(NAMES, lines.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testFallbacksAreCounted() {
+        ParserStatistics.reset();
+        ParserStatistics.setEnabled(true);
+        try {
+            List<CmdLineParser.ValidationResult> results = CmdLineParser.parseName("PC(16:0/18:1)").getValue();
+            assertEquals(CmdLineParser.ValidationResult.Grammar.LIPIDMAPS, results.get(0).getGrammar());
+            assertEquals(1, fallbacks(Grammar.GOSLIN));
+            assertEquals(1, fallbacks(Grammar.GOSLIN_FRAGMENTS));
+            assertEquals(0, fallbacks(Grammar.LIPIDMAPS));
+            assertEquals(1, ParserStatistics.of(Grammar.LIPIDMAPS).getParses());
+
+            results = CmdLineParser.parseName("not a lipid").getValue();
+            assertEquals(CmdLineParser.ValidationResult.Grammar.NONE, results.get(0).getGrammar());
+            List<String> messages = results.get(0).getMessages();
+            assertEquals("Lipid name could not be parsed with any grammar!", messages.get(messages.size() - 1));
+            // tried by both names or by the second name only
+            for (Grammar grammar : Grammar.values()) {
+                long expected = grammar == Grammar.GOSLIN || grammar == Grammar.GOSLIN_FRAGMENTS ? 2 : 1;
+                assertEquals(expected, fallbacks(grammar), grammar.name());
+            }
+
+            CmdLineParser.parseNameWith("not a lipid", CmdLineParser.ValidationResult.Grammar.HMDB);
+            assertEquals(2, fallbacks(Grammar.HMDB));
+        } finally {
+            ParserStatistics.setEnabled(false);
+            ParserStatistics.reset();
+        }
+    }
+
+    private static long fallbacks(Grammar grammar) {
+        return ParserStatistics.of(grammar).getPreFilterRejections() + ParserStatistics.of(grammar).getGrammarFallbacks();
+    }
+
+    private static String expectedTable() {
+        return CmdLineParser.toTable(CmdLineParser.parseNames(NAMES.stream())) + System.lineSeparator();
+    }
+
+    private static void writeGzip(Path file, String content) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String readGzip(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            in.transferTo(bytes);
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom.cli;
+
+import de.isas.lipidomics.palinom.cli.CmdLineParser.ValidationResult;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.tuple.Pair;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class ParseCacheTest {
+
+    private static final List<String> NAMES = Arrays.asList("PC 16:0/18:1", "PE(18:0/20:4(5Z,8Z,11Z,14Z))", "TG 16:0_18:1_18:2", "Cer(d18:1/16:0)", "not a lipid");
+    private static final long MAX_BYTES = 1024 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testHitsMatchFreshParses() throws IOException {
+        Path path = directory.resolve("goslin.cache");
+        List<Pair<String, List<ValidationResult>>> fresh = CmdLineParser.parseNames(NAMES.stream());
+        List<Pair<String, List<ValidationResult>>> freshLipidMaps = CmdLineParser.parseNamesWith(NAMES.stream(), ValidationResult.Grammar.LIPIDMAPS);
+        try (ParseCache cache = new ParseCache(path, MAX_BYTES, "1.0")) {
+            assertEquals(fresh, CmdLineParser.parseNames(NAMES.stream(), cache));
+            assertEquals(freshLipidMaps, CmdLineParser.parseNamesWith(NAMES.stream(), ValidationResult.Grammar.LIPIDMAPS, cache));
+            assertEquals(0, cache.getHits());
+            assertEquals(2 * NAMES.size(), cache.getMisses());
+        }
+        try (ParseCache cache = new ParseCache(path, MAX_BYTES, "1.0")) {
+            List<Pair<String, List<ValidationResult>>> cached = CmdLineParser.parseNames(NAMES.stream(), cache);
+            assertEquals(fresh, cached);
+            assertEquals(CmdLineParser.toTable(fresh), CmdLineParser.toTable(cached));
+            List<Pair<String, List<ValidationResult>>> cachedLipidMaps = CmdLineParser.parseNamesWith(NAMES.stream(), ValidationResult.Grammar.LIPIDMAPS, cache);
+            assertEquals(freshLipidMaps, cachedLipidMaps);
+            assertEquals(CmdLineParser.toTable(freshLipidMaps), CmdLineParser.toTable(cachedLipidMaps));
+            assertEquals(2 * NAMES.size(), cache.getHits());
+            assertEquals(0, cache.getMisses());
+            // results of another grammar option are cached separately
+            CmdLineParser.parseNamesWith(NAMES.stream(), ValidationResult.Grammar.GOSLIN, cache);
+            assertEquals(NAMES.size(), cache.getMisses());
+        }
+    }
+
+    @Test
+    public void testOtherVersionIsCleared() throws IOException {
+        Path path = directory.resolve("goslin.cache");
+        fill(path, "1.0", NAMES);
+        long emptyBytes = fill(directory.resolve("empty.cache"), "2.0", Arrays.asList());
+        assertTrue(Files.size(path) > emptyBytes);
+
+        try (ParseCache cache = new ParseCache(path, MAX_BYTES, "2.0")) {
+            assertFalse(cache.get("ALL", NAMES.get(0)).isPresent());
+            assertEquals(emptyBytes, Files.size(path));
+        }
+        assertEquals(emptyBytes, Files.size(path));
+        try (ParseCache cache = new ParseCache(path, MAX_BYTES, "1.0")) {
+            assertFalse(cache.get("ALL", NAMES.get(0)).isPresent());
+        }
+    }
+
+    @Test
+    public void testTruncatedLastEntryIsDropped() throws IOException {
+        Path path = directory.resolve("goslin.cache");
+        List<String> complete = NAMES.subList(0, NAMES.size() - 1);
+        long completeBytes = fill(path, "1.0", complete);
+        long bytes = fill(path, "1.0", NAMES);
+        assertTrue(bytes > completeBytes);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(bytes - 3);
+        }
+
+        try (ParseCache cache = new ParseCache(path, MAX_BYTES, "1.0")) {
+            for (String name : complete) {
+                assertTrue(cache.get("ALL", name).isPresent(), name);
+            }
+            assertFalse(cache.get("ALL", NAMES.get(NAMES.size() - 1)).isPresent());
+            assertEquals(completeBytes, Files.size(path));
+        }
+        // entries appended after the dropped one are readable
+        assertEquals(bytes, fill(path, "1.0", NAMES));
+        try (ParseCache cache = new ParseCache(path, MAX_BYTES, "1.0")) {
+            CmdLineParser.parseNames(NAMES.stream(), cache);
+            assertEquals(NAMES.size(), cache.getHits());
+        }
+    }
+
+    @Test
+    public void testCompactionKeepsUsedEntries() throws IOException {
+        Path path = directory.resolve("goslin.cache");
+        List<String> names = IntStream.range(0, 40).mapToObj((i) -> {
+            return "PC " + (20 + i) + ":1";
+        }).collect(Collectors.toList());
+        long bytes = fill(path, "1.0", names);
+        List<String> used = Arrays.asList(names.get(3), names.get(17), names.get(39));
+
+        long maxBytes = bytes / 4;
+        try (ParseCache cache = new ParseCache(path, maxBytes, "1.0")) {
+            for (String name : used) {
+                assertTrue(cache.get("ALL", name).isPresent(), name);
+            }
+        }
+        assertTrue(Files.size(path) <= maxBytes, Files.size(path) + " > " + maxBytes);
+        assertFalse(Files.exists(directory.resolve("goslin.cache.compact")));
+
+        try (ParseCache cache = new ParseCache(path, MAX_BYTES, "1.0")) {
+            for (String name : used) {
+                assertTrue(cache.get("ALL", name).isPresent(), name);
+            }
+            long kept = names.stream().filter((name) -> {
+                return cache.get("ALL", name).isPresent();
+            }).count();
+            assertTrue(kept > used.size() && kept < names.size(), "kept " + kept);
+        }
+    }
+
+    @Test
+    public void testStaleEntriesAreCompacted() throws IOException {
+        Path path = directory.resolve("goslin.cache");
+        long bytes = fill(path, "1.0", NAMES);
+        try (ParseCache cache = new ParseCache(path, MAX_BYTES, "1.0")) {
+            for (int i = 0; i < 2; i++) {
+                for (String name : NAMES) {
+                    cache.put("ALL", name, CmdLineParser.parseName(name).getValue());
+                }
+            }
+        }
+        assertEquals(bytes, Files.size(path));
+    }
+
+    @Test
+    public void testFailureDisablesCache() throws IOException {
+        List<ValidationResult> results = CmdLineParser.parseName(NAMES.get(0)).getValue();
+        // a directory can not be opened as the log
+        try (ParseCache cache = new ParseCache(directory, MAX_BYTES, "1.0")) {
+            assertFalse(cache.get("ALL", NAMES.get(0)).isPresent());
+            cache.put("ALL", NAMES.get(0), results);
+            assertFalse(cache.get("ALL", NAMES.get(0)).isPresent());
+            assertEquals(0, cache.getHits());
+            assertEquals(0, cache.getMisses());
+        }
+        try (ParseCache cache = new ParseCache(directory, MAX_BYTES, "1.0")) {
+            assertEquals(CmdLineParser.parseNames(NAMES.stream()), CmdLineParser.parseNames(NAMES.stream(), cache));
+            assertEquals(0, cache.getMisses());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testLockedLogIsNotUsed() throws IOException {
+        Path path = directory.resolve("goslin.cache");
+        long bytes = fill(path, "1.0", NAMES);
+        List<ValidationResult> results = CmdLineParser.parseName("PC 40:6").getValue();
+        try (ParseCache cache = new ParseCache(path, MAX_BYTES, "1.0")) {
+            assertTrue(cache.get("ALL", NAMES.get(0)).isPresent());
+            // another version would clear the log, the maximum size compact it
+            try (ParseCache other = new ParseCache(path, 1, "2.0")) {
+                assertFalse(other.get("ALL", NAMES.get(0)).isPresent());
+                other.put("ALL", "PC 40:6", results);
+                assertFalse(other.get("ALL", "PC 40:6").isPresent());
+                assertEquals(0, other.getHits());
+                assertEquals(0, other.getMisses());
+            }
+            assertEquals(bytes, Files.size(path));
+            cache.put("ALL", "PC 40:6", results);
+        }
+        try (ParseCache cache = new ParseCache(path, MAX_BYTES, "1.0")) {
+            CmdLineParser.parseNames(NAMES.stream(), cache);
+            assertEquals(NAMES.size(), cache.getHits());
+            assertTrue(cache.get("ALL", "PC 40:6").isPresent());
+        }
+    }
+
+    @Test
+    public void testMaxBytesMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new ParseCache(directory.resolve("goslin.cache"), 0, "1.0");
+        });
+    }
+
+    /*
+     * Caches the results of all grammars for the given names, returns the size
+     * of the log.
+     */
+    private static long fill(Path path, String version, List<String> names) throws IOException {
+        try (ParseCache cache = new ParseCache(path, MAX_BYTES, version)) {
+            CmdLineParser.parseNames(names.stream(), cache);
+            if (names.isEmpty()) {
+                cache.get("ALL", "PC 16:0/18:1");
+            }
+        }
+        return Files.size(path);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs against the packaged jgoslin-parsers jar, so that the Java 21 classes
+ * of the multi-release jar are used when running on Java 21 or later.
+ *
+ * @author nils.hoffmann
+ */
+public class BatchParserMultiReleaseIT {
+
+    private static final int VIRTUAL_THREADS_VERSION = 21;
+
+    @Test
+    public void testDefaultExecutorMatchesJavaVersion() throws Exception {
+        Path location = Paths.get(BatchParser.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        assumeTrue(location.toString().endsWith(".jar"), "jgoslin-parsers is not loaded from its jar: " + location);
+        boolean virtual = Runtime.version().feature() >= VIRTUAL_THREADS_VERSION;
+        if (virtual) {
+            try (JarFile jar = new JarFile(location.toFile())) {
+                Manifest manifest = jar.getManifest();
+                assertEquals("true", manifest.getMainAttributes().getValue("Multi-Release"), "Multi-Release manifest entry of " + location);
+                assertNotNull(jar.getEntry("META-INF/versions/21/de/isas/lipidomics/palinom/ParseThreads.class"), "Java 21 classes in " + location);
+            }
+        }
+        assertEquals(virtual, BatchParser.isVirtualThreadExecutor());
+
+        ExecutorService executor = BatchParser.newDefaultExecutor();
+        try {
+            Thread thread = executor.submit(() -> {
+                return Thread.currentThread();
+            }).get();
+            if (virtual) {
+                assertEquals(Boolean.TRUE, Thread.class.getMethod("isVirtual").invoke(thread));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        try (BatchParser parser = new BatchParser()) {
+            ParseResult<LipidAdduct> result = parser.parseAsync("PC 16:0/18:1").get();
+            assertTrue(result.isSuccess());
+            assertEquals(Grammar.GOSLIN, result.getGrammar());
+        }
+    }
+}
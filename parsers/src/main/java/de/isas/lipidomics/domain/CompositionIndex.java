@@ -0,0 +1,461 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.exceptions.ConstraintViolationException;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import de.isas.lipidomics.palinom.sumformula.SumFormulaVisitorParser;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import lombok.Value;
+
+/**
+ * Index of lipids by their exact elemental composition, e.g. to group
+ * isobaric and isomeric lipids or to join two libraries on their sum formulas.
+ *
+ * Each composition is packed into a {@link Key} of two longs, one bit field
+ * per {@link Element}, so that no sum formula strings need to be built. The
+ * lipids are grouped by key with an open addressing hash table. The entries of
+ * a group are the positions of its lipids in the collection the index was
+ * built from, stored contiguously and in ascending order.
+ *
+ * Lipids without elements, e.g. on category or class level, with inconsistent
+ * elements, or with element counts that are negative or too large for the key,
+ * are not indexed. The index is immutable and thread-safe.
+ *
+ * @author nils.hoffmann
+ */
+public final class CompositionIndex {
+
+    /**
+     * Group of the ids that are not indexed.
+     */
+    public static final int NO_GROUP = -1;
+
+    /*
+     * Bit widths of the element counts, in the order of the elements. The
+     * light elements are packed into the low long, the heavy isotopes into the
+     * high long.
+     */
+    private static final int[] BITS = {12, 13, 8, 10, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8};
+    private static final boolean[] HIGH = new boolean[BITS.length];
+    private static final int[] SHIFT = new int[BITS.length];
+    private static final Element[] ELEMENTS = Element.values();
+
+    static {
+        int lowShift = 0;
+        int highShift = 0;
+        for (int i = 0; i < BITS.length; i++) {
+            HIGH[i] = i > Element.ELEMENT_S.ordinal();
+            if (HIGH[i]) {
+                SHIFT[i] = highShift;
+                highShift += BITS[i];
+            } else {
+                SHIFT[i] = lowShift;
+                lowShift += BITS[i];
+            }
+        }
+    }
+
+    /**
+     * The packed element counts of an elemental composition.
+     */
+    @Value
+    public static class Key {
+
+        private final long low;
+        private final long high;
+
+        /**
+         * Packs the counts of the given element table.
+         *
+         * @param elements the element table.
+         * @return the key.
+         * @throws IllegalArgumentException if a count is negative or too large
+         * for the key.
+         */
+        public static Key of(ElementTable elements) {
+            long low = 0;
+            long high = 0;
+            for (Map.Entry<Element, Integer> entry : elements.entrySet()) {
+                if (entry.getValue() == null || entry.getValue() == 0) {
+                    continue;
+                }
+                int i = entry.getKey().ordinal();
+                long count = entry.getValue();
+                if (count < 0 || count >= (1L << BITS[i])) {
+                    throw new IllegalArgumentException("Count of " + entry.getKey().getName() + " must be between 0 and " + ((1 << BITS[i]) - 1) + "! Was: " + count);
+                }
+                if (HIGH[i]) {
+                    high |= count << SHIFT[i];
+                } else {
+                    low |= count << SHIFT[i];
+                }
+            }
+            return new Key(low, high);
+        }
+
+        /**
+         * Packs the counts of the given sum formula.
+         *
+         * @param sumFormula the sum formula.
+         * @return the key.
+         * @throws ParsingException if the sum formula does not conform with the
+         * SumFormula grammar.
+         * @throws IllegalArgumentException if a count is negative or too large
+         * for the key.
+         */
+        public static Key of(String sumFormula) throws ParsingException {
+            if (sumFormula.isEmpty()) {
+                return new Key(0, 0);
+            }
+            return of(new SumFormulaVisitorParser().parse(sumFormula));
+        }
+
+        /**
+         * Returns the count of the given element.
+         *
+         * @param element the element.
+         * @return the count, or 0.
+         */
+        public int getCount(Element element) {
+            int i = element.ordinal();
+            long bits = HIGH[i] ? high : low;
+            return (int) ((bits >>> SHIFT[i]) & ((1L << BITS[i]) - 1));
+        }
+
+        /**
+         * Returns a new element table with the non-zero counts of this key.
+         *
+         * @return the element table.
+         */
+        public ElementTable toElementTable() {
+            ElementTable elements = new ElementTable();
+            for (Element element : ELEMENTS) {
+                int count = getCount(element);
+                if (count != 0) {
+                    elements.put(element, count);
+                }
+            }
+            return elements;
+        }
+
+        /**
+         * Returns the sum formula of this key, in the same order as
+         * {@link ElementTable#getSumFormula()}.
+         *
+         * @return the sum formula.
+         */
+        public String getSumFormula() {
+            StringBuilder sb = new StringBuilder();
+            for (Element element : ELEMENTS) {
+                int count = getCount(element);
+                if (count != 0) {
+                    sb.append(element.getName());
+                    if (count > 1) {
+                        sb.append(count);
+                    }
+                }
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return getSumFormula();
+        }
+    }
+
+    /**
+     * Receives the matches of a join.
+     */
+    @FunctionalInterface
+    public static interface MatchConsumer {
+
+        /**
+         * Called for each pair of ids with the same composition.
+         *
+         * @param id the id in this index.
+         * @param otherId the id in the other index.
+         */
+        void accept(int id, int otherId);
+    }
+
+    private final int size;
+    private final int[] groupOf;
+    private final long[] keyLow;
+    private final long[] keyHigh;
+    private final int[] groupStart;
+    private final int[] entries;
+    private final int[] slots;
+
+    CompositionIndex(long[] low, long[] high, boolean[] indexed) {
+        int n = low.length;
+        this.groupOf = new int[n];
+        int capacity = 16;
+        int[] table = new int[capacity];
+        long[] groupLow = new long[16];
+        long[] groupHigh = new long[16];
+        int[] groupSize = new int[16];
+        int nGroups = 0;
+        int nEntries = 0;
+        for (int id = 0; id < n; id++) {
+            if (!indexed[id]) {
+                groupOf[id] = NO_GROUP;
+                continue;
+            }
+            int slot = find(table, groupLow, groupHigh, low[id], high[id]);
+            int group = table[slot] - 1;
+            if (group < 0) {
+                group = nGroups++;
+                if (group == groupLow.length) {
+                    groupLow = Arrays.copyOf(groupLow, group * 2);
+                    groupHigh = Arrays.copyOf(groupHigh, group * 2);
+                    groupSize = Arrays.copyOf(groupSize, group * 2);
+                }
+                groupLow[group] = low[id];
+                groupHigh[group] = high[id];
+                table[slot] = group + 1;
+                if (nGroups * 2 > table.length) {
+                    table = rehash(table.length * 2, groupLow, groupHigh, nGroups);
+                }
+            }
+            groupSize[group]++;
+            groupOf[id] = group;
+            nEntries++;
+        }
+        this.size = nEntries;
+        this.slots = table;
+        this.keyLow = Arrays.copyOf(groupLow, nGroups);
+        this.keyHigh = Arrays.copyOf(groupHigh, nGroups);
+        this.groupStart = new int[nGroups + 1];
+        for (int group = 0; group < nGroups; group++) {
+            groupStart[group + 1] = groupStart[group] + groupSize[group];
+        }
+        this.entries = new int[nEntries];
+        int[] next = Arrays.copyOf(groupStart, nGroups);
+        for (int id = 0; id < n; id++) {
+            if (groupOf[id] != NO_GROUP) {
+                entries[next[groupOf[id]]++] = id;
+            }
+        }
+    }
+
+    /**
+     * Builds the index from the elements of the given lipid adducts. The id of
+     * a lipid adduct is its position in the collection.
+     *
+     * @param lipidAdducts the lipid adducts.
+     * @return the index.
+     */
+    public static CompositionIndex of(Collection<LipidAdduct> lipidAdducts) {
+        return of(lipidAdducts, LipidAdduct::getElements);
+    }
+
+    /**
+     * Builds the index from the elements of the given lipids. The id of a lipid
+     * is its position in the collection.
+     *
+     * @param species the lipids.
+     * @return the index.
+     */
+    public static CompositionIndex ofSpecies(Collection<? extends LipidSpecies> species) {
+        return of(species, LipidSpecies::getElements);
+    }
+
+    /**
+     * Builds the index from the element tables returned by the given function.
+     * The id of an item is its position in the collection.
+     *
+     * @param <T> the type of the items.
+     * @param items the items.
+     * @param elements the function that returns the elements of an item.
+     * @return the index.
+     */
+    public static <T> CompositionIndex of(Collection<T> items, Function<? super T, ElementTable> elements) {
+        long[] low = new long[items.size()];
+        long[] high = new long[items.size()];
+        boolean[] indexed = new boolean[items.size()];
+        int id = 0;
+        for (T item : items) {
+            try {
+                ElementTable table = elements.apply(item);
+                if (!table.isEmpty()) {
+                    Key key = Key.of(table);
+                    low[id] = key.getLow();
+                    high[id] = key.getHigh();
+                    indexed[id] = true;
+                }
+            } catch (ConstraintViolationException | IllegalArgumentException ex) {
+                // not indexed
+            }
+            id++;
+        }
+        return new CompositionIndex(low, high, indexed);
+    }
+
+    /**
+     * Returns the number of indexed ids.
+     *
+     * @return the number of indexed ids.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct compositions.
+     *
+     * @return the number of groups.
+     */
+    public int getGroupCount() {
+        return keyLow.length;
+    }
+
+    /**
+     * Returns the group of the given id.
+     *
+     * @param id the id.
+     * @return the group, or {@link #NO_GROUP} if the id is not indexed.
+     */
+    public int getGroup(int id) {
+        return groupOf[id];
+    }
+
+    /**
+     * Returns the composition of the given group.
+     *
+     * @param group the group.
+     * @return the key.
+     */
+    public Key getKey(int group) {
+        return new Key(keyLow[group], keyHigh[group]);
+    }
+
+    /**
+     * Returns the number of ids in the given group.
+     *
+     * @param group the group.
+     * @return the group size.
+     */
+    public int getGroupSize(int group) {
+        return groupStart[group + 1] - groupStart[group];
+    }
+
+    /**
+     * Returns an id of the given group.
+     *
+     * @param group the group.
+     * @param i the position of the id within the group.
+     * @return the id.
+     */
+    public int getGroupEntry(int group, int i) {
+        if (i < 0 || i >= getGroupSize(group)) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for group of size " + getGroupSize(group));
+        }
+        return entries[groupStart[group] + i];
+    }
+
+    /**
+     * Returns the ids of the given group in ascending order.
+     *
+     * @param group the group.
+     * @return a new array of ids.
+     */
+    public int[] getGroupEntries(int group) {
+        return Arrays.copyOfRange(entries, groupStart[group], groupStart[group + 1]);
+    }
+
+    /**
+     * Returns the group of the given composition.
+     *
+     * @param key the composition.
+     * @return the group, or {@link #NO_GROUP}.
+     */
+    public int findGroup(Key key) {
+        return slots[find(slots, keyLow, keyHigh, key.getLow(), key.getHigh())] - 1;
+    }
+
+    /**
+     * Returns the group of the given sum formula.
+     *
+     * @param sumFormula the sum formula.
+     * @return the group, or {@link #NO_GROUP}.
+     * @throws ParsingException if the sum formula does not conform with the
+     * SumFormula grammar.
+     */
+    public int findGroup(String sumFormula) throws ParsingException {
+        try {
+            return findGroup(Key.of(sumFormula));
+        } catch (IllegalArgumentException ex) {
+            return NO_GROUP;
+        }
+    }
+
+    /**
+     * Calls the consumer for each pair of ids of this and the other index with
+     * the same composition, grouped by composition in the order of the groups
+     * of this index, and in ascending order of ids within a group.
+     *
+     * @param other the other index.
+     * @param consumer the consumer of the matching pairs.
+     */
+    public void join(CompositionIndex other, MatchConsumer consumer) {
+        for (int group = 0; group < getGroupCount(); group++) {
+            int otherGroup = other.slots[find(other.slots, other.keyLow, other.keyHigh, keyLow[group], keyHigh[group])] - 1;
+            if (otherGroup == NO_GROUP) {
+                continue;
+            }
+            for (int i = groupStart[group]; i < groupStart[group + 1]; i++) {
+                for (int j = other.groupStart[otherGroup]; j < other.groupStart[otherGroup + 1]; j++) {
+                    consumer.accept(entries[i], other.entries[j]);
+                }
+            }
+        }
+    }
+
+    /*
+     * Returns the slot of the key, or the empty slot to insert the key into.
+     * Slots hold the group + 1, 0 marks an empty slot.
+     */
+    private static int find(int[] table, long[] groupLow, long[] groupHigh, long low, long high) {
+        int mask = table.length - 1;
+        int slot = hash(low, high) & mask;
+        while (table[slot] != 0) {
+            int group = table[slot] - 1;
+            if (groupLow[group] == low && groupHigh[group] == high) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(long low, long high) {
+        long h = (low ^ Long.rotateLeft(high, 31)) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int[] rehash(int capacity, long[] groupLow, long[] groupHigh, int nGroups) {
+        int[] table = new int[capacity];
+        for (int group = 0; group < nGroups; group++) {
+            table[find(table, groupLow, groupHigh, groupLow[group], groupHigh[group])] = group + 1;
+        }
+        return table;
+    }
+}
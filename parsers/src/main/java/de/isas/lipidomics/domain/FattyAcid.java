@@ -4,15 +4,21 @@
 package de.isas.lipidomics.domain;
 
 import de.isas.lipidomics.palinom.exceptions.ConstraintViolationException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * A fatty acid with a specific type. This object defines the name, position,
@@ -20,6 +26,12 @@ import lombok.Data;
  * to the head group. A FattyAcid can carry optional modifications and can
  * report double bond positions.
  *
+ * Fatty acids are immutable. Two fatty acids are equal, if they are of the same
+ * class and all of their fields are equal. The hash code is computed on first
+ * use and cached, equals compares the cached hash codes before it compares the
+ * fields. The modifications are copied on construction and can not be
+ * changed through {@link #getModifications()}.
+ *
  * @author nils.hoffmann
  */
 @Data
@@ -35,6 +47,10 @@ public class FattyAcid {
     private final boolean lcb;
     private final ModificationsList modifications;
     private final Map<Integer, String> doubleBondPositions;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient int hash;
 
     /**
      * Create a new isomeric level FattyAcid.
@@ -67,7 +83,7 @@ public class FattyAcid {
         this.nHydroxy = nHydroxy;
         this.lipidFaBondType = Optional.ofNullable(lipidFaBondType).orElse(LipidFaBondType.UNDEFINED);
         this.lcb = lcb;
-        this.modifications = modifications == null ? ModificationsList.NONE : modifications;
+        this.modifications = unmodifiableCopy(modifications);
         if (doubleBondPositions == null) {
             this.doubleBondPositions = Collections.emptyMap();
             this.nDoubleBonds = nDoubleBonds;
@@ -75,8 +91,7 @@ public class FattyAcid {
             if (nDoubleBonds != doubleBondPositions.size()) {
                 throw new ConstraintViolationException("Isomeric FattyAcid must receive double bond positions for all double bonds! Got " + nDoubleBonds + " double bonds and " + doubleBondPositions.size() + " positions: " + doubleBondPositions);
             }
-            this.doubleBondPositions = new TreeMap<>();
-            this.doubleBondPositions.putAll(doubleBondPositions);
+            this.doubleBondPositions = Collections.unmodifiableMap(new TreeMap<>(doubleBondPositions));
             this.nDoubleBonds = this.doubleBondPositions.size();
         }
         this.type = FattyAcidType.ISOMERIC;
@@ -116,7 +131,7 @@ public class FattyAcid {
         this.nDoubleBonds = nDoubleBonds;
         this.lipidFaBondType = Optional.ofNullable(lipidFaBondType).orElse(LipidFaBondType.UNDEFINED);
         this.lcb = lcb;
-        this.modifications = modifications == null ? ModificationsList.NONE : modifications;
+        this.modifications = unmodifiableCopy(modifications);
         this.doubleBondPositions = Collections.emptyMap();
         this.type = FattyAcidType.STRUCTURAL;
     }
@@ -154,11 +169,22 @@ public class FattyAcid {
         this.nDoubleBonds = nDoubleBonds;
         this.lipidFaBondType = Optional.ofNullable(lipidFaBondType).orElse(LipidFaBondType.UNDEFINED);
         this.lcb = lcb;
-        this.modifications = modifications == null ? ModificationsList.NONE : modifications;
+        this.modifications = unmodifiableCopy(modifications);
         this.doubleBondPositions = Collections.emptyMap();
         this.type = FattyAcidType.MOLECULAR;
     }
 
+    /*
+     * The hash code covers the modifications, so a fatty acid must not share a
+     * list that its creator, or anyone calling getModifications(), can change.
+     */
+    private static ModificationsList unmodifiableCopy(ModificationsList modifications) {
+        if (modifications == null || modifications.isEmpty()) {
+            return ModificationsList.NONE;
+        }
+        return new ModificationsList(Collections.unmodifiableList(new ArrayList<>(modifications)));
+    }
+
     /**
      * Build the name of this substructure.
      *
@@ -236,4 +262,66 @@ public class FattyAcid {
         return table;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof FattyAcid)) {
+            return false;
+        }
+        FattyAcid other = (FattyAcid) o;
+        return other.canEqual(this) && hashCode() == other.hashCode() && equalFields(other);
+    }
+
+    @Override
+    public final int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = computeHashCode();
+            hash = h;
+        }
+        return h;
+    }
+
+    /*
+     * Subclasses that override canEqual also override equals and check that
+     * the other object is an instance of the subclass, as Lombok does, so that
+     * equals stays symmetric.
+     */
+    protected boolean canEqual(Object other) {
+        return other instanceof FattyAcid;
+    }
+
+    /**
+     * Compares the fields of this fatty acid with those of the other fatty
+     * acid, which is of the same class.
+     *
+     * @param other the other fatty acid.
+     * @return true, if all fields are equal.
+     */
+    protected boolean equalFields(FattyAcid other) {
+        return position == other.position
+                && nCarbon == other.nCarbon
+                && nHydroxy == other.nHydroxy
+                && nDoubleBonds == other.nDoubleBonds
+                && lcb == other.lcb
+                && type == other.type
+                && lipidFaBondType == other.lipidFaBondType
+                && Objects.equals(name, other.name)
+                && Objects.equals(modifications, other.modifications)
+                && Objects.equals(doubleBondPositions, other.doubleBondPositions);
+    }
+
+    /**
+     * Computes the hash code of the fields, which is cached by
+     * {@link #hashCode()}.
+     *
+     * @return the hash code.
+     */
+    protected int computeHashCode() {
+        int h = Objects.hash(type, name, position, nCarbon, nHydroxy, nDoubleBonds, lipidFaBondType, lcb, modifications, doubleBondPositions);
+        // 0 marks the hash code as not computed
+        return h == 0 ? 1 : h;
+    }
 }
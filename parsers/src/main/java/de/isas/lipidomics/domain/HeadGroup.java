@@ -15,13 +15,22 @@
  */
 package de.isas.lipidomics.domain;
 
+import java.util.Objects;
 import java.util.Optional;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * This class represents functional head groups of lipids. This is where the
  * association to {@link LipidClass} and {@link LipidCategory} is maintained.
  *
+ * Head groups are immutable. Two head groups are equal, if their names, raw
+ * names, classes and categories are equal. The hash code is computed on first
+ * use and cached.
+ *
  * @author nils.hoffmann
  */
 @Data
@@ -31,6 +40,10 @@ public class HeadGroup {
     private final String rawName;
     private final LipidClass lipidClass;
     private final LipidCategory lipidCategory;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient int hash;
 
     /**
      * Creates a new head group from the given head group name. Lipid class and
@@ -60,6 +73,20 @@ public class HeadGroup {
         this.lipidCategory = this.lipidClass.getCategory();
     }
 
+    /**
+     * Creates a new head group of the given lipid category, without a lipid
+     * class, for lipids at {@link LipidLevel#CATEGORY} level.
+     *
+     * @param rawName the lipid head group string.
+     * @param lipidCategory the lipid category.
+     */
+    public HeadGroup(String rawName, LipidCategory lipidCategory) {
+        this.rawName = rawName;
+        this.name = rawName.trim().replaceAll(" O", "");
+        this.lipidClass = LipidClass.UNDEFINED;
+        this.lipidCategory = lipidCategory;
+    }
+
     /**
      * Returns a lipid string representation for the head group of this lipid.
      * This method normalizes the original head group name to the class specific
@@ -75,6 +102,34 @@ public class HeadGroup {
         return lipidClass.getSynonyms().get(0);
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof HeadGroup)) {
+            return false;
+        }
+        HeadGroup other = (HeadGroup) o;
+        return hashCode() == other.hashCode()
+                && lipidClass == other.lipidClass
+                && lipidCategory == other.lipidCategory
+                && Objects.equals(name, other.name)
+                && Objects.equals(rawName, other.rawName);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(name, rawName, lipidClass, lipidCategory);
+            // 0 marks the hash code as not computed
+            h = h == 0 ? 1 : h;
+            hash = h;
+        }
+        return h;
+    }
+
     @Override
     public String toString() {
         return this.name;
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * An isotope pattern, as calculated by {@link IsotopePatternCalculator}. The
+ * peaks are sorted by ascending mass. The abundance of a peak is its
+ * probability, the abundances of all peaks sum up to 1, less the abundance of
+ * pruned peaks.
+ *
+ * @author nils.hoffmann
+ */
+public final class IsotopePattern {
+
+    private final double[] masses;
+    private final double[] abundances;
+
+    IsotopePattern(double[] masses, double[] abundances) {
+        this.masses = masses;
+        this.abundances = abundances;
+    }
+
+    /**
+     * Returns the number of peaks.
+     *
+     * @return the number of peaks.
+     */
+    public int size() {
+        return masses.length;
+    }
+
+    /**
+     * Returns the mass or m/z of the given peak.
+     *
+     * @param peak the peak.
+     * @return the mass.
+     */
+    public double getMass(int peak) {
+        return masses[peak];
+    }
+
+    /**
+     * Returns the abundance of the given peak.
+     *
+     * @param peak the peak.
+     * @return the abundance.
+     */
+    public double getAbundance(int peak) {
+        return abundances[peak];
+    }
+
+    /**
+     * Returns the abundance of the given peak relative to the most abundant
+     * peak.
+     *
+     * @param peak the peak.
+     * @return the relative abundance, between 0 and 1.
+     */
+    public double getRelativeAbundance(int peak) {
+        return abundances[peak] / abundances[getMostAbundantPeak()];
+    }
+
+    /**
+     * Returns the most abundant peak.
+     *
+     * @return the most abundant peak, or -1 if the pattern is empty.
+     */
+    public int getMostAbundantPeak() {
+        int max = -1;
+        for (int peak = 0; peak < abundances.length; peak++) {
+            if (max == -1 || abundances[peak] > abundances[max]) {
+                max = peak;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the sum of the abundances of all peaks.
+     *
+     * @return the total abundance.
+     */
+    public double getTotalAbundance() {
+        double total = 0;
+        for (double abundance : abundances) {
+            total += abundance;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("IsotopePattern(");
+        for (int peak = 0; peak < masses.length; peak++) {
+            if (peak > 0) {
+                sb.append(", ");
+            }
+            sb.append(String.format(Locale.US, "%.5f: %.5f", masses[peak], abundances[peak]));
+        }
+        return sb.append(")").toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof IsotopePattern)) {
+            return false;
+        }
+        IsotopePattern other = (IsotopePattern) obj;
+        return Arrays.equals(masses, other.masses) && Arrays.equals(abundances, other.abundances);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(masses) + Arrays.hashCode(abundances);
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import lombok.Builder;
+
+/**
+ * Calculates the isotope pattern of an elemental composition from the natural
+ * isotope abundances of its elements. Heavy elements, e.g.
+ * {@link Element#ELEMENT_C13}, are treated as labels with a single isotope.
+ *
+ * The distribution of each element is raised to the power of its count by
+ * repeated squaring, and the distributions of all elements are multiplied, as
+ * polynomials in the isotope masses. After each multiplication, peaks closer
+ * than the resolution are merged into their abundance weighted mean mass, and
+ * peaks below the pruning threshold, relative to the most abundant peak, are
+ * dropped. The powers of each element are cached, so that they are computed
+ * once for all compositions with the same element count. The calculator is
+ * thread-safe, many compositions can be calculated in parallel with
+ * {@link #calculateAll(List)}.
+ *
+ * @author nils.hoffmann
+ */
+public final class IsotopePatternCalculator {
+
+    /**
+     * Resolution that merges the peaks of each nominal mass, e.g. M+1 from
+     * 13C and 15N.
+     */
+    public static final double NOMINAL_RESOLUTION = 0.5d;
+
+    /**
+     * Default resolution in Dalton.
+     */
+    public static final double DEFAULT_RESOLUTION = NOMINAL_RESOLUTION;
+
+    /**
+     * Default pruning threshold, relative to the most abundant peak.
+     */
+    public static final double DEFAULT_PRUNE_THRESHOLD = 1e-6d;
+
+    private static final Element[] ELEMENTS = Element.values();
+
+    /*
+     * Natural isotope masses and abundances of the light elements. The
+     * monoisotopic masses are those of the elements, for consistency with
+     * ElementTable.getMass(). 36S has no element of its own.
+     */
+    private static final Distribution[] NATURAL = new Distribution[ELEMENTS.length];
+
+    static {
+        NATURAL[Element.ELEMENT_C.ordinal()] = new Distribution(
+                new double[]{Element.ELEMENT_C.getMass(), Element.ELEMENT_C13.getMass()},
+                new double[]{0.9893d, 0.0107d});
+        NATURAL[Element.ELEMENT_H.ordinal()] = new Distribution(
+                new double[]{Element.ELEMENT_H.getMass(), Element.ELEMENT_H2.getMass()},
+                new double[]{0.999885d, 0.000115d});
+        NATURAL[Element.ELEMENT_N.ordinal()] = new Distribution(
+                new double[]{Element.ELEMENT_N.getMass(), Element.ELEMENT_N15.getMass()},
+                new double[]{0.99636d, 0.00364d});
+        NATURAL[Element.ELEMENT_O.ordinal()] = new Distribution(
+                new double[]{Element.ELEMENT_O.getMass(), Element.ELEMENT_O17.getMass(), Element.ELEMENT_O18.getMass()},
+                new double[]{0.99757d, 0.00038d, 0.00205d});
+        NATURAL[Element.ELEMENT_P.ordinal()] = new Distribution(
+                new double[]{Element.ELEMENT_P.getMass()},
+                new double[]{1.0d});
+        NATURAL[Element.ELEMENT_S.ordinal()] = new Distribution(
+                new double[]{Element.ELEMENT_S.getMass(), Element.ELEMENT_S33.getMass(), Element.ELEMENT_S34.getMass(), 35.96708076d},
+                new double[]{0.9499d, 0.0075d, 0.0425d, 0.0001d});
+        for (Element element : ELEMENTS) {
+            if (NATURAL[element.ordinal()] == null) {
+                NATURAL[element.ordinal()] = new Distribution(new double[]{element.getMass()}, new double[]{1.0d});
+            }
+        }
+    }
+
+    /*
+     * A distribution of masses, sorted by ascending mass.
+     */
+    private static final class Distribution {
+
+        static final Distribution ONE = new Distribution(new double[]{0.0d}, new double[]{1.0d});
+
+        final double[] masses;
+        final double[] abundances;
+
+        Distribution(double[] masses, double[] abundances) {
+            this.masses = masses;
+            this.abundances = abundances;
+        }
+    }
+
+    private final double resolution;
+    private final double pruneThreshold;
+    private final Map<Long, Distribution> powers = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new isotope pattern calculator.
+     *
+     * @param resolution the minimum mass difference in Dalton between two
+     * peaks, closer peaks are merged. Defaults to
+     * {@link #DEFAULT_RESOLUTION} if 0.
+     * @param pruneThreshold the minimum abundance of a peak relative to the
+     * most abundant peak, less abundant peaks are dropped. Defaults to
+     * {@link #DEFAULT_PRUNE_THRESHOLD} if 0.
+     * @throws IllegalArgumentException for negative values, or a pruning
+     * threshold of 1 or more.
+     */
+    @Builder
+    public IsotopePatternCalculator(double resolution, double pruneThreshold) {
+        if (resolution < 0) {
+            throw new IllegalArgumentException("resolution must be greater or equal to 0! Was: " + resolution);
+        }
+        if (pruneThreshold < 0 || pruneThreshold >= 1) {
+            throw new IllegalArgumentException("pruneThreshold must be between 0 and 1! Was: " + pruneThreshold);
+        }
+        this.resolution = resolution == 0 ? DEFAULT_RESOLUTION : resolution;
+        this.pruneThreshold = pruneThreshold == 0 ? DEFAULT_PRUNE_THRESHOLD : pruneThreshold;
+    }
+
+    /**
+     * Create a new isotope pattern calculator with the default resolution and
+     * pruning threshold.
+     */
+    public IsotopePatternCalculator() {
+        this(DEFAULT_RESOLUTION, DEFAULT_PRUNE_THRESHOLD);
+    }
+
+    public double getResolution() {
+        return resolution;
+    }
+
+    public double getPruneThreshold() {
+        return pruneThreshold;
+    }
+
+    /**
+     * Calculates the isotope pattern of the given elemental composition.
+     *
+     * @param elements the element table.
+     * @return the isotope pattern, with neutral masses.
+     * @throws IllegalArgumentException if an element count is negative.
+     */
+    public IsotopePattern calculate(ElementTable elements) {
+        Distribution pattern = Distribution.ONE;
+        for (Map.Entry<Element, Integer> entry : elements.entrySet()) {
+            Integer count = entry.getValue();
+            if (count == null || count == 0) {
+                continue;
+            }
+            if (count < 0) {
+                throw new IllegalArgumentException("Count of " + entry.getKey().getName() + " must not be negative! Was: " + count);
+            }
+            pattern = multiply(pattern, power(entry.getKey(), count));
+        }
+        return new IsotopePattern(pattern.masses, pattern.abundances);
+    }
+
+    /**
+     * Calculates the isotope pattern of the given lipid adduct. The masses are
+     * m/z values for the charge of the adduct, computed as in
+     * {@link LipidAdduct#getMass()}.
+     *
+     * @param lipidAdduct the lipid adduct.
+     * @return the isotope pattern.
+     */
+    public IsotopePattern calculate(LipidAdduct lipidAdduct) {
+        IsotopePattern neutral = calculate(lipidAdduct.getElements());
+        int charge = lipidAdduct.getAdduct() == null ? 0 : lipidAdduct.getAdduct().getCharge();
+        if (charge == 0) {
+            return neutral;
+        }
+        double[] mzs = new double[neutral.size()];
+        double[] abundances = new double[neutral.size()];
+        for (int peak = 0; peak < mzs.length; peak++) {
+            mzs[peak] = (neutral.getMass(peak) - charge * Element.ELECTRON_REST_MASS) / Math.abs(charge);
+            abundances[peak] = neutral.getAbundance(peak);
+        }
+        return new IsotopePattern(mzs, abundances);
+    }
+
+    /**
+     * Calculates the isotope patterns of the given elemental compositions in
+     * parallel, on the common fork-join pool.
+     *
+     * @param elements the element tables.
+     * @return the isotope patterns, in the order of the element tables.
+     * @throws IllegalArgumentException if an element count is negative.
+     */
+    public List<IsotopePattern> calculateAll(List<ElementTable> elements) {
+        IsotopePattern[] patterns = new IsotopePattern[elements.size()];
+        IntStream.range(0, patterns.length).parallel().forEach((i) -> {
+            patterns[i] = calculate(elements.get(i));
+        });
+        return Arrays.asList(patterns);
+    }
+
+    /*
+     * Returns the distribution of count atoms of the element, by multiplying
+     * the cached powers for the bits of the count. The power for each bit is
+     * the square of the power for the previous bit.
+     */
+    private Distribution power(Element element, int count) {
+        Distribution cached = powers.get(key(element, count));
+        if (cached != null) {
+            return cached;
+        }
+        Distribution result = Distribution.ONE;
+        Distribution square = NATURAL[element.ordinal()];
+        for (int bit = 1; bit <= count; bit <<= 1) {
+            if (bit > 1) {
+                square = squarePower(element, bit, square);
+            }
+            if ((count & bit) != 0) {
+                result = multiply(result, square);
+            }
+        }
+        Distribution existing = powers.putIfAbsent(key(element, count), result);
+        return existing == null ? result : existing;
+    }
+
+    private Distribution squarePower(Element element, int bit, Distribution previous) {
+        Distribution cached = powers.get(key(element, bit));
+        if (cached != null) {
+            return cached;
+        }
+        Distribution square = multiply(previous, previous);
+        Distribution existing = powers.putIfAbsent(key(element, bit), square);
+        return existing == null ? square : existing;
+    }
+
+    private static long key(Element element, int count) {
+        return ((long) element.ordinal() << 32) | count;
+    }
+
+    /*
+     * Multiplies two distributions, then merges the peaks closer than the
+     * resolution and prunes the peaks below the threshold.
+     */
+    private Distribution multiply(Distribution a, Distribution b) {
+        if (a == Distribution.ONE) {
+            return b;
+        }
+        if (b == Distribution.ONE) {
+            return a;
+        }
+        int n = a.masses.length * b.masses.length;
+        double[] masses = new double[n];
+        double[] abundances = new double[n];
+        int k = 0;
+        for (int i = 0; i < a.masses.length; i++) {
+            for (int j = 0; j < b.masses.length; j++) {
+                masses[k] = a.masses[i] + b.masses[j];
+                abundances[k] = a.abundances[i] * b.abundances[j];
+                k++;
+            }
+        }
+        sort(masses, abundances, 0, n - 1);
+        // merge peaks within the resolution of the current peak's mean mass
+        int merged = 0;
+        double max = 0;
+        int i = 0;
+        while (i < n) {
+            double weightedMass = masses[i] * abundances[i];
+            double abundance = abundances[i];
+            double mean = masses[i];
+            i++;
+            while (i < n && masses[i] - mean < resolution) {
+                weightedMass += masses[i] * abundances[i];
+                abundance += abundances[i];
+                mean = abundance > 0 ? weightedMass / abundance : masses[i];
+                i++;
+            }
+            masses[merged] = mean;
+            abundances[merged] = abundance;
+            merged++;
+            max = Math.max(max, abundance);
+        }
+        double threshold = max * pruneThreshold;
+        int kept = 0;
+        for (int peak = 0; peak < merged; peak++) {
+            if (abundances[peak] >= threshold) {
+                masses[kept] = masses[peak];
+                abundances[kept] = abundances[peak];
+                kept++;
+            }
+        }
+        return new Distribution(Arrays.copyOf(masses, kept), Arrays.copyOf(abundances, kept));
+    }
+
+    private static void sort(double[] masses, double[] abundances, int lo, int hi) {
+        while (hi - lo > 16) {
+            int mid = (lo + hi) >>> 1;
+            if (masses[mid] < masses[lo]) {
+                swap(masses, abundances, mid, lo);
+            }
+            if (masses[hi] < masses[lo]) {
+                swap(masses, abundances, hi, lo);
+            }
+            if (masses[hi] < masses[mid]) {
+                swap(masses, abundances, hi, mid);
+            }
+            double pivot = masses[mid];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (masses[i] < pivot) {
+                    i++;
+                }
+                while (masses[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(masses, abundances, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (j - lo < hi - i) {
+                sort(masses, abundances, lo, j);
+                lo = i;
+            } else {
+                sort(masses, abundances, i, hi);
+                hi = j;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && masses[j] < masses[j - 1]; j--) {
+                swap(masses, abundances, j, j - 1);
+            }
+        }
+    }
+
+    private static void swap(double[] masses, double[] abundances, int i, int j) {
+        double mass = masses[i];
+        masses[i] = masses[j];
+        masses[j] = mass;
+        double abundance = abundances[i];
+        abundances[i] = abundances[j];
+        abundances[j] = abundance;
+    }
+}
@@ -19,32 +19,93 @@ import static de.isas.lipidomics.domain.LipidLevel.ISOMERIC_SUBSPECIES;
 import static de.isas.lipidomics.domain.LipidLevel.MOLECULAR_SUBSPECIES;
 import static de.isas.lipidomics.domain.LipidLevel.SPECIES;
 import static de.isas.lipidomics.domain.LipidLevel.STRUCTURAL_SUBSPECIES;
-import lombok.AllArgsConstructor;
+import de.isas.lipidomics.palinom.exceptions.ConstraintViolationException;
+import java.util.Objects;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * Base class for lipid names parsed using the different grammars. This can
  * contain a lipid, an adduct, a sum formula and a fragment.
  *
+ * Two lipid adducts are equal, if their lipids, adducts and fragments are
+ * equal. The hash code is computed on first use and cached until the lipid,
+ * adduct or fragment is replaced. The canonical key of a lipid adduct is the
+ * canonical key of its lipid, see {@link LipidSpecies}, followed by the adduct
+ * and the fragment name, if any.
+ *
  * @author nils.hoffmann
  * @see LipidSpecies
  * @see Adduct
  * @see Fragment
  */
-@AllArgsConstructor
 @Data
 public class LipidAdduct {
 
+    @Setter(AccessLevel.NONE)
     private LipidSpecies lipid;
+    @Setter(AccessLevel.NONE)
     private Adduct adduct;
+    @Setter(AccessLevel.NONE)
     private Fragment fragment;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient int hash;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile String canonicalKey;
+
+    public LipidAdduct(LipidSpecies lipid, Adduct adduct, Fragment fragment) {
+        this.lipid = lipid;
+        this.adduct = adduct;
+        this.fragment = fragment;
+    }
+
+    public void setLipid(LipidSpecies lipid) {
+        this.lipid = lipid;
+        resetCaches();
+    }
+
+    public void setAdduct(Adduct adduct) {
+        this.adduct = adduct;
+        resetCaches();
+    }
+
+    public void setFragment(Fragment fragment) {
+        this.fragment = fragment;
+        resetCaches();
+    }
+
+    private void resetCaches() {
+        this.hash = 0;
+        this.canonicalKey = null;
+    }
 
     /**
-     * Calculates the mass based on the elements of this lipid adduct.
+     * Calculates the mass based on the elements of this lipid adduct. The
+     * computation is recorded as a {@link LipidComputationEvent}.
      *
      * @return the mass (in Dalton).
      */
     public Double getMass() {
+        LipidComputationEvent event = new LipidComputationEvent();
+        event.begin();
+        try {
+            Double mass = computeMass();
+            event.commit(LipidComputationEvent.MASS, this, null);
+            return mass;
+        } catch (RuntimeException ex) {
+            event.commit(LipidComputationEvent.MASS, this, ex);
+            throw ex;
+        }
+    }
+
+    private Double computeMass() {
         ElementTable elements = getElements();
         int charge = 0;
         double mass = 0;
@@ -91,12 +152,39 @@ public class LipidAdduct {
     }
 
     /**
-     * Returns the sum formula.
+     * Returns the sum formula. The computation is recorded as a
+     * {@link LipidComputationEvent}.
      *
      * @return the sum formula.
      */
     public String getSumFormula() {
-        return getElements().getSumFormula();
+        LipidComputationEvent event = new LipidComputationEvent();
+        event.begin();
+        try {
+            String sumFormula = getElements().getSumFormula();
+            event.commit(LipidComputationEvent.SUM_FORMULA, this, null);
+            return sumFormula;
+        } catch (RuntimeException ex) {
+            event.commit(LipidComputationEvent.SUM_FORMULA, this, ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns this lipid adduct with its lipid on the given, coarser level, see
+     * {@link LipidSpecies#toLevel(LipidLevel)}. The adduct and fragment are
+     * kept.
+     *
+     * @param level the level to convert to.
+     * @return the lipid adduct on the given level.
+     * @throws ConstraintViolationException if the level is undefined or more
+     * specific than the level of the lipid.
+     */
+    public LipidAdduct toLevel(LipidLevel level) throws ConstraintViolationException {
+        if (lipid == null || lipid.getInfo().getLevel() == level) {
+            return this;
+        }
+        return new LipidAdduct(lipid.toLevel(level), adduct, fragment);
     }
 
     /**
@@ -234,4 +322,57 @@ public class LipidAdduct {
         return "";
     }
 
+    /**
+     * Returns the canonical key of this lipid adduct. The key is computed on
+     * first use and cached.
+     *
+     * @return the canonical key.
+     */
+    public String getCanonicalKey() {
+        String key = canonicalKey;
+        if (key == null) {
+            StringBuilder sb = new StringBuilder(lipid == null ? "" : lipid.getCanonicalKey());
+            if (adduct != null) {
+                sb.append('|').append(adduct.getLipidString());
+            }
+            if (fragment != null && fragment.getName() != null && !fragment.getName().isEmpty()) {
+                sb.append('|').append(fragment.getName());
+            }
+            key = sb.toString();
+            canonicalKey = key;
+        }
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof LipidAdduct)) {
+            return false;
+        }
+        LipidAdduct other = (LipidAdduct) o;
+        return other.canEqual(this)
+                && hashCode() == other.hashCode()
+                && Objects.equals(lipid, other.lipid)
+                && Objects.equals(adduct, other.adduct)
+                && Objects.equals(fragment, other.fragment);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(lipid, adduct, fragment);
+            // 0 marks the hash code as not computed
+            h = h == 0 ? 1 : h;
+            hash = h;
+        }
+        return h;
+    }
+
+    protected boolean canEqual(Object other) {
+        return other instanceof LipidAdduct;
+    }
 }
@@ -0,0 +1,475 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.exceptions.ConstraintViolationException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * Compact, versioned binary encoding of parsed {@link LipidAdduct}s, e.g. to
+ * store reference libraries instead of parsing their names again.
+ *
+ * Strings, head groups and adducts are dictionary encoded, numbers are encoded
+ * as variable length integers, so that a lipid with two FAs takes about 20
+ * bytes plus its dictionary entries. {@link #encode(LipidAdduct)} writes a
+ * self-contained encoding with its own dictionary, {@link LipidSnapshot}
+ * shares one dictionary among all lipids of a file.
+ *
+ * Decoding returns lipids that are equal to the encoded ones, of the same
+ * classes, with the same FA names, positions, modifications and double bond
+ * positions. The enum constants of the domain, except lipid classes, are
+ * stored by their ordinals; {@link #VERSION} changes whenever the encoding
+ * changes.
+ *
+ * @author nils.hoffmann
+ */
+public final class LipidCodec {
+
+    /**
+     * The version of the encoding.
+     */
+    public static final int VERSION = 2;
+
+    private static final int KIND_SPECIES = 0;
+    private static final int KIND_MOLECULAR = 1;
+    private static final int KIND_STRUCTURAL = 2;
+    private static final int KIND_ISOMERIC = 3;
+    private static final int KIND_MASK = 0x03;
+    private static final int FLAG_NO_LIPID = 0x04;
+    private static final int FLAG_NO_INFO = 0x08;
+    private static final int ADDUCT_SHIFT = 4;
+    private static final int FRAGMENT_SHIFT = 6;
+    /*
+     * Adducts and fragments are either null, NONE, or a dictionary entry.
+     */
+    private static final int ABSENT = 0;
+    private static final int NONE = 1;
+    private static final int PRESENT = 2;
+
+    private static final FattyAcidType[] FATTY_ACID_TYPES = FattyAcidType.values();
+    private static final LipidFaBondType[] BOND_TYPES = LipidFaBondType.values();
+    private static final LipidLevel[] LEVELS = LipidLevel.values();
+
+    private LipidCodec() {
+    }
+
+    /**
+     * Encodes the given lipid adduct with its own dictionary.
+     *
+     * @param lipidAdduct the lipid adduct.
+     * @return the encoded lipid adduct.
+     * @throws IllegalArgumentException if the lipid is of a class that can not
+     * be encoded.
+     */
+    public static byte[] encode(LipidAdduct lipidAdduct) {
+        Dictionary dictionary = new Dictionary();
+        Output record = new Output();
+        write(record, lipidAdduct, dictionary);
+        Output out = new Output();
+        out.writeVarint(VERSION);
+        dictionary.write(out);
+        out.write(record);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a lipid adduct encoded by {@link #encode(LipidAdduct)}.
+     *
+     * @param bytes the encoded lipid adduct.
+     * @return the lipid adduct.
+     * @throws IllegalArgumentException if the bytes are no lipid adduct
+     * encoded with the current version.
+     */
+    public static LipidAdduct decode(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        try {
+            int version = readVarint(in);
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Encoding version must be " + VERSION + "! Was: " + version);
+            }
+            Dictionary dictionary = Dictionary.read(in);
+            return read(in, dictionary);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | ConstraintViolationException ex) {
+            throw new IllegalArgumentException("Malformed lipid encoding: " + ex.getMessage(), ex);
+        }
+    }
+
+    static void write(Output out, LipidAdduct lipidAdduct, Dictionary dictionary) {
+        LipidSpecies lipid = lipidAdduct.getLipid();
+        Adduct adduct = lipidAdduct.getAdduct();
+        Fragment fragment = lipidAdduct.getFragment();
+        int flags = (adduct == null ? ABSENT : adduct == Adduct.NONE ? NONE : PRESENT) << ADDUCT_SHIFT
+                | (fragment == null ? ABSENT : fragment == Fragment.NONE ? NONE : PRESENT) << FRAGMENT_SHIFT;
+        if (lipid == null) {
+            flags |= FLAG_NO_LIPID;
+        } else {
+            flags |= kind(lipid);
+            if (lipid.getInfo() == LipidSpeciesInfo.NONE) {
+                flags |= FLAG_NO_INFO;
+            }
+        }
+        out.writeByte(flags);
+        if (lipid != null) {
+            out.writeVarint(dictionary.headGroupId(lipid.getHeadGroup()));
+            if ((flags & FLAG_NO_INFO) == 0) {
+                out.writeByte(lipid.getInfo().getLevel().ordinal());
+                writeFattyAcid(out, lipid.getInfo(), dictionary);
+            }
+            out.writeVarint(lipid.getFa().size());
+            for (FattyAcid fa : lipid.getFa().values()) {
+                writeFattyAcid(out, fa, dictionary);
+            }
+        }
+        if (adduct != null && adduct != Adduct.NONE) {
+            out.writeVarint(dictionary.adductId(adduct));
+        }
+        if (fragment != null && fragment != Fragment.NONE) {
+            out.writeVarint(dictionary.stringId(fragment.getName()));
+        }
+    }
+
+    static LipidAdduct read(ByteBuffer in, Dictionary dictionary) {
+        int flags = in.get() & 0xFF;
+        LipidSpecies lipid = null;
+        if ((flags & FLAG_NO_LIPID) == 0) {
+            HeadGroup headGroup = dictionary.headGroup(readVarint(in));
+            LipidSpeciesInfo info = LipidSpeciesInfo.NONE;
+            if ((flags & FLAG_NO_INFO) == 0) {
+                LipidLevel level = LEVELS[in.get()];
+                info = (LipidSpeciesInfo) readFattyAcid(in, dictionary, level);
+            }
+            FattyAcid[] fas = new FattyAcid[readVarint(in)];
+            for (int i = 0; i < fas.length; i++) {
+                fas[i] = readFattyAcid(in, dictionary, null);
+            }
+            switch (flags & KIND_MASK) {
+                case KIND_SPECIES:
+                    lipid = new LipidSpecies(headGroup, Optional.of(info));
+                    break;
+                case KIND_MOLECULAR:
+                    lipid = new LipidMolecularSubspecies(headGroup, fas);
+                    break;
+                case KIND_STRUCTURAL:
+                    lipid = new LipidStructuralSubspecies(headGroup, fas);
+                    break;
+                default:
+                    lipid = new LipidIsomericSubspecies(headGroup, fas);
+            }
+            // the info as parsed, not as recomputed from the FAs
+            lipid.info = info;
+        }
+        Adduct adduct = readAdduct((flags >>> ADDUCT_SHIFT) & 0x03, in, dictionary);
+        Fragment fragment = readFragment((flags >>> FRAGMENT_SHIFT) & 0x03, in, dictionary);
+        return new LipidAdduct(lipid, adduct, fragment);
+    }
+
+    private static int kind(LipidSpecies lipid) {
+        Class<?> type = lipid.getClass();
+        if (type == LipidSpecies.class) {
+            return KIND_SPECIES;
+        } else if (type == LipidMolecularSubspecies.class) {
+            return KIND_MOLECULAR;
+        } else if (type == LipidStructuralSubspecies.class) {
+            return KIND_STRUCTURAL;
+        } else if (type == LipidIsomericSubspecies.class) {
+            return KIND_ISOMERIC;
+        }
+        throw new IllegalArgumentException("Lipid must be a lipid species or subspecies! Was: " + type.getName());
+    }
+
+    private static Adduct readAdduct(int state, ByteBuffer in, Dictionary dictionary) {
+        switch (state) {
+            case ABSENT:
+                return null;
+            case NONE:
+                return Adduct.NONE;
+            default:
+                return dictionary.adduct(readVarint(in));
+        }
+    }
+
+    private static Fragment readFragment(int state, ByteBuffer in, Dictionary dictionary) {
+        switch (state) {
+            case ABSENT:
+                return null;
+            case NONE:
+                return Fragment.NONE;
+            default:
+                return new Fragment(dictionary.string(readVarint(in)));
+        }
+    }
+
+    private static void writeFattyAcid(Output out, FattyAcid fa, Dictionary dictionary) {
+        out.writeByte(fa.getType().ordinal() | fa.getLipidFaBondType().ordinal() << 2 | (fa.isLcb() ? 0x20 : 0));
+        out.writeVarint(dictionary.stringId(fa.getName()));
+        // the position is -1 if undefined
+        out.writeVarint(fa.getPosition() + 1);
+        out.writeVarint(fa.getNCarbon());
+        out.writeVarint(fa.getNHydroxy());
+        out.writeVarint(fa.getNDoubleBonds());
+        out.writeVarint(fa.getModifications().size());
+        for (Pair<Integer, String> modification : fa.getModifications()) {
+            out.writeVarint(zigZag(modification.getLeft()));
+            out.writeVarint(dictionary.stringId(modification.getRight()));
+        }
+        if (fa.getType() == FattyAcidType.ISOMERIC) {
+            out.writeVarint(fa.getDoubleBondPositions().size());
+            for (Map.Entry<Integer, String> position : fa.getDoubleBondPositions().entrySet()) {
+                out.writeVarint(zigZag(position.getKey()));
+                out.writeVarint(dictionary.stringId(position.getValue()));
+            }
+        }
+    }
+
+    private static FattyAcid readFattyAcid(ByteBuffer in, Dictionary dictionary, LipidLevel infoLevel) {
+        int flags = in.get() & 0xFF;
+        FattyAcidType type = FATTY_ACID_TYPES[flags & 0x03];
+        LipidFaBondType bondType = BOND_TYPES[(flags >>> 2) & 0x07];
+        boolean lcb = (flags & 0x20) != 0;
+        String name = dictionary.string(readVarint(in));
+        int position = readVarint(in) - 1;
+        int nCarbon = readVarint(in);
+        int nHydroxy = readVarint(in);
+        int nDoubleBonds = readVarint(in);
+        int nModifications = readVarint(in);
+        ModificationsList modifications = ModificationsList.NONE;
+        if (nModifications > 0) {
+            List<Pair<Integer, String>> list = new ArrayList<>(nModifications);
+            for (int i = 0; i < nModifications; i++) {
+                list.add(Pair.of(unZigZag(readVarint(in)), dictionary.string(readVarint(in))));
+            }
+            modifications = new ModificationsList(list);
+        }
+        switch (type) {
+            case ISOMERIC:
+                int nPositions = readVarint(in);
+                Map<Integer, String> positions = null;
+                if (nPositions > 0) {
+                    positions = new LinkedHashMap<>();
+                    for (int i = 0; i < nPositions; i++) {
+                        positions.put(unZigZag(readVarint(in)), dictionary.string(readVarint(in)));
+                    }
+                }
+                if (infoLevel != null) {
+                    return new LipidSpeciesInfo(infoLevel, name, position, nCarbon, nHydroxy, bondType, lcb, modifications, nDoubleBonds, positions);
+                }
+                return new FattyAcid(name, position, nCarbon, nHydroxy, bondType, lcb, modifications, nDoubleBonds, positions);
+            case STRUCTURAL:
+                if (infoLevel != null) {
+                    return new LipidSpeciesInfo(infoLevel, name, position, nCarbon, nHydroxy, nDoubleBonds, bondType, lcb, modifications);
+                }
+                return new FattyAcid(name, position, nCarbon, nHydroxy, nDoubleBonds, bondType, lcb, modifications);
+            default:
+                if (infoLevel != null) {
+                    throw new IllegalArgumentException("Lipid species info must be structural or isomeric! Was: " + type);
+                }
+                return new FattyAcid(name, nCarbon, nHydroxy, nDoubleBonds, bondType, lcb, modifications);
+        }
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint is longer than 5 bytes!");
+    }
+
+    static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[readVarint(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /*
+     * Strings, head groups and adducts by their ids, in the order they were first
+     * encoded. String id 0 is null.
+     */
+    static final class Dictionary {
+
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Integer> stringIds = new HashMap<>();
+        private final List<HeadGroup> headGroups = new ArrayList<>();
+        private final Map<HeadGroup, Integer> headGroupIds = new HashMap<>();
+        private final List<Adduct> adducts = new ArrayList<>();
+        private final Map<Adduct, Integer> adductIds = new HashMap<>();
+
+        int stringId(String string) {
+            if (string == null) {
+                return 0;
+            }
+            return stringIds.computeIfAbsent(string, (s) -> {
+                strings.add(s);
+                return strings.size();
+            });
+        }
+
+        int headGroupId(HeadGroup headGroup) {
+            return headGroupIds.computeIfAbsent(headGroup, (hg) -> {
+                // strings precede the head groups and adducts that use them
+                stringId(hg.getRawName());
+                stringId(hg.getLipidClass().name());
+                stringId(hg.getLipidCategory().name());
+                headGroups.add(hg);
+                return headGroups.size() - 1;
+            });
+        }
+
+        int adductId(Adduct adduct) {
+            return adductIds.computeIfAbsent(adduct, (a) -> {
+                stringId(a.getSumFormula());
+                stringId(a.getAdductString());
+                adducts.add(a);
+                return adducts.size() - 1;
+            });
+        }
+
+        String string(int id) {
+            return id == 0 ? null : strings.get(id - 1);
+        }
+
+        HeadGroup headGroup(int id) {
+            return headGroups.get(id);
+        }
+
+        Adduct adduct(int id) {
+            return adducts.get(id);
+        }
+
+        void write(Output out) {
+            out.writeVarint(strings.size());
+            for (String string : strings) {
+                out.writeString(string);
+            }
+            out.writeVarint(headGroups.size());
+            for (HeadGroup headGroup : headGroups) {
+                out.writeVarint(stringId(headGroup.getRawName()));
+                out.writeVarint(stringId(headGroup.getLipidClass().name()));
+                out.writeVarint(stringId(headGroup.getLipidCategory().name()));
+            }
+            out.writeVarint(adducts.size());
+            for (Adduct adduct : adducts) {
+                out.writeVarint(stringId(adduct.getSumFormula()));
+                out.writeVarint(stringId(adduct.getAdductString()));
+                out.writeVarint(zigZag(adduct.getPositiveElementaryCharge()));
+                out.writeVarint(zigZag(adduct.getChargeSign()));
+            }
+        }
+
+        static Dictionary read(ByteBuffer in) {
+            Dictionary dictionary = new Dictionary();
+            int nStrings = readVarint(in);
+            for (int i = 0; i < nStrings; i++) {
+                dictionary.strings.add(readString(in));
+            }
+            int nHeadGroups = readVarint(in);
+            for (int i = 0; i < nHeadGroups; i++) {
+                String rawName = dictionary.string(readVarint(in));
+                LipidClass lipidClass = LipidClass.valueOf(dictionary.string(readVarint(in)));
+                LipidCategory lipidCategory = LipidCategory.valueOf(dictionary.string(readVarint(in)));
+                // category level head groups have no lipid class
+                dictionary.headGroups.add(lipidClass == LipidClass.UNDEFINED ? new HeadGroup(rawName, lipidCategory) : new HeadGroup(rawName, Optional.of(lipidClass)));
+            }
+            int nAdducts = readVarint(in);
+            for (int i = 0; i < nAdducts; i++) {
+                String sumFormula = dictionary.string(readVarint(in));
+                String adductString = dictionary.string(readVarint(in));
+                int charge = unZigZag(readVarint(in));
+                int chargeSign = unZigZag(readVarint(in));
+                dictionary.adducts.add(new Adduct(sumFormula, adductString, charge, chargeSign));
+            }
+            return dictionary;
+        }
+    }
+
+    /*
+     * A growable byte array.
+     */
+    static final class Output {
+
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        void writeByte(int b) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, size * 2);
+            }
+            bytes[size++] = (byte) b;
+        }
+
+        void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        void writeString(String string) {
+            byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length);
+            for (byte b : utf8) {
+                writeByte(b);
+            }
+        }
+
+        void write(Output other) {
+            for (int i = 0; i < other.size; i++) {
+                writeByte(other.bytes[i]);
+            }
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+        }
+
+        int size() {
+            return size;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+}
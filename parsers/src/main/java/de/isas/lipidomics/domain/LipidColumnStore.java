@@ -0,0 +1,760 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Columnar store for large numbers of parsed lipids, e.g. to keep tens of
+ * millions of lipids in memory for interactive queries.
+ *
+ * Each lipid is stored as a row of {@link #ROW_BYTES} bytes, instead of an
+ * object graph of several hundred bytes: the lipid class, level and bond type,
+ * the total number of carbon atoms, double bonds and hydroxy groups, the
+ * number, bond type, position and long chain base flag of up to
+ * {@link #MAX_CHAINS} fatty acyl chains, the head group and the adduct, which
+ * are dictionary-encoded, and the mass as calculated by
+ * {@link LipidAdduct#getMass()}. Double bond positions and modifications are
+ * not stored.
+ *
+ * Rows are kept in segments of a fixed number of rows. Each segment is a
+ * single {@link ByteBuffer} on the heap or off-heap, holding one column after
+ * the other, so that scans over a column, e.g. the masses, read consecutive
+ * memory. Values are read by row from the store, or through a {@link View},
+ * a reusable flyweight that exposes the getters of a lipid species for the
+ * row it is moved to, without creating objects.
+ *
+ * Stores are created with a {@link Builder}, or loaded from lipid names by a
+ * {@link de.isas.lipidomics.palinom.BatchParser}. A store is immutable and
+ * thread-safe, views are not thread-safe.
+ *
+ * @author nils.hoffmann
+ */
+public final class LipidColumnStore {
+
+    /**
+     * The maximum number of fatty acyl chains of a lipid.
+     */
+    public static final int MAX_CHAINS = 4;
+
+    /**
+     * Adduct id of lipids without an adduct.
+     */
+    public static final int NO_ADDUCT_ID = -1;
+
+    /**
+     * The default number of rows per segment.
+     */
+    public static final int DEFAULT_SEGMENT_ROWS = 1 << 16;
+
+    /*
+     * Start of each column within a segment, in bytes per row of the segment.
+     * Wider columns come first, so that all values are aligned.
+     */
+    private static final int MASS = 0;
+    private static final int HEAD_GROUP = MASS + 8;
+    private static final int ADDUCT = HEAD_GROUP + 4;
+    private static final int CLASS = ADDUCT + 4;
+    private static final int CARBON = CLASS + 2;
+    private static final int CHAIN_CARBON = CARBON + 2;
+    private static final int LEVEL = CHAIN_CARBON + 2 * MAX_CHAINS;
+    private static final int BOND_TYPE = LEVEL + 1;
+    private static final int DOUBLE_BONDS = BOND_TYPE + 1;
+    private static final int HYDROXY = DOUBLE_BONDS + 1;
+    private static final int CHAINS = HYDROXY + 1;
+    private static final int CHAIN_DOUBLE_BONDS = CHAINS + 1;
+    private static final int CHAIN_HYDROXY = CHAIN_DOUBLE_BONDS + MAX_CHAINS;
+    private static final int CHAIN_BOND_TYPE = CHAIN_HYDROXY + MAX_CHAINS;
+    private static final int CHAIN_POSITION = CHAIN_BOND_TYPE + MAX_CHAINS;
+    private static final int CHAIN_FLAGS = CHAIN_POSITION + MAX_CHAINS;
+
+    /**
+     * The number of bytes per lipid.
+     */
+    public static final int ROW_BYTES = CHAIN_FLAGS + MAX_CHAINS;
+
+    /*
+     * Chain flags, the fatty acid type ordinal is stored above the lcb bit.
+     */
+    private static final int LCB_FLAG = 1;
+    private static final int TYPE_SHIFT = 1;
+
+    private static final LipidClass[] CLASSES = LipidClass.values();
+    private static final LipidLevel[] LEVELS = LipidLevel.values();
+    private static final LipidFaBondType[] BOND_TYPES = LipidFaBondType.values();
+    private static final FattyAcidType[] FATTY_ACID_TYPES = FattyAcidType.values();
+
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final int segmentMask;
+    private final int size;
+    private final boolean offHeap;
+    private final List<HeadGroup> headGroups;
+    private final List<Adduct> adducts;
+
+    private LipidColumnStore(Segment[] segments, int segmentShift, int size, boolean offHeap, List<HeadGroup> headGroups, List<Adduct> adducts) {
+        this.segments = segments;
+        this.segmentShift = segmentShift;
+        this.segmentMask = (1 << segmentShift) - 1;
+        this.size = size;
+        this.offHeap = offHeap;
+        this.headGroups = headGroups;
+        this.adducts = adducts;
+    }
+
+    /**
+     * Creates a new builder for a store on the heap, with
+     * {@link #DEFAULT_SEGMENT_ROWS} rows per segment.
+     *
+     * @return the builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builds a store on the heap from the given lipid adducts, in the order of
+     * the collection.
+     *
+     * @param lipidAdducts the lipid adducts.
+     * @return the store.
+     * @throws IllegalArgumentException if a lipid can not be stored.
+     */
+    public static LipidColumnStore of(Collection<LipidAdduct> lipidAdducts) {
+        Builder builder = builder();
+        for (LipidAdduct lipidAdduct : lipidAdducts) {
+            builder.add(lipidAdduct);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of lipids.
+     *
+     * @return the number of lipids.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true, if the segments are stored off-heap.
+     *
+     * @return true, if the segments are direct byte buffers.
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Returns the number of bytes of all segments.
+     *
+     * @return the size of the segments in bytes.
+     */
+    public long getSegmentBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.buffer.capacity();
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the dictionary of head groups, by head group id.
+     *
+     * @return the head groups.
+     */
+    public List<HeadGroup> getHeadGroups() {
+        return headGroups;
+    }
+
+    /**
+     * Returns the dictionary of adducts, by adduct id.
+     *
+     * @return the adducts.
+     */
+    public List<Adduct> getAdducts() {
+        return adducts;
+    }
+
+    /**
+     * Returns a new view on the first row.
+     *
+     * @return the view.
+     */
+    public View view() {
+        return new View(this);
+    }
+
+    /**
+     * Returns a new view on the given row.
+     *
+     * @param row the row.
+     * @return the view.
+     */
+    public View view(int row) {
+        return new View(this).moveTo(row);
+    }
+
+    /**
+     * Passes a view on each row to the consumer, in row order. The same view
+     * is moved from row to row, so it must not be retained by the consumer.
+     *
+     * @param consumer the consumer.
+     */
+    public void forEach(Consumer<? super View> consumer) {
+        View view = new View(this);
+        for (int row = 0; row < size; row++) {
+            consumer.accept(view.moveTo(row));
+        }
+    }
+
+    public double getMass(int row) {
+        Segment segment = segment(row);
+        return segment.buffer.getDouble(segment.offset(MASS, 8, row & segmentMask));
+    }
+
+    public int getHeadGroupId(int row) {
+        Segment segment = segment(row);
+        return segment.buffer.getInt(segment.offset(HEAD_GROUP, 4, row & segmentMask));
+    }
+
+    public HeadGroup getHeadGroup(int row) {
+        return headGroups.get(getHeadGroupId(row));
+    }
+
+    public int getAdductId(int row) {
+        Segment segment = segment(row);
+        return segment.buffer.getInt(segment.offset(ADDUCT, 4, row & segmentMask));
+    }
+
+    /**
+     * Returns the adduct of the given row, or null.
+     *
+     * @param row the row.
+     * @return the adduct, or null if the lipid has no adduct.
+     */
+    public Adduct getAdduct(int row) {
+        int adductId = getAdductId(row);
+        return adductId == NO_ADDUCT_ID ? null : adducts.get(adductId);
+    }
+
+    public LipidClass getLipidClass(int row) {
+        Segment segment = segment(row);
+        return CLASSES[segment.buffer.getShort(segment.offset(CLASS, 2, row & segmentMask)) & 0xFFFF];
+    }
+
+    public LipidCategory getLipidCategory(int row) {
+        return getHeadGroup(row).getLipidCategory();
+    }
+
+    public LipidLevel getLevel(int row) {
+        return LEVELS[getByte(LEVEL, row)];
+    }
+
+    public LipidFaBondType getLipidFaBondType(int row) {
+        return BOND_TYPES[getByte(BOND_TYPE, row)];
+    }
+
+    public int getNCarbon(int row) {
+        Segment segment = segment(row);
+        return segment.buffer.getShort(segment.offset(CARBON, 2, row & segmentMask)) & 0xFFFF;
+    }
+
+    public int getNDoubleBonds(int row) {
+        return getByte(DOUBLE_BONDS, row);
+    }
+
+    public int getNHydroxy(int row) {
+        return getByte(HYDROXY, row);
+    }
+
+    /**
+     * Returns the number of fatty acyl chains of the given row, 0 above
+     * molecular subspecies level.
+     *
+     * @param row the row.
+     * @return the number of chains.
+     */
+    public int getChainCount(int row) {
+        return getByte(CHAINS, row);
+    }
+
+    public int getChainNCarbon(int row, int chain) {
+        Segment segment = segment(row);
+        return segment.buffer.getShort(segment.offset(CHAIN_CARBON + 2 * checkChain(chain), 2, row & segmentMask)) & 0xFFFF;
+    }
+
+    public int getChainNDoubleBonds(int row, int chain) {
+        return getByte(CHAIN_DOUBLE_BONDS + checkChain(chain), row);
+    }
+
+    public int getChainNHydroxy(int row, int chain) {
+        return getByte(CHAIN_HYDROXY + checkChain(chain), row);
+    }
+
+    public LipidFaBondType getChainLipidFaBondType(int row, int chain) {
+        return BOND_TYPES[getByte(CHAIN_BOND_TYPE + checkChain(chain), row)];
+    }
+
+    /**
+     * Returns the sn position of the given chain, or -1 if it is undefined.
+     *
+     * @param row the row.
+     * @param chain the chain.
+     * @return the position.
+     */
+    public int getChainPosition(int row, int chain) {
+        Segment segment = segment(row);
+        // signed, for the undefined position -1
+        return segment.buffer.get(segment.offset(CHAIN_POSITION + checkChain(chain), 1, row & segmentMask));
+    }
+
+    public boolean isChainLcb(int row, int chain) {
+        return (getByte(CHAIN_FLAGS + checkChain(chain), row) & LCB_FLAG) != 0;
+    }
+
+    public FattyAcidType getChainType(int row, int chain) {
+        return FATTY_ACID_TYPES[getByte(CHAIN_FLAGS + checkChain(chain), row) >>> TYPE_SHIFT];
+    }
+
+    /**
+     * Returns true, if the lipid or one of its chains has an ether bond.
+     *
+     * @param row the row.
+     * @return true, if the lipid is an ether lipid.
+     * @see LipidSpecies#isEtherLipid()
+     */
+    public boolean isEtherLipid(int row) {
+        if (isEther(getLipidFaBondType(row))) {
+            return true;
+        }
+        int chains = getChainCount(row);
+        for (int chain = 0; chain < chains; chain++) {
+            if (isEther(getChainLipidFaBondType(row, chain))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isEther(LipidFaBondType bondType) {
+        return bondType == LipidFaBondType.ETHER_PLASMANYL
+                || bondType == LipidFaBondType.ETHER_PLASMENYL
+                || bondType == LipidFaBondType.ETHER_UNSPECIFIED;
+    }
+
+    private int getByte(int column, int row) {
+        Segment segment = segment(row);
+        return segment.buffer.get(segment.offset(column, 1, row & segmentMask)) & 0xFF;
+    }
+
+    private Segment segment(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row must be >= 0 and < " + size + "! Was: " + row);
+        }
+        return segments[row >>> segmentShift];
+    }
+
+    private static int checkChain(int chain) {
+        if (chain < 0 || chain >= MAX_CHAINS) {
+            throw new IndexOutOfBoundsException("Chain must be >= 0 and < " + MAX_CHAINS + "! Was: " + chain);
+        }
+        return chain;
+    }
+
+    /*
+     * A buffer with the columns of up to capacity rows, capacity is a
+     * multiple of 8.
+     */
+    private static final class Segment {
+
+        private final ByteBuffer buffer;
+        private final int capacity;
+
+        private Segment(int capacity, boolean offHeap) {
+            this.capacity = capacity;
+            int bytes = capacity * ROW_BYTES;
+            this.buffer = (offHeap ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes)).order(ByteOrder.nativeOrder());
+        }
+
+        private int offset(int column, int width, int index) {
+            return column * capacity + index * width;
+        }
+
+        /*
+         * Copies the first rows into a new segment of the given capacity.
+         */
+        private Segment trim(int rows, int newCapacity, boolean offHeap) {
+            Segment trimmed = new Segment(newCapacity, offHeap);
+            copyColumn(trimmed, MASS, 8, rows);
+            copyColumn(trimmed, HEAD_GROUP, 4, rows);
+            copyColumn(trimmed, ADDUCT, 4, rows);
+            copyColumn(trimmed, CLASS, 2, rows);
+            copyColumn(trimmed, CARBON, 2, rows);
+            for (int chain = 0; chain < MAX_CHAINS; chain++) {
+                copyColumn(trimmed, CHAIN_CARBON + 2 * chain, 2, rows);
+            }
+            for (int column = LEVEL; column < ROW_BYTES; column++) {
+                copyColumn(trimmed, column, 1, rows);
+            }
+            return trimmed;
+        }
+
+        private void copyColumn(Segment target, int column, int width, int rows) {
+            ByteBuffer source = buffer.duplicate();
+            source.limit(offset(column, width, rows)).position(offset(column, width, 0));
+            ByteBuffer destination = target.buffer.duplicate();
+            destination.position(target.offset(column, width, 0));
+            destination.put(source);
+        }
+    }
+
+    /**
+     * A flyweight view on a row of a store. The getters follow those of
+     * {@link LipidSpecies}, {@link LipidSpeciesInfo} and {@link LipidAdduct}.
+     * A view can be moved to any row and is not thread-safe.
+     */
+    public static final class View {
+
+        private final LipidColumnStore store;
+        private final ChainView chain;
+        private int row;
+
+        private View(LipidColumnStore store) {
+            this.store = store;
+            this.chain = new ChainView(this);
+        }
+
+        /**
+         * Moves this view to the given row.
+         *
+         * @param row the row.
+         * @return this view.
+         */
+        public View moveTo(int row) {
+            if (row < 0 || row >= store.size) {
+                throw new IndexOutOfBoundsException("Row must be >= 0 and < " + store.size + "! Was: " + row);
+            }
+            this.row = row;
+            return this;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public HeadGroup getHeadGroup() {
+            return store.getHeadGroup(row);
+        }
+
+        public String getNormalizedHeadGroup() {
+            return getHeadGroup().getNormalizedName();
+        }
+
+        public LipidClass getLipidClass() {
+            return store.getLipidClass(row);
+        }
+
+        public LipidCategory getLipidCategory() {
+            return store.getLipidCategory(row);
+        }
+
+        public LipidLevel getLevel() {
+            return store.getLevel(row);
+        }
+
+        public LipidFaBondType getLipidFaBondType() {
+            return store.getLipidFaBondType(row);
+        }
+
+        public int getNCarbon() {
+            return store.getNCarbon(row);
+        }
+
+        public int getNDoubleBonds() {
+            return store.getNDoubleBonds(row);
+        }
+
+        public int getNHydroxy() {
+            return store.getNHydroxy(row);
+        }
+
+        public boolean isEtherLipid() {
+            return store.isEtherLipid(row);
+        }
+
+        /**
+         * Returns the mass, NaN for lipids above species level and for lipids
+         * with inconsistent elements.
+         *
+         * @return the mass.
+         */
+        public double getMass() {
+            return store.getMass(row);
+        }
+
+        /**
+         * Returns the adduct, or null.
+         *
+         * @return the adduct.
+         */
+        public Adduct getAdduct() {
+            return store.getAdduct(row);
+        }
+
+        public int getFaCount() {
+            return store.getChainCount(row);
+        }
+
+        /**
+         * Returns the chain view of this view, moved to the given chain of the
+         * current row. The chain view is reused by all calls.
+         *
+         * @param index the chain, from 0 to {@link #getFaCount()}
+         * (exclusive).
+         * @return the chain view.
+         */
+        public ChainView getFa(int index) {
+            if (index < 0 || index >= getFaCount()) {
+                throw new IndexOutOfBoundsException("Chain must be >= 0 and < " + getFaCount() + "! Was: " + index);
+            }
+            chain.index = index;
+            return chain;
+        }
+
+        @Override
+        public String toString() {
+            return "View{row=" + row + ", lipidClass=" + getLipidClass() + ", level=" + getLevel() + ", nCarbon=" + getNCarbon() + ", nDoubleBonds=" + getNDoubleBonds() + ", nHydroxy=" + getNHydroxy() + ", mass=" + getMass() + "}";
+        }
+    }
+
+    /**
+     * A flyweight view on a fatty acyl chain of the row of a {@link View}. The
+     * getters follow those of {@link FattyAcid}.
+     */
+    public static final class ChainView {
+
+        private final View view;
+        private int index;
+
+        private ChainView(View view) {
+            this.view = view;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public FattyAcidType getType() {
+            return view.store.getChainType(view.row, index);
+        }
+
+        public int getPosition() {
+            return view.store.getChainPosition(view.row, index);
+        }
+
+        public int getNCarbon() {
+            return view.store.getChainNCarbon(view.row, index);
+        }
+
+        public int getNDoubleBonds() {
+            return view.store.getChainNDoubleBonds(view.row, index);
+        }
+
+        public int getNHydroxy() {
+            return view.store.getChainNHydroxy(view.row, index);
+        }
+
+        public LipidFaBondType getLipidFaBondType() {
+            return view.store.getChainLipidFaBondType(view.row, index);
+        }
+
+        public boolean isLcb() {
+            return view.store.isChainLcb(view.row, index);
+        }
+    }
+
+    /**
+     * Appends lipids to the segments of a new store. A builder is not
+     * thread-safe and can build a single store.
+     */
+    public static final class Builder {
+
+        private boolean offHeap;
+        private int segmentRows = DEFAULT_SEGMENT_ROWS;
+        private final List<Segment> segments = new ArrayList<>();
+        private final Map<HeadGroup, Integer> headGroupIds = new HashMap<>();
+        private final List<HeadGroup> headGroups = new ArrayList<>();
+        private final Map<Adduct, Integer> adductIds = new HashMap<>();
+        private final List<Adduct> adducts = new ArrayList<>();
+        private int size;
+        private boolean built;
+
+        private Builder() {
+        }
+
+        /**
+         * Stores the segments off-heap in direct byte buffers, or on the heap.
+         * The default is on the heap.
+         *
+         * @param offHeap true for direct byte buffers.
+         * @return this builder.
+         */
+        public Builder offHeap(boolean offHeap) {
+            checkEmpty();
+            this.offHeap = offHeap;
+            return this;
+        }
+
+        /**
+         * Sets the number of rows per segment, a power of two of at least 8.
+         *
+         * @param segmentRows the number of rows per segment.
+         * @return this builder.
+         */
+        public Builder segmentRows(int segmentRows) {
+            checkEmpty();
+            if (segmentRows < 8 || Integer.bitCount(segmentRows) != 1 || segmentRows > Integer.MAX_VALUE / ROW_BYTES) {
+                throw new IllegalArgumentException("segmentRows must be a power of two >= 8 and <= " + Integer.highestOneBit(Integer.MAX_VALUE / ROW_BYTES) + "! Was: " + segmentRows);
+            }
+            this.segmentRows = segmentRows;
+            return this;
+        }
+
+        /**
+         * Returns the number of lipids added so far.
+         *
+         * @return the number of lipids.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Appends the given lipid adduct.
+         *
+         * @param lipidAdduct the lipid adduct.
+         * @return the row of the lipid adduct.
+         * @throws IllegalArgumentException if the lipid has more than
+         * {@link #MAX_CHAINS} chains, or a value does not fit its column.
+         */
+        public int add(LipidAdduct lipidAdduct) {
+            if (built) {
+                throw new IllegalStateException("Store has already been built!");
+            }
+            if (size == Integer.MAX_VALUE) {
+                throw new IllegalStateException("Store is full!");
+            }
+            LipidSpecies lipid = lipidAdduct.getLipid() == null ? LipidSpecies.NONE : lipidAdduct.getLipid();
+            LipidSpeciesInfo info = lipid.getInfo();
+            Collection<FattyAcid> chains = lipid.getFa().values();
+            if (chains.size() > MAX_CHAINS) {
+                throw new IllegalArgumentException("Lipid must have at most " + MAX_CHAINS + " chains! Was: " + chains.size() + " for " + lipidAdduct.getLipidString());
+            }
+            double mass = MassIndex.hasMass(lipidAdduct.getLipid()) ? MassIndex.getMass(lipidAdduct::getMass) : Double.NaN;
+            int index = size & (segmentRows - 1);
+            if (segments.size() == size / segmentRows) {
+                segments.add(new Segment(segmentRows, offHeap));
+            }
+            Segment segment = segments.get(segments.size() - 1);
+            ByteBuffer buffer = segment.buffer;
+            buffer.putDouble(segment.offset(MASS, 8, index), mass);
+            buffer.putInt(segment.offset(HEAD_GROUP, 4, index), id(lipid.getHeadGroup(), headGroupIds, headGroups));
+            buffer.putInt(segment.offset(ADDUCT, 4, index), lipidAdduct.getAdduct() == null ? NO_ADDUCT_ID : id(lipidAdduct.getAdduct(), adductIds, adducts));
+            buffer.putShort(segment.offset(CLASS, 2, index), (short) lipid.getHeadGroup().getLipidClass().ordinal());
+            buffer.putShort(segment.offset(CARBON, 2, index), unsignedShort("nCarbon", Math.max(0, info.getNCarbon())));
+            buffer.put(segment.offset(LEVEL, 1, index), (byte) info.getLevel().ordinal());
+            buffer.put(segment.offset(BOND_TYPE, 1, index), (byte) info.getLipidFaBondType().ordinal());
+            buffer.put(segment.offset(DOUBLE_BONDS, 1, index), unsignedByte("nDoubleBonds", info.getNDoubleBonds()));
+            buffer.put(segment.offset(HYDROXY, 1, index), unsignedByte("nHydroxy", info.getNHydroxy()));
+            buffer.put(segment.offset(CHAINS, 1, index), (byte) chains.size());
+            int chain = 0;
+            for (FattyAcid fa : chains) {
+                buffer.putShort(segment.offset(CHAIN_CARBON + 2 * chain, 2, index), unsignedShort("nCarbon", fa.getNCarbon()));
+                buffer.put(segment.offset(CHAIN_DOUBLE_BONDS + chain, 1, index), unsignedByte("nDoubleBonds", fa.getNDoubleBonds()));
+                buffer.put(segment.offset(CHAIN_HYDROXY + chain, 1, index), unsignedByte("nHydroxy", fa.getNHydroxy()));
+                buffer.put(segment.offset(CHAIN_BOND_TYPE + chain, 1, index), (byte) fa.getLipidFaBondType().ordinal());
+                if (fa.getPosition() > Byte.MAX_VALUE) {
+                    throw new IllegalArgumentException("position must be <= " + Byte.MAX_VALUE + "! Was: " + fa.getPosition());
+                }
+                buffer.put(segment.offset(CHAIN_POSITION + chain, 1, index), (byte) fa.getPosition());
+                buffer.put(segment.offset(CHAIN_FLAGS + chain, 1, index), (byte) ((fa.getType().ordinal() << TYPE_SHIFT) | (fa.isLcb() ? LCB_FLAG : 0)));
+                chain++;
+            }
+            return size++;
+        }
+
+        /**
+         * Builds the store. The last segment is trimmed to the rows it holds.
+         *
+         * @return the store.
+         */
+        public LipidColumnStore build() {
+            if (built) {
+                throw new IllegalStateException("Store has already been built!");
+            }
+            built = true;
+            int rows = size & (segmentRows - 1);
+            if (rows != 0) {
+                Segment last = segments.get(segments.size() - 1);
+                segments.set(segments.size() - 1, last.trim(rows, (rows + 7) & ~7, offHeap));
+            }
+            return new LipidColumnStore(
+                    segments.toArray(new Segment[segments.size()]),
+                    Integer.numberOfTrailingZeros(segmentRows),
+                    size,
+                    offHeap,
+                    Collections.unmodifiableList(headGroups),
+                    Collections.unmodifiableList(adducts));
+        }
+
+        private void checkEmpty() {
+            if (size > 0 || built) {
+                throw new IllegalStateException("Builder options must be set before lipids are added!");
+            }
+        }
+
+        private static <T> int id(T value, Map<T, Integer> ids, List<T> values) {
+            return ids.computeIfAbsent(value, (t) -> {
+                values.add(t);
+                return values.size() - 1;
+            });
+        }
+
+        private static short unsignedShort(String name, int value) {
+            if (value < 0 || value > 0xFFFF) {
+                throw new IllegalArgumentException(name + " must be >= 0 and <= " + 0xFFFF + "! Was: " + value);
+            }
+            return (short) value;
+        }
+
+        private static byte unsignedByte(String name, int value) {
+            if (value < 0 || value > 0xFF) {
+                throw new IllegalArgumentException(name + " must be >= 0 and <= " + 0xFF + "! Was: " + value);
+            }
+            return (byte) value;
+        }
+    }
+}
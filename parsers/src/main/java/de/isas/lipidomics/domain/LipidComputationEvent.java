@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JDK Flight Recorder event for the computation of the mass or sum formula
+ * of a {@link LipidAdduct}.
+ *
+ * @author nils.hoffmann
+ */
+@Name("de.isas.lipidomics.LipidComputation")
+@Label("Lipid Mass or Formula Computation")
+@Category({"jgoslin", "Domain"})
+@Description("Computation of the mass or sum formula of a lipid adduct from its elements")
+@StackTrace(false)
+final class LipidComputationEvent extends jdk.jfr.Event {
+
+    static final String MASS = "MASS";
+    static final String SUM_FORMULA = "SUM_FORMULA";
+
+    @Label("Computation")
+    private String computation;
+
+    @Label("Lipid Class")
+    private String lipidClass;
+
+    @Label("Level")
+    private String level;
+
+    @Label("Failure Type")
+    @Description("The simple class name of the exception, if the computation failed")
+    private String failureType;
+
+    /**
+     * Commits the event for the given lipid adduct, if the event is enabled.
+     *
+     * @param computation the computation.
+     * @param lipidAdduct the lipid adduct.
+     * @param ex the exception of the computation, or null.
+     */
+    void commit(String computation, LipidAdduct lipidAdduct, RuntimeException ex) {
+        end();
+        if (shouldCommit()) {
+            this.computation = computation;
+            LipidSpecies lipid = lipidAdduct.getLipid();
+            if (lipid != null) {
+                LipidClass headGroupClass = lipid.getHeadGroup().getLipidClass();
+                this.lipidClass = headGroupClass == null ? null : headGroupClass.name();
+                this.level = lipid.getInfo().getLevel().name();
+            }
+            this.failureType = ex == null ? null : ex.getClass().getSimpleName();
+            commit();
+        }
+    }
+}
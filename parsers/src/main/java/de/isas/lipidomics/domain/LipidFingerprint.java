@@ -0,0 +1,305 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.exceptions.ConstraintViolationException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Stable 64-bit fingerprints of lipids on a given {@link LipidLevel}, e.g. to
+ * deduplicate lipids or to join the identifications of several datasets that
+ * use different nomenclatures.
+ *
+ * A fingerprint is computed from the domain objects, without creating the
+ * lipid name. It only depends on the values that the normalized lipid name on
+ * the level, see {@link LipidSpecies#getLipidString(LipidLevel, boolean)},
+ * depends on. Lipids with equal normalized names on a level have equal
+ * fingerprints on that level, no matter which grammar they were parsed with.
+ * On each level, the fingerprint covers
+ * <ul>
+ * <li>CATEGORY: the lipid category,</li>
+ * <li>CLASS: the lipid class, or the head group name for lipids of an
+ * undefined class,</li>
+ * <li>SPECIES: the normalized head group, the total number of carbon atoms,
+ * double bonds and hydroxy groups, whether the lipid is an ether lipid and the
+ * suffix of its FA bond type,</li>
+ * <li>MOLECULAR_SUBSPECIES: the normalized head group, whether the lipid is an
+ * ether lipid, and the number of carbon atoms, double bonds and hydroxy groups,
+ * the bond type suffix and the long chain base flag of each FA, in any order of
+ * the FAs,</li>
+ * <li>STRUCTURAL_SUBSPECIES: the same as MOLECULAR_SUBSPECIES, but in the
+ * order of the FAs,</li>
+ * <li>ISOMERIC_SUBSPECIES: additionally the double bond positions and
+ * configurations of each FA.</li>
+ * </ul>
+ * A lipid has a fingerprint on its own level and on all coarser levels.
+ * Modifications, except the number of hydroxy groups, are not part of the
+ * fingerprint, as they are not part of the lipid names.
+ *
+ * Fingerprints are computed from names and numbers only, not from enum
+ * ordinals or Java hash codes. They are identical across JVMs and releases, as
+ * long as {@link #VERSION} is unchanged. They are never
+ * {@link #NO_FINGERPRINT}.
+ *
+ * @author nils.hoffmann
+ */
+public final class LipidFingerprint {
+
+    /**
+     * The version of the fingerprint function. It changes, whenever the
+     * fingerprints of lipids change.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Marks lipids without a fingerprint on a level in fingerprint arrays.
+     */
+    public static final long NO_FINGERPRINT = 0L;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Receives the matches of a join.
+     */
+    @FunctionalInterface
+    public static interface MatchConsumer {
+
+        /**
+         * Called for each pair of lipids with equal fingerprints, in ascending
+         * order of left and right indices.
+         *
+         * @param left the index of the lipid in the left list.
+         * @param right the index of the lipid in the right list.
+         */
+        void accept(int left, int right);
+    }
+
+    private LipidFingerprint() {
+    }
+
+    /**
+     * Returns the fingerprint of the given lipid on the given level.
+     *
+     * @param lipid the lipid.
+     * @param level the level.
+     * @return the fingerprint.
+     * @throws ConstraintViolationException if the level is undefined or more
+     * specific than the level of the lipid, or if the level is a subspecies
+     * level and the lipid is no subspecies.
+     */
+    public static long of(LipidSpecies lipid, LipidLevel level) throws ConstraintViolationException {
+        LipidLevel lipidLevel = lipid.getInfo().getLevel();
+        if (level == LipidLevel.UNDEFINED || lipidLevel == LipidLevel.UNDEFINED || level.ordinal() > lipidLevel.ordinal()) {
+            throw new ConstraintViolationException("Can not compute the fingerprint of lipid with level " + lipidLevel + " for level " + level + ": target level is undefined or more specific than this lipid's level!");
+        }
+        long h = add(add(FNV_OFFSET, VERSION), level.name());
+        HeadGroup headGroup = lipid.getHeadGroup();
+        switch (level) {
+            case CATEGORY:
+                h = add(h, headGroup.getLipidCategory().name());
+                break;
+            case CLASS:
+                LipidClass lipidClass = headGroup.getLipidClass();
+                h = add(h, lipidClass == null || lipidClass == LipidClass.UNDEFINED ? headGroup.getName() : lipidClass.name());
+                break;
+            case SPECIES:
+                LipidSpeciesInfo info = lipid.getInfo();
+                h = add(h, lipid.getNormalizedHeadGroup());
+                h = add(h, lipid.isEtherLipid() ? 1 : 0);
+                h = add(h, info.getNCarbon());
+                h = add(h, info.getNDoubleBonds());
+                h = add(h, info.getNHydroxy());
+                h = add(h, info.getLipidFaBondType().suffix());
+                break;
+            default:
+                if (!(lipid instanceof LipidMolecularSubspecies)) {
+                    throw new ConstraintViolationException("Can not compute the fingerprint of lipid with level " + lipidLevel + " for level " + level + ": lipid is no subspecies!");
+                }
+                Collection<FattyAcid> fas = lipid.getFa().values();
+                h = add(h, lipid.getNormalizedHeadGroup());
+                h = add(h, lipid.isEtherLipid() ? 1 : 0);
+                long[] faFingerprints = new long[fas.size()];
+                int i = 0;
+                for (FattyAcid fa : fas) {
+                    faFingerprints[i++] = faFingerprint(fa, level == LipidLevel.ISOMERIC_SUBSPECIES);
+                }
+                if (level == LipidLevel.MOLECULAR_SUBSPECIES) {
+                    // the order of FAs is not defined on molecular subspecies level
+                    Arrays.sort(faFingerprints);
+                }
+                h = add(h, faFingerprints.length);
+                for (long faFingerprint : faFingerprints) {
+                    h = add(h, faFingerprint);
+                }
+        }
+        return h == NO_FINGERPRINT ? 1L : h;
+    }
+
+    /**
+     * Returns the fingerprint of the lipid of the given lipid adduct on the
+     * given level. The adduct and fragment are not part of the fingerprint.
+     *
+     * @param lipidAdduct the lipid adduct.
+     * @param level the level.
+     * @return the fingerprint.
+     * @throws ConstraintViolationException if the lipid adduct has no lipid,
+     * or the level is undefined or more specific than the level of the lipid.
+     */
+    public static long of(LipidAdduct lipidAdduct, LipidLevel level) throws ConstraintViolationException {
+        if (lipidAdduct.getLipid() == null) {
+            throw new ConstraintViolationException("Can not compute the fingerprint of a lipid adduct without lipid!");
+        }
+        return of(lipidAdduct.getLipid(), level);
+    }
+
+    /**
+     * Returns the fingerprints of the lipids of the given items on the given
+     * level, or {@link #NO_FINGERPRINT} for items without a lipid, and for
+     * lipids without a fingerprint on the given level.
+     *
+     * @param <T> the type of the items.
+     * @param items the items, e.g. identifications.
+     * @param lipid returns the lipid of an item, or null.
+     * @param level the level.
+     * @return the fingerprints, by the index of their items.
+     */
+    public static <T> long[] of(List<T> items, Function<? super T, ? extends LipidSpecies> lipid, LipidLevel level) {
+        long[] fingerprints = new long[items.size()];
+        for (int i = 0; i < fingerprints.length; i++) {
+            LipidSpecies species = lipid.apply(items.get(i));
+            if (hasFingerprint(species, level)) {
+                try {
+                    fingerprints[i] = of(species, level);
+                } catch (ConstraintViolationException ex) {
+                    // the lipid is no subspecies
+                }
+            }
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Joins two lists of lipids by their fingerprints on the given level.
+     * Lipids without a fingerprint on the level are skipped.
+     *
+     * @param left the left lipids.
+     * @param right the right lipids.
+     * @param level the level to join on.
+     * @param consumer receives the indices of matching lipids.
+     */
+    public static void join(List<? extends LipidSpecies> left, List<? extends LipidSpecies> right, LipidLevel level, MatchConsumer consumer) {
+        join(of(left, (lipid) -> {
+            return lipid;
+        }, level), of(right, (lipid) -> {
+            return lipid;
+        }, level), consumer);
+    }
+
+    /**
+     * Joins two arrays of fingerprints, e.g. created by
+     * {@link #of(List, Function, LipidLevel)}, with a hash table over the
+     * right fingerprints. Entries with {@link #NO_FINGERPRINT} are skipped.
+     *
+     * @param left the left fingerprints.
+     * @param right the right fingerprints.
+     * @param consumer receives the indices of matching fingerprints.
+     */
+    public static void join(long[] left, long[] right, MatchConsumer consumer) {
+        int capacity = Integer.highestOneBit(Math.max(2, right.length) * 2 - 1) << 1;
+        int mask = capacity - 1;
+        long[] keys = new long[capacity];
+        int[] heads = new int[capacity];
+        int[] next = new int[right.length];
+        // inserted in reverse, so that the entries of each key are ascending
+        for (int j = right.length - 1; j >= 0; j--) {
+            long key = right[j];
+            if (key == NO_FINGERPRINT) {
+                continue;
+            }
+            int slot = (int) key & mask;
+            while (keys[slot] != NO_FINGERPRINT && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            next[j] = keys[slot] == NO_FINGERPRINT ? -1 : heads[slot];
+            keys[slot] = key;
+            heads[slot] = j;
+        }
+        for (int i = 0; i < left.length; i++) {
+            long key = left[i];
+            if (key == NO_FINGERPRINT) {
+                continue;
+            }
+            int slot = (int) key & mask;
+            while (keys[slot] != NO_FINGERPRINT && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == key) {
+                for (int j = heads[slot]; j != -1; j = next[j]) {
+                    consumer.accept(i, j);
+                }
+            }
+        }
+    }
+
+    private static boolean hasFingerprint(LipidSpecies lipid, LipidLevel level) {
+        if (lipid == null || level == LipidLevel.UNDEFINED) {
+            return false;
+        }
+        LipidLevel lipidLevel = lipid.getInfo().getLevel();
+        return lipidLevel != LipidLevel.UNDEFINED && level.ordinal() <= lipidLevel.ordinal();
+    }
+
+    private static long faFingerprint(FattyAcid fa, boolean doubleBondPositions) {
+        long h = FNV_OFFSET;
+        h = add(h, fa.getNCarbon());
+        h = add(h, fa.getNDoubleBonds());
+        h = add(h, fa.getNHydroxy());
+        h = add(h, fa.getLipidFaBondType().suffix());
+        h = add(h, fa.isLcb() ? 1 : 0);
+        if (doubleBondPositions) {
+            h = add(h, fa.getDoubleBondPositions().size());
+            for (Map.Entry<Integer, String> position : fa.getDoubleBondPositions().entrySet()) {
+                h = add(h, position.getKey());
+                h = add(h, position.getValue() == null ? "" : position.getValue());
+            }
+        }
+        return h;
+    }
+
+    private static long add(long h, String value) {
+        long v = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            v = (v ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return add(h, v);
+    }
+
+    /*
+     * Combines the hash with the value, with the finalizer of SplitMix64.
+     */
+    private static long add(long h, long value) {
+        long z = Long.rotateLeft(h, 23) ^ (value * GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -18,8 +18,7 @@ package de.isas.lipidomics.domain;
 import de.isas.lipidomics.palinom.exceptions.ConstraintViolationException;
 import java.util.stream.Collectors;
 import lombok.Builder;
-import lombok.Data;
-import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 /**
  * An isomeric subspecies. Child of LipidStructuralSubspecies. Individual FAs,
@@ -30,8 +29,7 @@ import lombok.EqualsAndHashCode;
  * @author nils.hoffmann
  * @see LipidStructuralSubspecies
  */
-@Data
-@EqualsAndHashCode(callSuper = true)
+@ToString
 public class LipidIsomericSubspecies extends LipidStructuralSubspecies {
 
     /**
@@ -114,4 +112,21 @@ public class LipidIsomericSubspecies extends LipidStructuralSubspecies {
     public String toString() {
         return getLipidString();
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof LipidIsomericSubspecies)) {
+            return false;
+        }
+        LipidIsomericSubspecies other = (LipidIsomericSubspecies) o;
+        return other.canEqual(this) && super.equals(o);
+    }
+
+    @Override
+    protected boolean canEqual(Object other) {
+        return other instanceof LipidIsomericSubspecies;
+    }
 }
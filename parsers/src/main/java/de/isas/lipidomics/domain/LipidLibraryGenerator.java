@@ -0,0 +1,451 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Generates a combinatorial library of lipids from the {@link LipidClass}
+ * metadata, e.g. to compute the sum formulas and masses of a search library.
+ * For each lipid class, every allowed number of fatty acyl chains up to
+ * {@link LipidClass#getMaxNumFa()} is combined with the chains from the
+ * configured ranges of carbon atoms, double bonds and hydroxyls and with the
+ * configured bond types. The lipids are created directly as
+ * {@link LipidSpecies} or {@link LipidMolecularSubspecies}, without formatting
+ * and parsing their names.
+ *
+ * On molecular subspecies level, the order of the chains is not known, so each
+ * unordered combination of chains is generated exactly once. On species level,
+ * each distinct total of carbon atoms, double bonds, hydroxyls and bond type is
+ * generated once per lipid class. A chain has fewer double bonds than carbon
+ * atoms, and at most one chain of a lipid has an ether bond, as required by
+ * {@link LipidFaBondType#getLipidFaBondType(HeadGroup, FattyAcid...)}. Ether
+ * bonds are only used for glycerolipids and glycerophospholipids, all other
+ * categories use ester bonds. The first chain of a sphingolipid is the long
+ * chain base, with its own hydroxyl range. Lipid classes without fatty acyl
+ * chains are not generated.
+ *
+ * The lipid classes and, on molecular subspecies level, the combinations that
+ * start with the same chain are generated in parallel on a fork-join pool. The
+ * lipids are passed to a consumer as soon as they are created, so that large
+ * libraries never need to be held in memory. The consumer is called
+ * concurrently and in no particular order.
+ *
+ * @author nils.hoffmann
+ */
+public final class LipidLibraryGenerator {
+
+    private static final Set<LipidFaBondType> CHAIN_BOND_TYPES = Collections.unmodifiableSet(EnumSet.of(
+            LipidFaBondType.ESTER,
+            LipidFaBondType.ETHER_PLASMANYL,
+            LipidFaBondType.ETHER_PLASMENYL));
+
+    private final List<LipidClass> lipidClasses;
+    private final LipidLevel level;
+    private final int parallelism;
+    private final Chains esterChains;
+    private final Chains etherChains;
+    private final Chains lcbChains;
+
+    /**
+     * A fatty acyl chain or long chain base of the library.
+     */
+    @Value
+    private static class Chain {
+
+        private final int nCarbon;
+        private final int nDoubleBonds;
+        private final int nHydroxy;
+        private final LipidFaBondType lipidFaBondType;
+
+        boolean isEther() {
+            return lipidFaBondType != LipidFaBondType.ESTER;
+        }
+
+        /*
+         * Packs the chain into a key that can be summed up with the keys of
+         * other chains, the ether bond type is kept in the upper bits.
+         */
+        long toKey() {
+            long ether = isEther() ? lipidFaBondType.ordinal() : 0;
+            return nCarbon | ((long) nDoubleBonds << 16) | ((long) nHydroxy << 32) | (ether << 48);
+        }
+    }
+
+    /**
+     * The chains of the library together with their fatty acids, one for each
+     * chain and name.
+     */
+    private static final class Chains {
+
+        private final List<Chain> chains;
+        private final FattyAcid[][] fattyAcids;
+
+        Chains(List<Chain> chains, List<String> names, boolean lcb) {
+            this.chains = chains;
+            this.fattyAcids = new FattyAcid[names.size()][chains.size()];
+            for (int n = 0; n < names.size(); n++) {
+                for (int i = 0; i < chains.size(); i++) {
+                    Chain chain = chains.get(i);
+                    fattyAcids[n][i] = FattyAcid.molecularFattyAcidBuilder().
+                            name(names.get(n)).
+                            nCarbon(chain.getNCarbon()).
+                            nDoubleBonds(chain.getNDoubleBonds()).
+                            nHydroxy(chain.getNHydroxy()).
+                            lipidFaBondType(chain.getLipidFaBondType()).
+                            lcb(lcb).
+                            build();
+                }
+            }
+        }
+
+        int size() {
+            return chains.size();
+        }
+    }
+
+    /**
+     * Create a new library generator. All ranges are inclusive.
+     *
+     * @param lipidClasses the lipid classes to generate, all defined classes if
+     * null or empty.
+     * @param level the level of the lipids, either
+     * {@link LipidLevel#SPECIES} or {@link LipidLevel#MOLECULAR_SUBSPECIES}
+     * (default).
+     * @param minCarbon the minimum number of carbon atoms of a chain, at least
+     * 1.
+     * @param maxCarbon the maximum number of carbon atoms of a chain.
+     * @param minDoubleBonds the minimum number of double bonds of a chain.
+     * @param maxDoubleBonds the maximum number of double bonds of a chain.
+     * @param minHydroxy the minimum number of hydroxyls of a fatty acyl chain.
+     * @param maxHydroxy the maximum number of hydroxyls of a fatty acyl chain.
+     * @param minLcbHydroxy the minimum number of hydroxyls of a long chain
+     * base.
+     * @param maxLcbHydroxy the maximum number of hydroxyls of a long chain
+     * base.
+     * @param bondTypes the bond types of the fatty acyl chains, out of
+     * {@link LipidFaBondType#ESTER}, {@link LipidFaBondType#ETHER_PLASMANYL}
+     * and {@link LipidFaBondType#ETHER_PLASMENYL}. Only ester bonds if null or
+     * empty.
+     * @param parallelism the parallelism of the fork-join pool, 0 to use the
+     * common pool.
+     * @throws IllegalArgumentException for invalid ranges, levels or bond
+     * types.
+     */
+    @Builder
+    public LipidLibraryGenerator(Collection<LipidClass> lipidClasses, LipidLevel level, int minCarbon, int maxCarbon, int minDoubleBonds, int maxDoubleBonds, int minHydroxy, int maxHydroxy, int minLcbHydroxy, int maxLcbHydroxy, Collection<LipidFaBondType> bondTypes, int parallelism) {
+        if (lipidClasses == null || lipidClasses.isEmpty()) {
+            lipidClasses = EnumSet.allOf(LipidClass.class);
+        }
+        this.lipidClasses = lipidClasses.stream().filter((lipidClass) -> {
+            return lipidClass != LipidClass.UNDEFINED && !getNumFa(lipidClass).isEmpty();
+        }).distinct().collect(Collectors.toList());
+        this.level = level == null ? LipidLevel.MOLECULAR_SUBSPECIES : level;
+        if (this.level != LipidLevel.SPECIES && this.level != LipidLevel.MOLECULAR_SUBSPECIES) {
+            throw new IllegalArgumentException("level must be " + LipidLevel.SPECIES + " or " + LipidLevel.MOLECULAR_SUBSPECIES + "! Was: " + level);
+        }
+        if (minCarbon < 1) {
+            throw new IllegalArgumentException("minCarbon must be at least 1! Was: " + minCarbon);
+        }
+        checkRange("carbon", minCarbon, maxCarbon);
+        checkRange("doubleBonds", minDoubleBonds, maxDoubleBonds);
+        checkRange("hydroxy", minHydroxy, maxHydroxy);
+        checkRange("lcbHydroxy", minLcbHydroxy, maxLcbHydroxy);
+        Set<LipidFaBondType> types = bondTypes == null || bondTypes.isEmpty() ? EnumSet.of(LipidFaBondType.ESTER) : EnumSet.copyOf(bondTypes);
+        if (!CHAIN_BOND_TYPES.containsAll(types)) {
+            throw new IllegalArgumentException("bondTypes must be out of " + CHAIN_BOND_TYPES + "! Was: " + bondTypes);
+        }
+        if (parallelism < 0) {
+            throw new IllegalArgumentException("parallelism must be greater or equal to 0! Was: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        int maxNumFa = this.lipidClasses.stream().mapToInt(LipidLibraryGenerator::getMaxNumFa).max().orElse(0);
+        List<String> faNames = new ArrayList<>();
+        for (int i = 1; i <= maxNumFa; i++) {
+            faNames.add("FA" + i);
+        }
+        this.esterChains = new Chains(chains(minCarbon, maxCarbon, minDoubleBonds, maxDoubleBonds, minHydroxy, maxHydroxy, EnumSet.of(LipidFaBondType.ESTER)), faNames, false);
+        this.etherChains = new Chains(chains(minCarbon, maxCarbon, minDoubleBonds, maxDoubleBonds, minHydroxy, maxHydroxy, types), faNames, false);
+        this.lcbChains = new Chains(chains(minCarbon, maxCarbon, minDoubleBonds, maxDoubleBonds, minLcbHydroxy, maxLcbHydroxy, EnumSet.of(LipidFaBondType.ESTER)), Arrays.asList("LCB"), true);
+    }
+
+    /**
+     * Returns the lipid classes that will be generated.
+     *
+     * @return the lipid classes.
+     */
+    public List<LipidClass> getLipidClasses() {
+        return Collections.unmodifiableList(lipidClasses);
+    }
+
+    /**
+     * Returns the level of the generated lipids.
+     *
+     * @return the lipid level.
+     */
+    public LipidLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Generates the library and passes each lipid to the consumer. The consumer
+     * must be thread-safe. Exceptions thrown by the consumer cancel the
+     * generation and are rethrown.
+     *
+     * @param consumer the consumer of the generated lipids.
+     * @return the number of generated lipids.
+     */
+    public long generate(Consumer<? super LipidSpecies> consumer) {
+        LongAdder count = new LongAdder();
+        Consumer<LipidSpecies> counting = (lipid) -> {
+            consumer.accept(lipid);
+            count.increment();
+        };
+        ForkJoinPool pool = parallelism == 0 ? ForkJoinPool.commonPool() : new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new LibraryTask(counting));
+        } finally {
+            if (pool != ForkJoinPool.commonPool()) {
+                pool.shutdown();
+            }
+        }
+        return count.sum();
+    }
+
+    private static void checkRange(String name, int min, int max) {
+        if (min < 0 || max < min) {
+            throw new IllegalArgumentException(name + " range must satisfy 0 <= min <= max! Was: " + min + " to " + max);
+        }
+    }
+
+    private static int getMaxNumFa(LipidClass lipidClass) {
+        return Optional.ofNullable(lipidClass.getMaxNumFa()).orElse(0);
+    }
+
+    /*
+     * The allowed numbers of chains, without 0 and without numbers beyond the
+     * maximum, which would be rejected when the elements are computed.
+     */
+    private static List<Integer> getNumFa(LipidClass lipidClass) {
+        int maxNumFa = getMaxNumFa(lipidClass);
+        return new TreeSet<>(Optional.ofNullable(lipidClass.getAllowedNumFa()).orElse(Collections.emptyList())).stream().filter((numFa) -> {
+            return numFa > 0 && numFa <= maxNumFa;
+        }).collect(Collectors.toList());
+    }
+
+    private static List<Chain> chains(int minCarbon, int maxCarbon, int minDoubleBonds, int maxDoubleBonds, int minHydroxy, int maxHydroxy, Set<LipidFaBondType> bondTypes) {
+        List<Chain> chains = new ArrayList<>();
+        for (int nCarbon = minCarbon; nCarbon <= maxCarbon; nCarbon++) {
+            for (int nDoubleBonds = minDoubleBonds; nDoubleBonds <= maxDoubleBonds && nDoubleBonds < nCarbon; nDoubleBonds++) {
+                for (int nHydroxy = minHydroxy; nHydroxy <= maxHydroxy; nHydroxy++) {
+                    for (LipidFaBondType bondType : bondTypes) {
+                        chains.add(new Chain(nCarbon, nDoubleBonds, nHydroxy, bondType));
+                    }
+                }
+            }
+        }
+        return chains;
+    }
+
+    private static boolean isSphingoLipid(LipidClass lipidClass) {
+        return lipidClass.getCategory() == LipidCategory.SP;
+    }
+
+    private Chains getFaChains(LipidClass lipidClass) {
+        switch (lipidClass.getCategory()) {
+            case GL:
+            case GP:
+                return etherChains;
+            default:
+                return esterChains;
+        }
+    }
+
+    private final class LibraryTask extends RecursiveAction {
+
+        private final Consumer<LipidSpecies> consumer;
+
+        LibraryTask(Consumer<LipidSpecies> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(lipidClasses.stream().map((lipidClass) -> {
+                return new ClassTask(lipidClass, consumer);
+            }).collect(Collectors.toList()));
+        }
+    }
+
+    private final class ClassTask extends RecursiveAction {
+
+        private final LipidClass lipidClass;
+        private final Consumer<LipidSpecies> consumer;
+
+        ClassTask(LipidClass lipidClass, Consumer<LipidSpecies> consumer) {
+            this.lipidClass = lipidClass;
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected void compute() {
+            HeadGroup headGroup = new HeadGroup(lipidClass.getAbbreviation(), Optional.of(lipidClass));
+            if (level == LipidLevel.SPECIES) {
+                generateSpecies(headGroup);
+            } else {
+                List<CombinationTask> tasks = new ArrayList<>();
+                Chains first = isSphingoLipid(lipidClass) ? lcbChains : getFaChains(lipidClass);
+                for (int numFa : getNumFa(lipidClass)) {
+                    for (int i = 0; i < first.size(); i++) {
+                        tasks.add(new CombinationTask(headGroup, numFa, i, consumer));
+                    }
+                }
+                invokeAll(tasks);
+            }
+        }
+
+        /*
+         * The totals of the chains are summed up chain by chain, so that each
+         * total is created once, no matter how many chain combinations lead
+         * to it.
+         */
+        private void generateSpecies(HeadGroup headGroup) {
+            boolean sphingoLipid = isSphingoLipid(lipidClass);
+            List<Chain> faChains = getFaChains(lipidClass).chains;
+            Set<Long> species = new LinkedHashSet<>();
+            for (int numFa : getNumFa(lipidClass)) {
+                Set<Long> totals = Collections.singleton(0L);
+                for (int slot = 0; slot < numFa; slot++) {
+                    List<Chain> chains = sphingoLipid && slot == 0 ? lcbChains.chains : faChains;
+                    Set<Long> next = new LinkedHashSet<>();
+                    for (long total : totals) {
+                        for (Chain chain : chains) {
+                            long key = chain.toKey();
+                            if ((total >>> 48) != 0 && (key >>> 48) != 0) {
+                                // at most one ether bond
+                                continue;
+                            }
+                            next.add(total + key);
+                        }
+                    }
+                    totals = next;
+                }
+                species.addAll(totals);
+            }
+            for (long key : species) {
+                int nCarbon = (int) (key & 0xFFFF);
+                int nDoubleBonds = (int) ((key >>> 16) & 0xFFFF);
+                int nHydroxy = (int) ((key >>> 32) & 0xFFFF);
+                int ether = (int) (key >>> 48);
+                LipidFaBondType bondType = ether == 0 ? LipidFaBondType.ESTER : LipidFaBondType.values()[ether];
+                LipidSpeciesInfo info;
+                if (sphingoLipid) {
+                    info = LipidSpeciesInfo.lipidSpeciesInfoBuilder().
+                            level(LipidLevel.SPECIES).
+                            name("LCB").
+                            lcb(true).
+                            nCarbon(nCarbon).
+                            nHydroxy(nHydroxy).
+                            nDoubleBonds(nDoubleBonds).
+                            lipidFaBondType(bondType).
+                            build();
+                } else {
+                    info = new LipidSpeciesInfo(LipidLevel.SPECIES, nCarbon, nHydroxy, nDoubleBonds, bondType);
+                }
+                consumer.accept(new LipidSpecies(headGroup, Optional.of(info)));
+            }
+        }
+    }
+
+    /*
+     * Generates the combinations of chains that start with the given chain. The
+     * remaining chains are picked in ascending order, so that each unordered
+     * combination is generated once.
+     */
+    private final class CombinationTask extends RecursiveAction {
+
+        private final HeadGroup headGroup;
+        private final int numFa;
+        private final int firstChain;
+        private final Consumer<LipidSpecies> consumer;
+        private final boolean sphingoLipid;
+        private final Chains faChains;
+
+        CombinationTask(HeadGroup headGroup, int numFa, int firstChain, Consumer<LipidSpecies> consumer) {
+            this.headGroup = headGroup;
+            this.numFa = numFa;
+            this.firstChain = firstChain;
+            this.consumer = consumer;
+            this.sphingoLipid = isSphingoLipid(headGroup.getLipidClass());
+            this.faChains = getFaChains(headGroup.getLipidClass());
+        }
+
+        @Override
+        protected void compute() {
+            int[] picked = new int[numFa];
+            picked[0] = firstChain;
+            if (sphingoLipid) {
+                // the long chain base is not interchangeable with the FAs
+                combine(picked, 1, 0, 0);
+            } else {
+                combine(picked, 1, firstChain, faChains.chains.get(firstChain).isEther() ? 1 : 0);
+            }
+        }
+
+        private void combine(int[] picked, int slot, int from, int nEther) {
+            if (slot == picked.length) {
+                consumer.accept(create(picked));
+                return;
+            }
+            for (int i = from; i < faChains.size(); i++) {
+                int ether = faChains.chains.get(i).isEther() ? nEther + 1 : nEther;
+                if (ether > 1) {
+                    continue;
+                }
+                picked[slot] = i;
+                combine(picked, slot + 1, i, ether);
+            }
+        }
+
+        private LipidMolecularSubspecies create(int[] picked) {
+            FattyAcid[] fa = new FattyAcid[picked.length];
+            for (int slot = 0; slot < picked.length; slot++) {
+                if (sphingoLipid) {
+                    fa[slot] = slot == 0 ? lcbChains.fattyAcids[0][picked[0]] : faChains.fattyAcids[slot - 1][picked[slot]];
+                } else {
+                    fa[slot] = faChains.fattyAcids[slot][picked[slot]];
+                }
+            }
+            return new LipidMolecularSubspecies(headGroup, fa);
+        }
+    }
+}
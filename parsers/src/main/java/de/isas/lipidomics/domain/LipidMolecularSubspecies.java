@@ -22,8 +22,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import lombok.Builder;
-import lombok.Data;
-import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -36,8 +35,7 @@ import lombok.extern.slf4j.Slf4j;
  * @see LipidSpecies
  */
 @Slf4j
-@Data
-@EqualsAndHashCode(callSuper = true)
+@ToString
 public class LipidMolecularSubspecies extends LipidSpecies {
 
     protected final Map<String, FattyAcid> fa = new LinkedHashMap<>();
@@ -155,4 +153,20 @@ public class LipidMolecularSubspecies extends LipidSpecies {
         return getLipidString();
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof LipidMolecularSubspecies)) {
+            return false;
+        }
+        LipidMolecularSubspecies other = (LipidMolecularSubspecies) o;
+        return other.canEqual(this) && super.equals(o);
+    }
+
+    @Override
+    protected boolean canEqual(Object other) {
+        return other instanceof LipidMolecularSubspecies;
+    }
 }
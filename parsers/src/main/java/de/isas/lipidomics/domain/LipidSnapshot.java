@@ -0,0 +1,368 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * A file of parsed lipid adducts and the names they were parsed from, e.g. of
+ * a reference library, that is memory-mapped and read on demand. Lipid adducts
+ * are decoded by their record index, or looked up by their names with a hash
+ * index in the file, without reading the other records. Head groups and
+ * adducts are decoded once, when the snapshot is opened, and shared by all
+ * decoded lipid adducts.
+ *
+ * The file starts with a 32 byte header, followed by the records, each a name
+ * and a lipid adduct encoded with {@link LipidCodec}, the dictionary of the
+ * records, the table of record offsets and the open-addressing name index.
+ * Snapshots are limited to 2 GB. They are written by a {@link Writer}:
+ * <pre>
+ * try (LipidSnapshot.Writer writer = LipidSnapshot.writer(path)) {
+ *     writer.add(name, parser.parse(name));
+ * }
+ * LipidSnapshot snapshot = LipidSnapshot.open(path);
+ * Optional&lt;LipidAdduct&gt; lipid = snapshot.find(name);
+ * </pre>
+ *
+ * Snapshots can be read concurrently.
+ *
+ * @author nils.hoffmann
+ */
+public final class LipidSnapshot {
+
+    /**
+     * The version of the snapshot format.
+     */
+    public static final int VERSION = 1;
+
+    /*
+     * "JGSN", followed by the versions, the record count and the offsets of the
+     * dictionary and of the record offset table.
+     */
+    private static final int MAGIC = 0x4A47534E;
+    private static final int HEADER_BYTES = 32;
+
+    private final ByteBuffer buffer;
+    private final LipidCodec.Dictionary dictionary;
+    private final int size;
+    private final int offsets;
+    private final int index;
+    private final int indexMask;
+
+    private LipidSnapshot(ByteBuffer buffer, Object source) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a lipid snapshot: " + source);
+        }
+        int version = buffer.getInt(4);
+        int codecVersion = buffer.getInt(8);
+        if (version != VERSION || codecVersion != LipidCodec.VERSION) {
+            throw new IOException("Lipid snapshot version must be " + VERSION + "/" + LipidCodec.VERSION + "! Was: " + version + "/" + codecVersion);
+        }
+        this.size = buffer.getInt(12);
+        ByteBuffer in = buffer.duplicate();
+        in.position((int) buffer.getLong(16));
+        this.dictionary = LipidCodec.Dictionary.read(in);
+        this.offsets = (int) buffer.getLong(24);
+        int indexCapacity = buffer.getInt(offsets + 4 * (size + 1));
+        this.index = offsets + 4 * (size + 2);
+        this.indexMask = indexCapacity - 1;
+    }
+
+    /**
+     * Opens and maps the given snapshot file. The file can be closed and
+     * deleted afterwards, on file systems that allow it, while the mapping
+     * remains valid.
+     *
+     * @param path the snapshot file.
+     * @return the snapshot.
+     * @throws IOException if the file can not be read, or is no snapshot of
+     * the current version.
+     */
+    public static LipidSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES || fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Lipid snapshot must have between " + HEADER_BYTES + " and " + Integer.MAX_VALUE + " bytes! Was: " + fileSize);
+            }
+            return new LipidSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize), path);
+        }
+    }
+
+    /**
+     * Reads a snapshot into memory, e.g. from a classpath resource that can not
+     * be mapped. The stream is not closed.
+     *
+     * @param in the snapshot stream.
+     * @param source the source of the stream, for error messages.
+     * @return the snapshot.
+     * @throws IOException if the stream can not be read, or is no snapshot of
+     * the current version.
+     */
+    public static LipidSnapshot read(InputStream in, String source) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        in.transferTo(bytes);
+        if (bytes.size() < HEADER_BYTES) {
+            throw new IOException("Lipid snapshot must have at least " + HEADER_BYTES + " bytes! Was: " + bytes.size());
+        }
+        return new LipidSnapshot(ByteBuffer.wrap(bytes.toByteArray()), source);
+    }
+
+    /**
+     * Creates a writer of a new snapshot file. An existing file is replaced.
+     *
+     * @param path the snapshot file.
+     * @return the writer.
+     * @throws IOException if the file can not be created.
+     */
+    public static Writer writer(Path path) throws IOException {
+        return new Writer(path);
+    }
+
+    /**
+     * Returns the number of records.
+     *
+     * @return the number of records.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the name of the given record.
+     *
+     * @param record the record index.
+     * @return the lipid name.
+     */
+    public String getName(int record) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(offset(record));
+        return LipidCodec.readString(in);
+    }
+
+    /**
+     * Decodes the lipid adduct of the given record.
+     *
+     * @param record the record index.
+     * @return a new lipid adduct.
+     */
+    public LipidAdduct get(int record) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(offset(record));
+        int nameLength = LipidCodec.readVarint(in);
+        in.position(in.position() + nameLength);
+        return LipidCodec.read(in, dictionary);
+    }
+
+    /**
+     * Returns the index of the first record with the given name.
+     *
+     * @param name the lipid name.
+     * @return the record index, or -1 if no record has the name.
+     */
+    public int indexOf(String name) {
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        int slot = mix(name.hashCode()) & indexMask;
+        while (true) {
+            int entry = buffer.getInt(index + 4 * slot);
+            if (entry == 0) {
+                return -1;
+            }
+            if (hasName(entry - 1, utf8)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & indexMask;
+        }
+    }
+
+    /**
+     * Decodes the lipid adduct of the first record with the given name.
+     *
+     * @param name the lipid name.
+     * @return the lipid adduct, or an empty optional if no record has the
+     * name.
+     */
+    public Optional<LipidAdduct> find(String name) {
+        int record = indexOf(name);
+        return record < 0 ? Optional.empty() : Optional.of(get(record));
+    }
+
+    private int offset(int record) {
+        if (record < 0 || record >= size) {
+            throw new IndexOutOfBoundsException("Record must be between 0 and " + (size - 1) + "! Was: " + record);
+        }
+        return buffer.getInt(offsets + 4 * record);
+    }
+
+    private boolean hasName(int record, byte[] utf8) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(offset(record));
+        if (LipidCodec.readVarint(in) != utf8.length) {
+            return false;
+        }
+        int position = in.position();
+        for (int i = 0; i < utf8.length; i++) {
+            if (buffer.get(position + i) != utf8[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * The finalizer of MurmurHash3, to spread the string hash codes over the
+     * low bits.
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Writes a snapshot file. The records are streamed to the file as they are
+     * added, the dictionary and the indices are written on {@link #close()}.
+     */
+    public static final class Writer implements Closeable {
+
+        private final Path path;
+        private final DataOutputStream out;
+        private final LipidCodec.Dictionary dictionary = new LipidCodec.Dictionary();
+        private final LipidCodec.Output record = new LipidCodec.Output();
+        private int[] offsets = new int[1024];
+        private int[] hashes = new int[1024];
+        private int size;
+        private long position = HEADER_BYTES;
+        private boolean closed;
+
+        private Writer(Path path) throws IOException {
+            this.path = path;
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+            out.write(new byte[HEADER_BYTES]);
+        }
+
+        /**
+         * Returns the number of records written so far.
+         *
+         * @return the number of records.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Appends a record.
+         *
+         * @param name the lipid name.
+         * @param lipidAdduct the lipid adduct parsed from the name.
+         * @return the record index.
+         * @throws IOException if the record can not be written, or the file
+         * would exceed 2 GB.
+         * @throws IllegalArgumentException if the lipid can not be encoded.
+         */
+        public int add(String name, LipidAdduct lipidAdduct) throws IOException {
+            if (closed) {
+                throw new IllegalStateException("Lipid snapshot writer was closed!");
+            }
+            record.reset();
+            record.writeString(name);
+            LipidCodec.write(record, lipidAdduct, dictionary);
+            if (position + record.size() > Integer.MAX_VALUE) {
+                throw new IOException("Lipid snapshot must not exceed " + Integer.MAX_VALUE + " bytes!");
+            }
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                hashes = Arrays.copyOf(hashes, size * 2);
+            }
+            offsets[size] = (int) position;
+            hashes[size] = name.hashCode();
+            record.writeTo(out);
+            position += record.size();
+            return size++;
+        }
+
+        /**
+         * Writes the dictionary, the indices and the header, and closes the
+         * file.
+         *
+         * @throws IOException if the file can not be written.
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            long dictionaryOffset = position;
+            LipidCodec.Output tables = new LipidCodec.Output();
+            dictionary.write(tables);
+            tables.writeTo(out);
+            long offsetsOffset = dictionaryOffset + tables.size();
+            if (offsetsOffset + 4L * size * 3 + 16 > Integer.MAX_VALUE) {
+                out.close();
+                throw new IOException("Lipid snapshot must not exceed " + Integer.MAX_VALUE + " bytes!");
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeInt(offsets[i]);
+            }
+            out.writeInt((int) dictionaryOffset);
+            // entries are the record index plus one, 0 is empty
+            int capacity = Integer.highestOneBit(Math.max(2, size) * 2 - 1) << 1;
+            int mask = capacity - 1;
+            int[] slots = new int[capacity];
+            for (int i = 0; i < size; i++) {
+                int slot = mix(hashes[i]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = i + 1;
+            }
+            out.writeInt(capacity);
+            for (int slot : slots) {
+                out.writeInt(slot);
+            }
+            out.close();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).
+                    putInt(VERSION).
+                    putInt(LipidCodec.VERSION).
+                    putInt(size).
+                    putLong(dictionaryOffset).
+                    putLong(offsetsOffset).
+                    flip();
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+            }
+        }
+    }
+}
@@ -5,12 +5,20 @@ package de.isas.lipidomics.domain;
 
 import static de.isas.lipidomics.domain.Element.ELEMENT_H;
 import de.isas.lipidomics.palinom.exceptions.ConstraintViolationException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.Setter;
+import lombok.ToString;
 
 /**
  * A lipid species is the factual root of the object hierarchy. Lipid category
@@ -22,6 +30,31 @@ import lombok.Setter;
  * of unknown individual composition, but known total composition (32 carbon
  * atoms, zero double bonds, no hydroxylations).
  *
+ * Lipids must not be modified after they have been created. Two lipids are
+ * equal, if they are of the same class and their head groups, lipid species
+ * infos and FAs, including the FA names, are equal. The hash code is computed
+ * on first use and cached, equals compares the cached hash codes before it
+ * compares the fields.
+ *
+ * The canonical key, see {@link #getCanonicalKey()}, identifies a lipid
+ * independent of the notation it was parsed from. Two lipids have the same
+ * canonical key, if they are on the same level and
+ * <ul>
+ * <li>CATEGORY: have the same lipid category,</li>
+ * <li>CLASS: have the same normalized head group,</li>
+ * <li>SPECIES: have the same normalized head group and the same total number
+ * of carbon atoms, double bonds and hydroxy groups, FA bond type and
+ * modifications,</li>
+ * <li>MOLECULAR_SUBSPECIES: additionally have the same FAs in any order,</li>
+ * <li>STRUCTURAL_SUBSPECIES: additionally have the same FAs in the same sn
+ * order,</li>
+ * <li>ISOMERIC_SUBSPECIES: additionally have the same double bond positions
+ * on each FA,</li>
+ * <li>UNDEFINED: have the same head group name.</li>
+ * </ul>
+ * FA names, e.g. FA1, and raw head group names are not part of the canonical
+ * key.
+ *
  * @author nils.hoffmann
  * @see LipidCategory
  * @see LipidClass
@@ -40,10 +73,36 @@ public class LipidSpecies {
     }
 
     public static final LipidSpecies NONE = new None();
+
+    /*
+     * Canonical class level lipids per lipid class and category level lipids
+     * per lipid category.
+     */
+    private static final ConcurrentMap<LipidClass, LipidSpecies> CLASS_LEVEL = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<LipidCategory, LipidSpecies> CATEGORY_LEVEL = new ConcurrentHashMap<>();
+
     private final HeadGroup headGroup;
     @Setter(AccessLevel.NONE)
     protected LipidSpeciesInfo info;
 
+    /*
+     * The lipids derived by toLevel, by level ordinal. Created on first use.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile AtomicReferenceArray<LipidSpecies> derived;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient int hash;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile String canonicalKey;
+
     /**
      * Create a lipid species using the provided head group and a lipid species
      * info {@link LipidSpeciesInfo#NONE}.
@@ -298,6 +357,113 @@ public class LipidSpecies {
         return elements;
     }
 
+    /**
+     * Returns this lipid on the given, coarser level, without creating and
+     * parsing its name on that level. E.g. an isomeric subspecies is converted
+     * into a structural or molecular subspecies by dropping the double bond
+     * and sn positions of its FAs, and into a species by summing up its FAs
+     * into a {@link LipidSpeciesInfo}. On class and category level, a
+     * canonical lipid per lipid class is returned, whose head group is the
+     * class abbreviation.
+     *
+     * The converted lipids are cached, so that each level is only derived once
+     * for this lipid. Returns this lipid, if the level is the level of this
+     * lipid.
+     *
+     * @param level the level to convert to.
+     * @return the lipid on the given level.
+     * @throws ConstraintViolationException if the level is undefined or more
+     * specific than the level of this lipid.
+     */
+    public LipidSpecies toLevel(LipidLevel level) throws ConstraintViolationException {
+        LipidLevel thisLevel = info.getLevel();
+        if (level == thisLevel) {
+            return this;
+        }
+        if (level == LipidLevel.UNDEFINED || level.ordinal() > thisLevel.ordinal()) {
+            throw new ConstraintViolationException(getClass().getSimpleName() + " can not be converted from level " + thisLevel + " to level " + level + ": target level is undefined or more specific than this lipid's level!");
+        }
+        // concurrent first calls may each create a cache, one of them is kept
+        AtomicReferenceArray<LipidSpecies> cache = derived;
+        if (cache == null) {
+            cache = new AtomicReferenceArray<>(LipidLevel.values().length);
+            derived = cache;
+        }
+        LipidSpecies lipid = cache.get(level.ordinal());
+        if (lipid == null) {
+            cache.compareAndSet(level.ordinal(), null, derive(level));
+            lipid = cache.get(level.ordinal());
+        }
+        return lipid;
+    }
+
+    private LipidSpecies derive(LipidLevel level) {
+        switch (level) {
+            case CATEGORY:
+                LipidCategory lipidCategory = headGroup.getLipidCategory();
+                LipidSpeciesInfo categoryInfo = new LipidSpeciesInfo(level, 0, 0, 0, LipidFaBondType.UNDEFINED);
+                if (lipidCategory == null || lipidCategory == LipidCategory.UNDEFINED) {
+                    return new LipidSpecies(headGroup, Optional.of(categoryInfo));
+                }
+                return CATEGORY_LEVEL.computeIfAbsent(lipidCategory, (category) -> {
+                    return new LipidSpecies(new HeadGroup(category.name(), category), Optional.of(categoryInfo));
+                });
+            case CLASS:
+                LipidClass lipidClass = headGroup.getLipidClass();
+                LipidSpeciesInfo classInfo = new LipidSpeciesInfo(level, 0, 0, 0, LipidFaBondType.UNDEFINED);
+                if (lipidClass == null || lipidClass == LipidClass.UNDEFINED) {
+                    return new LipidSpecies(headGroup, Optional.of(classInfo));
+                }
+                return CLASS_LEVEL.computeIfAbsent(lipidClass, (lclass) -> {
+                    return new LipidSpecies(new HeadGroup(lclass.getAbbreviation(), Optional.of(lclass)), Optional.of(classInfo));
+                });
+            case SPECIES:
+                LipidSpeciesInfo speciesInfo;
+                if (getFa().values().stream().anyMatch(FattyAcid::isLcb)) {
+                    // sphingolipid species are named after their long chain base
+                    speciesInfo = LipidSpeciesInfo.lipidSpeciesInfoBuilder().
+                            level(LipidLevel.SPECIES).
+                            name("LCB").
+                            lcb(true).
+                            nCarbon(info.getNCarbon()).
+                            nHydroxy(info.getNHydroxy()).
+                            nDoubleBonds(info.getNDoubleBonds()).
+                            lipidFaBondType(info.getLipidFaBondType()).
+                            build();
+                } else {
+                    speciesInfo = new LipidSpeciesInfo(LipidLevel.SPECIES, info.getNCarbon(), info.getNHydroxy(), info.getNDoubleBonds(), info.getLipidFaBondType());
+                }
+                return new LipidSpecies(headGroup, Optional.of(speciesInfo));
+            case MOLECULAR_SUBSPECIES:
+                return new LipidMolecularSubspecies(headGroup, getFa().values().stream().map((fa) -> {
+                    return FattyAcid.molecularFattyAcidBuilder().
+                            name(fa.getName()).
+                            nCarbon(fa.getNCarbon()).
+                            nHydroxy(fa.getNHydroxy()).
+                            nDoubleBonds(fa.getNDoubleBonds()).
+                            lipidFaBondType(fa.getLipidFaBondType()).
+                            lcb(fa.isLcb()).
+                            modifications(fa.getModifications()).
+                            build();
+                }).toArray(FattyAcid[]::new));
+            case STRUCTURAL_SUBSPECIES:
+                return new LipidStructuralSubspecies(headGroup, getFa().values().stream().map((fa) -> {
+                    return FattyAcid.structuralFattyAcidBuilder().
+                            name(fa.getName()).
+                            position(fa.getPosition()).
+                            nCarbon(fa.getNCarbon()).
+                            nHydroxy(fa.getNHydroxy()).
+                            nDoubleBonds(fa.getNDoubleBonds()).
+                            lipidFaBondType(fa.getLipidFaBondType()).
+                            lcb(fa.isLcb()).
+                            modifications(fa.getModifications()).
+                            build();
+                }).toArray(FattyAcid[]::new));
+            default:
+                throw new ConstraintViolationException("Unhandled lipid level " + level + "!");
+        }
+    }
+
     public LipidClass getLipidClass() {
         return headGroup.getLipidClass();
     }
@@ -311,4 +477,136 @@ public class LipidSpecies {
         return getLipidString(info.getLevel());
     }
 
+    /**
+     * Returns the canonical key of this lipid, see the class documentation for
+     * its semantics on each level. The key is computed on first use and
+     * cached, so that it can be used to deduplicate or join large numbers of
+     * lipids.
+     *
+     * @return the canonical key.
+     */
+    public String getCanonicalKey() {
+        String key = canonicalKey;
+        if (key == null) {
+            key = buildCanonicalKey();
+            canonicalKey = key;
+        }
+        return key;
+    }
+
+    private String buildCanonicalKey() {
+        LipidLevel level = info.getLevel();
+        StringBuilder sb = new StringBuilder();
+        sb.append(level.ordinal()).append('|');
+        switch (level) {
+            case UNDEFINED:
+                return sb.append(headGroup.getName()).toString();
+            case CATEGORY:
+                return sb.append(headGroup.getLipidCategory().name()).toString();
+            case CLASS:
+                return sb.append(getNormalizedHeadGroup()).toString();
+            default:
+                sb.append(getNormalizedHeadGroup()).append('|');
+                appendCanonicalFa(sb, info, false);
+        }
+        if (level == LipidLevel.SPECIES) {
+            return sb.toString();
+        }
+        List<String> fas = new ArrayList<>(getFa().size());
+        for (FattyAcid fa : getFa().values()) {
+            fas.add(appendCanonicalFa(new StringBuilder(), fa, level == LipidLevel.ISOMERIC_SUBSPECIES).toString());
+        }
+        if (level == LipidLevel.MOLECULAR_SUBSPECIES) {
+            // the order of FAs is not defined on molecular subspecies level
+            Collections.sort(fas);
+        }
+        for (String fa : fas) {
+            sb.append('|').append(fa);
+        }
+        return sb.toString();
+    }
+
+    private static StringBuilder appendCanonicalFa(StringBuilder sb, FattyAcid fa, boolean doubleBondPositions) {
+        sb.
+                append(fa.getNCarbon()).
+                append(':').
+                append(fa.getNDoubleBonds()).
+                append(';').
+                append(fa.getNHydroxy()).
+                append(';').
+                append(fa.getLipidFaBondType().ordinal());
+        if (fa.isLcb()) {
+            sb.append('L');
+        }
+        if (doubleBondPositions && !fa.getDoubleBondPositions().isEmpty()) {
+            sb.append('(');
+            fa.getDoubleBondPositions().forEach((position, configuration) -> {
+                sb.append(position).append(configuration).append(',');
+            });
+            sb.setCharAt(sb.length() - 1, ')');
+        }
+        if (!fa.getModifications().isEmpty()) {
+            sb.append('[');
+            fa.getModifications().forEach((modification) -> {
+                sb.append(modification.getLeft()).append(modification.getRight()).append(',');
+            });
+            sb.setCharAt(sb.length() - 1, ']');
+        }
+        return sb;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof LipidSpecies)) {
+            return false;
+        }
+        LipidSpecies other = (LipidSpecies) o;
+        return other.canEqual(this)
+                && hashCode() == other.hashCode()
+                && Objects.equals(headGroup, other.headGroup)
+                && Objects.equals(info, other.info)
+                && getFa().equals(other.getFa());
+    }
+
+    @Override
+    public final int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            int faHash = 0;
+            for (Map.Entry<String, FattyAcid> fa : getFa().entrySet()) {
+                // same terms as Map.hashCode(), but mixed, since the sum of
+                // the hash codes of FAs with equal totals collides often
+                faHash += mix(fa.getKey().hashCode() ^ fa.getValue().hashCode());
+            }
+            h = 31 * (31 * Objects.hashCode(headGroup) + Objects.hashCode(info)) + faHash;
+            // 0 marks the hash code as not computed
+            h = h == 0 ? 1 : h;
+            hash = h;
+        }
+        return h;
+    }
+
+    /*
+     * Subclasses that override canEqual also override equals and check that
+     * the other object is an instance of the subclass, as Lombok does, so that
+     * equals stays symmetric.
+     */
+    protected boolean canEqual(Object other) {
+        return other instanceof LipidSpecies;
+    }
+
+    /*
+     * The finalization step of MurmurHash3.
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
 }
@@ -17,8 +17,8 @@ package de.isas.lipidomics.domain;
 
 import java.util.Map;
 import lombok.Builder;
-import lombok.Data;
-import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
 /**
  * This class summarizes the FA parts of a lipid, independent of its head group.
@@ -27,10 +27,13 @@ import lombok.EqualsAndHashCode;
  * PLASMENYL, if any of a lipid's FA chains has such a bond type, or ESTER or
  * UNDEFINED for other cases.
  *
+ * Two lipid species infos are equal, if their levels and all fields of the
+ * fatty acid they extend are equal.
+ *
  * @author nils.hoffmann
  */
-@Data
-@EqualsAndHashCode(callSuper = true)
+@Getter
+@ToString
 public class LipidSpeciesInfo extends FattyAcid {
 
     private static final class None extends LipidSpeciesInfo {
@@ -140,4 +143,32 @@ public class LipidSpeciesInfo extends FattyAcid {
         }
         return elements;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof LipidSpeciesInfo)) {
+            return false;
+        }
+        LipidSpeciesInfo other = (LipidSpeciesInfo) o;
+        return other.canEqual(this) && super.equals(o);
+    }
+
+    @Override
+    protected boolean canEqual(Object other) {
+        return other instanceof LipidSpeciesInfo;
+    }
+
+    @Override
+    protected boolean equalFields(FattyAcid other) {
+        return level == ((LipidSpeciesInfo) other).level && super.equalFields(other);
+    }
+
+    @Override
+    protected int computeHashCode() {
+        int h = 31 * super.computeHashCode() + level.hashCode();
+        return h == 0 ? 1 : h;
+    }
 }
@@ -17,8 +17,7 @@ package de.isas.lipidomics.domain;
 
 import de.isas.lipidomics.palinom.exceptions.ConstraintViolationException;
 import lombok.Builder;
-import lombok.Data;
-import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 /**
  * A structural subspecies. Child of LipidMolecularSubspecies. Individual FAs
@@ -29,8 +28,7 @@ import lombok.EqualsAndHashCode;
  * @author nils.hoffmann
  * @see LipidMolecularSubspecies
  */
-@Data
-@EqualsAndHashCode(callSuper = true)
+@ToString
 public class LipidStructuralSubspecies extends LipidMolecularSubspecies {
 
     @Builder(builderMethodName = "lipidStructuralSubspeciesBuilder")
@@ -95,4 +93,21 @@ public class LipidStructuralSubspecies extends LipidMolecularSubspecies {
     public String toString() {
         return getLipidString();
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof LipidStructuralSubspecies)) {
+            return false;
+        }
+        LipidStructuralSubspecies other = (LipidStructuralSubspecies) o;
+        return other.canEqual(this) && super.equals(o);
+    }
+
+    @Override
+    protected boolean canEqual(Object other) {
+        return other instanceof LipidStructuralSubspecies;
+    }
 }
@@ -0,0 +1,502 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.exceptions.ConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+import lombok.Value;
+
+/**
+ * Index of lipid adduct masses for m/z lookups with a mass tolerance in ppm or
+ * Dalton, e.g. to annotate LC-MS features against a library of lipids.
+ *
+ * The masses, as calculated by {@link LipidAdduct#getMass()}, are stored in
+ * ascending order in a primitive array, together with parallel arrays of the
+ * lipid and adduct ids of each entry. An id is the position of the lipid or
+ * adduct in the collection the index was built from. Lookups use a binary
+ * search, narrowed by a directory of equally wide mass buckets. Sorted peak
+ * lists can be matched in bulk with a merge-join, which advances through the
+ * entries and peaks in parallel and skips long runs of entries between peaks
+ * with a search.
+ *
+ * Lipids without a mass, e.g. on category or class level, or with
+ * inconsistent elements, are not indexed. The index is immutable and
+ * thread-safe.
+ *
+ * @author nils.hoffmann
+ */
+public final class MassIndex {
+
+    /**
+     * Adduct id of the entries of an index that was built from lipid adducts.
+     */
+    public static final int NO_ADDUCT_ID = -1;
+
+    /*
+     * Target number of entries per bucket of the directory.
+     */
+    private static final int ENTRIES_PER_BUCKET = 8;
+
+    /*
+     * Number of entries the merge-join advances one by one, before it searches
+     * for the start of the next window.
+     */
+    private static final int LINEAR_STEPS = 16;
+
+    /**
+     * A range of entries of the index, from the first entry (inclusive) to the
+     * last entry (exclusive).
+     */
+    @Value
+    public static class Window {
+
+        private final int from;
+        private final int to;
+
+        public int size() {
+            return to - from;
+        }
+
+        public boolean isEmpty() {
+            return from >= to;
+        }
+    }
+
+    /**
+     * Receives the matches of a bulk query.
+     */
+    @FunctionalInterface
+    public static interface MatchConsumer {
+
+        /**
+         * Called for each entry within the tolerance of a peak, in ascending
+         * order of peaks and entries.
+         *
+         * @param peak the index of the peak in the peak list.
+         * @param entry the index of the matching entry.
+         */
+        void accept(int peak, int entry);
+    }
+
+    private final double[] masses;
+    private final int[] lipidIds;
+    private final int[] adductIds;
+    private final List<LipidAdduct> lipidAdducts;
+    private final List<LipidSpecies> species;
+    private final List<Adduct> adducts;
+    private final double bucketMin;
+    private final double bucketScale;
+    private final int[] buckets;
+
+    MassIndex(double[] masses, int[] lipidIds, int[] adductIds, List<LipidAdduct> lipidAdducts, List<LipidSpecies> species, List<Adduct> adducts) {
+        sort(masses, lipidIds, adductIds, 0, masses.length - 1);
+        this.masses = masses;
+        this.lipidIds = lipidIds;
+        this.adductIds = adductIds;
+        this.lipidAdducts = lipidAdducts;
+        this.species = species;
+        this.adducts = adducts;
+        int nBuckets = Math.max(1, masses.length / ENTRIES_PER_BUCKET);
+        // buckets[b] is the first entry in bucket b or above, the last bucket
+        // holds the entries at the upper end of the mass range
+        this.buckets = new int[nBuckets + 2];
+        if (masses.length > 0 && masses[masses.length - 1] > masses[0]) {
+            this.bucketMin = masses[0];
+            this.bucketScale = nBuckets / (masses[masses.length - 1] - masses[0]);
+            int entry = 0;
+            for (int b = 0; b <= nBuckets; b++) {
+                while (entry < masses.length && bucketOf(masses[entry]) < b) {
+                    entry++;
+                }
+                buckets[b] = entry;
+            }
+        } else {
+            this.bucketMin = 0;
+            this.bucketScale = 0;
+        }
+        buckets[nBuckets + 1] = masses.length;
+    }
+
+    /**
+     * Builds the index from the masses of the given lipid adducts. The lipid id
+     * of an entry is the position of its lipid adduct in the collection, the
+     * adduct id is {@link #NO_ADDUCT_ID}.
+     *
+     * @param lipidAdducts the lipid adducts.
+     * @return the mass index.
+     */
+    public static MassIndex of(Collection<LipidAdduct> lipidAdducts) {
+        List<LipidAdduct> lipids = Collections.unmodifiableList(new ArrayList<>(lipidAdducts));
+        double[] masses = new double[lipids.size()];
+        int[] lipidIds = new int[lipids.size()];
+        int n = 0;
+        for (int i = 0; i < lipids.size(); i++) {
+            LipidAdduct lipidAdduct = lipids.get(i);
+            if (hasMass(lipidAdduct.getLipid())) {
+                double mass = getMass(lipidAdduct::getMass);
+                if (Double.isFinite(mass)) {
+                    masses[n] = mass;
+                    lipidIds[n] = i;
+                    n++;
+                }
+            }
+        }
+        int[] adductIds = new int[n];
+        Arrays.fill(adductIds, NO_ADDUCT_ID);
+        return new MassIndex(Arrays.copyOf(masses, n), Arrays.copyOf(lipidIds, n), adductIds, lipids, null, null);
+    }
+
+    /**
+     * Builds the index from the masses of all combinations of the given lipid
+     * species and adducts. The lipid id of an entry is the position of its
+     * lipid species in the species collection, the adduct id is the position
+     * of its adduct in the adduct collection. The mass of each species and of
+     * each adduct is only calculated once.
+     *
+     * @param species the lipid species.
+     * @param adducts the adducts.
+     * @return the mass index.
+     */
+    public static MassIndex of(Collection<? extends LipidSpecies> species, Collection<Adduct> adducts) {
+        List<LipidSpecies> speciesList = Collections.unmodifiableList(new ArrayList<>(species));
+        List<Adduct> adductList = Collections.unmodifiableList(new ArrayList<>(adducts));
+        double[] speciesMasses = new double[speciesList.size()];
+        int[] speciesIds = new int[speciesList.size()];
+        int nSpecies = 0;
+        for (int i = 0; i < speciesList.size(); i++) {
+            if (hasMass(speciesList.get(i))) {
+                LipidSpecies lipid = speciesList.get(i);
+                double mass = getMass(() -> lipid.getElements().getMass());
+                if (Double.isFinite(mass)) {
+                    speciesMasses[nSpecies] = mass;
+                    speciesIds[nSpecies] = i;
+                    nSpecies++;
+                }
+            }
+        }
+        double[] adductMasses = new double[adductList.size()];
+        int[] charges = new int[adductList.size()];
+        for (int j = 0; j < adductList.size(); j++) {
+            adductMasses[j] = adductList.get(j).getElements().getMass();
+            charges[j] = adductList.get(j).getCharge();
+        }
+        long size = (long) nSpecies * adductList.size();
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many combinations of species and adducts: " + size);
+        }
+        double[] masses = new double[(int) size];
+        int[] lipidIds = new int[(int) size];
+        int[] adductIds = new int[(int) size];
+        int n = 0;
+        for (int i = 0; i < nSpecies; i++) {
+            for (int j = 0; j < adductMasses.length; j++) {
+                // same as LipidAdduct.getMass(), element masses are additive
+                double mass = speciesMasses[i] + adductMasses[j];
+                if (charges[j] != 0) {
+                    mass = (mass - charges[j] * Element.ELECTRON_REST_MASS) / Math.abs(charges[j]);
+                }
+                masses[n] = mass;
+                lipidIds[n] = speciesIds[i];
+                adductIds[n] = j;
+                n++;
+            }
+        }
+        return new MassIndex(masses, lipidIds, adductIds, null, speciesList, adductList);
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the number of entries.
+     */
+    public int size() {
+        return masses.length;
+    }
+
+    /**
+     * Returns the mass of the given entry.
+     *
+     * @param entry the entry.
+     * @return the mass.
+     */
+    public double getMass(int entry) {
+        return masses[entry];
+    }
+
+    /**
+     * Returns the lipid id of the given entry.
+     *
+     * @param entry the entry.
+     * @return the lipid id.
+     */
+    public int getLipidId(int entry) {
+        return lipidIds[entry];
+    }
+
+    /**
+     * Returns the adduct id of the given entry, or {@link #NO_ADDUCT_ID}.
+     *
+     * @param entry the entry.
+     * @return the adduct id.
+     */
+    public int getAdductId(int entry) {
+        return adductIds[entry];
+    }
+
+    /**
+     * Returns the lipid adduct of the given entry. For an index built from
+     * species and adducts, a new lipid adduct is created.
+     *
+     * @param entry the entry.
+     * @return the lipid adduct.
+     */
+    public LipidAdduct getLipidAdduct(int entry) {
+        if (lipidAdducts != null) {
+            return lipidAdducts.get(lipidIds[entry]);
+        }
+        return new LipidAdduct(species.get(lipidIds[entry]), adducts.get(adductIds[entry]), new Fragment(""));
+    }
+
+    /**
+     * Returns the first entry with a mass of at least the given mass, or
+     * {@link #size()}.
+     *
+     * @param mass the mass.
+     * @return the first entry not lighter than the mass.
+     */
+    public int lowerBound(double mass) {
+        return search(mass, false);
+    }
+
+    /**
+     * Returns the first entry with a mass above the given mass, or
+     * {@link #size()}.
+     *
+     * @param mass the mass.
+     * @return the first entry heavier than the mass.
+     */
+    public int upperBound(double mass) {
+        return search(mass, true);
+    }
+
+    /**
+     * Returns the entries with a mass within [minMass, maxMass].
+     *
+     * @param minMass the minimum mass (inclusive).
+     * @param maxMass the maximum mass (inclusive).
+     * @return the window of matching entries.
+     */
+    public Window find(double minMass, double maxMass) {
+        int from = lowerBound(minMass);
+        return new Window(from, Math.max(from, upperBound(maxMass)));
+    }
+
+    /**
+     * Returns the entries with a mass within the given tolerance in Dalton.
+     *
+     * @param mass the mass, e.g. the m/z of a feature.
+     * @param tolerance the absolute tolerance in Dalton.
+     * @return the window of matching entries.
+     */
+    public Window findDa(double mass, double tolerance) {
+        return find(mass - tolerance, mass + tolerance);
+    }
+
+    /**
+     * Returns the entries with a mass within the given tolerance in ppm of the
+     * mass.
+     *
+     * @param mass the mass, e.g. the m/z of a feature.
+     * @param ppm the relative tolerance in parts per million.
+     * @return the window of matching entries.
+     */
+    public Window findPpm(double mass, double ppm) {
+        double tolerance = mass * ppm * 1e-6;
+        return find(mass - tolerance, mass + tolerance);
+    }
+
+    /**
+     * Matches the peaks of an ascending peak list against the index, with a
+     * tolerance in Dalton.
+     *
+     * @param peaks the peak masses, in ascending order.
+     * @param tolerance the absolute tolerance in Dalton.
+     * @param consumer receives each match.
+     * @throws IllegalArgumentException if the peaks are not in ascending order.
+     */
+    public void joinDa(double[] peaks, double tolerance, MatchConsumer consumer) {
+        join(peaks, tolerance, 0, consumer);
+    }
+
+    /**
+     * Matches the peaks of an ascending peak list against the index, with a
+     * tolerance in ppm of each peak's mass.
+     *
+     * @param peaks the peak masses, in ascending order.
+     * @param ppm the relative tolerance in parts per million.
+     * @param consumer receives each match.
+     * @throws IllegalArgumentException if the peaks are not in ascending order.
+     */
+    public void joinPpm(double[] peaks, double ppm, MatchConsumer consumer) {
+        join(peaks, 0, ppm * 1e-6, consumer);
+    }
+
+    /*
+     * The lower bound of the window of each peak is not lower than that of
+     * the previous peak, so the start entry only advances. Since the lower
+     * bound is monotonic, searching for it from the whole index yields the
+     * same entry as advancing.
+     */
+    private void join(double[] peaks, double tolerance, double relativeTolerance, MatchConsumer consumer) {
+        int from = 0;
+        double previous = Double.NEGATIVE_INFINITY;
+        for (int peak = 0; peak < peaks.length; peak++) {
+            double mass = peaks[peak];
+            if (mass < previous) {
+                throw new IllegalArgumentException("Peaks must be sorted in ascending order, but peak " + peak + " with mass " + mass + " is lighter than its predecessor with mass " + previous);
+            }
+            previous = mass;
+            double delta = tolerance + mass * relativeTolerance;
+            double minMass = mass - delta;
+            double maxMass = mass + delta;
+            // dense peak lists advance a few entries, sparse ones search
+            for (int step = 0; from < masses.length && masses[from] < minMass; step++) {
+                if (step == LINEAR_STEPS) {
+                    from = lowerBound(minMass);
+                    break;
+                }
+                from++;
+            }
+            for (int entry = from; entry < masses.length && masses[entry] <= maxMass; entry++) {
+                consumer.accept(peak, entry);
+            }
+        }
+    }
+
+    /*
+     * Binary search for the first entry heavier than (upper) or not lighter
+     * than (lower) the mass, within the entries of the mass's bucket. The
+     * bucket of a mass is monotonic, so all entries in lower buckets are
+     * lighter and all entries in higher buckets are heavier than the mass.
+     */
+    private int search(double mass, boolean upper) {
+        int from = 0;
+        int to = masses.length;
+        if (bucketScale != 0) {
+            if (mass < bucketMin) {
+                return 0;
+            }
+            int bucket = bucketOf(mass);
+            from = buckets[bucket];
+            to = buckets[bucket + 1];
+        }
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (masses[mid] < mass || (upper && masses[mid] == mass)) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    private int bucketOf(double mass) {
+        int nBuckets = buckets.length - 2;
+        double bucket = (mass - bucketMin) * bucketScale;
+        return bucket >= nBuckets ? nBuckets : (int) bucket;
+    }
+
+    /*
+     * Returns NaN for lipids whose elements can not be determined.
+     */
+    static double getMass(DoubleSupplier mass) {
+        try {
+            return mass.getAsDouble();
+        } catch (ConstraintViolationException ex) {
+            return Double.NaN;
+        }
+    }
+
+    static boolean hasMass(LipidSpecies lipid) {
+        return lipid != null && lipid.getInfo().getLevel().ordinal() >= LipidLevel.SPECIES.ordinal();
+    }
+
+    /*
+     * Sorts the masses in ascending order and permutes the ids in parallel.
+     * Quicksort with median of three pivots, recursing into the smaller
+     * partition, and insertion sort for short ranges.
+     */
+    private static void sort(double[] masses, int[] lipidIds, int[] adductIds, int lo, int hi) {
+        while (hi - lo > 16) {
+            int mid = (lo + hi) >>> 1;
+            if (masses[mid] < masses[lo]) {
+                swap(masses, lipidIds, adductIds, mid, lo);
+            }
+            if (masses[hi] < masses[lo]) {
+                swap(masses, lipidIds, adductIds, hi, lo);
+            }
+            if (masses[hi] < masses[mid]) {
+                swap(masses, lipidIds, adductIds, hi, mid);
+            }
+            double pivot = masses[mid];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (masses[i] < pivot) {
+                    i++;
+                }
+                while (masses[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(masses, lipidIds, adductIds, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (j - lo < hi - i) {
+                sort(masses, lipidIds, adductIds, lo, j);
+                lo = i;
+            } else {
+                sort(masses, lipidIds, adductIds, i, hi);
+                hi = j;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && masses[j] < masses[j - 1]; j--) {
+                swap(masses, lipidIds, adductIds, j, j - 1);
+            }
+        }
+    }
+
+    private static void swap(double[] masses, int[] lipidIds, int[] adductIds, int i, int j) {
+        double mass = masses[i];
+        masses[i] = masses[j];
+        masses[j] = mass;
+        int lipidId = lipidIds[i];
+        lipidIds[i] = lipidIds[j];
+        lipidIds[j] = lipidId;
+        int adductId = adductIds[i];
+        adductIds[i] = adductIds[j];
+        adductIds[j] = adductId;
+    }
+}
@@ -16,48 +16,64 @@
 package de.isas.lipidomics.generator;
 
 import com.opencsv.CSVReader;
-import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeSpec.Builder;
-import de.isas.lipidomics.domain.ElementTable;
+import de.isas.lipidomics.domain.Element;
 import de.isas.lipidomics.domain.LipidCategory;
-import de.isas.lipidomics.domain.LipidClass;
 import java.io.IOException;
 import java.io.Reader;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.lang.model.element.Modifier;
 import lombok.Value;
-import lombok.extern.slf4j.Slf4j;
 
 /**
+ * Generates the LipidClass enum from lipid-list.csv. All values that would
+ * otherwise need to be computed when the enum is initialized, like the element
+ * counts of each head group's sum formula, the allowed number of fatty acyls
+ * and the head group synonym lookup table, are precomputed and emitted as
+ * literals.
  *
- * @author  nils.hoffmann
+ * This generator is run during the generate-sources phase of the parsers
+ * module, see the parsers pom.xml. It expects the path to lipid-list.csv and the
+ * output directory for the generated sources as arguments.
+ *
+ * @author nils.hoffmann
  */
 public class LipidClassGenerator {
 
-    public static void main(String... args) {
+    private static final String DOMAIN_PACKAGE = "de.isas.lipidomics.domain";
+    private static final Pattern SUM_FORMULA = Pattern.compile("([A-Z][a-z]?)([0-9]*)");
+
+    public static void main(String... args) throws IOException {
         LipidClassGenerator gne = new LipidClassGenerator();
-        try {
+        if (args.length == 0) {
             System.out.println(gne.getEnumFromTable(gne.getEnumEntries()));
-        } catch (IOException ex) {
-            Logger.getLogger(LipidClassGenerator.class.getName()).log(Level.SEVERE, null, ex);
+        } else if (args.length == 2) {
+            Path outputDirectory = gne.writeEnum(Paths.get(args[0]), Paths.get(args[1]));
+            System.out.println("Generated LipidClass in " + outputDirectory);
+        } else {
+            throw new IllegalArgumentException("Usage: LipidClassGenerator [<lipid-list.csv> <output directory>]");
         }
     }
 
@@ -73,8 +89,30 @@ public class LipidClassGenerator {
         private final List<String> synonyms;
     }
 
+    /**
+     * Reads the lipid class entries from lipid-list.csv and writes the
+     * LipidClass enum source file below the output directory.
+     *
+     * @param lipidList the path to lipid-list.csv.
+     * @param outputDirectory the source root to write the enum to.
+     * @return the output directory.
+     * @throws IOException if reading or writing fails.
+     */
+    public Path writeEnum(Path lipidList, Path outputDirectory) throws IOException {
+        getJavaFile(getEnumEntries(lipidList)).writeTo(outputDirectory);
+        return outputDirectory;
+    }
+
     public Stream<LipidClassEntry> getEnumEntries() throws IOException {
-        try (Reader reader = Files.newBufferedReader(Paths.get(ClassLoader.getSystemResource("lipid-list.csv").toURI()))) {;
+        try {
+            return getEnumEntries(Paths.get(ClassLoader.getSystemResource("lipid-list.csv").toURI()));
+        } catch (URISyntaxException ex) {
+            throw new IOException("Could not locate lipid-list.csv!", ex);
+        }
+    }
+
+    public Stream<LipidClassEntry> getEnumEntries(Path lipidList) throws IOException {
+        try (Reader reader = Files.newBufferedReader(lipidList)) {
             CSVReader csvReader = new CSVReader(reader);
             csvReader.skip(1);
             Iterator<String[]> iter = csvReader.iterator();
@@ -97,14 +135,10 @@ public class LipidClassGenerator {
                         s[5],
                         synonyms
                 );
-                System.out.println("Entry: " + entry);
                 entries.add(entry);
             }
             return entries.stream();
-        } catch (URISyntaxException ex) {
-            Logger.getLogger(LipidClassGenerator.class.getName()).log(Level.SEVERE, null, ex);
         }
-        return Stream.empty();
     }
 
     public String sanitizeToEnumConstant(String lipidName, String lipidCategory) {
@@ -116,9 +150,71 @@ public class LipidClassGenerator {
         return enumName;
     }
 
+    /**
+     * Parses a sum formula into element counts, indexed by the ordinal of the
+     * corresponding {@link Element}.
+     *
+     * @param sumFormula the sum formula, e.g. C12H20O13S.
+     * @return the element counts.
+     * @throws IllegalArgumentException if the sum formula contains unknown
+     * elements or characters.
+     */
+    public int[] getElementCounts(String sumFormula) {
+        int[] counts = new int[Element.values().length];
+        Matcher matcher = SUM_FORMULA.matcher(sumFormula.trim());
+        int end = 0;
+        while (matcher.find()) {
+            if (matcher.start() != end) {
+                throw new IllegalArgumentException("Illegal character in sum formula '" + sumFormula + "' at position " + end);
+            }
+            String symbol = matcher.group(1);
+            Element element = Arrays.stream(Element.values()).filter((t) -> {
+                return t.getName().equals(symbol);
+            }).findFirst().orElseThrow(() -> {
+                return new IllegalArgumentException("Unknown element '" + symbol + "' in sum formula '" + sumFormula + "'");
+            });
+            counts[element.ordinal()] += matcher.group(2).isEmpty() ? 1 : Integer.parseInt(matcher.group(2));
+            end = matcher.end();
+        }
+        if (end != sumFormula.trim().length()) {
+            throw new IllegalArgumentException("Illegal character in sum formula '" + sumFormula + "' at position " + end);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the sum formula for the element counts in the same normalized
+     * form that is used by ElementTable.
+     *
+     * @param counts the element counts, indexed by element ordinal.
+     * @return the normalized sum formula.
+     */
+    public String getSumFormula(int[] counts) {
+        StringBuilder sb = new StringBuilder();
+        for (Element element : Element.values()) {
+            int count = counts[element.ordinal()];
+            if (count != 0) {
+                sb.append(element.getName());
+                if (count > 1) {
+                    sb.append(count);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
     public String getEnumFromTable(Stream<LipidClassEntry> stream) {
-        final Builder lipidClassBuilder = TypeSpec.enumBuilder("LipidClass").addJavadoc(
-                "Enumeration of lipid classes. The shorthand names / abbreviations are used to\n"
+        return getJavaFile(stream).toString();
+    }
+
+    private JavaFile getJavaFile(Stream<LipidClassEntry> stream) {
+        ClassName lipidClass = ClassName.get(DOMAIN_PACKAGE, "LipidClass");
+        ClassName elementTable = ClassName.get(DOMAIN_PACKAGE, "ElementTable");
+        ClassName constraintViolationException = ClassName.get("de.isas.lipidomics.palinom.exceptions", "ConstraintViolationException");
+        final Builder lipidClassBuilder = TypeSpec.enumBuilder(lipidClass).addJavadoc(
+                "This class was generated by the LipidClassGenerator.\n"
+                + "\n"
+                + "Enumeration of lipid classes. The shorthand names / abbreviations are used to\n"
                 + "look up the lipid class association of a lipid head group. We try to map each\n"
                 + "abbreviation and synonyms thereof to LipidMAPS main class. However, not all\n"
                 + "described head groups are categorized in LipidMAPS, or only occur in other\n"
@@ -126,102 +222,100 @@ public class LipidClassGenerator {
                 + "\n"
                 + "Example: Category=Glyerophospholipids maps to Class=Glycerophosphoinositols (PI)\n"
                 + "\n"
-                + "@author nils.hoffmann"
+                + "@author nils.hoffmann\n"
         ).
                 addModifiers(Modifier.PUBLIC);
+        ClassName list = ClassName.get("java.util", "List");
+        ClassName map = ClassName.get("java.util", "Map");
+        ClassName hashMap = ClassName.get("java.util", "HashMap");
+        TypeName listOfIntegers = ParameterizedTypeName.get(list, ClassName.get(Integer.class));
+        TypeName listOfSynonyms = ParameterizedTypeName.get(list, ClassName.get(String.class));
+        TypeName headGroupMap = ParameterizedTypeName.get(map, ClassName.get(String.class), lipidClass);
+        TypeName intArray = ArrayTypeName.of(int.class);
+
+        lipidClassBuilder.addField(FieldSpec.builder(ArrayTypeName.of(Element.class), "ELEMENTS", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL).
+                initializer("$T.values()", Element.class).build());
+        lipidClassBuilder.addField(FieldSpec.builder(headGroupMap, "HEAD_GROUPS", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL).build());
         lipidClassBuilder.addField(LipidCategory.class, "category", Modifier.PRIVATE, Modifier.FINAL);
         lipidClassBuilder.addField(String.class, "lipidMapsClassName", Modifier.PRIVATE, Modifier.FINAL);
-        ClassName synonymsClass = ClassName.get("java.lang", "String");
-        ClassName integersClass = ClassName.get("java.lang", "Integer");
-        ClassName list = ClassName.get("java.util", "List");
-        lipidClassBuilder.addField(String.class, "allowedNumFaStr", Modifier.PRIVATE, Modifier.FINAL);
-        TypeName listOfIntegers = ParameterizedTypeName.get(list, integersClass);
-        lipidClassBuilder.addField(listOfIntegers, "allowedNumFa", Modifier.PRIVATE, Modifier.FINAL);
         lipidClassBuilder.addField(Integer.class, "maxNumFa", Modifier.PRIVATE, Modifier.FINAL);
+        lipidClassBuilder.addField(listOfIntegers, "allowedNumFa", Modifier.PRIVATE, Modifier.FINAL);
         lipidClassBuilder.addField(String.class, "sumFormula", Modifier.PRIVATE, Modifier.FINAL);
-        lipidClassBuilder.addField(ElementTable.class, "elementTable", Modifier.PRIVATE, Modifier.FINAL);
-        ClassName arrayList = ClassName.get("java.util", "ArrayList");
-        TypeName listOfSynonyms = ParameterizedTypeName.get(list, synonymsClass);
+        lipidClassBuilder.addField(intArray, "elementCounts", Modifier.PRIVATE, Modifier.FINAL);
         lipidClassBuilder.addField(listOfSynonyms, "synonyms", Modifier.PRIVATE, Modifier.FINAL);
-        TypeName optionalLipidClass = ParameterizedTypeName.get(Optional.class, LipidClass.class);
 
         lipidClassBuilder.addMethod(
                 MethodSpec.constructorBuilder().
                         addModifiers(Modifier.PRIVATE).
                         addParameter(LipidCategory.class, "category").
-                        addStatement("this.$N = $N", "category", "category").
                         addParameter(String.class, "lipidMapsClassName").
-                        addStatement("this.$N = $N", "lipidMapsClassName", "lipidMapsClassName").
                         addParameter(Integer.class, "maxNumFa").
-                        addStatement("this.$N = $N", "maxNumFa", "maxNumFa").
-                        addParameter(String.class, "allowedNumFaStr").
-                        addStatement("this.$N = $N", "allowedNumFaStr", "allowedNumFaStr").
+                        addParameter(listOfIntegers, "allowedNumFa").
                         addParameter(String.class, "sumFormula").
-                        addStatement("this.$N = $N", "sumFormula", "sumFormula").
-                        addStatement(
-                                CodeBlock.of(
-                                        "ElementTable et = new ElementTable();\n"
-                                        + "        if(this.sumFormula!=null && !this.sumFormula.isEmpty()) {\n"
-                                        + "            try {\n"
-                                        + "                et = new ElementTable(this.sumFormula);\n"
-                                        + "            } catch (de.isas.lipidomics.palinom.exceptions.ParsingException ex) {\n"
-                                        + "                et = new ElementTable();\n"
-                                        + "            }\n"
-                                        + "        }\n"
-                                        + "        this.elementTable = et;"
-                                )
-                        ).
+                        addParameter(intArray, "elementCounts").
                         addParameter(listOfSynonyms, "synonyms").
-                        addStatement(
-                                CodeBlock.of(
-                                        "if ($N.isEmpty()) {\n"
-                                        + " throw new IllegalArgumentException(\"Must supply at least one synonym!\");\n"
-                                        + "}", "synonyms")
-                        ).
-                        addStatement(
-                                CodeBlock.of(
-                                        "this.$N = Arrays.asList(allowedNumFaStr.split(\"\\\\|\")).stream().map((t) -> {\n"
-                                        + "   return Integer.parseInt(t);\n"
-                                        + "}).collect(java.util.stream.Collectors.toList())", "allowedNumFa")
-                        ).
+                        addStatement("this.$N = $N", "category", "category").
+                        addStatement("this.$N = $N", "lipidMapsClassName", "lipidMapsClassName").
+                        addStatement("this.$N = $N", "maxNumFa", "maxNumFa").
+                        addStatement("this.$N = $N", "allowedNumFa", "allowedNumFa").
+                        addStatement("this.$N = $N", "sumFormula", "sumFormula").
+                        addStatement("this.$N = $N", "elementCounts", "elementCounts").
                         addStatement("this.$N = $N", "synonyms", "synonyms").
                         build()
         );
 
         lipidClassBuilder.addMethod(
-                MethodSpec.methodBuilder("getCategory").addModifiers(Modifier.PUBLIC).returns(LipidCategory.class).addCode("return this.$N;", "category").build()
+                MethodSpec.methodBuilder("getCategory").addModifiers(Modifier.PUBLIC).returns(LipidCategory.class).addStatement("return this.$N", "category").build()
         );
         lipidClassBuilder.addMethod(
-                MethodSpec.methodBuilder("getAbbreviation").addModifiers(Modifier.PUBLIC).returns(String.class).addCode("return this.$N.get(0);", "synonyms").build()
+                MethodSpec.methodBuilder("getAbbreviation").addModifiers(Modifier.PUBLIC).returns(String.class).addStatement("return this.$N.get(0)", "synonyms").build()
         );
         lipidClassBuilder.addMethod(
-                MethodSpec.methodBuilder("getLipidMapsClassName").addModifiers(Modifier.PUBLIC).returns(String.class).addCode("return this.$N;", "lipidMapsClassName").build()
+                MethodSpec.methodBuilder("getLipidMapsClassName").addModifiers(Modifier.PUBLIC).returns(String.class).addStatement("return this.$N", "lipidMapsClassName").build()
         );
         lipidClassBuilder.addMethod(
-                MethodSpec.methodBuilder("getMaxNumFa").addModifiers(Modifier.PUBLIC).returns(Integer.class).addCode("return this.$N;", "maxNumFa").build()
+                MethodSpec.methodBuilder("getMaxNumFa").addModifiers(Modifier.PUBLIC).returns(Integer.class).addStatement("return this.$N", "maxNumFa").build()
         );
         lipidClassBuilder.addMethod(
-                MethodSpec.methodBuilder("getAllowedNumFa").addModifiers(Modifier.PUBLIC).returns(listOfIntegers).addCode("return this.$N;", "allowedNumFa").build()
+                MethodSpec.methodBuilder("getAllowedNumFa").addModifiers(Modifier.PUBLIC).returns(listOfIntegers).addStatement("return this.$N", "allowedNumFa").build()
         );
         lipidClassBuilder.addMethod(
-                MethodSpec.methodBuilder("getSumFormula").addModifiers(Modifier.PUBLIC).returns(String.class).addCode("return this.$N.getSumFormula();", "elementTable").build()
+                MethodSpec.methodBuilder("getSumFormula").addModifiers(Modifier.PUBLIC).returns(String.class).addStatement("return this.$N", "sumFormula").build()
         );
         lipidClassBuilder.addMethod(
-                MethodSpec.methodBuilder("getElements").addModifiers(Modifier.PUBLIC).returns(ElementTable.class).addCode("return this.$N.copy();", "elementTable").build()
+                MethodSpec.methodBuilder("getElements").
+                        addJavadoc("Returns a new element table for the head group's sum formula.\n\n@return the element table.\n").
+                        addModifiers(Modifier.PUBLIC).
+                        returns(elementTable).
+                        addStatement("$T elements = new $T()", elementTable, elementTable).
+                        beginControlFlow("for (int i = 0; i < this.$N.length; i++)", "elementCounts").
+                        beginControlFlow("if (this.$N[i] != 0)", "elementCounts").
+                        addStatement("elements.put(ELEMENTS[i], this.$N[i])", "elementCounts").
+                        endControlFlow().
+                        endControlFlow().
+                        addStatement("return elements").
+                        build()
         );
         lipidClassBuilder.addMethod(
-                MethodSpec.methodBuilder("getSynonyms").addModifiers(Modifier.PUBLIC).returns(listOfSynonyms).addCode("return this.$N;", "synonyms").build()
+                MethodSpec.methodBuilder("getElementCount").
+                        addJavadoc("Returns the number of atoms of the given element in the head group's sum formula.\n\n"
+                                + "@param element the element.\n"
+                                + "@return the element count, or 0.\n").
+                        addModifiers(Modifier.PUBLIC).
+                        addParameter(Element.class, "element").
+                        returns(int.class).
+                        addStatement("return this.$N[element.ordinal()]", "elementCounts").
+                        build()
+        );
+        lipidClassBuilder.addMethod(
+                MethodSpec.methodBuilder("getSynonyms").addModifiers(Modifier.PUBLIC).returns(listOfSynonyms).addStatement("return this.$N", "synonyms").build()
         );
 
         lipidClassBuilder.addMethod(
                 MethodSpec.methodBuilder("matchesAbbreviation").
                         addModifiers(Modifier.PUBLIC).
                         addParameter(String.class, "headGroup").
-                        addStatement(
-                                CodeBlock.of(
-                                        "return this.synonyms.stream().anyMatch((synonym) -> {\n"
-                                        + "return synonym.equals($N);\n"
-                                        + "})", "headGroup")).
+                        addStatement("return this.$N.contains($N)", "synonyms", "headGroup").
                         returns(boolean.class).
                         build()
         );
@@ -229,55 +323,66 @@ public class LipidClassGenerator {
         lipidClassBuilder.addMethod(
                 MethodSpec.methodBuilder("getLysoAbbreviation").
                         addModifiers(Modifier.PUBLIC).
-                        addParameter(LipidClass.class, "lipidClass").
-                        addStatement(
-                                CodeBlock.of(
-                                        "if ($N.getCategory() == LipidCategory.GP) { "
-                                        + "return \"L\" + $N.getAbbreviation();\n"
-                                        + "}\n"
-                                        + "throw new ConstraintViolationException(\"Lipid category must be \" + LipidCategory.GP + \" for lyso-classes!\")", "lipidClass", "lipidClass")).
+                        addParameter(lipidClass, "lipidClass").
+                        beginControlFlow("if ($N.getCategory() == $T.GP)", "lipidClass", LipidCategory.class).
+                        addStatement("return \"L\" + $N.getAbbreviation()", "lipidClass").
+                        endControlFlow().
+                        addStatement("throw new $T(\"Lipid category must be \" + $T.GP + \" for lyso-classes!\")", constraintViolationException, LipidCategory.class).
                         returns(String.class).
                         build()
         );
 
         lipidClassBuilder.addMethod(
                 MethodSpec.methodBuilder("forHeadGroup").
+                        addJavadoc("Returns the lipid class for this head group.\n\n"
+                                + "@param headGroup the head group to check.\n"
+                                + "@return the lipid class, or undefined if not matching class for the head\n"
+                                + "group is defined.\n").
                         addModifiers(Modifier.PUBLIC, Modifier.STATIC).
                         addParameter(String.class, "headGroup").
-                        addStatement(
-                                CodeBlock.of(
-                                        "return Arrays.asList(values()).stream().filter((lipidClass) -> {\n"
-                                        + "    return lipidClass.matchesAbbreviation($N.trim());\n"
-                                        + "}).findFirst()", "headGroup")).
-                        returns(optionalLipidClass).
+                        addStatement("return HEAD_GROUPS.getOrDefault($N.trim(), $T.UNDEFINED)", "headGroup", lipidClass).
+                        returns(lipidClass).
                         build()
         );
 
+        // the first lipid class declaring a synonym wins, as with a linear scan over values()
+        Map<String, String> headGroups = new LinkedHashMap<>();
         stream.forEach((lipidClassEntry) -> {
             String sanitizedName = sanitizeToEnumConstant(lipidClassEntry.getLipidName(), lipidClassEntry.getLipidCategory());
             LipidCategory category = LipidCategory.valueOf(lipidClassEntry.getLipidCategory());
-            List<String> template = new ArrayList<>();
-            template.addAll(
-                    Arrays.asList(
-                            "LipidCategory." + category.name(),
-                            "\"" + lipidClassEntry.lipidDescription + "\"",
-                            lipidClassEntry.maxNumFa + "",
-                            "\"" + lipidClassEntry.allowedNumFa + "\"",
-//                            "\"" + lipidClassEntry.lipidName + "\"",
-                            "\"" + lipidClassEntry.sumFormula + "\""
-                    )
-            );
+            int[] elementCounts = getElementCounts(lipidClassEntry.getSumFormula());
+            List<Integer> allowedNumFa = Arrays.stream(lipidClassEntry.getAllowedNumFa().split("\\|")).map((t) -> {
+                return Integer.parseInt(t.trim());
+            }).collect(Collectors.toList());
             List<String> synonyms = new ArrayList<>();
-            synonyms.add("\"" + lipidClassEntry.lipidName + "\"");
-            synonyms.addAll(lipidClassEntry.getSynonyms().stream().map((t) -> {
-                return "\"" + t + "\"";
-            }).collect(Collectors.toList()));
-            template.add("java.util.Arrays.asList(" + synonyms.stream().collect(Collectors.joining(",")) + ")");
-            CodeBlock cb = CodeBlock.of(String.join(", ", template));
+            synonyms.add(lipidClassEntry.getLipidName());
+            synonyms.addAll(lipidClassEntry.getSynonyms());
+            synonyms.forEach((synonym) -> {
+                headGroups.putIfAbsent(synonym, sanitizedName);
+            });
+            CodeBlock cb = CodeBlock.builder().add("$T.$N, $S, $L, $T.asList($L), $S, new int[] {$L}, $T.asList($L)",
+                    LipidCategory.class, category.name(),
+                    lipidClassEntry.getLipidDescription(),
+                    lipidClassEntry.getMaxNumFa(),
+                    Arrays.class, allowedNumFa.stream().map(String::valueOf).collect(Collectors.joining(", ")),
+                    getSumFormula(elementCounts),
+                    Arrays.stream(elementCounts).mapToObj(String::valueOf).collect(Collectors.joining(", ")),
+                    Arrays.class, synonyms.stream().map((t) -> {
+                        return CodeBlock.of("$S", t).toString();
+                    }).collect(Collectors.joining(", "))
+            ).build();
             lipidClassBuilder.addEnumConstant(sanitizedName, TypeSpec.anonymousClassBuilder(cb).build());
         });
 
-        return JavaFile.builder("de.isas.lipidomics.domain", lipidClassBuilder.build()).addFileComment(
+        CodeBlock.Builder headGroupIndex = CodeBlock.builder().
+                addStatement("$T headGroups = new $T<>($L)", headGroupMap, hashMap, (int) Math.ceil(headGroups.size() / 0.75d));
+        headGroups.forEach((synonym, constant) -> {
+            headGroupIndex.addStatement("headGroups.put($S, $N)", synonym, constant);
+        });
+        headGroupIndex.addStatement("HEAD_GROUPS = headGroups");
+        lipidClassBuilder.addStaticBlock(headGroupIndex.build());
+
+        return JavaFile.builder(DOMAIN_PACKAGE, lipidClassBuilder.build()).addFileComment(
                 " Copyright 2019 nils.hoffmann.\n"
                 + "\n"
                 + " Licensed under the Apache License, Version 2.0 (the \"License\");\n"
@@ -291,6 +396,6 @@ public class LipidClassGenerator {
                 + " WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.\n"
                 + " See the License for the specific language governing permissions and\n"
                 + " limitations under the License."
-        ).build().toString();
+        ).skipJavaLangImports(true).indent("    ").build();
     }
 }
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.domain.LipidColumnStore;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import lombok.Builder;
+
+/**
+ * Parses lipid names asynchronously or in batches on an executor. Each name is
+ * tried with the configured grammars in order, until one of them parses it.
+ *
+ * The default executor depends on the Java version: jgoslin-parsers is a
+ * multi-release jar, on Java 21 and later the default executor starts a
+ * virtual thread per name, which suits services that block on I/O around the
+ * parsing of each name. On earlier versions, it is a fixed pool of platform
+ * threads, one per available processor. {@link #isVirtualThreadExecutor()}
+ * tells which one is used. The default executor is shut down by
+ * {@link #close()}, a given executor is not.
+ *
+ * @author nils.hoffmann
+ */
+public final class BatchParser implements AutoCloseable {
+
+    /**
+     * The number of names that {@link #load(Iterator, LipidColumnStore.Builder, Consumer)}
+     * parses concurrently, while the lipids of the previous names are added to
+     * the store.
+     */
+    public static final int LOAD_CHUNK_SIZE = 4096;
+
+    private final GrammarFallback fallback;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+
+    /**
+     * Creates a new batch parser.
+     *
+     * @param grammars the grammars to try in order, all grammars in their
+     * declaration order if null or empty.
+     * @param options the parser options, {@link ParserOptions#DEFAULT} if
+     * null.
+     * @param executor the executor to parse on, a new default executor if
+     * null.
+     */
+    @Builder
+    public BatchParser(List<Grammar> grammars, ParserOptions options, ExecutorService executor) {
+        this.fallback = new GrammarFallback(grammars, options);
+        this.ownsExecutor = executor == null;
+        this.executor = executor == null ? ParseThreads.newExecutor() : executor;
+    }
+
+    /**
+     * Creates a new batch parser that tries all grammars on a new default
+     * executor.
+     */
+    public BatchParser() {
+        this(null, null, null);
+    }
+
+    /**
+     * Returns true, if the default executor uses virtual threads. This is the
+     * case on Java 21 and later, when jgoslin-parsers is loaded from its
+     * multi-release jar.
+     *
+     * @return true, if the default executor uses virtual threads.
+     */
+    public static boolean isVirtualThreadExecutor() {
+        return ParseThreads.isVirtual();
+    }
+
+    /**
+     * Creates a new default executor, see {@link #isVirtualThreadExecutor()}.
+     * The caller is responsible for shutting it down.
+     *
+     * @return a new executor.
+     */
+    public static ExecutorService newDefaultExecutor() {
+        return ParseThreads.newExecutor();
+    }
+
+    /**
+     * Returns the grammars that are tried in order.
+     *
+     * @return the grammars.
+     */
+    public List<Grammar> getGrammars() {
+        return fallback.getGrammars();
+    }
+
+    /**
+     * Returns the executor that names are parsed on.
+     *
+     * @return the executor.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Parses the given lipid name on the calling thread.
+     *
+     * @param lipidName the lipid name.
+     * @return the result, with index 0.
+     */
+    public ParseResult<LipidAdduct> parse(String lipidName) {
+        return fallback.parse(0, lipidName);
+    }
+
+    /**
+     * Parses the given lipid name on the executor.
+     *
+     * @param lipidName the lipid name.
+     * @return the future result, with index 0.
+     */
+    public CompletableFuture<ParseResult<LipidAdduct>> parseAsync(String lipidName) {
+        return CompletableFuture.supplyAsync(() -> {
+            return fallback.parse(0, lipidName);
+        }, executor);
+    }
+
+    /**
+     * Parses the given lipid names concurrently on the executor and waits for
+     * all of them.
+     *
+     * @param lipidNames the lipid names.
+     * @return the results, in the order and with the indices of the names.
+     */
+    public List<ParseResult<LipidAdduct>> parseAll(List<String> lipidNames) {
+        List<ParseResult<LipidAdduct>> results = new ArrayList<>(lipidNames.size());
+        for (CompletableFuture<ParseResult<LipidAdduct>> future : submit(lipidNames, 0)) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    /**
+     * Parses the given lipid names in chunks on the executor and adds the
+     * parsed lipids to the builder of a {@link LipidColumnStore}, in the order
+     * of the names. Only the lipids of two chunks are held at a time, so that
+     * stores of millions of lipids can be loaded without holding their object
+     * graphs. Names that can not be parsed, and lipids that can not be stored,
+     * are passed to onFailure, with the index of the name.
+     *
+     * @param lipidNames the lipid names.
+     * @param builder the builder of the store.
+     * @param onFailure receives the failed results.
+     * @return the number of lipids added to the builder.
+     */
+    public int load(Iterator<String> lipidNames, LipidColumnStore.Builder builder, Consumer<? super ParseResult<LipidAdduct>> onFailure) {
+        int added = 0;
+        long index = 0;
+        List<CompletableFuture<ParseResult<LipidAdduct>>> pending = null;
+        while (lipidNames.hasNext() || pending != null) {
+            List<CompletableFuture<ParseResult<LipidAdduct>>> next = null;
+            if (lipidNames.hasNext()) {
+                List<String> chunk = new ArrayList<>(LOAD_CHUNK_SIZE);
+                while (lipidNames.hasNext() && chunk.size() < LOAD_CHUNK_SIZE) {
+                    chunk.add(lipidNames.next());
+                }
+                next = submit(chunk, index);
+                index += chunk.size();
+            }
+            if (pending != null) {
+                for (CompletableFuture<ParseResult<LipidAdduct>> future : pending) {
+                    ParseResult<LipidAdduct> result = future.join();
+                    if (!result.isSuccess()) {
+                        onFailure.accept(result);
+                        continue;
+                    }
+                    try {
+                        builder.add(result.getValue());
+                        added++;
+                    } catch (IllegalArgumentException ex) {
+                        onFailure.accept(ParseResult.failure(result.getIndex(), result.getInput(), new ParsingException("Lipid can not be stored: " + ex.getMessage(), ex)));
+                    }
+                }
+            }
+            pending = next;
+        }
+        return added;
+    }
+
+    private List<CompletableFuture<ParseResult<LipidAdduct>>> submit(List<String> lipidNames, long firstIndex) {
+        List<CompletableFuture<ParseResult<LipidAdduct>>> futures = new ArrayList<>(lipidNames.size());
+        for (int i = 0; i < lipidNames.size(); i++) {
+            long index = firstIndex + i;
+            String lipidName = lipidNames.get(i);
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                return fallback.parse(index, lipidName);
+            }, executor));
+        }
+        return futures;
+    }
+
+    /**
+     * Shuts down the default executor. A given executor is left running.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+}
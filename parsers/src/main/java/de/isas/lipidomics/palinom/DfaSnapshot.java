@@ -0,0 +1,660 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.RuntimeMetaData;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.ATNConfig;
+import org.antlr.v4.runtime.atn.ATNConfigSet;
+import org.antlr.v4.runtime.atn.ATNSimulator;
+import org.antlr.v4.runtime.atn.ArrayPredictionContext;
+import org.antlr.v4.runtime.atn.PredictionContext;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.atn.SemanticContext;
+import org.antlr.v4.runtime.atn.SingletonPredictionContext;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.dfa.DFAState;
+
+/**
+ * Persists the DFA prediction caches of a grammar's parser to a file and
+ * restores them, so that short-lived processes do not have to build them
+ * again. This only removes the DFA construction part of the startup cost.
+ * Class loading and JIT compilation of the parser and visitor code still
+ * dominate the first few thousand parses, see the README for JVM options that
+ * reduce them.
+ *
+ * A snapshot records the ANTLR runtime version, the grammar and a checksum of
+ * the parser's serialized ATN. Snapshots that do not match the running parser
+ * are rejected. Snapshots are only restored into DFA caches that are still
+ * empty, i.e. before the first lipid name of a grammar has been parsed. Each
+ * DFA is checked and filled while holding the lock that ANTLR uses to add
+ * states, so a DFA that a concurrent parse has started to fill keeps its own
+ * states.
+ *
+ * The lexer DFAs are not included, they fill up within the first few lipid
+ * names.
+ *
+ * @author nils.hoffmann
+ */
+@Slf4j
+public final class DfaSnapshot {
+
+    /**
+     * The file name extension used for snapshot files.
+     */
+    public static final String FILE_EXTENSION = ".dfa";
+
+    private static final int MAGIC = 0x47444641;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int NO_INDEX = -1;
+    private static final int ERROR_STATE = -2;
+
+    private static final byte CONTEXT_EMPTY = 0;
+    private static final byte CONTEXT_SINGLETON = 1;
+    private static final byte CONTEXT_ARRAY = 2;
+
+    private static final byte SEMANTIC_NONE = 0;
+    private static final byte SEMANTIC_PREDICATE = 1;
+    private static final byte SEMANTIC_PRECEDENCE = 2;
+    private static final byte SEMANTIC_AND = 3;
+    private static final byte SEMANTIC_OR = 4;
+
+    private DfaSnapshot() {
+    }
+
+    /**
+     * Writes the current DFA prediction caches of the grammar's parser to the
+     * given file. The file is replaced atomically, if possible.
+     *
+     * @param grammar the grammar.
+     * @param file the snapshot file.
+     * @throws IOException if the snapshot could not be written.
+     */
+    public static void save(Grammar grammar, Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = file.resolveSibling(file.getFileName().toString() + ".tmp");
+        try {
+            try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                write(grammar, os);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Restores the DFA prediction caches of the grammar's parser from the given
+     * file.
+     *
+     * @param grammar the grammar.
+     * @param file the snapshot file.
+     * @return true, if the snapshot was restored, false if the file does not
+     * exist, does not match the grammar, ANTLR version or ATN, or if the DFA
+     * caches were already populated.
+     * @throws IOException if the snapshot could not be read.
+     */
+    public static boolean load(Grammar grammar, Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            log.debug("No DFA snapshot for grammar {} at {}", grammar, file);
+            return false;
+        }
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(file))) {
+            return read(grammar, is);
+        }
+    }
+
+    /**
+     * Writes the current DFA prediction caches of the grammar's parser to the
+     * given stream.
+     *
+     * @param grammar the grammar.
+     * @param outputStream the stream to write to. Will not be closed.
+     * @throws IOException if the snapshot could not be written.
+     */
+    public static void write(Grammar grammar, OutputStream outputStream) throws IOException {
+        Parser parser = grammar.newAntlrParser();
+        DFA[] decisionToDFA = parser.getInterpreter().decisionToDFA;
+        Writer writer = new Writer();
+        ByteArrayOutputStream decisions = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(decisions);
+        for (DFA dfa : decisionToDFA) {
+            writer.writeDfa(dfa, dos);
+        }
+        dos.flush();
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(RuntimeMetaData.VERSION);
+        out.writeUTF(grammar.name());
+        out.writeLong(checksum(parser));
+        out.writeInt(decisionToDFA.length);
+        writer.writeTables(out);
+        decisions.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Restores the DFA prediction caches of the grammar's parser from the given
+     * stream.
+     *
+     * @param grammar the grammar.
+     * @param inputStream the stream to read from. Will not be closed.
+     * @return true, if the snapshot was restored, false if the snapshot does
+     * not match the grammar, ANTLR version or ATN, or if the DFA caches were
+     * already populated. DFAs of single decisions that are already populated
+     * keep their states.
+     * @throws IOException if the snapshot could not be read.
+     */
+    public static boolean read(Grammar grammar, InputStream inputStream) throws IOException {
+        Parser parser = grammar.newAntlrParser();
+        DFA[] decisionToDFA = parser.getInterpreter().decisionToDFA;
+        DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            log.warn("Ignoring DFA snapshot for grammar {}: unsupported file format.", grammar);
+            return false;
+        }
+        String antlrVersion = in.readUTF();
+        String grammarName = in.readUTF();
+        long checksum = in.readLong();
+        int numberOfDecisions = in.readInt();
+        if (!RuntimeMetaData.VERSION.equals(antlrVersion)
+                || !grammar.name().equals(grammarName)
+                || checksum != checksum(parser)
+                || numberOfDecisions != decisionToDFA.length) {
+            log.warn("Ignoring DFA snapshot for grammar {}: snapshot was created for grammar {} with ANTLR {}.", grammar, grammarName, antlrVersion);
+            return false;
+        }
+        boolean anyEmpty = false;
+        for (DFA dfa : decisionToDFA) {
+            anyEmpty |= isEmpty(dfa);
+        }
+        if (!anyEmpty) {
+            log.info("Ignoring DFA snapshot for grammar {}: DFA cache is already populated.", grammar);
+            return false;
+        }
+        Reader reader = new Reader(parser.getATN());
+        reader.readTables(in);
+        List<BooleanSupplier> restore = new ArrayList<>(decisionToDFA.length);
+        for (DFA dfa : decisionToDFA) {
+            restore.add(reader.readDfa(dfa, in));
+        }
+        int installed = 0;
+        for (BooleanSupplier installer : restore) {
+            if (installer.getAsBoolean()) {
+                installed++;
+            }
+        }
+        if (installed == 0) {
+            log.info("Ignoring DFA snapshot for grammar {}: DFA cache is already populated.", grammar);
+            return false;
+        }
+        log.info("Restored DFA snapshot for grammar {} for {} decisions.", grammar, installed);
+        return true;
+    }
+
+    /**
+     * Returns the total number of DFA states currently cached for the
+     * grammar's parser.
+     *
+     * @param grammar the grammar.
+     * @return the number of DFA states.
+     */
+    public static int getNumberOfStates(Grammar grammar) {
+        int states = 0;
+        for (DFA dfa : grammar.newAntlrParser().getInterpreter().decisionToDFA) {
+            synchronized (dfa.states) {
+                states += dfa.states.size();
+            }
+        }
+        return states;
+    }
+
+    private static boolean isEmpty(DFA dfa) {
+        synchronized (dfa.states) {
+            return isEmptyLocked(dfa);
+        }
+    }
+
+    /*
+     * Must be called while holding the lock on dfa.states.
+     */
+    private static boolean isEmptyLocked(DFA dfa) {
+        if (!dfa.states.isEmpty()) {
+            return false;
+        }
+        if (dfa.isPrecedenceDfa()) {
+            return dfa.s0 == null || dfa.s0.edges == null || dfa.s0.edges.length == 0;
+        }
+        return dfa.s0 == null;
+    }
+
+    private static long checksum(Parser parser) {
+        CRC32 crc = new CRC32();
+        crc.update(parser.getSerializedATN().getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    /**
+     * Collects the prediction and semantic contexts referenced by the DFA
+     * states, so that shared instances are written only once.
+     */
+    private static final class Writer {
+
+        private final Map<PredictionContext, Integer> contexts = new IdentityHashMap<>();
+        private final List<PredictionContext> contextTable = new ArrayList<>();
+        private final Map<SemanticContext, Integer> semanticContexts = new IdentityHashMap<>();
+        private final List<SemanticContext> semanticContextTable = new ArrayList<>();
+
+        void writeDfa(DFA dfa, DataOutputStream out) throws IOException {
+            List<DFAState> states;
+            synchronized (dfa.states) {
+                states = new ArrayList<>(dfa.states.values());
+            }
+            states.sort(Comparator.comparingInt((state) -> {
+                return state.stateNumber;
+            }));
+            Map<DFAState, Integer> index = new IdentityHashMap<>();
+            for (DFAState state : states) {
+                index.put(state, index.size());
+            }
+            out.writeBoolean(dfa.isPrecedenceDfa());
+            out.writeInt(states.size());
+            for (DFAState state : states) {
+                writeState(state, out);
+            }
+            for (DFAState state : states) {
+                writeEdges(state, index, out);
+            }
+            if (dfa.isPrecedenceDfa()) {
+                writeEdges(dfa.s0, index, out);
+            } else {
+                DFAState s0 = dfa.s0;
+                out.writeInt(s0 == null ? NO_INDEX : index.getOrDefault(s0, NO_INDEX));
+            }
+        }
+
+        void writeTables(DataOutputStream out) throws IOException {
+            out.writeInt(contextTable.size());
+            for (PredictionContext context : contextTable) {
+                if (context == PredictionContext.EMPTY) {
+                    out.writeByte(CONTEXT_EMPTY);
+                } else if (context instanceof SingletonPredictionContext) {
+                    SingletonPredictionContext singleton = (SingletonPredictionContext) context;
+                    out.writeByte(CONTEXT_SINGLETON);
+                    out.writeInt(singleton.parent == null ? NO_INDEX : contexts.get(singleton.parent));
+                    out.writeInt(singleton.returnState);
+                } else {
+                    ArrayPredictionContext array = (ArrayPredictionContext) context;
+                    out.writeByte(CONTEXT_ARRAY);
+                    out.writeInt(array.returnStates.length);
+                    for (int i = 0; i < array.returnStates.length; i++) {
+                        out.writeInt(array.parents[i] == null ? NO_INDEX : contexts.get(array.parents[i]));
+                        out.writeInt(array.returnStates[i]);
+                    }
+                }
+            }
+            out.writeInt(semanticContextTable.size());
+            for (SemanticContext semanticContext : semanticContextTable) {
+                if (semanticContext == SemanticContext.NONE) {
+                    out.writeByte(SEMANTIC_NONE);
+                } else if (semanticContext instanceof SemanticContext.Predicate) {
+                    SemanticContext.Predicate predicate = (SemanticContext.Predicate) semanticContext;
+                    out.writeByte(SEMANTIC_PREDICATE);
+                    out.writeInt(predicate.ruleIndex);
+                    out.writeInt(predicate.predIndex);
+                    out.writeBoolean(predicate.isCtxDependent);
+                } else if (semanticContext instanceof SemanticContext.PrecedencePredicate) {
+                    out.writeByte(SEMANTIC_PRECEDENCE);
+                    out.writeInt(((SemanticContext.PrecedencePredicate) semanticContext).precedence);
+                } else {
+                    SemanticContext[] operands;
+                    if (semanticContext instanceof SemanticContext.AND) {
+                        out.writeByte(SEMANTIC_AND);
+                        operands = ((SemanticContext.AND) semanticContext).opnds;
+                    } else {
+                        out.writeByte(SEMANTIC_OR);
+                        operands = ((SemanticContext.OR) semanticContext).opnds;
+                    }
+                    out.writeInt(operands.length);
+                    for (SemanticContext operand : operands) {
+                        out.writeInt(semanticContexts.get(operand));
+                    }
+                }
+            }
+        }
+
+        private void writeState(DFAState state, DataOutputStream out) throws IOException {
+            out.writeBoolean(state.isAcceptState);
+            out.writeInt(state.prediction);
+            out.writeBoolean(state.requiresFullContext);
+            ATNConfigSet configs = state.configs;
+            out.writeBoolean(configs.fullCtx);
+            out.writeInt(configs.uniqueAlt);
+            out.writeBoolean(configs.hasSemanticContext);
+            out.writeBoolean(configs.dipsIntoOuterContext);
+            out.writeInt(configs.size());
+            for (ATNConfig config : configs.elements()) {
+                if (config.getClass() != ATNConfig.class) {
+                    throw new IOException("Unsupported ATN configuration type " + config.getClass().getName());
+                }
+                out.writeInt(config.state.stateNumber);
+                out.writeInt(config.alt);
+                out.writeInt(register(config.context));
+                out.writeInt(register(config.semanticContext));
+                out.writeInt(config.reachesIntoOuterContext);
+            }
+            if (state.predicates == null) {
+                out.writeInt(NO_INDEX);
+            } else {
+                out.writeInt(state.predicates.length);
+                for (DFAState.PredPrediction prediction : state.predicates) {
+                    out.writeInt(register(prediction.pred));
+                    out.writeInt(prediction.alt);
+                }
+            }
+        }
+
+        private void writeEdges(DFAState state, Map<DFAState, Integer> index, DataOutputStream out) throws IOException {
+            DFAState[] edges;
+            synchronized (state) {
+                edges = state.edges == null ? null : state.edges.clone();
+            }
+            if (edges == null) {
+                out.writeInt(NO_INDEX);
+                return;
+            }
+            out.writeInt(edges.length);
+            List<int[]> targets = new ArrayList<>();
+            for (int i = 0; i < edges.length; i++) {
+                if (edges[i] == ATNSimulator.ERROR) {
+                    targets.add(new int[]{i, ERROR_STATE});
+                } else if (edges[i] != null && index.containsKey(edges[i])) {
+                    targets.add(new int[]{i, index.get(edges[i])});
+                }
+            }
+            out.writeInt(targets.size());
+            for (int[] target : targets) {
+                out.writeInt(target[0]);
+                out.writeInt(target[1]);
+            }
+        }
+
+        private int register(PredictionContext context) {
+            if (context == null) {
+                return NO_INDEX;
+            }
+            Integer id = contexts.get(context);
+            if (id == null) {
+                for (int i = 0; i < context.size(); i++) {
+                    register(context.getParent(i));
+                }
+                id = contextTable.size();
+                contexts.put(context, id);
+                contextTable.add(context);
+            }
+            return id;
+        }
+
+        private int register(SemanticContext semanticContext) {
+            Integer id = semanticContexts.get(semanticContext);
+            if (id == null) {
+                if (semanticContext instanceof SemanticContext.Operator) {
+                    for (SemanticContext operand : ((SemanticContext.Operator) semanticContext).getOperands()) {
+                        register(operand);
+                    }
+                }
+                id = semanticContextTable.size();
+                semanticContexts.put(semanticContext, id);
+                semanticContextTable.add(semanticContext);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Rebuilds DFA states from a snapshot for a given ATN.
+     */
+    private static final class Reader {
+
+        private final ATN atn;
+        private PredictionContext[] contexts;
+        private SemanticContext[] semanticContexts;
+
+        Reader(ATN atn) {
+            this.atn = atn;
+        }
+
+        void readTables(DataInputStream in) throws IOException {
+            contexts = new PredictionContext[in.readInt()];
+            for (int i = 0; i < contexts.length; i++) {
+                byte type = in.readByte();
+                switch (type) {
+                    case CONTEXT_EMPTY:
+                        contexts[i] = PredictionContext.EMPTY;
+                        break;
+                    case CONTEXT_SINGLETON:
+                        PredictionContext parent = context(in.readInt());
+                        contexts[i] = SingletonPredictionContext.create(parent, in.readInt());
+                        break;
+                    case CONTEXT_ARRAY:
+                        int size = in.readInt();
+                        PredictionContext[] parents = new PredictionContext[size];
+                        int[] returnStates = new int[size];
+                        for (int j = 0; j < size; j++) {
+                            parents[j] = context(in.readInt());
+                            returnStates[j] = in.readInt();
+                        }
+                        contexts[i] = new ArrayPredictionContext(parents, returnStates);
+                        break;
+                    default:
+                        throw new IOException("Unknown prediction context type " + type);
+                }
+            }
+            semanticContexts = new SemanticContext[in.readInt()];
+            for (int i = 0; i < semanticContexts.length; i++) {
+                byte type = in.readByte();
+                switch (type) {
+                    case SEMANTIC_NONE:
+                        semanticContexts[i] = SemanticContext.NONE;
+                        break;
+                    case SEMANTIC_PREDICATE:
+                        semanticContexts[i] = new SemanticContext.Predicate(in.readInt(), in.readInt(), in.readBoolean());
+                        break;
+                    case SEMANTIC_PRECEDENCE:
+                        semanticContexts[i] = new SemanticContext.PrecedencePredicate(in.readInt());
+                        break;
+                    case SEMANTIC_AND:
+                    case SEMANTIC_OR:
+                        int size = in.readInt();
+                        SemanticContext combined = semanticContext(in.readInt());
+                        for (int j = 1; j < size; j++) {
+                            SemanticContext operand = semanticContext(in.readInt());
+                            combined = type == SEMANTIC_AND ? SemanticContext.and(combined, operand) : SemanticContext.or(combined, operand);
+                        }
+                        semanticContexts[i] = combined;
+                        break;
+                    default:
+                        throw new IOException("Unknown semantic context type " + type);
+                }
+            }
+        }
+
+        /**
+         * Reads the states of the DFA. The returned supplier installs the
+         * states into the DFA, this is deferred until the whole snapshot has
+         * been read successfully. It returns false without installing, if the
+         * snapshot has no states for the DFA or if the DFA has been populated
+         * in the meantime. ANTLR adds states while
+         * holding the lock on the DFA's states, so the check and the install
+         * hold that lock, too. A concurrent parse that computes a state which
+         * has just been installed finds and uses the installed one.
+         */
+        BooleanSupplier readDfa(DFA dfa, DataInputStream in) throws IOException {
+            boolean precedenceDfa = in.readBoolean();
+            if (precedenceDfa != dfa.isPrecedenceDfa()) {
+                throw new IOException("Precedence DFA mismatch for decision " + dfa.decision);
+            }
+            DFAState[] states = new DFAState[in.readInt()];
+            for (int i = 0; i < states.length; i++) {
+                states[i] = readState(in);
+                states[i].stateNumber = i;
+            }
+            for (DFAState state : states) {
+                state.edges = readEdges(states, in);
+            }
+            DFAState[] precedenceStartStates = null;
+            DFAState s0 = null;
+            if (precedenceDfa) {
+                precedenceStartStates = readEdges(states, in);
+            } else {
+                int s0Index = in.readInt();
+                s0 = s0Index == NO_INDEX ? null : states[s0Index];
+            }
+            final DFAState[] startStates = precedenceStartStates;
+            final DFAState startState = s0;
+            return () -> {
+                if (states.length == 0) {
+                    return false;
+                }
+                synchronized (dfa.states) {
+                    if (!isEmptyLocked(dfa)) {
+                        return false;
+                    }
+                    for (DFAState state : states) {
+                        dfa.states.put(state, state);
+                    }
+                    if (dfa.isPrecedenceDfa()) {
+                        if (startStates != null) {
+                            for (int precedence = 0; precedence < startStates.length; precedence++) {
+                                if (startStates[precedence] != null) {
+                                    dfa.setPrecedenceStartState(precedence, startStates[precedence]);
+                                }
+                            }
+                        }
+                    } else {
+                        dfa.s0 = startState;
+                    }
+                    return true;
+                }
+            };
+        }
+
+        private DFAState readState(DataInputStream in) throws IOException {
+            boolean isAcceptState = in.readBoolean();
+            int prediction = in.readInt();
+            boolean requiresFullContext = in.readBoolean();
+            boolean fullCtx = in.readBoolean();
+            int uniqueAlt = in.readInt();
+            boolean hasSemanticContext = in.readBoolean();
+            boolean dipsIntoOuterContext = in.readBoolean();
+            int numberOfConfigs = in.readInt();
+            RestoredConfigSet configs = new RestoredConfigSet(fullCtx);
+            configs.configs.ensureCapacity(numberOfConfigs);
+            for (int i = 0; i < numberOfConfigs; i++) {
+                int stateNumber = in.readInt();
+                if (stateNumber < 0 || stateNumber >= atn.states.size()) {
+                    throw new IOException("Unknown ATN state " + stateNumber);
+                }
+                ATNConfig config = new ATNConfig(atn.states.get(stateNumber), in.readInt(), context(in.readInt()), semanticContext(in.readInt()));
+                config.reachesIntoOuterContext = in.readInt();
+                // the configurations of a DFA state are unique, no need to merge them
+                configs.configs.add(config);
+            }
+            configs.uniqueAlt = uniqueAlt;
+            configs.hasSemanticContext = hasSemanticContext;
+            configs.dipsIntoOuterContext = dipsIntoOuterContext;
+            if (requiresFullContext) {
+                configs.setConflictingAlts(PredictionMode.getAlts(PredictionMode.getConflictingAltSubsets(configs)));
+            }
+            configs.setReadonly(true);
+            DFAState state = new DFAState(configs);
+            state.isAcceptState = isAcceptState;
+            state.prediction = prediction;
+            state.requiresFullContext = requiresFullContext;
+            int numberOfPredicates = in.readInt();
+            if (numberOfPredicates != NO_INDEX) {
+                state.predicates = new DFAState.PredPrediction[numberOfPredicates];
+                for (int i = 0; i < numberOfPredicates; i++) {
+                    state.predicates[i] = new DFAState.PredPrediction(semanticContext(in.readInt()), in.readInt());
+                }
+            }
+            return state;
+        }
+
+        private DFAState[] readEdges(DFAState[] states, DataInputStream in) throws IOException {
+            int length = in.readInt();
+            if (length == NO_INDEX) {
+                return null;
+            }
+            DFAState[] edges = new DFAState[length];
+            int numberOfEdges = in.readInt();
+            for (int i = 0; i < numberOfEdges; i++) {
+                int edge = in.readInt();
+                int target = in.readInt();
+                edges[edge] = target == ERROR_STATE ? ATNSimulator.ERROR : states[target];
+            }
+            return edges;
+        }
+
+        private PredictionContext context(int index) {
+            return index == NO_INDEX ? null : contexts[index];
+        }
+
+        private SemanticContext semanticContext(int index) {
+            return index == NO_INDEX ? null : semanticContexts[index];
+        }
+    }
+
+    /**
+     * Configuration set that allows to restore the conflicting alternatives of
+     * DFA states that require full context prediction.
+     */
+    private static final class RestoredConfigSet extends ATNConfigSet {
+
+        RestoredConfigSet(boolean fullCtx) {
+            super(fullCtx);
+        }
+
+        void setConflictingAlts(BitSet conflictingAlts) {
+            this.conflictingAlts = conflictingAlts;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Entry point for application wide parser management.
+ *
+ * The first few thousand parses of each grammar are considerably slower than
+ * later ones, since ANTLR deserializes the grammar's ATN on first use and fills
+ * its shared DFA prediction caches while parsing. Services should therefore
+ * warm up the grammars they use, either synchronously at startup with
+ * {@link #warmUp(Set)}, or in the background with
+ * {@link #warmUpInBackground(Set)}, and use {@link #isReady(Set)} to gate
+ * traffic until the warm-up has finished. Short-lived processes can instead
+ * restore the DFA prediction caches of a previous run with
+ * {@link #loadDfaSnapshots(Set, Path)}.
+ *
+ * @author nils.hoffmann
+ */
+@Slf4j
+public final class Goslin {
+
+    private static final Map<Grammar, WarmUpState> STATES = new ConcurrentHashMap<>();
+
+    private Goslin() {
+    }
+
+    /**
+     * Warms up the given grammars with their bundled warm-up corpora. Blocks
+     * until all grammars have been warmed up. Grammars that are already ready
+     * are warmed up again, but stay ready meanwhile.
+     *
+     * @param grammars the grammars to warm up.
+     * @return the warm-up results per grammar.
+     */
+    public static Map<Grammar, WarmUpResult> warmUp(Set<Grammar> grammars) {
+        return warmUp(grammars, Grammar::getWarmUpCorpus);
+    }
+
+    /**
+     * Warms up the given grammars with the lipid names provided by corpus for
+     * each grammar. Blocks until all grammars have been warmed up.
+     *
+     * @param grammars the grammars to warm up.
+     * @param corpus provides the lipid names to parse for each grammar.
+     * @return the warm-up results per grammar.
+     */
+    public static Map<Grammar, WarmUpResult> warmUp(Set<Grammar> grammars, Function<Grammar, ? extends Collection<String>> corpus) {
+        Map<Grammar, WarmUpResult> results = new EnumMap<>(Grammar.class);
+        for (Grammar grammar : grammars) {
+            results.put(grammar, warmUp(grammar, corpus));
+        }
+        return results;
+    }
+
+    /**
+     * Warms up the given grammars with their bundled warm-up corpora on a
+     * daemon thread.
+     *
+     * @param grammars the grammars to warm up.
+     * @return a future that completes with the warm-up results per grammar.
+     */
+    public static CompletableFuture<Map<Grammar, WarmUpResult>> warmUpInBackground(Set<Grammar> grammars) {
+        return warmUpInBackground(grammars, Grammar::getWarmUpCorpus);
+    }
+
+    /**
+     * Warms up the given grammars with the lipid names provided by corpus for
+     * each grammar on a daemon thread.
+     *
+     * @param grammars the grammars to warm up.
+     * @param corpus provides the lipid names to parse for each grammar.
+     * @return a future that completes with the warm-up results per grammar.
+     */
+    public static CompletableFuture<Map<Grammar, WarmUpResult>> warmUpInBackground(Set<Grammar> grammars, Function<Grammar, ? extends Collection<String>> corpus) {
+        Executor daemonExecutor = (runnable) -> {
+            Thread thread = new Thread(runnable, "goslin-warm-up");
+            thread.setDaemon(true);
+            thread.start();
+        };
+        return CompletableFuture.supplyAsync(() -> {
+            return warmUp(grammars, corpus);
+        }, daemonExecutor);
+    }
+
+    /**
+     * Returns the warm-up state of the given grammar.
+     *
+     * @param grammar the grammar.
+     * @return the warm-up state.
+     */
+    public static WarmUpState getState(Grammar grammar) {
+        return STATES.getOrDefault(grammar, WarmUpState.COLD);
+    }
+
+    /**
+     * Returns true, if the given grammar has been warmed up.
+     *
+     * @param grammar the grammar.
+     * @return true if the grammar is ready.
+     */
+    public static boolean isReady(Grammar grammar) {
+        return getState(grammar) == WarmUpState.READY;
+    }
+
+    /**
+     * Returns true, if all given grammars have been warmed up.
+     *
+     * @param grammars the grammars.
+     * @return true if all grammars are ready.
+     */
+    public static boolean isReady(Set<Grammar> grammars) {
+        return grammars.stream().allMatch(Goslin::isReady);
+    }
+
+    /**
+     * Restores the DFA prediction caches of the given grammars from snapshot
+     * files in the given directory, as written by
+     * {@link #saveDfaSnapshots(Set, Path)}. Grammars whose caches were restored
+     * are reported as {@link WarmUpState#RESTORED}, unless they are already
+     * ready or being warmed up. A restored JVM still needs to load and compile
+     * the parser code, so only a warm-up makes a grammar ready.
+     *
+     * @param grammars the grammars to restore.
+     * @param directory the snapshot directory.
+     * @return the grammars that were restored.
+     * @throws IOException if a snapshot could not be read.
+     * @see DfaSnapshot
+     */
+    public static Set<Grammar> loadDfaSnapshots(Set<Grammar> grammars, Path directory) throws IOException {
+        Set<Grammar> restored = EnumSet.noneOf(Grammar.class);
+        for (Grammar grammar : grammars) {
+            if (DfaSnapshot.load(grammar, getDfaSnapshotFile(grammar, directory))) {
+                STATES.compute(grammar, (key, state) -> {
+                    return state == WarmUpState.READY || state == WarmUpState.WARMING_UP ? state : WarmUpState.RESTORED;
+                });
+                restored.add(grammar);
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Writes the DFA prediction caches of the given grammars to snapshot files
+     * in the given directory.
+     *
+     * @param grammars the grammars to save.
+     * @param directory the snapshot directory.
+     * @throws IOException if a snapshot could not be written.
+     * @see DfaSnapshot
+     */
+    public static void saveDfaSnapshots(Set<Grammar> grammars, Path directory) throws IOException {
+        for (Grammar grammar : grammars) {
+            DfaSnapshot.save(grammar, getDfaSnapshotFile(grammar, directory));
+        }
+    }
+
+    private static Path getDfaSnapshotFile(Grammar grammar, Path directory) {
+        return directory.resolve(grammar.name().toLowerCase(Locale.ROOT) + DfaSnapshot.FILE_EXTENSION);
+    }
+
+    /*
+     * A grammar that is ready stays ready, while it is warmed up again and if
+     * that fails, since its DFA caches are kept.
+     */
+    private static WarmUpResult warmUp(Grammar grammar, Function<Grammar, ? extends Collection<String>> corpus) {
+        STATES.compute(grammar, (key, state) -> {
+            return state == WarmUpState.READY ? state : WarmUpState.WARMING_UP;
+        });
+        long start = System.nanoTime();
+        int parsed = 0;
+        int failed = 0;
+        try {
+            VisitorParser<LipidAdduct> parser = grammar.newParser();
+            for (String lipidName : corpus.apply(grammar)) {
+                try {
+                    parser.parse(lipidName);
+                    parsed++;
+                } catch (ParsingException | RuntimeException ex) {
+                    failed++;
+                }
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Warm-up of grammar " + grammar + " failed!", ex);
+            STATES.compute(grammar, (key, state) -> {
+                return state == WarmUpState.READY ? state : WarmUpState.FAILED;
+            });
+            return new WarmUpResult(grammar, WarmUpState.FAILED, parsed, failed, System.nanoTime() - start);
+        }
+        long duration = System.nanoTime() - start;
+        log.info("Warmed up grammar {} in {} ms: {} lipid names parsed, {} failed.", grammar, duration / 1_000_000, parsed, failed);
+        STATES.put(grammar, WarmUpState.READY);
+        return new WarmUpResult(grammar, WarmUpState.READY, parsed, failed, duration);
+    }
+}
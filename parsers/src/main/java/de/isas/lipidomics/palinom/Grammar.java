@@ -0,0 +1,189 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.palinom.goslin.GoslinVisitorParser;
+import de.isas.lipidomics.palinom.goslinfragments.GoslinFragmentsVisitorParser;
+import de.isas.lipidomics.palinom.hmdb.HmdbVisitorParser;
+import de.isas.lipidomics.palinom.lipidmaps.LipidMapsVisitorParser;
+import de.isas.lipidomics.palinom.swisslipids.SwissLipidsVisitorParser;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.TokenStream;
+
+/**
+ * Enumeration of the lipid name grammars supported by jgoslin. Each grammar
+ * provides a factory for its {@link VisitorParser} and a small bundled corpus
+ * of representative lipid names, drawn from the grammar's test files, that is
+ * used to warm up the parser.
+ *
+ * @author nils.hoffmann
+ */
+public enum Grammar {
+
+    GOSLIN("goslin.txt", GoslinVisitorParser::new, GoslinLexer::new, GoslinParser::new),
+    GOSLIN_FRAGMENTS("goslin-fragments.txt", GoslinFragmentsVisitorParser::new, GoslinFragmentsLexer::new, GoslinFragmentsParser::new),
+    LIPIDMAPS("lipidmaps.txt", LipidMapsVisitorParser::new, LipidMapsLexer::new, LipidMapsParser::new),
+    SWISSLIPIDS("swisslipids.txt", SwissLipidsVisitorParser::new, SwissLipidsLexer::new, SwissLipidsParser::new),
+    HMDB("hmdb.txt", HmdbVisitorParser::new, HMDBLexer::new, HMDBParser::new);
+
+    private static final String WARM_UP_CORPUS_LOCATION = "/de/isas/lipidomics/palinom/warmup/";
+
+    private final String warmUpCorpus;
+    private final Function<ParserOptions, VisitorParser<LipidAdduct>> parserFactory;
+    private final Function<CharStream, Lexer> lexerFactory;
+    private final Function<TokenStream, Parser> antlrParserFactory;
+    private volatile GrammarPreFilter preFilter;
+    private volatile NameDictionary nameDictionary;
+
+    private Grammar(String warmUpCorpus, Function<ParserOptions, VisitorParser<LipidAdduct>> parserFactory, Function<CharStream, Lexer> lexerFactory, Function<TokenStream, Parser> antlrParserFactory) {
+        this.warmUpCorpus = warmUpCorpus;
+        this.parserFactory = parserFactory;
+        this.lexerFactory = lexerFactory;
+        this.antlrParserFactory = antlrParserFactory;
+    }
+
+    /**
+     * Creates a new visitor parser for this grammar.
+     *
+     * @return a new visitor parser.
+     */
+    public VisitorParser<LipidAdduct> newParser() {
+        return newParser(ParserOptions.DEFAULT);
+    }
+
+    /**
+     * Creates a new visitor parser for this grammar that limits the work done
+     * for a single input according to the given options.
+     *
+     * @param options the parser options.
+     * @return a new visitor parser.
+     */
+    public VisitorParser<LipidAdduct> newParser(ParserOptions options) {
+        return parserFactory.apply(options);
+    }
+
+    /**
+     * Creates a new ANTLR lexer for this grammar.
+     *
+     * @param charStream the input to tokenize.
+     * @return a new lexer.
+     */
+    public Lexer newLexer(CharStream charStream) {
+        return lexerFactory.apply(charStream);
+    }
+
+    /**
+     * Creates a new ANTLR parser for this grammar. All parsers of a grammar
+     * share the same ATN and DFA prediction caches.
+     *
+     * @param tokenStream the tokens to parse.
+     * @return a new parser.
+     */
+    public Parser newAntlrParser(TokenStream tokenStream) {
+        return antlrParserFactory.apply(tokenStream);
+    }
+
+    /**
+     * Creates a new ANTLR parser for this grammar on empty input, e.g. to
+     * access the grammar's ATN or its DFA prediction caches.
+     *
+     * @return a new parser.
+     */
+    public Parser newAntlrParser() {
+        return newAntlrParser(new CommonTokenStream(newLexer(CharStreams.fromString(""))));
+    }
+
+    /**
+     * Returns the pre-filter for this grammar, which is derived on first use
+     * and shared afterwards.
+     *
+     * @return the pre-filter.
+     */
+    public GrammarPreFilter getPreFilter() {
+        GrammarPreFilter filter = preFilter;
+        if (filter == null) {
+            filter = GrammarPreFilter.of(this);
+            preFilter = filter;
+        }
+        return filter;
+    }
+
+    /**
+     * Returns the bundled name dictionary for this grammar, which is loaded on
+     * first use and shared afterwards.
+     *
+     * @return the name dictionary.
+     * @throws UncheckedIOException if the dictionary could not be read.
+     */
+    public NameDictionary getNameDictionary() {
+        NameDictionary dictionary = nameDictionary;
+        if (dictionary == null) {
+            dictionary = NameDictionary.of(this);
+            nameDictionary = dictionary;
+        }
+        return dictionary;
+    }
+
+    /**
+     * Decodes the given lipid name from the name dictionary of this grammar.
+     * Parsers call this before parsing, if
+     * {@link ParserOptions#isUseNameDictionary()} is set.
+     *
+     * @param lipidName the lipid name.
+     * @return the pre-parsed lipid adduct, or null if the dictionary does not
+     * contain the lipid name.
+     * @throws UncheckedIOException if the dictionary could not be read.
+     */
+    public LipidAdduct findKnownName(String lipidName) {
+        return getNameDictionary().find(lipidName).orElse(null);
+    }
+
+    /**
+     * Returns the bundled warm-up corpus for this grammar.
+     *
+     * @return the lipid names of the warm-up corpus.
+     * @throws UncheckedIOException if the corpus could not be read.
+     */
+    public List<String> getWarmUpCorpus() {
+        String resource = WARM_UP_CORPUS_LOCATION + warmUpCorpus;
+        InputStream is = Grammar.class.getResourceAsStream(resource);
+        if (is == null) {
+            throw new UncheckedIOException(new IOException("Could not find warm-up corpus " + resource + " on classpath!"));
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            return Collections.unmodifiableList(reader.lines().filter((line) -> {
+                return !line.isEmpty();
+            }).collect(Collectors.toList()));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read warm-up corpus " + resource + "!", ex);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Parses a lipid name with a list of grammars in order, until one of them
+ * parses it. Names rejected by a grammar's {@link GrammarPreFilter} are not
+ * parsed with that grammar. The decision on each grammar is recorded as a
+ * {@link GrammarFallbackEvent} and counted in the {@link ParserStatistics}.
+ * Used by the {@link BatchParser}, the {@link ParsingProcessor} and the
+ * command line parser, so that all fallbacks are recorded the same way.
+ * Thread-safe.
+ *
+ * @author nils.hoffmann
+ */
+public final class GrammarFallback {
+
+    private final List<Grammar> grammars;
+    private final List<VisitorParser<LipidAdduct>> parsers;
+
+    /**
+     * Creates a new grammar fallback.
+     *
+     * @param grammars the grammars to try in order, all grammars in their
+     * declaration order if null or empty.
+     * @param options the parser options, {@link ParserOptions#DEFAULT} if
+     * null.
+     */
+    public GrammarFallback(List<Grammar> grammars, ParserOptions options) {
+        this.grammars = Collections.unmodifiableList(new ArrayList<>(grammars == null || grammars.isEmpty() ? Arrays.asList(Grammar.values()) : grammars));
+        ParserOptions parserOptions = options == null ? ParserOptions.DEFAULT : options;
+        List<VisitorParser<LipidAdduct>> grammarParsers = new ArrayList<>();
+        for (Grammar grammar : this.grammars) {
+            grammarParsers.add(grammar.newParser(parserOptions));
+        }
+        this.parsers = Collections.unmodifiableList(grammarParsers);
+    }
+
+    /**
+     * Returns the grammars in the order in which they are tried.
+     *
+     * @return the grammars.
+     */
+    public List<Grammar> getGrammars() {
+        return grammars;
+    }
+
+    /**
+     * Parses the given lipid name. If no grammar parses the name, the result
+     * holds the exception of the last grammar that was tried.
+     *
+     * @param index the position of the name in its stream or batch.
+     * @param lipidName the lipid name.
+     * @return the result.
+     */
+    public ParseResult<LipidAdduct> parse(long index, String lipidName) {
+        return parse(index, lipidName, null);
+    }
+
+    /**
+     * Parses the given lipid name and reports the syntax errors of each
+     * grammar that parses it to the listener returned for that grammar.
+     * Grammars whose pre-filter rejects the name are not asked for a listener.
+     *
+     * @param index the position of the name in its stream or batch.
+     * @param lipidName the lipid name.
+     * @param listeners returns a new listener for a grammar, if null, the
+     * parsers use their own listeners.
+     * @return the result.
+     */
+    public ParseResult<LipidAdduct> parse(long index, String lipidName, Function<Grammar, SyntaxErrorListener> listeners) {
+        ParsingException lastError = null;
+        for (int i = 0; i < grammars.size(); i++) {
+            Grammar grammar = grammars.get(i);
+            GrammarFallbackEvent event = new GrammarFallbackEvent();
+            event.begin();
+            if (!grammar.getPreFilter().accepts(lipidName)) {
+                event.commit(grammar, i, lipidName, GrammarFallbackEvent.PRE_FILTER_REJECTED);
+                if (ParserStatistics.isEnabled()) {
+                    ParserStatistics.of(grammar).recordPreFilterRejection();
+                }
+                if (lastError == null) {
+                    lastError = new ParsingException("Parsing of " + lipidName + " failed: rejected by pre-filter of grammar " + grammar + "!");
+                }
+                continue;
+            }
+            try {
+                LipidAdduct lipidAdduct = parse(parsers.get(i), grammar, lipidName, listeners);
+                event.commit(grammar, i, lipidName, GrammarFallbackEvent.PARSED);
+                return ParseResult.success(index, lipidName, grammar, lipidAdduct);
+            } catch (ParsingException ex) {
+                lastError = ex;
+            } catch (RuntimeException ex) {
+                lastError = new ParsingException("Parsing of " + lipidName + " failed with grammar " + grammar + ": " + ex.getMessage(), ex);
+            }
+            event.commit(grammar, i, lipidName, GrammarFallbackEvent.FAILED);
+            if (ParserStatistics.isEnabled()) {
+                ParserStatistics.of(grammar).recordGrammarFallback();
+            }
+        }
+        return ParseResult.failure(index, lipidName, lastError);
+    }
+
+    private static LipidAdduct parse(VisitorParser<LipidAdduct> parser, Grammar grammar, String lipidName, Function<Grammar, SyntaxErrorListener> listeners) throws ParsingException {
+        SyntaxErrorListener listener = listeners == null ? null : listeners.apply(grammar);
+        if (listener == null) {
+            return parser.parse(lipidName);
+        }
+        return parser.parse(lipidName, listener);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JDK Flight Recorder event for the decision of a {@link GrammarFallback} on
+ * one grammar for a lipid name: the name was rejected by the grammar's
+ * pre-filter, failed to parse and falls back to the next grammar, or was
+ * parsed. The duration covers the parse with the grammar.
+ *
+ * @author nils.hoffmann
+ */
+@Name("de.isas.lipidomics.GrammarFallback")
+@Label("Grammar Fallback Decision")
+@Category({"jgoslin", "Parsing"})
+@Description("Decision on one grammar while trying the grammars of a batch or stream parser in order")
+@StackTrace(false)
+final class GrammarFallbackEvent extends jdk.jfr.Event {
+
+    static final String PRE_FILTER_REJECTED = "PRE_FILTER_REJECTED";
+    static final String FAILED = "FAILED";
+    static final String PARSED = "PARSED";
+
+    @Label("Grammar")
+    private String grammar;
+
+    @Label("Position")
+    @Description("The position of the grammar in the fallback order")
+    private int position;
+
+    @Label("Input")
+    private String input;
+
+    @Label("Decision")
+    private String decision;
+
+    /**
+     * Commits the event with the given decision, if the event is enabled.
+     *
+     * @param grammar the grammar.
+     * @param position the position of the grammar in the fallback order.
+     * @param input the lipid name.
+     * @param decision the decision.
+     */
+    void commit(Grammar grammar, int position, String input, String decision) {
+        end();
+        if (shouldCommit()) {
+            this.grammar = grammar.name();
+            this.position = position;
+            this.input = input;
+            this.decision = decision;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.Vocabulary;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.misc.IntervalSet;
+
+/**
+ * A cheap test that rejects strings which can not be parsed by a grammar,
+ * before the ANTLR lexer and parser are invoked. A string is rejected, if it
+ * contains a character that does not occur in any token of the grammar, or if
+ * it does not start with one of the tokens a lipid name of the grammar can
+ * start with, usually a head group. The test is a single scan of the string
+ * over a character bitmap and a prefix automaton of these first tokens, and
+ * does not allocate.
+ *
+ * The filter is derived from the grammar's vocabulary and ATN and only rejects
+ * strings the grammar's parser would reject, too. Strings that pass the filter
+ * may still fail to parse.
+ *
+ * Instances are immutable and thread-safe, use {@link Grammar#getPreFilter()}
+ * to get the shared instance of a grammar.
+ *
+ * @author nils.hoffmann
+ */
+public final class GrammarPreFilter {
+
+    /**
+     * The name of the start rule of all lipid name grammars.
+     */
+    public static final String START_RULE = "lipid";
+
+    private final long[] characters;
+    private final boolean anyCharacter;
+    private final boolean anyPrefix;
+    /*
+     * The prefix automaton is a trie of the first tokens. The edges of a state
+     * are sorted by character and stored from edgeStart[state] (inclusive) to
+     * edgeStart[state + 1] (exclusive). State 0 is the root.
+     */
+    private final int[] edgeStart;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    private final boolean[] terminal;
+
+    private GrammarPreFilter(BitSet characters, boolean anyCharacter, boolean anyPrefix, List<String> prefixes) {
+        this.characters = characters.toLongArray();
+        this.anyCharacter = anyCharacter;
+        this.anyPrefix = anyPrefix;
+        Node root = new Node();
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(root);
+        for (String prefix : prefixes) {
+            Node node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                char c = prefix.charAt(i);
+                Node next = node.edges.get(c);
+                if (next == null) {
+                    next = new Node();
+                    next.id = nodes.size();
+                    nodes.add(next);
+                    node.edges.put(c, next);
+                }
+                node = next;
+            }
+            node.terminal = true;
+        }
+        int edges = nodes.size() - 1;
+        this.edgeStart = new int[nodes.size() + 1];
+        this.edgeChars = new char[edges];
+        this.edgeTargets = new int[edges];
+        this.terminal = new boolean[nodes.size()];
+        int edge = 0;
+        for (Node node : nodes) {
+            edgeStart[node.id] = edge;
+            terminal[node.id] = node.terminal;
+            for (Map.Entry<Character, Node> entry : node.edges.entrySet()) {
+                edgeChars[edge] = entry.getKey();
+                edgeTargets[edge] = entry.getValue().id;
+                edge++;
+            }
+        }
+        edgeStart[nodes.size()] = edge;
+    }
+
+    /**
+     * Derives the pre-filter for the given grammar. Tokens without a literal
+     * text disable the corresponding part of the test, so that the filter
+     * never rejects a parseable string.
+     *
+     * @param grammar the grammar.
+     * @return the pre-filter.
+     */
+    public static GrammarPreFilter of(Grammar grammar) {
+        Parser parser = grammar.newAntlrParser();
+        Vocabulary vocabulary = parser.getVocabulary();
+        BitSet characters = new BitSet();
+        boolean anyCharacter = false;
+        for (int tokenType = Token.MIN_USER_TOKEN_TYPE; tokenType <= vocabulary.getMaxTokenType(); tokenType++) {
+            String literal = getLiteral(vocabulary, tokenType);
+            if (literal == null) {
+                anyCharacter = true;
+            } else {
+                literal.chars().forEach(characters::set);
+            }
+        }
+        Integer startRule = parser.getRuleIndexMap().get(START_RULE);
+        if (startRule == null) {
+            throw new IllegalArgumentException("Grammar " + grammar + " has no start rule '" + START_RULE + "'!");
+        }
+        ATN atn = parser.getATN();
+        IntervalSet firstTokens = atn.nextTokens(atn.ruleToStartState[startRule]);
+        boolean anyPrefix = firstTokens.contains(Token.EPSILON) || firstTokens.contains(Token.EOF);
+        List<String> prefixes = new ArrayList<>();
+        for (int tokenType : firstTokens.toList()) {
+            if (tokenType < Token.MIN_USER_TOKEN_TYPE) {
+                continue;
+            }
+            String literal = getLiteral(vocabulary, tokenType);
+            if (literal == null) {
+                anyPrefix = true;
+            } else {
+                prefixes.add(literal);
+            }
+        }
+        return new GrammarPreFilter(characters, anyCharacter, anyPrefix, prefixes);
+    }
+
+    /**
+     * Returns false, if the given string can not be parsed by the grammar of
+     * this filter, true otherwise.
+     *
+     * @param lipidName the string to test.
+     * @return false, if the string can not be a lipid name of the grammar.
+     */
+    public boolean accepts(CharSequence lipidName) {
+        int state = 0;
+        boolean prefix = anyPrefix || terminal[0];
+        for (int i = 0; i < lipidName.length(); i++) {
+            char c = lipidName.charAt(i);
+            if (!isAllowed(c)) {
+                return false;
+            }
+            if (!prefix) {
+                state = next(state, c);
+                if (state < 0) {
+                    return false;
+                }
+                prefix = terminal[state];
+            }
+        }
+        return prefix;
+    }
+
+    /**
+     * Returns true, if the given character occurs in a token of the grammar of
+     * this filter.
+     *
+     * @param c the character.
+     * @return true, if the character is allowed.
+     */
+    public boolean isAllowed(char c) {
+        return anyCharacter || ((c >>> 6) < characters.length && (characters[c >>> 6] & (1L << c)) != 0);
+    }
+
+    private int next(int state, char c) {
+        int low = edgeStart[state];
+        int high = edgeStart[state + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = edgeChars[mid];
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[mid];
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Returns the literal of a token, or null if the token is not defined by a
+     * single literal. The vocabulary holds the literal text in single quotes,
+     * but does not escape it, e.g. the backslash token is '\'.
+     */
+    private static String getLiteral(Vocabulary vocabulary, int tokenType) {
+        String literalName = vocabulary.getLiteralName(tokenType);
+        if (literalName == null || literalName.length() < 3 || literalName.charAt(0) != '\'' || literalName.charAt(literalName.length() - 1) != '\'') {
+            return null;
+        }
+        return literalName.substring(1, literalName.length() - 1);
+    }
+
+    private static final class Node {
+
+        private final TreeMap<Character, Node> edges = new TreeMap<>();
+        private int id;
+        private boolean terminal;
+    }
+}
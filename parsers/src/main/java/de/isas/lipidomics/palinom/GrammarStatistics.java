@@ -0,0 +1,216 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.domain.LipidClass;
+import de.isas.lipidomics.domain.LipidSpecies;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Operational statistics of the parsers of a grammar, see
+ * {@link ParserStatistics}. All counters are {@link LongAdder}s, so that
+ * parsers on many threads can record concurrently without contention. The
+ * latency histogram has buckets with power of two bounds, from 1 microsecond
+ * to about 2 seconds.
+ *
+ * Counts are read and reset without a lock. A snapshot taken or a reset done
+ * while parsers are recording may be off by the parses in progress.
+ *
+ * @author nils.hoffmann
+ */
+public final class GrammarStatistics implements GrammarStatisticsMXBean {
+
+    private static final int LATENCY_BUCKETS = 23;
+    private static final long FIRST_BUCKET_BOUND_NANOS = 1000L;
+    private static final LipidClass[] LIPID_CLASSES = LipidClass.values();
+
+    private final String grammar;
+    private final LongAdder parses = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAdder[] latencyHistogram = newAdders(LATENCY_BUCKETS);
+    private final LongAdder preFilterRejections = new LongAdder();
+    private final LongAdder grammarFallbacks = new LongAdder();
+    private final LongAdder fullContextFallbacks = new LongAdder();
+    private final LongAdder dictionaryLookups = new LongAdder();
+    private final LongAdder dictionaryHits = new LongAdder();
+    private final LongAdder[] lipidClasses = newAdders(LIPID_CLASSES.length);
+    private volatile long resetNanos = System.nanoTime();
+
+    GrammarStatistics(String grammar) {
+        this.grammar = grammar;
+    }
+
+    private static LongAdder[] newAdders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    void recordParse(long nanos, Object result, int fullContextAttempts) {
+        parses.increment();
+        latencyNanos.add(nanos);
+        latencyHistogram[bucket(nanos)].increment();
+        if (fullContextAttempts > 0) {
+            fullContextFallbacks.add(fullContextAttempts);
+        }
+        if (result instanceof LipidAdduct) {
+            LipidSpecies lipid = ((LipidAdduct) result).getLipid();
+            if (lipid != null && lipid.getHeadGroup().getLipidClass() != null) {
+                lipidClasses[lipid.getHeadGroup().getLipidClass().ordinal()].increment();
+            }
+        }
+    }
+
+    void recordFailure(long nanos, int fullContextAttempts) {
+        recordParse(nanos, null, fullContextAttempts);
+        failures.increment();
+    }
+
+    void recordDictionaryLookup(boolean hit) {
+        dictionaryLookups.increment();
+        if (hit) {
+            dictionaryHits.increment();
+        }
+    }
+
+    void recordPreFilterRejection() {
+        preFilterRejections.increment();
+    }
+
+    void recordGrammarFallback() {
+        grammarFallbacks.increment();
+    }
+
+    private static int bucket(long nanos) {
+        long micros = nanos / FIRST_BUCKET_BOUND_NANOS;
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        return Math.min(bucket, LATENCY_BUCKETS - 1);
+    }
+
+    @Override
+    public String getGrammar() {
+        return grammar;
+    }
+
+    @Override
+    public long getParses() {
+        return parses.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public double getThroughput() {
+        long elapsed = System.nanoTime() - resetNanos;
+        return elapsed <= 0 ? 0 : parses.sum() * 1e9 / elapsed;
+    }
+
+    @Override
+    public double getMeanLatencyNanos() {
+        long count = parses.sum();
+        return count == 0 ? 0 : (double) latencyNanos.sum() / count;
+    }
+
+    @Override
+    public long[] getLatencyBucketBoundsNanos() {
+        long[] bounds = new long[LATENCY_BUCKETS - 1];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = FIRST_BUCKET_BOUND_NANOS << i;
+        }
+        return bounds;
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        long[] counts = new long[LATENCY_BUCKETS];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = latencyHistogram[i].sum();
+        }
+        return counts;
+    }
+
+    @Override
+    public long getPreFilterRejections() {
+        return preFilterRejections.sum();
+    }
+
+    @Override
+    public long getGrammarFallbacks() {
+        return grammarFallbacks.sum();
+    }
+
+    @Override
+    public long getFullContextFallbacks() {
+        return fullContextFallbacks.sum();
+    }
+
+    @Override
+    public long getDictionaryLookups() {
+        return dictionaryLookups.sum();
+    }
+
+    @Override
+    public long getDictionaryHits() {
+        return dictionaryHits.sum();
+    }
+
+    @Override
+    public double getDictionaryHitRate() {
+        long lookups = dictionaryLookups.sum();
+        return lookups == 0 ? 0 : (double) dictionaryHits.sum() / lookups;
+    }
+
+    @Override
+    public Map<String, Long> getLipidClassDistribution() {
+        Map<String, Long> distribution = new LinkedHashMap<>();
+        for (int i = 0; i < LIPID_CLASSES.length; i++) {
+            long count = lipidClasses[i].sum();
+            if (count > 0) {
+                distribution.put(LIPID_CLASSES[i].name(), count);
+            }
+        }
+        return Collections.unmodifiableMap(distribution);
+    }
+
+    @Override
+    public void reset() {
+        parses.reset();
+        failures.reset();
+        latencyNanos.reset();
+        for (LongAdder bucket : latencyHistogram) {
+            bucket.reset();
+        }
+        preFilterRejections.reset();
+        grammarFallbacks.reset();
+        fullContextFallbacks.reset();
+        dictionaryLookups.reset();
+        dictionaryHits.reset();
+        for (LongAdder lipidClass : lipidClasses) {
+            lipidClass.reset();
+        }
+        resetNanos = System.nanoTime();
+    }
+}
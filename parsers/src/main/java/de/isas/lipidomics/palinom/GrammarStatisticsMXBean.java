@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the {@link GrammarStatistics} of a grammar, registered by
+ * {@link ParserStatistics#registerMBeans()}. All counts are since the last
+ * reset.
+ *
+ * @author nils.hoffmann
+ */
+public interface GrammarStatisticsMXBean {
+
+    /**
+     * Returns the name of the grammar.
+     *
+     * @return the grammar name.
+     */
+    String getGrammar();
+
+    /**
+     * Returns the number of parsed inputs, including failures.
+     *
+     * @return the number of parses.
+     */
+    long getParses();
+
+    /**
+     * Returns the number of inputs that failed to parse.
+     *
+     * @return the number of failures.
+     */
+    long getFailures();
+
+    /**
+     * Returns the number of parses per second since the last reset.
+     *
+     * @return the throughput.
+     */
+    double getThroughput();
+
+    /**
+     * Returns the mean latency of a parse.
+     *
+     * @return the mean latency in nanoseconds, 0 if there were no parses.
+     */
+    double getMeanLatencyNanos();
+
+    /**
+     * Returns the exclusive upper bounds of the latency histogram buckets, in
+     * nanoseconds. The last bucket is unbounded.
+     *
+     * @return the bucket bounds.
+     */
+    long[] getLatencyBucketBoundsNanos();
+
+    /**
+     * Returns the number of parses per latency histogram bucket.
+     *
+     * @return the bucket counts.
+     */
+    long[] getLatencyHistogram();
+
+    /**
+     * Returns the number of names that were rejected by the grammar's
+     * pre-filter while trying grammars in order.
+     *
+     * @return the number of pre-filter rejections.
+     */
+    long getPreFilterRejections();
+
+    /**
+     * Returns the number of names that failed to parse with this grammar while
+     * trying grammars in order, and were passed on to the next grammar.
+     *
+     * @return the number of grammar fallbacks.
+     */
+    long getGrammarFallbacks();
+
+    /**
+     * Returns the number of parser decisions, for which SLL prediction found a
+     * conflict and the parser fell back to full LL prediction.
+     *
+     * @return the number of SLL to LL fallbacks.
+     */
+    long getFullContextFallbacks();
+
+    /**
+     * Returns the number of name dictionary lookups.
+     *
+     * @return the number of lookups.
+     */
+    long getDictionaryLookups();
+
+    /**
+     * Returns the number of name dictionary lookups that found the name.
+     *
+     * @return the number of hits.
+     */
+    long getDictionaryHits();
+
+    /**
+     * Returns the ratio of name dictionary hits to lookups.
+     *
+     * @return the hit rate, 0 if there were no lookups.
+     */
+    double getDictionaryHitRate();
+
+    /**
+     * Returns the number of parsed lipids per lipid class name.
+     *
+     * @return the lipid class distribution, without classes of no lipid.
+     */
+    Map<String, Long> getLipidClassDistribution();
+
+    /**
+     * Resets all counts.
+     */
+    void reset();
+}
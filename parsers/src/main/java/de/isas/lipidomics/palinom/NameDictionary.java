@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.domain.LipidSnapshot;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * An exact-match dictionary of known lipid names of a grammar, e.g. of the
+ * SwissLipids, LipidMaps and HMDB name lists, and their pre-parsed lipid
+ * adducts. A name that is in the dictionary is decoded from its compact
+ * {@link LipidSnapshot} record, without invoking the ANTLR lexer, parser and
+ * visitor. Names that are not in the dictionary need to be parsed.
+ *
+ * The dictionaries are generated by {@link NameDictionaryGenerator} during the
+ * process-classes phase of the parsers module and bundled as classpath
+ * resources, if the module is built with the name-dictionaries profile. A
+ * grammar without a bundled dictionary has an empty dictionary.
+ * Parsers use the dictionary of their grammar, if
+ * {@link ParserOptions#isUseNameDictionary()} is set:
+ *
+ * <pre>
+ * ParserOptions options = ParserOptions.builder()
+ *     .useNameDictionary(true)
+ *     .build();
+ * VisitorParser&lt;LipidAdduct&gt; parser = Grammar.SWISSLIPIDS.newParser(options);
+ * </pre>
+ *
+ * Instances are immutable and thread-safe, use
+ * {@link Grammar#getNameDictionary()} to get the shared instance of a grammar.
+ *
+ * @author nils.hoffmann
+ */
+public final class NameDictionary {
+
+    /**
+     * The classpath location of the bundled dictionaries.
+     */
+    public static final String LOCATION = "/de/isas/lipidomics/palinom/dictionary/";
+
+    /**
+     * The file extension of the bundled dictionaries.
+     */
+    public static final String EXTENSION = ".snapshot";
+
+    private final LipidSnapshot snapshot;
+
+    private NameDictionary(LipidSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Loads the bundled dictionary of the given grammar. The dictionary is
+     * read into memory.
+     *
+     * @param grammar the grammar.
+     * @return the dictionary, which is empty if the grammar has no bundled
+     * dictionary.
+     * @throws UncheckedIOException if the dictionary could not be read.
+     */
+    public static NameDictionary of(Grammar grammar) {
+        String resource = getResourceName(grammar);
+        InputStream is = NameDictionary.class.getResourceAsStream(resource);
+        if (is == null) {
+            return new NameDictionary(null);
+        }
+        try (InputStream in = is) {
+            return new NameDictionary(LipidSnapshot.read(in, resource));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read name dictionary " + resource + "!", ex);
+        }
+    }
+
+    /**
+     * Returns the classpath resource name of the dictionary of the given
+     * grammar.
+     *
+     * @param grammar the grammar.
+     * @return the resource name.
+     */
+    public static String getResourceName(Grammar grammar) {
+        return LOCATION + grammar.name().toLowerCase(Locale.ROOT) + EXTENSION;
+    }
+
+    /**
+     * Returns the number of known lipid names.
+     *
+     * @return the number of names.
+     */
+    public int size() {
+        return snapshot == null ? 0 : snapshot.size();
+    }
+
+    /**
+     * Returns true, if the given name is in the dictionary.
+     *
+     * @param lipidName the lipid name.
+     * @return true if the name is known.
+     */
+    public boolean contains(String lipidName) {
+        return snapshot != null && snapshot.indexOf(lipidName) >= 0;
+    }
+
+    /**
+     * Decodes the pre-parsed lipid adduct of the given name.
+     *
+     * @param lipidName the lipid name.
+     * @return a new lipid adduct, or an empty optional if the name is not in
+     * the dictionary.
+     */
+    public Optional<LipidAdduct> find(String lipidName) {
+        return snapshot == null ? Optional.empty() : snapshot.find(lipidName);
+    }
+}
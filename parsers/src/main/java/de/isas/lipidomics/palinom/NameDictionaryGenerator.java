@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.domain.LipidSnapshot;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Generates the {@link NameDictionary} of each grammar from lists of known
+ * lipid names, one name per line. Each name is parsed with the grammar's
+ * parser, names that fail to parse are not part of the dictionary.
+ *
+ * This generator is run during the process-classes phase of the parsers
+ * module, see the parsers pom.xml. It expects the output directory of the
+ * dictionaries, followed by one argument per grammar, the name of the grammar
+ * and a comma-separated list of name list files, e.g.
+ * <code>SWISSLIPIDS=swisslipids-names-only.tsv,swiss-lipids-test.csv</code>.
+ *
+ * @author nils.hoffmann
+ */
+public class NameDictionaryGenerator {
+
+    public static void main(String... args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: NameDictionaryGenerator <output directory> <GRAMMAR>=<names file>[,<names file>]...");
+        }
+        Path outputDirectory = Paths.get(args[0]);
+        Files.createDirectories(outputDirectory);
+        for (int i = 1; i < args.length; i++) {
+            String[] grammarAndFiles = args[i].split("=", 2);
+            if (grammarAndFiles.length != 2) {
+                throw new IllegalArgumentException("Argument must be <GRAMMAR>=<names file>[,<names file>]! Was: " + args[i]);
+            }
+            Grammar grammar = Grammar.valueOf(grammarAndFiles[0].trim());
+            Set<String> lipidNames = new LinkedHashSet<>();
+            for (String file : grammarAndFiles[1].split(",")) {
+                try (Stream<String> lines = Files.lines(Paths.get(file.trim()), StandardCharsets.UTF_8)) {
+                    lines.map((line) -> {
+                        return line.trim();
+                    }).filter((line) -> {
+                        return !line.isEmpty();
+                    }).forEachOrdered(lipidNames::add);
+                }
+            }
+            Path dictionary = outputDirectory.resolve(Paths.get(NameDictionary.getResourceName(grammar)).getFileName());
+            int size = generate(grammar, lipidNames, dictionary);
+            System.out.println("Generated name dictionary for " + grammar + " with " + size + " of " + lipidNames.size() + " names in " + dictionary);
+        }
+    }
+
+    /**
+     * Parses the given lipid names with the grammar and writes the dictionary
+     * of the names that could be parsed.
+     *
+     * @param grammar the grammar.
+     * @param lipidNames the lipid names.
+     * @param dictionary the dictionary file.
+     * @return the number of names in the dictionary.
+     * @throws IOException if the dictionary can not be written.
+     */
+    public static int generate(Grammar grammar, Iterable<String> lipidNames, Path dictionary) throws IOException {
+        VisitorParser<LipidAdduct> parser = grammar.newParser();
+        try (LipidSnapshot.Writer writer = LipidSnapshot.writer(dictionary)) {
+            for (String lipidName : lipidNames) {
+                LipidAdduct lipidAdduct;
+                try {
+                    lipidAdduct = parser.parse(lipidName);
+                } catch (ParsingException | RuntimeException ex) {
+                    // not a known name of this grammar
+                    continue;
+                }
+                try {
+                    writer.add(lipidName, lipidAdduct);
+                } catch (IllegalArgumentException ex) {
+                    // can not be encoded, parsed on demand
+                }
+            }
+            return writer.size();
+        }
+    }
+}
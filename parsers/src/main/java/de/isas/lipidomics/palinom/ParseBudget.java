@@ -0,0 +1,241 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.palinom.exceptions.ParseLimitExceededException;
+import de.isas.lipidomics.palinom.exceptions.ParseLimitExceededException.Limit;
+import java.util.Set;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.atn.ATNConfig;
+import org.antlr.v4.runtime.atn.ATNConfigSet;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+/**
+ * The token count, step and time budget for parsing a single input, created by
+ * {@link ParserOptions#newBudget(java.lang.String)}. The budget is checked
+ * cooperatively: the lexer is wrapped in a token source that counts tokens, and
+ * the parser's prediction is replaced by one that counts steps. When a limit is
+ * exceeded, parsing is cancelled with a {@link ParseCancellationException},
+ * which {@link #rethrowLimitExceeded(ParseCancellationException)} turns into
+ * the {@link ParseLimitExceededException} to report.
+ *
+ * A budget is not thread-safe and must only be used for a single input.
+ *
+ * @author nils.hoffmann
+ */
+public final class ParseBudget {
+
+    /*
+     * Reading the clock on every step is measurable in the closure operation,
+     * the time budget is therefore only checked every 64 steps.
+     */
+    private static final int TIME_CHECK_MASK = 63;
+
+    /*
+     * The budget of unlimited options never changes and is shared.
+     */
+    static final ParseBudget UNLIMITED = new ParseBudget(ParserOptions.DEFAULT);
+
+    private final ParserOptions options;
+    private final long deadline;
+    private long tokens;
+    private long steps;
+
+    ParseBudget(ParserOptions options) {
+        this.options = options;
+        this.deadline = options.getMaxParseTime() == null ? Long.MAX_VALUE : System.nanoTime() + options.getMaxParseTime().toNanos();
+    }
+
+    /**
+     * Returns the token source to create the token stream from. If the options
+     * are not budgeted, this is the lexer itself.
+     *
+     * @param lexer the lexer.
+     * @return the token source.
+     */
+    public TokenSource limit(Lexer lexer) {
+        if (!options.isBudgeted()) {
+            return lexer;
+        }
+        return new LimitedTokenSource(lexer);
+    }
+
+    /**
+     * Replaces the prediction of the parser with one that checks the step and
+     * time budget, if either of them is limited. The new prediction shares the
+     * ATN and DFA caches with the parser's original prediction.
+     *
+     * @param parser the parser.
+     */
+    public void limit(Parser parser) {
+        if (options.getMaxSteps() > 0 || options.getMaxParseTime() != null) {
+            ParserATNSimulator interpreter = parser.getInterpreter();
+            LimitedParserATNSimulator limited = new LimitedParserATNSimulator(parser, interpreter);
+            limited.setPredictionMode(interpreter.getPredictionMode());
+            parser.setInterpreter(limited);
+        }
+    }
+
+    /**
+     * Returns the number of tokens read so far.
+     *
+     * @return the number of tokens.
+     */
+    public long getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Returns the number of prediction steps so far.
+     *
+     * @return the number of steps.
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    /**
+     * Rethrows the cause of the given exception, if parsing was cancelled
+     * because a limit was exceeded. Returns normally otherwise.
+     *
+     * @param pce the exception that cancelled parsing.
+     * @throws ParseLimitExceededException if a limit was exceeded.
+     */
+    public static void rethrowLimitExceeded(ParseCancellationException pce) throws ParseLimitExceededException {
+        if (pce instanceof LimitExceededCancellation) {
+            throw (ParseLimitExceededException) pce.getCause();
+        }
+    }
+
+    private void token() {
+        tokens++;
+        if (options.getMaxTokens() > 0 && tokens > options.getMaxTokens()) {
+            throw new LimitExceededCancellation(new ParseLimitExceededException(Limit.TOKENS, options.getMaxTokens()));
+        }
+        checkTime();
+    }
+
+    private void step() {
+        steps++;
+        if (options.getMaxSteps() > 0 && steps > options.getMaxSteps()) {
+            throw new LimitExceededCancellation(new ParseLimitExceededException(Limit.STEPS, options.getMaxSteps()));
+        }
+        if ((steps & TIME_CHECK_MASK) == 0) {
+            checkTime();
+        }
+    }
+
+    private void checkTime() {
+        if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+            throw new LimitExceededCancellation(new ParseLimitExceededException(Limit.TIME, options.getMaxParseTime().toNanos()));
+        }
+    }
+
+    /*
+     * Cancels parsing without recording a stack trace.
+     */
+    private static final class LimitExceededCancellation extends ParseCancellationException {
+
+        LimitExceededCancellation(ParseLimitExceededException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private final class LimitedTokenSource implements TokenSource {
+
+        private final Lexer lexer;
+
+        LimitedTokenSource(Lexer lexer) {
+            this.lexer = lexer;
+        }
+
+        @Override
+        public Token nextToken() {
+            Token token = lexer.nextToken();
+            if (token.getType() != Token.EOF) {
+                token();
+            }
+            return token;
+        }
+
+        @Override
+        public int getLine() {
+            return lexer.getLine();
+        }
+
+        @Override
+        public int getCharPositionInLine() {
+            return lexer.getCharPositionInLine();
+        }
+
+        @Override
+        public CharStream getInputStream() {
+            return lexer.getInputStream();
+        }
+
+        @Override
+        public String getSourceName() {
+            return lexer.getSourceName();
+        }
+
+        @Override
+        public void setTokenFactory(TokenFactory<?> factory) {
+            lexer.setTokenFactory(factory);
+        }
+
+        @Override
+        public TokenFactory<?> getTokenFactory() {
+            return lexer.getTokenFactory();
+        }
+    }
+
+    /*
+     * Counts a step for each prediction and for each closure operation within
+     * a prediction, since a single full-context prediction may take
+     * exponential time on ambiguous input.
+     */
+    private final class LimitedParserATNSimulator extends ParserATNSimulator {
+
+        LimitedParserATNSimulator(Parser parser, ParserATNSimulator interpreter) {
+            super(parser, interpreter.atn, interpreter.decisionToDFA, interpreter.getSharedContextCache());
+        }
+
+        @Override
+        public int adaptivePredict(TokenStream input, int decision, ParserRuleContext outerContext) {
+            step();
+            return super.adaptivePredict(input, decision, outerContext);
+        }
+
+        @Override
+        protected void closureCheckingStopState(ATNConfig config, ATNConfigSet configs, Set<ATNConfig> closureBusy, boolean collectPredicates, boolean fullCtx, int depth, boolean treatEofAsEpsilon) {
+            step();
+            super.closureCheckingStopState(config, configs, closureBusy, collectPredicates, fullCtx, depth, treatEofAsEpsilon);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.palinom.exceptions.ParseLimitExceededException;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import org.antlr.v4.runtime.CommonTokenStream;
+
+/**
+ * A JDK Flight Recorder event for the parse of a single input by a
+ * {@link VisitorParser}, with the durations of its lex, parse and visit phases,
+ * its SLL to LL prediction fallbacks and its outcome. Record it with e.g.
+ * <code>java -XX:StartFlightRecording:filename=parse.jfr,settings=profile</code>
+ * and inspect it with <code>jfr print --events de.isas.lipidomics.Parse</code>.
+ *
+ * Parsers create one event per input. If the event is disabled, which it is
+ * unless a recording enables it, the phases are not timed and the event is
+ * not committed. If it is enabled, the tokens are lexed ahead of the parse
+ * phase, to time lexing separately. A phase duration of zero means that the
+ * phase was not reached, e.g. for names decoded from the
+ * {@link NameDictionary}.
+ *
+ * @author nils.hoffmann
+ */
+@Name("de.isas.lipidomics.Parse")
+@Label("Lipid Name Parse")
+@Category({"jgoslin", "Parsing"})
+@Description("Parse of a lipid name or sum formula with its phase durations and outcome")
+@StackTrace(false)
+public final class ParseEvent extends jdk.jfr.Event {
+
+    /**
+     * The outcome of a name that was parsed.
+     */
+    public static final String SUCCESS = "SUCCESS";
+    /**
+     * The outcome of a name that was decoded from the name dictionary.
+     */
+    public static final String DICTIONARY = "DICTIONARY";
+    /**
+     * The outcome of an input that could not be parsed.
+     */
+    public static final String FAILURE = "FAILURE";
+
+    @Label("Grammar")
+    private String grammar;
+
+    @Label("Input")
+    private String input;
+
+    @Label("Outcome")
+    private String outcome;
+
+    @Label("Failure Type")
+    @Description("The simple class name of the exception, with the exceeded limit for parse limit exceptions")
+    private String failureType;
+
+    @Label("Lex Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    private long lexDuration;
+
+    @Label("Parse Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    private long parseDuration;
+
+    @Label("Visit Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    private long visitDuration;
+
+    @Label("Full Context Fallbacks")
+    @Description("The number of decisions, for which SLL prediction found a conflict and the parser fell back to full LL prediction")
+    private int fullContextFallbacks;
+
+    /*
+     * Whether the event was enabled when it was started, the start of the
+     * current phase and whether the visit phase was reached, not recorded.
+     */
+    private transient boolean started;
+    private transient long phaseStart;
+    private transient boolean visiting;
+    /*
+     * The listener of the parse and its full context attempts before the
+     * parse, not recorded.
+     */
+    private transient SyntaxErrorListener listener;
+    private transient int fullContextAttemptsBefore;
+
+    /**
+     * Creates and begins the event for parsing the given input.
+     *
+     * @param grammar the name of the grammar.
+     * @param input the input to parse.
+     * @param listener the syntax error listener of the parse, which counts the
+     * LL fallbacks.
+     * @return the event.
+     */
+    public static ParseEvent start(String grammar, String input, SyntaxErrorListener listener) {
+        ParseEvent event = new ParseEvent();
+        if (event.isEnabled()) {
+            event.grammar = grammar;
+            event.input = input;
+            event.listener = listener;
+            event.fullContextAttemptsBefore = listener.getFullContextAttempts();
+            event.begin();
+            event.started = true;
+            event.phaseStart = System.nanoTime();
+        }
+        return event;
+    }
+
+    /**
+     * Lexes all tokens of the given stream and ends the lex phase, if the
+     * event is enabled. The stream is left unchanged otherwise and is lexed on
+     * demand by the parser.
+     *
+     * @param tokens the token stream of the parser.
+     */
+    public void lexed(CommonTokenStream tokens) {
+        if (started) {
+            tokens.fill();
+            long now = System.nanoTime();
+            lexDuration = now - phaseStart;
+            phaseStart = now;
+        }
+    }
+
+    /**
+     * Ends the parse phase.
+     */
+    public void parsed() {
+        if (started) {
+            long now = System.nanoTime();
+            parseDuration = now - phaseStart;
+            phaseStart = now;
+            visiting = true;
+        }
+    }
+
+    /**
+     * Marks the input as decoded from the name dictionary.
+     */
+    public void decoded() {
+        outcome = DICTIONARY;
+    }
+
+    /**
+     * Ends the current phase and commits the event as successful.
+     *
+     * @param <T> the type of the result.
+     * @param result the result of the parser.
+     * @return the result.
+     */
+    public <T> T succeeded(T result) {
+        if (started) {
+            if (outcome == null) {
+                outcome = SUCCESS;
+            }
+            complete();
+        }
+        return result;
+    }
+
+    /**
+     * Ends the current phase and commits the event as failed with the given
+     * exception.
+     *
+     * @param ex the exception of the parser.
+     */
+    public void failed(Exception ex) {
+        if (started) {
+            outcome = FAILURE;
+            failureType = ex.getClass().getSimpleName();
+            if (ex instanceof ParseLimitExceededException) {
+                failureType += "(" + ((ParseLimitExceededException) ex).getLimit() + ")";
+            }
+            complete();
+        }
+    }
+
+    private void complete() {
+        if (visiting) {
+            visitDuration = System.nanoTime() - phaseStart;
+        }
+        fullContextFallbacks = listener.getFullContextAttempts() - fullContextAttemptsBefore;
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * The result of parsing a single input, e.g. by a {@link ParsingProcessor}.
+ * Either holds the parsed value and the grammar that parsed it, or the
+ * exception of the failed parse.
+ *
+ * @author nils.hoffmann
+ * @param <T> the type of the parsed value.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ParseResult<T> {
+
+    /**
+     * The position of the input in its stream, starting at 0.
+     */
+    private final long index;
+    private final String input;
+    /**
+     * The grammar that parsed the input, or null if parsing failed.
+     */
+    private final Grammar grammar;
+    /**
+     * The parsed value, or null if parsing failed.
+     */
+    private final T value;
+    /**
+     * The exception of the last grammar tried, or null if parsing succeeded.
+     */
+    private final ParsingException error;
+
+    /**
+     * Creates the result of a successful parse.
+     *
+     * @param <T> the type of the parsed value.
+     * @param index the position of the input.
+     * @param input the input.
+     * @param grammar the grammar that parsed the input.
+     * @param value the parsed value.
+     * @return the result.
+     */
+    public static <T> ParseResult<T> success(long index, String input, Grammar grammar, T value) {
+        return new ParseResult<>(index, input, grammar, value, null);
+    }
+
+    /**
+     * Creates the result of a failed parse.
+     *
+     * @param <T> the type of the parsed value.
+     * @param index the position of the input.
+     * @param input the input.
+     * @param error the exception of the failed parse.
+     * @return the result.
+     */
+    public static <T> ParseResult<T> failure(long index, String input, ParsingException error) {
+        return new ParseResult<>(index, input, null, null, error);
+    }
+
+    /**
+     * Returns true, if parsing succeeded.
+     *
+     * @return true, if the result holds a value.
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * Returns the parsed value or throws the exception of the failed parse.
+     *
+     * @return the parsed value.
+     * @throws ParsingException if parsing failed.
+     */
+    public T get() throws ParsingException {
+        if (error != null) {
+            throw error;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+/**
+ * Records the parse of a single input by a {@link VisitorParser} in the
+ * {@link ParserStatistics} of its grammar: the latency, the outcome, the SLL
+ * to LL prediction fallbacks and the name dictionary lookup.
+ *
+ * Parsers start one recorder per input. If the statistics are disabled when
+ * the parse starts, a shared recorder is returned that records nothing.
+ *
+ * @author nils.hoffmann
+ */
+public final class ParseStatisticsRecorder {
+
+    private static final ParseStatisticsRecorder DISABLED = new ParseStatisticsRecorder(null, null, 0L);
+
+    private final GrammarStatistics statistics;
+    private final SyntaxErrorListener listener;
+    private final int fullContextAttemptsBefore;
+    private final long parseStart;
+
+    private ParseStatisticsRecorder(GrammarStatistics statistics, SyntaxErrorListener listener, long parseStart) {
+        this.statistics = statistics;
+        this.listener = listener;
+        this.fullContextAttemptsBefore = listener == null ? 0 : listener.getFullContextAttempts();
+        this.parseStart = parseStart;
+    }
+
+    /**
+     * Starts recording the parse of an input.
+     *
+     * @param grammar the name of the grammar, see
+     * {@link ParserStatistics#of(String)}.
+     * @param listener the syntax error listener of the parse, which counts the
+     * LL fallbacks.
+     * @return the recorder.
+     */
+    public static ParseStatisticsRecorder start(String grammar, SyntaxErrorListener listener) {
+        if (!ParserStatistics.isEnabled()) {
+            return DISABLED;
+        }
+        return new ParseStatisticsRecorder(ParserStatistics.of(grammar), listener, System.nanoTime());
+    }
+
+    /**
+     * Records a lookup of the input in the name dictionary.
+     *
+     * @param hit true if the dictionary contained the input.
+     */
+    public void lookedUp(boolean hit) {
+        if (statistics != null) {
+            statistics.recordDictionaryLookup(hit);
+        }
+    }
+
+    /**
+     * Records the parse as successful.
+     *
+     * @param <T> the type of the result.
+     * @param result the result of the parser.
+     * @return the result.
+     */
+    public <T> T succeeded(T result) {
+        if (statistics != null) {
+            statistics.recordParse(System.nanoTime() - parseStart, result, fullContextAttempts());
+        }
+        return result;
+    }
+
+    /**
+     * Records the parse as failed.
+     */
+    public void failed() {
+        if (statistics != null) {
+            statistics.recordFailure(System.nanoTime() - parseStart, fullContextAttempts());
+        }
+    }
+
+    private int fullContextAttempts() {
+        return listener.getFullContextAttempts() - fullContextAttemptsBefore;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the default executor of the {@link BatchParser}. This is the Java 11
+ * implementation, which uses a fixed pool of daemon platform threads, one per
+ * available processor. The multi-release jar replaces it on Java 21 and later
+ * with an implementation that uses a virtual thread per task.
+ *
+ * @author nils.hoffmann
+ */
+final class ParseThreads {
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private ParseThreads() {
+    }
+
+    /**
+     * Returns true, if {@link #newExecutor()} creates virtual threads.
+     *
+     * @return false.
+     */
+    static boolean isVirtual() {
+        return false;
+    }
+
+    /**
+     * Creates a new executor for parse tasks.
+     *
+     * @return a fixed pool of daemon threads, one per available processor.
+     */
+    static ExecutorService newExecutor() {
+        int pool = POOL_COUNT.incrementAndGet();
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), (runnable) -> {
+            Thread thread = new Thread(runnable, "jgoslin-parse-" + pool + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.palinom.exceptions.ParseLimitExceededException;
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Limits on the work a {@link VisitorParser} may do for a single input. A limit
+ * of zero, or a null time budget, means unlimited. The default options are
+ * unlimited and add no overhead to parsing.
+ *
+ * If the {@link NameDictionary} is enabled, names that are in the dictionary of
+ * the parser's grammar are decoded from it, after the input length has been
+ * checked, instead of being parsed, see {@link Grammar#findKnownName(String)}.
+ *
+ * The input length is checked before the input is tokenized. The token count,
+ * step and time budgets are checked cooperatively by the lexer's token source
+ * and by the parser's prediction, where a step is a prediction or a closure
+ * operation of the parser. Exceeding any limit fails the parse with a
+ * {@link ParseLimitExceededException}.
+ *
+ * <pre>
+ * ParserOptions options = ParserOptions.builder()
+ *     .maxInputLength(256)
+ *     .maxParseTime(Duration.ofMillis(50))
+ *     .build();
+ * VisitorParser&lt;LipidAdduct&gt; parser = Grammar.GOSLIN.newParser(options);
+ * </pre>
+ *
+ * @author nils.hoffmann
+ */
+@Value
+public class ParserOptions {
+
+    /**
+     * Unlimited parser options.
+     */
+    public static final ParserOptions DEFAULT = new ParserOptions(0, 0, 0, null, false);
+
+    private final int maxInputLength;
+    private final int maxTokens;
+    private final long maxSteps;
+    private final Duration maxParseTime;
+    private final boolean useNameDictionary;
+
+    /**
+     * Creates new parser options.
+     *
+     * @param maxInputLength the maximum number of characters of an input, 0 for
+     * unlimited.
+     * @param maxTokens the maximum number of tokens of an input, 0 for
+     * unlimited.
+     * @param maxSteps the maximum number of prediction steps for an input, 0
+     * for unlimited.
+     * @param maxParseTime the maximum wall-clock time to parse an input, null
+     * for unlimited.
+     */
+    public ParserOptions(int maxInputLength, int maxTokens, long maxSteps, Duration maxParseTime) {
+        this(maxInputLength, maxTokens, maxSteps, maxParseTime, false);
+    }
+
+    /**
+     * Creates new parser options.
+     *
+     * @param maxInputLength the maximum number of characters of an input, 0 for
+     * unlimited.
+     * @param maxTokens the maximum number of tokens of an input, 0 for
+     * unlimited.
+     * @param maxSteps the maximum number of prediction steps for an input, 0
+     * for unlimited.
+     * @param maxParseTime the maximum wall-clock time to parse an input, null
+     * for unlimited.
+     * @param useNameDictionary whether known names are decoded from the
+     * grammar's {@link NameDictionary}.
+     */
+    @Builder
+    public ParserOptions(int maxInputLength, int maxTokens, long maxSteps, Duration maxParseTime, boolean useNameDictionary) {
+        if (maxInputLength < 0 || maxTokens < 0 || maxSteps < 0) {
+            throw new IllegalArgumentException("Limits must not be negative!");
+        }
+        if (maxParseTime != null && (maxParseTime.isNegative() || maxParseTime.isZero())) {
+            throw new IllegalArgumentException("Maximum parse time must be positive!");
+        }
+        this.maxInputLength = maxInputLength;
+        this.maxTokens = maxTokens;
+        this.maxSteps = maxSteps;
+        this.maxParseTime = maxParseTime;
+        this.useNameDictionary = useNameDictionary;
+    }
+
+    /**
+     * Returns true, if the token count, step or time budget are limited and
+     * need to be checked while parsing.
+     *
+     * @return true if the lexer and parser need to be limited.
+     */
+    public boolean isBudgeted() {
+        return maxTokens > 0 || maxSteps > 0 || maxParseTime != null;
+    }
+
+    /**
+     * Checks the length of the input and starts the budget for parsing it.
+     *
+     * @param input the input to parse.
+     * @return the budget for this input.
+     * @throws ParseLimitExceededException if the input is longer than the
+     * maximum input length.
+     */
+    public ParseBudget newBudget(String input) throws ParseLimitExceededException {
+        if (maxInputLength > 0 && input.length() > maxInputLength) {
+            throw new ParseLimitExceededException(ParseLimitExceededException.Limit.INPUT_LENGTH, maxInputLength);
+        }
+        if (!isBudgeted()) {
+            return ParseBudget.UNLIMITED;
+        }
+        return new ParseBudget(this);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Operational statistics of all parsers in this JVM, with one
+ * {@link GrammarStatistics} per grammar and one for the sum formula parser.
+ * Recording is disabled by default and costs a single volatile read per parse
+ * while disabled. Enable it directly, or by registering the statistics as JMX
+ * MBeans:
+ *
+ * <pre>
+ * ParserStatistics.registerMBeans(); // also enables recording
+ * GrammarStatistics goslin = ParserStatistics.of(Grammar.GOSLIN);
+ * long failures = goslin.getFailures();
+ * </pre>
+ *
+ * The MBeans are named <code>de.isas.lipidomics:type=ParserStatistics,grammar=GOSLIN</code>,
+ * etc.
+ *
+ * @author nils.hoffmann
+ */
+public final class ParserStatistics {
+
+    /**
+     * The name of the statistics of the sum formula parser.
+     */
+    public static final String SUM_FORMULA = "SUM_FORMULA";
+
+    /**
+     * The JMX domain of the MBeans.
+     */
+    public static final String JMX_DOMAIN = "de.isas.lipidomics";
+
+    private static final Map<String, GrammarStatistics> STATISTICS;
+
+    static {
+        Map<String, GrammarStatistics> statistics = new LinkedHashMap<>();
+        for (Grammar grammar : Grammar.values()) {
+            statistics.put(grammar.name(), new GrammarStatistics(grammar.name()));
+        }
+        statistics.put(SUM_FORMULA, new GrammarStatistics(SUM_FORMULA));
+        STATISTICS = Collections.unmodifiableMap(statistics);
+    }
+
+    private static volatile boolean enabled;
+
+    private ParserStatistics() {
+    }
+
+    /**
+     * Returns true, if parsers record statistics.
+     *
+     * @return true if recording is enabled.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables recording of statistics. Recorded counts are kept
+     * while recording is disabled.
+     *
+     * @param enabled whether to record statistics.
+     */
+    public static void setEnabled(boolean enabled) {
+        ParserStatistics.enabled = enabled;
+    }
+
+    /**
+     * Returns the statistics of the given grammar.
+     *
+     * @param grammar the grammar.
+     * @return the statistics.
+     */
+    public static GrammarStatistics of(Grammar grammar) {
+        return STATISTICS.get(grammar.name());
+    }
+
+    /**
+     * Returns the statistics of the given grammar name, see
+     * {@link Grammar#name()} and {@link #SUM_FORMULA}.
+     *
+     * @param grammar the grammar name.
+     * @return the statistics.
+     * @throws IllegalArgumentException if there is no grammar with the name.
+     */
+    public static GrammarStatistics of(String grammar) {
+        GrammarStatistics statistics = STATISTICS.get(grammar);
+        if (statistics == null) {
+            throw new IllegalArgumentException("Grammar must be one of " + STATISTICS.keySet() + "! Was: " + grammar);
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the statistics of all grammars.
+     *
+     * @return the statistics.
+     */
+    public static Collection<GrammarStatistics> getAll() {
+        return STATISTICS.values();
+    }
+
+    /**
+     * Resets the statistics of all grammars.
+     */
+    public static void reset() {
+        for (GrammarStatistics statistics : STATISTICS.values()) {
+            statistics.reset();
+        }
+    }
+
+    /**
+     * Registers the statistics of all grammars with the platform MBean server
+     * and enables recording. MBeans that are already registered are kept.
+     *
+     * @throws JMException if an MBean can not be registered.
+     */
+    public static void registerMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (GrammarStatistics statistics : STATISTICS.values()) {
+            try {
+                server.registerMBean(statistics, getObjectName(statistics.getGrammar()));
+            } catch (InstanceAlreadyExistsException ex) {
+                // registered before
+            }
+        }
+        setEnabled(true);
+    }
+
+    /**
+     * Unregisters the MBeans of all grammars from the platform MBean server.
+     * Recording is not disabled.
+     *
+     * @throws JMException if an MBean can not be unregistered.
+     */
+    public static void unregisterMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (GrammarStatistics statistics : STATISTICS.values()) {
+            try {
+                server.unregisterMBean(getObjectName(statistics.getGrammar()));
+            } catch (InstanceNotFoundException ex) {
+                // not registered
+            }
+        }
+    }
+
+    /**
+     * Returns the JMX object name of the MBean of the given grammar name.
+     *
+     * @param grammar the grammar name.
+     * @return the object name.
+     * @throws JMException if the name is malformed.
+     */
+    public static ObjectName getObjectName(String grammar) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=ParserStatistics,grammar=" + grammar);
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * A {@link Flow.Processor} that parses the lipid names it receives and
+ * publishes one {@link ParseResult} per name, in the order of the names.
+ *
+ * Each name is tried with the configured grammars in order, until one of them
+ * parses it. Names rejected by a grammar's {@link GrammarPreFilter} are not
+ * parsed with that grammar. If no grammar parses a name, the result holds the
+ * exception of the last grammar that was tried.
+ *
+ * The processor is demand-driven: names are only requested from upstream if
+ * the subscriber has requested results, and at most maxInFlight names are
+ * requested but not yet published. Up to parallelism names are parsed
+ * concurrently on the executor. Failed parses are published as results, the
+ * processor only signals onError for errors of the upstream publisher, for
+ * illegal requests and if the executor rejects a task.
+ *
+ * The processor subscribes to a single publisher and publishes to a single
+ * subscriber.
+ *
+ * @author nils.hoffmann
+ */
+public final class ParsingProcessor implements Flow.Processor<String, ParseResult<LipidAdduct>> {
+
+    /**
+     * The default number of names requested but not yet published per unit of
+     * parallelism.
+     */
+    public static final int DEFAULT_IN_FLIGHT_PER_THREAD = 16;
+
+    /*
+     * Marks the upstream subscription as cancelled, and is handed to rejected
+     * subscribers.
+     */
+    private static final Flow.Subscription CANCELLED = new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final GrammarFallback fallback;
+    @Getter
+    private final int parallelism;
+    @Getter
+    private final int maxInFlight;
+    private final Executor executor;
+
+    private final AtomicReference<Flow.Subscription> upstream = new AtomicReference<>();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private volatile Flow.Subscriber<? super ParseResult<LipidAdduct>> downstream;
+    private final AtomicLong demand = new AtomicLong();
+
+    private final ConcurrentLinkedQueue<Input> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger workers = new AtomicInteger();
+    /*
+     * Results by index modulo maxInFlight. A slot is free when its input is
+     * received, since no more than maxInFlight names are requested beyond the
+     * last published one.
+     */
+    private final AtomicReferenceArray<ParseResult<LipidAdduct>> results;
+
+    /*
+     * Only written by the upstream publisher's onNext.
+     */
+    private volatile long received;
+    private volatile boolean done;
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+
+    /*
+     * Only accessed within drain, which is serialized by wip.
+     */
+    private final AtomicInteger wip = new AtomicInteger();
+    private long emitted;
+    private long requested;
+    private boolean terminated;
+
+    /**
+     * Creates a new processor.
+     *
+     * @param grammars the grammars to try in order, all grammars in their
+     * declaration order if null or empty.
+     * @param options the parser options, {@link ParserOptions#DEFAULT} if
+     * null.
+     * @param parallelism the number of names to parse concurrently, the number
+     * of available processors if 0.
+     * @param maxInFlight the maximum number of names requested from upstream
+     * but not yet published, {@link #DEFAULT_IN_FLIGHT_PER_THREAD} times
+     * parallelism if 0.
+     * @param executor the executor to parse on, the common fork join pool if
+     * null.
+     */
+    @Builder
+    public ParsingProcessor(List<Grammar> grammars, ParserOptions options, int parallelism, int maxInFlight, Executor executor) {
+        if (parallelism < 0) {
+            throw new IllegalArgumentException("parallelism must be >= 0! Was: " + parallelism);
+        }
+        if (maxInFlight < 0) {
+            throw new IllegalArgumentException("maxInFlight must be >= 0! Was: " + maxInFlight);
+        }
+        this.fallback = new GrammarFallback(grammars, options);
+        this.parallelism = parallelism == 0 ? Runtime.getRuntime().availableProcessors() : parallelism;
+        this.maxInFlight = maxInFlight == 0 ? DEFAULT_IN_FLIGHT_PER_THREAD * this.parallelism : maxInFlight;
+        this.executor = executor == null ? ForkJoinPool.commonPool() : executor;
+        this.results = new AtomicReferenceArray<>(this.maxInFlight);
+    }
+
+    /**
+     * Creates a new processor that tries all grammars, with default
+     * parallelism and in-flight limit on the common fork join pool.
+     */
+    public ParsingProcessor() {
+        this(null, null, 0, 0, null);
+    }
+
+    /**
+     * Returns the grammars that are tried in order.
+     *
+     * @return the grammars.
+     */
+    public List<Grammar> getGrammars() {
+        return fallback.getGrammars();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ParseResult<LipidAdduct>> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber must not be null!");
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(CANCELLED);
+            subscriber.onError(new IllegalStateException("ParsingProcessor supports only a single subscriber!"));
+            return;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    fail(new IllegalArgumentException("Requested number of results must be > 0! Was: " + n));
+                    return;
+                }
+                demand.getAndUpdate((current) -> {
+                    long sum = current + n;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                cancelUpstream();
+                drain();
+            }
+        });
+        downstream = subscriber;
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription, "subscription must not be null!");
+        if (cancelled || !upstream.compareAndSet(null, subscription)) {
+            subscription.cancel();
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(String lipidName) {
+        Objects.requireNonNull(lipidName, "lipidName must not be null!");
+        if (done || cancelled) {
+            return;
+        }
+        long index = received;
+        pending.offer(new Input(index, lipidName));
+        received = index + 1;
+        schedule();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        Objects.requireNonNull(throwable, "throwable must not be null!");
+        error = throwable;
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        done = true;
+        drain();
+    }
+
+    private void fail(Throwable throwable) {
+        error = throwable;
+        cancelUpstream();
+        drain();
+    }
+
+    private void cancelUpstream() {
+        Flow.Subscription subscription = upstream.getAndSet(CANCELLED);
+        if (subscription != null && subscription != CANCELLED) {
+            subscription.cancel();
+        }
+    }
+
+    private void schedule() {
+        while (!pending.isEmpty() && tryAcquireWorker()) {
+            try {
+                executor.execute(this::work);
+            } catch (RejectedExecutionException ex) {
+                workers.decrementAndGet();
+                fail(ex);
+                return;
+            }
+        }
+    }
+
+    private boolean tryAcquireWorker() {
+        for (;;) {
+            int current = workers.get();
+            if (current >= parallelism) {
+                return false;
+            }
+            if (workers.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void work() {
+        do {
+            Input input;
+            while ((input = pending.poll()) != null) {
+                if (!cancelled) {
+                    results.set((int) (input.index % maxInFlight), fallback.parse(input.index, input.lipidName));
+                }
+                drain();
+            }
+            workers.decrementAndGet();
+            // an input may have been added after the poll, while all workers were busy
+        } while (!pending.isEmpty() && tryAcquireWorker());
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        for (;;) {
+            if (cancelled || terminated) {
+                pending.clear();
+                for (int i = 0; i < maxInFlight; i++) {
+                    results.lazySet(i, null);
+                }
+            } else {
+                Flow.Subscriber<? super ParseResult<LipidAdduct>> subscriber = downstream;
+                if (subscriber != null) {
+                    emit(subscriber);
+                }
+            }
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    private void emit(Flow.Subscriber<? super ParseResult<LipidAdduct>> subscriber) {
+        Throwable throwable = error;
+        if (throwable != null) {
+            // errors are signalled immediately, pending results are dropped
+            terminated = true;
+            cancelUpstream();
+            subscriber.onError(throwable);
+            return;
+        }
+        long available = demand.get();
+        long count = 0;
+        while (count != available) {
+            int slot = (int) (emitted % maxInFlight);
+            ParseResult<LipidAdduct> result = results.get(slot);
+            if (result == null) {
+                break;
+            }
+            results.set(slot, null);
+            emitted++;
+            count++;
+            subscriber.onNext(result);
+            if (cancelled) {
+                return;
+            }
+        }
+        if (count != 0 && available != Long.MAX_VALUE) {
+            available = demand.addAndGet(-count);
+        }
+        if (done && emitted == received) {
+            terminated = true;
+            subscriber.onComplete();
+            return;
+        }
+        Flow.Subscription subscription = upstream.get();
+        if (subscription != null && subscription != CANCELLED && !done) {
+            long target = emitted + Math.min(maxInFlight, available);
+            if (target > requested) {
+                long n = target - requested;
+                requested = target;
+                subscription.request(n);
+            }
+        }
+    }
+
+    private static final class Input {
+
+        private final long index;
+        private final String lipidName;
+
+        private Input(long index, String lipidName) {
+            this.index = index;
+            this.lipidName = lipidName;
+        }
+    }
+}
@@ -20,7 +20,8 @@ import java.util.BitSet;
 import java.util.List;
 import java.util.stream.Collectors;
 import lombok.EqualsAndHashCode;
-import lombok.Value;
+import lombok.Getter;
+import lombok.ToString;
 import org.antlr.v4.runtime.BaseErrorListener;
 import org.antlr.v4.runtime.Parser;
 import org.antlr.v4.runtime.RecognitionException;
@@ -30,15 +31,22 @@ import org.antlr.v4.runtime.dfa.DFA;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 
 /**
+ * Collects the syntax errors of a parse and cancels the parse on the first
+ * error. Also counts the decisions, for which the parser's SLL prediction
+ * found a conflict and fell back to full LL prediction.
  *
  * @author nils.hoffmann
  */
-@Value
+@Getter
+@ToString
 @EqualsAndHashCode(callSuper = false)
-public class SyntaxErrorListener extends BaseErrorListener {
+public final class SyntaxErrorListener extends BaseErrorListener {
 
     private final List<SyntaxError> syntaxErrors = new ArrayList<>();
 
+    @EqualsAndHashCode.Exclude
+    private int fullContextAttempts;
+
     @Override
     public void syntaxError(Recognizer<?, ?> recognizer,
             Object offendingSymbol,
@@ -48,6 +56,15 @@ public class SyntaxErrorListener extends BaseErrorListener {
         throw new ParseCancellationException(getErrorString());
     }
 
+    @Override
+    public void reportAttemptingFullContext(Parser recognizer,
+            DFA dfa,
+            int startIndex, int stopIndex,
+            BitSet conflictingAlts,
+            ATNConfigSet configs) {
+        fullContextAttempts++;
+    }
+
     public String getErrorString() {
         return syntaxErrors.stream().map((error) -> {
             if (error.getOffendingSymbol() == null) {
@@ -58,4 +58,19 @@ public interface VisitorParser<T> {
         parser.setErrorHandler(new GoslinErrorHandler());
     }
 
+    /**
+     * Sets up parser and lexer with custom error listener and
+     * {@link GoslinErrorHandler} and limits the parser's prediction to the
+     * given budget.
+     *
+     * @param parser the parser to configure
+     * @param lexer the lexer to configure
+     * @param listener the syntax error listener
+     * @param budget the budget for the current input
+     */
+    default void prepare(Parser parser, Lexer lexer, SyntaxErrorListener listener, ParseBudget budget) {
+        prepare(parser, lexer, listener);
+        budget.limit(parser);
+    }
+
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import lombok.Value;
+
+/**
+ * Summary of the warm-up of a single {@link Grammar}. Lipid names of the corpus
+ * that could not be parsed are counted as failed, they still contribute to the
+ * warm-up of the parser.
+ *
+ * @author nils.hoffmann
+ */
+@Value
+public class WarmUpResult {
+
+    private final Grammar grammar;
+    private final WarmUpState state;
+    private final int parsed;
+    private final int failed;
+    private final long durationNanos;
+}
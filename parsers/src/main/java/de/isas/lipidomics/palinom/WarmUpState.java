@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+/**
+ * Warm-up state of a {@link Grammar}, as reported by {@link Goslin#getState}.
+ *
+ * @author nils.hoffmann
+ */
+public enum WarmUpState {
+    /**
+     * The grammar has not been warmed up yet. Parsing works, but the first
+     * parses will be slower.
+     */
+    COLD,
+    /**
+     * The DFA prediction caches of the grammar have been restored from a
+     * snapshot, but the grammar has not been warmed up. The first parses are
+     * faster than in a cold grammar, but not yet at steady-state speed.
+     */
+    RESTORED,
+    /**
+     * The grammar is currently being warmed up.
+     */
+    WARMING_UP,
+    /**
+     * The grammar has been warmed up and is ready to serve at steady-state
+     * speed.
+     */
+    READY,
+    /**
+     * The warm-up of the grammar failed, e.g. because its corpus could not be
+     * read. Parsing works, but may be slower at first.
+     */
+    FAILED
+}
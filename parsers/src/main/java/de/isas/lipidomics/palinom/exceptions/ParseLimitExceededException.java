@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom.exceptions;
+
+/**
+ * Exception which is thrown when parsing an input exceeded one of the limits of
+ * the parser options, e.g. the maximum input length or the time budget. The
+ * input was not necessarily invalid, it was rejected before it could be fully
+ * parsed.
+ *
+ * This exception does not record a stack trace and its message does not
+ * contain the input, so that rejecting oversized or hostile inputs is cheap.
+ *
+ * @author nils.hoffmann
+ */
+public class ParseLimitExceededException extends ParsingException {
+
+    /**
+     * The limits that can be exceeded.
+     */
+    public static enum Limit {
+        /**
+         * The maximum number of characters of the input.
+         */
+        INPUT_LENGTH,
+        /**
+         * The maximum number of tokens produced by the lexer.
+         */
+        TOKENS,
+        /**
+         * The maximum number of prediction steps of the parser.
+         */
+        STEPS,
+        /**
+         * The maximum wall-clock time in nanoseconds.
+         */
+        TIME
+    }
+
+    private final Limit limit;
+    private final long maximum;
+
+    public ParseLimitExceededException(Limit limit, long maximum) {
+        super("Parsing exceeded the limit of " + maximum + " for " + limit, null, false, false);
+        this.limit = limit;
+        this.maximum = maximum;
+    }
+
+    /**
+     * Returns the limit that was exceeded.
+     *
+     * @return the limit.
+     */
+    public Limit getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the configured maximum of the limit that was exceeded.
+     *
+     * @return the maximum.
+     */
+    public long getMaximum() {
+        return maximum;
+    }
+}
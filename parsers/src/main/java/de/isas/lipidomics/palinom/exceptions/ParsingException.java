@@ -29,4 +29,8 @@ public class ParsingException extends Exception {
     public ParsingException(String message, Throwable cause) {
         super(message, cause);
     }
+
+    protected ParsingException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
 }
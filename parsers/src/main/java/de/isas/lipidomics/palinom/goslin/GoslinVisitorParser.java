@@ -8,42 +8,81 @@ import de.isas.lipidomics.palinom.exceptions.ParsingException;
 import de.isas.lipidomics.domain.LipidAdduct;
 import de.isas.lipidomics.palinom.GoslinLexer;
 import de.isas.lipidomics.palinom.GoslinParser;
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.ParseBudget;
+import de.isas.lipidomics.palinom.ParseEvent;
+import de.isas.lipidomics.palinom.ParseStatisticsRecorder;
+import de.isas.lipidomics.palinom.ParserOptions;
 import de.isas.lipidomics.palinom.SyntaxErrorListener;
-import lombok.extern.slf4j.Slf4j;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.RecognitionException;
-import org.antlr.v4.runtime.TokenStream;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 
 /**
  * Parser implementation for the Goslin grammar.
  * @author nils.hoffmann
  */
-@Slf4j
 public class GoslinVisitorParser implements VisitorParser<LipidAdduct> {
 
+    private final ParserOptions options;
+
+    /**
+     * Creates a new parser without limits.
+     */
+    public GoslinVisitorParser() {
+        this(ParserOptions.DEFAULT);
+    }
+
+    /**
+     * Creates a new parser with the given limits.
+     *
+     * @param options the parser options.
+     */
+    public GoslinVisitorParser(ParserOptions options) {
+        this.options = options;
+    }
+
     @Override
     public LipidAdduct parse(String lipidString, SyntaxErrorListener listener) throws ParsingException {
-        return parseWithModernGrammar(lipidString, listener);
+        ParseEvent event = ParseEvent.start(Grammar.GOSLIN.name(), lipidString, listener);
+        ParseStatisticsRecorder recorder = ParseStatisticsRecorder.start(Grammar.GOSLIN.name(), listener);
+        try {
+            return event.succeeded(recorder.succeeded(parseWithModernGrammar(lipidString, listener, event, recorder)));
+        } catch (ParsingException | RuntimeException ex) {
+            recorder.failed();
+            event.failed(ex);
+            throw ex;
+        }
     }
 
-    private LipidAdduct parseWithModernGrammar(String lipidString, SyntaxErrorListener listener) throws ParsingException, RecognitionException {
+    private LipidAdduct parseWithModernGrammar(String lipidString, SyntaxErrorListener listener, ParseEvent event, ParseStatisticsRecorder recorder) throws ParsingException, RecognitionException {
+        ParseBudget budget = options.newBudget(lipidString);
+        if (options.isUseNameDictionary()) {
+            LipidAdduct known = Grammar.GOSLIN.findKnownName(lipidString);
+            recorder.lookedUp(known != null);
+            if (known != null) {
+                event.decoded();
+                return known;
+            }
+        }
         CharStream charStream = CharStreams.fromString(lipidString);
         GoslinLexer lexer = new GoslinLexer(charStream);
-        TokenStream tokens = new CommonTokenStream(lexer);
-        log.info("Parsing lipid identifier: {}", lipidString);
+        CommonTokenStream tokens = new CommonTokenStream(budget.limit(lexer));
         GoslinParser parser = new GoslinParser(tokens);
-        prepare(parser, lexer, listener);
+        prepare(parser, lexer, listener, budget);
         try {
+            event.lexed(tokens);
             GoslinParser.LipidContext context = parser.lipid();
+            event.parsed();
             if (parser.getNumberOfSyntaxErrors() > 0) {
                 throw new ParsingException("Parsing of " + lipidString + " failed with " + parser.getNumberOfSyntaxErrors() + " syntax errors!\n" + listener.getErrorString());
             }
             GoslinVisitorImpl lipidVisitor = new GoslinVisitorImpl();
             return lipidVisitor.visit(context);
         } catch (ParseCancellationException pce) {
+            ParseBudget.rethrowLimitExceeded(pce);
             throw new ParsingException("Parsing of " + lipidString + " failed with " + parser.getNumberOfSyntaxErrors() + " syntax errors!\n" + listener.getErrorString());
         }
     }
@@ -18,15 +18,18 @@ package de.isas.lipidomics.palinom.sumformula;
 import de.isas.lipidomics.domain.ElementTable;
 import de.isas.lipidomics.palinom.SumFormulaLexer;
 import de.isas.lipidomics.palinom.SumFormulaParser;
+import de.isas.lipidomics.palinom.ParseBudget;
+import de.isas.lipidomics.palinom.ParseEvent;
+import de.isas.lipidomics.palinom.ParseStatisticsRecorder;
+import de.isas.lipidomics.palinom.ParserOptions;
+import de.isas.lipidomics.palinom.ParserStatistics;
 import de.isas.lipidomics.palinom.SyntaxErrorListener;
 import de.isas.lipidomics.palinom.VisitorParser;
 import de.isas.lipidomics.palinom.exceptions.ParsingException;
-import lombok.extern.slf4j.Slf4j;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.RecognitionException;
-import org.antlr.v4.runtime.TokenStream;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 
 /**
@@ -34,29 +37,57 @@ import org.antlr.v4.runtime.misc.ParseCancellationException;
  *
  * @author nils.hoffmann
  */
-@Slf4j
 public class SumFormulaVisitorParser implements VisitorParser<ElementTable> {
 
+    private final ParserOptions options;
+
+    /**
+     * Creates a new parser without limits.
+     */
+    public SumFormulaVisitorParser() {
+        this(ParserOptions.DEFAULT);
+    }
+
+    /**
+     * Creates a new parser with the given limits.
+     *
+     * @param options the parser options.
+     */
+    public SumFormulaVisitorParser(ParserOptions options) {
+        this.options = options;
+    }
+
     @Override
     public ElementTable parse(String sumFormula, SyntaxErrorListener listener) throws ParsingException {
-        return parseWithGrammar(sumFormula, listener);
+        ParseEvent event = ParseEvent.start(ParserStatistics.SUM_FORMULA, sumFormula, listener);
+        ParseStatisticsRecorder recorder = ParseStatisticsRecorder.start(ParserStatistics.SUM_FORMULA, listener);
+        try {
+            return event.succeeded(recorder.succeeded(parseWithGrammar(sumFormula, listener, event)));
+        } catch (ParsingException | RuntimeException ex) {
+            recorder.failed();
+            event.failed(ex);
+            throw ex;
+        }
     }
 
-    private ElementTable parseWithGrammar(String sumFormula, SyntaxErrorListener listener) throws ParsingException, RecognitionException {
+    private ElementTable parseWithGrammar(String sumFormula, SyntaxErrorListener listener, ParseEvent event) throws ParsingException, RecognitionException {
+        ParseBudget budget = options.newBudget(sumFormula);
         CharStream charStream = CharStreams.fromString(sumFormula);
         SumFormulaLexer lexer = new SumFormulaLexer(charStream);
-        TokenStream tokens = new CommonTokenStream(lexer);
-        log.info("Parsing sum formula: {}", sumFormula);
+        CommonTokenStream tokens = new CommonTokenStream(budget.limit(lexer));
         SumFormulaParser parser = new SumFormulaParser(tokens);
-        prepare(parser, lexer, listener);
+        prepare(parser, lexer, listener, budget);
         try {
+            event.lexed(tokens);
             SumFormulaParser.MoleculeContext context = parser.molecule();
+            event.parsed();
             if (parser.getNumberOfSyntaxErrors() > 0) {
                 throw new ParsingException("Parsing of " + sumFormula + " failed with " + parser.getNumberOfSyntaxErrors() + " syntax errors!\n" + listener.getErrorString());
             }
             SumFormulaVisitorImpl lipidVisitor = new SumFormulaVisitorImpl();
             return lipidVisitor.visit(context);
         } catch (ParseCancellationException pce) {
+            ParseBudget.rethrowLimitExceeded(pce);
             throw new ParsingException("Parsing of " + sumFormula + " failed with " + parser.getNumberOfSyntaxErrors() + " syntax errors!\n" + listener.getErrorString());
         }
     }
@@ -7,14 +7,17 @@ import de.isas.lipidomics.palinom.exceptions.ParsingException;
 import de.isas.lipidomics.domain.LipidAdduct;
 import de.isas.lipidomics.palinom.SwissLipidsLexer;
 import de.isas.lipidomics.palinom.SwissLipidsParser;
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.ParseBudget;
+import de.isas.lipidomics.palinom.ParseEvent;
+import de.isas.lipidomics.palinom.ParseStatisticsRecorder;
+import de.isas.lipidomics.palinom.ParserOptions;
 import de.isas.lipidomics.palinom.SyntaxErrorListener;
 import de.isas.lipidomics.palinom.VisitorParser;
-import lombok.extern.slf4j.Slf4j;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.RecognitionException;
-import org.antlr.v4.runtime.TokenStream;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 
 /**
@@ -22,29 +25,65 @@ import org.antlr.v4.runtime.misc.ParseCancellationException;
  *
  * @author nils.hoffmann
  */
-@Slf4j
 public class SwissLipidsVisitorParser implements VisitorParser<LipidAdduct> {
 
+    private final ParserOptions options;
+
+    /**
+     * Creates a new parser without limits.
+     */
+    public SwissLipidsVisitorParser() {
+        this(ParserOptions.DEFAULT);
+    }
+
+    /**
+     * Creates a new parser with the given limits.
+     *
+     * @param options the parser options.
+     */
+    public SwissLipidsVisitorParser(ParserOptions options) {
+        this.options = options;
+    }
+
     @Override
     public LipidAdduct parse(String lipidString, SyntaxErrorListener listener) throws ParsingException {
-        return parseWithSwissLipidsGrammar(lipidString, listener);
+        ParseEvent event = ParseEvent.start(Grammar.SWISSLIPIDS.name(), lipidString, listener);
+        ParseStatisticsRecorder recorder = ParseStatisticsRecorder.start(Grammar.SWISSLIPIDS.name(), listener);
+        try {
+            return event.succeeded(recorder.succeeded(parseWithSwissLipidsGrammar(lipidString, listener, event, recorder)));
+        } catch (ParsingException | RuntimeException ex) {
+            recorder.failed();
+            event.failed(ex);
+            throw ex;
+        }
     }
 
-    private LipidAdduct parseWithSwissLipidsGrammar(String lipidString, SyntaxErrorListener listener) throws ParsingException, RecognitionException {
+    private LipidAdduct parseWithSwissLipidsGrammar(String lipidString, SyntaxErrorListener listener, ParseEvent event, ParseStatisticsRecorder recorder) throws ParsingException, RecognitionException {
+        ParseBudget budget = options.newBudget(lipidString);
+        if (options.isUseNameDictionary()) {
+            LipidAdduct known = Grammar.SWISSLIPIDS.findKnownName(lipidString);
+            recorder.lookedUp(known != null);
+            if (known != null) {
+                event.decoded();
+                return known;
+            }
+        }
         CharStream charStream = CharStreams.fromString(lipidString);
         SwissLipidsLexer lexer = new SwissLipidsLexer(charStream);
-        TokenStream tokens = new CommonTokenStream(lexer);
-        log.info("Parsing swiss lipids identifier: {}", lipidString);
+        CommonTokenStream tokens = new CommonTokenStream(budget.limit(lexer));
         SwissLipidsParser parser = new SwissLipidsParser(tokens);
-        prepare(parser, lexer, listener);
+        prepare(parser, lexer, listener, budget);
         try {
+            event.lexed(tokens);
             SwissLipidsParser.LipidContext context = parser.lipid();
+            event.parsed();
             if (parser.getNumberOfSyntaxErrors() > 0) {
                 throw new ParsingException("Parsing of " + lipidString + " failed with " + parser.getNumberOfSyntaxErrors() + " syntax errors!\n" + listener.getErrorString());
             }
             SwissLipidsVisitorImpl lipidVisitor = new SwissLipidsVisitorImpl();
             return lipidVisitor.visit(context);
         } catch (ParseCancellationException pce) {
+            ParseBudget.rethrowLimitExceeded(pce);
             throw new ParsingException("Parsing of " + lipidString + " failed with " + parser.getNumberOfSyntaxErrors() + " syntax errors!\n" + listener.getErrorString());
         }
     }
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the default executor of the {@link BatchParser}. This is the Java 21
+ * implementation of the multi-release jar, which starts a virtual thread per
+ * task, so that tasks blocking on I/O before or after parsing do not occupy a
+ * platform thread.
+ *
+ * @author nils.hoffmann
+ */
+final class ParseThreads {
+
+    private ParseThreads() {
+    }
+
+    /**
+     * Returns true, if {@link #newExecutor()} creates virtual threads.
+     *
+     * @return true.
+     */
+    static boolean isVirtual() {
+        return true;
+    }
+
+    /**
+     * Creates a new executor for parse tasks.
+     *
+     * @return an executor that starts a new virtual thread per task.
+     */
+    static ExecutorService newExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("jgoslin-parse-", 0).factory());
+    }
+}
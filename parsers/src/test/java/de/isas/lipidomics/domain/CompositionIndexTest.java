@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class CompositionIndexTest {
+
+    private static final List<LipidSpecies> MOLECULAR = new ArrayList<>();
+    private static final List<LipidSpecies> SPECIES = new ArrayList<>();
+
+    @BeforeAll
+    public static void generateLipids() {
+        LipidLibraryGenerator.LipidLibraryGeneratorBuilder builder = LipidLibraryGenerator.builder().
+                lipidClasses(Arrays.asList(LipidClass.PC, LipidClass.PE, LipidClass.TAG, LipidClass.SM)).
+                minCarbon(14).
+                maxCarbon(20).
+                maxDoubleBonds(3).
+                minLcbHydroxy(2).
+                maxLcbHydroxy(2).
+                bondTypes(Arrays.asList(LipidFaBondType.ESTER, LipidFaBondType.ETHER_PLASMANYL));
+        ConcurrentLinkedQueue<LipidSpecies> lipids = new ConcurrentLinkedQueue<>();
+        builder.build().generate(lipids::add);
+        MOLECULAR.addAll(lipids);
+        lipids.clear();
+        builder.level(LipidLevel.SPECIES).build().generate(lipids::add);
+        SPECIES.addAll(lipids);
+    }
+
+    @Test
+    public void testGroupsMatchSumFormulas() {
+        CompositionIndex index = CompositionIndex.ofSpecies(MOLECULAR);
+        assertEquals(MOLECULAR.size(), index.size());
+        Map<String, List<Integer>> expected = new HashMap<>();
+        for (int id = 0; id < MOLECULAR.size(); id++) {
+            expected.computeIfAbsent(MOLECULAR.get(id).getElements().getSumFormula(), (formula) -> {
+                return new ArrayList<>();
+            }).add(id);
+        }
+        assertEquals(expected.size(), index.getGroupCount());
+        for (int group = 0; group < index.getGroupCount(); group++) {
+            List<Integer> ids = expected.get(index.getKey(group).getSumFormula());
+            assertNotNull(ids);
+            assertEquals(ids.size(), index.getGroupSize(group));
+            for (int i = 0; i < ids.size(); i++) {
+                assertEquals(ids.get(i).intValue(), index.getGroupEntry(group, i));
+                assertEquals(group, index.getGroup(ids.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void testFindGroupBySumFormula() throws ParsingException {
+        CompositionIndex index = CompositionIndex.ofSpecies(MOLECULAR);
+        for (int id = 0; id < MOLECULAR.size(); id += 101) {
+            String sumFormula = MOLECULAR.get(id).getElements().getSumFormula();
+            int group = index.findGroup(sumFormula);
+            assertEquals(index.getGroup(id), group);
+            assertEquals(sumFormula, index.getKey(group).getSumFormula());
+        }
+        assertEquals(CompositionIndex.NO_GROUP, index.findGroup("C2H6O"));
+        assertEquals(CompositionIndex.NO_GROUP, index.findGroup(""));
+        assertThrows(ParsingException.class, () -> {
+            index.findGroup("C2H6O)");
+        });
+    }
+
+    @Test
+    public void testJoinSpeciesWithMolecularSubspecies() {
+        CompositionIndex species = CompositionIndex.ofSpecies(SPECIES);
+        CompositionIndex molecular = CompositionIndex.ofSpecies(MOLECULAR);
+        Set<Integer> joined = new HashSet<>();
+        species.join(molecular, (id, otherId) -> {
+            assertEquals(SPECIES.get(id).getElements().getSumFormula(), MOLECULAR.get(otherId).getElements().getSumFormula());
+            joined.add(otherId);
+        });
+        // every molecular subspecies has the composition of its species
+        assertEquals(MOLECULAR.size(), joined.size());
+    }
+
+    @Test
+    public void testKeyRoundTrip() throws ParsingException {
+        CompositionIndex.Key key = CompositionIndex.Key.of("C42H82NO8P");
+        assertEquals(42, key.getCount(Element.ELEMENT_C));
+        assertEquals(82, key.getCount(Element.ELEMENT_H));
+        assertEquals(1, key.getCount(Element.ELEMENT_P));
+        assertEquals(0, key.getCount(Element.ELEMENT_S));
+        assertEquals("C42H82NO8P", key.getSumFormula());
+        assertEquals(key, CompositionIndex.Key.of(key.toElementTable()));
+        ElementTable heavy = new ElementTable();
+        heavy.put(Element.ELEMENT_C, 40);
+        heavy.put(Element.ELEMENT_C13, 2);
+        heavy.put(Element.ELEMENT_H2, 9);
+        CompositionIndex.Key heavyKey = CompositionIndex.Key.of(heavy);
+        assertEquals(heavy, heavyKey.toElementTable());
+        assertNotEquals(heavyKey, CompositionIndex.Key.of("C42"));
+    }
+
+    @Test
+    public void testOutOfRangeCountsAreNotIndexed() {
+        ElementTable negative = new ElementTable();
+        negative.put(Element.ELEMENT_H, -1);
+        assertThrows(IllegalArgumentException.class, () -> {
+            CompositionIndex.Key.of(negative);
+        });
+        ElementTable large = new ElementTable();
+        large.put(Element.ELEMENT_C, 5000);
+        CompositionIndex index = CompositionIndex.of(Arrays.asList(negative, large, new ElementTable(Collections.singletonMap(Element.ELEMENT_C, 2))), (table) -> {
+            return table;
+        });
+        assertEquals(1, index.size());
+        assertEquals(CompositionIndex.NO_GROUP, index.getGroup(0));
+        assertEquals(CompositionIndex.NO_GROUP, index.getGroup(1));
+        assertEquals(0, index.getGroup(2));
+    }
+}
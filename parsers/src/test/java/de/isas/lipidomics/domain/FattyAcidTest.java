@@ -165,6 +165,30 @@ public class FattyAcidTest {
         assertEquals(2, fa.getModifications().get(0).getKey());
     }
 
+    @Test
+    public void testModificationsAreCopied() {
+        ModificationsList ml = new ModificationsList();
+        ml.add(Pair.of(2, "OH"));
+        FattyAcid fa = new FattyAcid("LCB", 18, 3, 1, LipidFaBondType.UNDEFINED, true, ml);
+        FattyAcid other = new FattyAcid("LCB", 18, 3, 1, LipidFaBondType.UNDEFINED, true, ml);
+        int hashCode = fa.hashCode();
+        ml.add(Pair.of(4, "OH"));
+        assertEquals(1, fa.getModifications().size());
+        assertEquals(hashCode, fa.hashCode());
+        assertEquals(fa, other);
+        assertThrows(UnsupportedOperationException.class, () -> {
+            fa.getModifications().add(Pair.of(4, "OH"));
+        });
+        assertSame(ModificationsList.NONE, new FattyAcid("FA1", 18, 0, 1, LipidFaBondType.ESTER, false, new ModificationsList()).getModifications());
+    }
+
+    @Test
+    public void testCachedHashCannotBeSet() {
+        assertThrows(NoSuchMethodException.class, () -> {
+            FattyAcid.class.getMethod("setHash", int.class);
+        });
+    }
+
     @Test
     public void testIsomericFattyAcidBuilder() {
         Map<Integer, String> doubleBondPositions = new LinkedHashMap<>();
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.VisitorParser;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import lombok.extern.slf4j.Slf4j;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Checks the retained heap size of parsed lipids per lipid level and the
+ * bytes allocated per parse per grammar against the budgets in
+ * footprint-budgets.properties. Both are averaged over the lipids of the
+ * grammars' warm-up corpora.
+ *
+ * @author nils.hoffmann
+ */
+@Slf4j
+public class FootprintBudgetTest {
+
+    private static final Properties BUDGETS = new Properties();
+
+    @BeforeAll
+    public static void loadBudgets() throws IOException {
+        try (InputStream is = FootprintBudgetTest.class.getResourceAsStream("footprint-budgets.properties")) {
+            BUDGETS.load(is);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = LipidLevel.class, names = {"SPECIES", "MOLECULAR_SUBSPECIES", "STRUCTURAL_SUBSPECIES", "ISOMERIC_SUBSPECIES"})
+    public void testRetainedSizePerLipid(LipidLevel level) throws ParsingException {
+        List<LipidAdduct> lipids = new ArrayList<>();
+        for (Grammar grammar : Grammar.values()) {
+            VisitorParser<LipidAdduct> parser = grammar.newParser();
+            for (String lipidName : grammar.getWarmUpCorpus()) {
+                LipidAdduct lipidAdduct = parser.parse(lipidName);
+                if (lipidAdduct.getLipid().getInfo().getLevel() == level) {
+                    lipids.add(lipidAdduct);
+                }
+            }
+        }
+        assertFalse(lipids.isEmpty(), "No lipids on level " + level);
+        // objects shared by all lipids are not retained by any single lipid
+        GraphLayout shared = GraphLayout.parseInstance(LipidClass.values(), LipidCategory.values(), LipidLevel.values(),
+                Element.values(), LipidFaBondType.values(), FattyAcidType.values(),
+                Adduct.NONE, Fragment.NONE, LipidSpecies.NONE, LipidSpeciesInfo.NONE, ModificationsList.NONE,
+                Optional.empty(), Collections.emptyList(), Collections.emptyMap(), Collections.emptySet());
+        GraphLayout layout = GraphLayout.parseInstance(lipids.toArray()).subtract(shared);
+        long retainedBytes = layout.totalSize() / lipids.size();
+        long budget = getBudget("retained." + level);
+        log.info("Retained size per lipid on level {}: {} bytes, budget: {} bytes", level, retainedBytes, budget);
+        assertTrue(retainedBytes <= budget, "Retained size per lipid on level " + level + " of " + retainedBytes + " bytes exceeds budget of " + budget + " bytes:\n" + layout.toFootprint());
+    }
+
+    @ParameterizedTest
+    @EnumSource(Grammar.class)
+    public void testAllocatedBytesPerParse(Grammar grammar) throws ParsingException {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled());
+        List<String> lipidNames = grammar.getWarmUpCorpus();
+        VisitorParser<LipidAdduct> parser = grammar.newParser();
+        // fill the DFA caches first, these are shared and not allocated per parse
+        for (String lipidName : lipidNames) {
+            parser.parse(lipidName);
+        }
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (String lipidName : lipidNames) {
+            parser.parse(lipidName);
+        }
+        long allocatedBytes = (threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore) / lipidNames.size();
+        long budget = getBudget("allocated." + grammar);
+        log.info("Allocated bytes per parse with grammar {}: {} bytes, budget: {} bytes", grammar, allocatedBytes, budget);
+        assertTrue(allocatedBytes <= budget, "Allocated bytes per parse with grammar " + grammar + " of " + allocatedBytes + " bytes exceeds budget of " + budget + " bytes");
+    }
+
+    private static long getBudget(String key) {
+        String budget = BUDGETS.getProperty(key);
+        assertNotNull(budget, "No budget defined for " + key);
+        return Long.parseLong(budget.trim());
+    }
+}
@@ -60,4 +60,13 @@ public class HeadGroupTest {
         assertEquals(LipidCategory.ST, hg.getLipidCategory());
     }
 
+    @Test
+    public void testCachedHashCannotBeSet() {
+        assertThrows(NoSuchMethodException.class, () -> {
+            HeadGroup.class.getMethod("setHash", int.class);
+        });
+        HeadGroup hg = new HeadGroup("PC");
+        hg.hashCode();
+        assertEquals("PC", hg.toString());
+    }
 }
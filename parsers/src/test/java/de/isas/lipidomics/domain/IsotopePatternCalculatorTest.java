@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class IsotopePatternCalculatorTest {
+
+    @Test
+    public void testSingleCarbon() throws ParsingException {
+        IsotopePattern pattern = new IsotopePatternCalculator().calculate(new ElementTable("C"));
+        assertEquals(2, pattern.size());
+        assertEquals(12.0d, pattern.getMass(0), 1e-9);
+        assertEquals(0.9893d, pattern.getAbundance(0), 1e-9);
+        assertEquals(Element.ELEMENT_C13.getMass(), pattern.getMass(1), 1e-9);
+        assertEquals(0.0107d, pattern.getAbundance(1), 1e-9);
+    }
+
+    @Test
+    public void testNominalPatternOfPhosphatidylcholine() throws ParsingException {
+        // PC 34:1
+        ElementTable elements = new ElementTable("C42H82NO8P");
+        IsotopePattern pattern = new IsotopePatternCalculator().calculate(elements);
+        assertEquals(elements.getMass(), pattern.getMass(0), 1e-6);
+        assertEquals(0, pattern.getMostAbundantPeak());
+        assertEquals(1.0d, pattern.getTotalAbundance(), 1e-4);
+        // M+1 from 42 13C, 82 2H, 15N and 17O
+        double expected = 42 * 0.0107 / 0.9893 + 82 * 0.000115 / 0.999885 + 0.00364 / 0.99636 + 8 * 0.00038 / 0.99757;
+        assertEquals(expected, pattern.getRelativeAbundance(1), 1e-4);
+        for (int peak = 1; peak < pattern.size(); peak++) {
+            assertEquals(peak * 1.003, pattern.getMass(peak) - pattern.getMass(0), 0.01);
+        }
+    }
+
+    @Test
+    public void testFineResolutionSeparatesIsotopologues() throws ParsingException {
+        ElementTable elements = new ElementTable("C42H82NO8P");
+        IsotopePattern nominal = new IsotopePatternCalculator().calculate(elements);
+        IsotopePattern fine = IsotopePatternCalculator.builder().resolution(0.001).build().calculate(elements);
+        assertTrue(fine.size() > nominal.size());
+        // 13C and 15N at M+1 are 6.3 mDa apart
+        double m1 = 0;
+        int peaks = 0;
+        for (int peak = 0; peak < fine.size(); peak++) {
+            if (Math.round(fine.getMass(peak) - fine.getMass(0)) == 1) {
+                m1 += fine.getAbundance(peak);
+                peaks++;
+            }
+        }
+        assertTrue(peaks > 1);
+        assertEquals(nominal.getAbundance(1), m1, 1e-6);
+    }
+
+    @Test
+    public void testPruning() throws ParsingException {
+        ElementTable elements = new ElementTable("C42H82NO8P");
+        IsotopePattern pattern = IsotopePatternCalculator.builder().pruneThreshold(0.01).build().calculate(elements);
+        for (int peak = 0; peak < pattern.size(); peak++) {
+            assertTrue(pattern.getRelativeAbundance(peak) >= 0.01);
+        }
+        assertTrue(pattern.size() < new IsotopePatternCalculator().calculate(elements).size());
+    }
+
+    @Test
+    public void testHeavyLabelsAreMonoisotopic() throws ParsingException {
+        ElementTable elements = new ElementTable("C42H82NO8P");
+        ElementTable labelled = elements.copy();
+        labelled.decrementBy(Element.ELEMENT_H, 9);
+        labelled.incrementBy(Element.ELEMENT_H2, 9);
+        IsotopePattern pattern = new IsotopePatternCalculator().calculate(labelled);
+        assertEquals(labelled.getMass(), pattern.getMass(0), 1e-6);
+    }
+
+    @Test
+    public void testLipidAdductMz() throws ParsingException {
+        LipidAdduct lipidAdduct = Grammar.GOSLIN.newParser().parse("PC 34:1[M+H]1+");
+        IsotopePattern pattern = new IsotopePatternCalculator().calculate(lipidAdduct);
+        assertEquals(lipidAdduct.getMass(), pattern.getMass(0), 1e-6);
+    }
+
+    @Test
+    public void testCalculateAllMatchesSingleCalculations() throws ParsingException {
+        IsotopePatternCalculator calculator = new IsotopePatternCalculator();
+        List<ElementTable> elements = new ArrayList<>();
+        for (int nCarbon = 30; nCarbon < 60; nCarbon++) {
+            for (int nDoubleBonds = 0; nDoubleBonds < 6; nDoubleBonds++) {
+                elements.add(new ElementTable("C" + (nCarbon + 8) + "H" + (2 * nCarbon + 18 - 2 * nDoubleBonds) + "NO8P"));
+            }
+        }
+        List<IsotopePattern> patterns = calculator.calculateAll(elements);
+        assertEquals(elements.size(), patterns.size());
+        IsotopePatternCalculator uncached = new IsotopePatternCalculator();
+        for (int i = 0; i < elements.size(); i++) {
+            assertEquals(uncached.calculate(elements.get(i)), patterns.get(i));
+        }
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            IsotopePatternCalculator.builder().resolution(-1).build();
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            IsotopePatternCalculator.builder().pruneThreshold(1).build();
+        });
+        ElementTable negative = new ElementTable();
+        negative.put(Element.ELEMENT_H, -1);
+        assertThrows(IllegalArgumentException.class, () -> {
+            new IsotopePatternCalculator().calculate(negative);
+        });
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class LipidClassTest {
+
+    @Test
+    public void testPrecomputedElementsMatchParsedSumFormula() throws ParsingException {
+        for (LipidClass lipidClass : LipidClass.values()) {
+            ElementTable parsed = new ElementTable(lipidClass.getSumFormula());
+            assertEquals(parsed, lipidClass.getElements(), lipidClass.name());
+            assertEquals(parsed.getSumFormula(), lipidClass.getSumFormula(), lipidClass.name());
+            Stream.of(Element.values()).forEach((element) -> {
+                assertEquals(parsed.getOrDefault(element, 0).intValue(), lipidClass.getElementCount(element), lipidClass.name());
+            });
+        }
+    }
+
+    @Test
+    public void testGetElementsReturnsCopy() {
+        ElementTable elements = LipidClass.PC.getElements();
+        elements.increment(Element.ELEMENT_C);
+        assertNotEquals(elements, LipidClass.PC.getElements());
+    }
+
+    @Test
+    public void testGetSumFormula() {
+        assertEquals("C8H18NO6P", LipidClass.PC.getSumFormula());
+        assertEquals("", LipidClass.UNDEFINED.getSumFormula());
+        assertTrue(LipidClass.UNDEFINED.getElements().isEmpty());
+    }
+
+    @Test
+    public void testGetAllowedNumFa() {
+        assertEquals(Arrays.asList(2), LipidClass.PC.getAllowedNumFa());
+        assertEquals(Integer.valueOf(2), LipidClass.PC.getMaxNumFa());
+        assertTrue(Stream.of(LipidClass.values()).anyMatch((lipidClass) -> {
+            return lipidClass.getAllowedNumFa().size() > 1;
+        }));
+    }
+
+    @Test
+    public void testForHeadGroupMatchesLinearScan() {
+        EnumSet<LipidClass> seen = EnumSet.noneOf(LipidClass.class);
+        for (LipidClass lipidClass : LipidClass.values()) {
+            for (String synonym : lipidClass.getSynonyms()) {
+                LipidClass expected = Stream.of(LipidClass.values()).filter((t) -> {
+                    return t.matchesAbbreviation(synonym);
+                }).findFirst().get();
+                assertSame(expected, LipidClass.forHeadGroup(synonym), synonym);
+                assertSame(expected, LipidClass.forHeadGroup(" " + synonym + " "), synonym);
+                seen.add(expected);
+            }
+        }
+        assertEquals(LipidClass.values().length, seen.size());
+    }
+
+    @Test
+    public void testForHeadGroupUndefined() {
+        assertSame(LipidClass.TAG, LipidClass.forHeadGroup("TG"));
+        assertSame(LipidClass.UNDEFINED, LipidClass.forHeadGroup("NOT A HEAD GROUP"));
+        assertSame(LipidClass.UNDEFINED, LipidClass.forHeadGroup(""));
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.VisitorParser;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class LipidCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        List<String> names = WarmUpCorpusLipids.names();
+        List<LipidAdduct> lipids = WarmUpCorpusLipids.lipids();
+        for (int i = 0; i < lipids.size(); i++) {
+            String lipidName = names.get(i);
+            LipidAdduct lipid = lipids.get(i);
+            LipidAdduct decoded = LipidCodec.decode(LipidCodec.encode(lipid));
+            assertEquals(lipid, decoded, lipidName);
+            assertSame(lipid.getLipid().getClass(), decoded.getLipid().getClass(), lipidName);
+            assertEquals(lipid.getLipid().getFa(), decoded.getLipid().getFa(), lipidName);
+            assertEquals(lipid.getCanonicalKey(), decoded.getCanonicalKey(), lipidName);
+            assertEquals(lipid.getAdduct(), decoded.getAdduct(), lipidName);
+            assertEquals(lipid.getFragment(), decoded.getFragment(), lipidName);
+        }
+    }
+
+    @Test
+    public void testRoundTripOfNames() throws ParsingException {
+        VisitorParser<LipidAdduct> parser = Grammar.GOSLIN.newParser();
+        for (String lipidName : Arrays.asList("PE 18:1(9Z)/16:0[M+H]1+", "PC O-16:0p/18:1", "Cer 18:1;2/16:0", "TAG 16:0-18:1-18:2", "PC 34:1[M+Na]1+", "Cholesterol")) {
+            LipidAdduct lipid = parser.parse(lipidName);
+            byte[] encoded = LipidCodec.encode(lipid);
+            assertTrue(encoded.length < 100, lipidName + ": " + encoded.length);
+            assertEquals(lipid.getLipidString(), LipidCodec.decode(encoded).getLipidString());
+        }
+    }
+
+    @Test
+    public void testRoundTripOfClassAndCategoryLevels() throws ParsingException {
+        LipidAdduct lipid = Grammar.GOSLIN.newParser().parse("PE 18:1(9Z)/16:0");
+        for (LipidLevel level : new LipidLevel[]{LipidLevel.CLASS, LipidLevel.CATEGORY}) {
+            LipidAdduct converted = lipid.toLevel(level);
+            LipidAdduct decoded = LipidCodec.decode(LipidCodec.encode(converted));
+            assertEquals(converted, decoded, level.name());
+            assertEquals(converted.getLipid().getLipidCategory(), decoded.getLipid().getLipidCategory(), level.name());
+        }
+    }
+
+    @Test
+    public void testMalformedEncoding() throws ParsingException {
+        byte[] encoded = LipidCodec.encode(Grammar.GOSLIN.newParser().parse("PC 16:0/18:1"));
+        assertThrows(IllegalArgumentException.class, () -> {
+            LipidCodec.decode(Arrays.copyOf(encoded, encoded.length - 2));
+        });
+        encoded[0] = LipidCodec.VERSION + 1;
+        assertThrows(IllegalArgumentException.class, () -> {
+            LipidCodec.decode(encoded);
+        });
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.VisitorParser;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class LipidColumnStoreTest {
+
+    private static final List<LipidAdduct> LIPIDS = WarmUpCorpusLipids.lipids();
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testViewsMatchLipids(boolean offHeap) {
+        // small segments, so that the lipids span many segments and a trimmed last one
+        LipidColumnStore.Builder builder = LipidColumnStore.builder().offHeap(offHeap).segmentRows(64);
+        for (LipidAdduct lipid : LIPIDS) {
+            builder.add(lipid);
+        }
+        LipidColumnStore store = builder.build();
+        assertEquals(offHeap, store.isOffHeap());
+        assertEquals(LIPIDS.size(), store.size());
+        assertTrue(store.getSegmentBytes() < (long) (LIPIDS.size() + 8) * LipidColumnStore.ROW_BYTES);
+        LipidColumnStore.View view = store.view();
+        for (int row = 0; row < LIPIDS.size(); row++) {
+            LipidAdduct lipidAdduct = LIPIDS.get(row);
+            LipidSpecies lipid = lipidAdduct.getLipid();
+            LipidSpeciesInfo info = lipid.getInfo();
+            view.moveTo(row);
+            String name = "Row " + row;
+            assertEquals(lipid.getHeadGroup(), view.getHeadGroup(), name);
+            assertEquals(lipid.getNormalizedHeadGroup(), view.getNormalizedHeadGroup(), name);
+            assertEquals(lipid.getLipidClass(), view.getLipidClass(), name);
+            assertEquals(lipid.getLipidCategory(), view.getLipidCategory(), name);
+            assertEquals(info.getLevel(), view.getLevel(), name);
+            assertEquals(info.getLipidFaBondType(), view.getLipidFaBondType(), name);
+            assertEquals(Math.max(0, info.getNCarbon()), view.getNCarbon(), name);
+            assertEquals(info.getNDoubleBonds(), view.getNDoubleBonds(), name);
+            assertEquals(info.getNHydroxy(), view.getNHydroxy(), name);
+            assertEquals(lipid.isEtherLipid(), view.isEtherLipid(), name);
+            assertEquals(lipidAdduct.getAdduct(), view.getAdduct(), name);
+            if (MassIndex.hasMass(lipid)) {
+                double mass = MassIndex.getMass(lipidAdduct::getMass);
+                assertEquals(mass, view.getMass(), 1e-9, name);
+            } else {
+                assertTrue(Double.isNaN(view.getMass()), name);
+            }
+            List<FattyAcid> chains = new ArrayList<>(lipid.getFa().values());
+            assertEquals(chains.size(), view.getFaCount(), name);
+            for (int i = 0; i < chains.size(); i++) {
+                FattyAcid fa = chains.get(i);
+                LipidColumnStore.ChainView chain = view.getFa(i);
+                assertEquals(fa.getType(), chain.getType(), name);
+                assertEquals(fa.getPosition(), chain.getPosition(), name);
+                assertEquals(fa.getNCarbon(), chain.getNCarbon(), name);
+                assertEquals(fa.getNDoubleBonds(), chain.getNDoubleBonds(), name);
+                assertEquals(fa.getNHydroxy(), chain.getNHydroxy(), name);
+                assertEquals(fa.getLipidFaBondType(), chain.getLipidFaBondType(), name);
+                assertEquals(fa.isLcb(), chain.isLcb(), name);
+            }
+        }
+    }
+
+    @Test
+    public void testDictionaries() throws ParsingException {
+        VisitorParser<LipidAdduct> parser = Grammar.GOSLIN.newParser();
+        LipidColumnStore store = LipidColumnStore.of(Arrays.asList(
+                parser.parse("PC 34:1[M+H]1+"),
+                parser.parse("PC 16:0/18:1[M+H]1+"),
+                parser.parse("PE 34:1[M+Na]1+"),
+                parser.parse("PE 34:1")));
+        assertEquals(2, store.getHeadGroups().size());
+        assertEquals(store.getHeadGroupId(0), store.getHeadGroupId(1));
+        assertEquals(store.getAdductId(0), store.getAdductId(1));
+        assertNotEquals(store.getAdductId(1), store.getAdductId(2));
+        assertEquals("[M+Na]1+", store.getAdduct(2).getLipidString());
+        assertNotNull(store.getAdduct(3));
+        assertEquals(LipidLevel.STRUCTURAL_SUBSPECIES, store.getLevel(1));
+        assertEquals(18, store.getChainNCarbon(1, 1));
+    }
+
+    @Test
+    public void testForEachReusesView() {
+        LipidColumnStore store = LipidColumnStore.of(LIPIDS);
+        List<LipidColumnStore.View> views = new ArrayList<>();
+        AtomicInteger rows = new AtomicInteger();
+        store.forEach((view) -> {
+            assertEquals(rows.getAndIncrement(), view.getRow());
+            if (views.isEmpty()) {
+                views.add(view);
+            }
+            assertSame(views.get(0), view);
+        });
+        assertEquals(store.size(), rows.get());
+    }
+
+    @Test
+    public void testIllegalAccess() {
+        LipidColumnStore.Builder builder = LipidColumnStore.builder();
+        assertThrows(IllegalArgumentException.class, () -> {
+            builder.segmentRows(100);
+        });
+        builder.add(LIPIDS.get(0));
+        assertThrows(IllegalStateException.class, () -> {
+            builder.offHeap(true);
+        });
+        LipidColumnStore store = builder.build();
+        assertThrows(IllegalStateException.class, () -> {
+            builder.add(LIPIDS.get(0));
+        });
+        assertThrows(IndexOutOfBoundsException.class, () -> {
+            store.getMass(1);
+        });
+        assertThrows(IndexOutOfBoundsException.class, () -> {
+            store.view(0).getFa(store.getChainCount(0));
+        });
+    }
+}
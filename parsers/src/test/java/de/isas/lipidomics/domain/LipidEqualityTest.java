@@ -0,0 +1,166 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.VisitorParser;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class LipidEqualityTest {
+
+    @Test
+    public void testEqualLipidsHaveEqualHashCodes() throws ParsingException {
+        for (Grammar grammar : Grammar.values()) {
+            VisitorParser<LipidAdduct> parser = grammar.newParser();
+            for (String lipidName : grammar.getWarmUpCorpus()) {
+                LipidAdduct first;
+                try {
+                    first = parser.parse(lipidName);
+                } catch (ParsingException ex) {
+                    continue;
+                }
+                LipidAdduct second = parser.parse(lipidName);
+                assertNotSame(first.getLipid(), second.getLipid());
+                assertEquals(first, second, lipidName);
+                assertEquals(first.hashCode(), second.hashCode(), lipidName);
+                assertEquals(first.getLipid(), second.getLipid(), lipidName);
+                assertEquals(first.getLipid().getInfo(), second.getLipid().getInfo(), lipidName);
+                assertEquals(first.getLipid().getHeadGroup().hashCode(), second.getLipid().getHeadGroup().hashCode(), lipidName);
+                assertEquals(first.getCanonicalKey(), second.getCanonicalKey(), lipidName);
+                assertSame(first.getCanonicalKey(), first.getCanonicalKey());
+            }
+        }
+    }
+
+    @Test
+    public void testDedupByHashSetAndCanonicalKey() throws ParsingException {
+        VisitorParser<LipidAdduct> parser = Grammar.GOSLIN.newParser();
+        List<LipidAdduct> lipids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            lipids.add(parser.parse("PC 16:0/18:1"));
+            lipids.add(parser.parse("PC 16:0-18:1"));
+            lipids.add(parser.parse("PC 18:1-16:0"));
+            lipids.add(parser.parse("PC 34:1"));
+        }
+        Set<LipidAdduct> unique = new HashSet<>(lipids);
+        assertEquals(4, unique.size());
+        Map<String, LipidAdduct> byKey = new HashMap<>();
+        for (LipidAdduct lipid : lipids) {
+            byKey.putIfAbsent(lipid.getCanonicalKey(), lipid);
+        }
+        // the molecular subspecies only differ in the order of their FAs
+        assertEquals(3, byKey.size());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        // species
+        "GOSLIN, PC 34:1, LIPIDMAPS, PC(34:1), true",
+        "GOSLIN, PC 34:1, GOSLIN, PC 34:2, false",
+        "GOSLIN, PE O-36:2, GOSLIN, PE 36:2, false",
+        // molecular subspecies in any order
+        "GOSLIN, PE 18:1-16:0, GOSLIN, PE 16:0-18:1, true",
+        "GOSLIN, PE 18:1-16:0, GOSLIN, PE 18:0-16:1, false",
+        // structural subspecies in sn order
+        "GOSLIN, PC 16:0/18:1, LIPIDMAPS, PC(16:0/18:1), true",
+        "GOSLIN, PC 16:0/18:1, GOSLIN, PC 18:1/16:0, false",
+        // isomeric subspecies with double bond positions
+        "GOSLIN, 'PE 18:1(9Z)/16:0', LIPIDMAPS, 'PE(18:1(9Z)/16:0)', true",
+        "GOSLIN, 'PE 18:1(9Z)/16:0', GOSLIN, 'PE 18:1(11Z)/16:0', false",
+        // levels differ
+        "GOSLIN, PC 16:0/18:1, GOSLIN, PC 16:0-18:1, false"
+    })
+    public void testCanonicalKeys(Grammar grammarA, String nameA, Grammar grammarB, String nameB, boolean same) throws ParsingException {
+        LipidSpecies a = grammarA.newParser().parse(nameA).getLipid();
+        LipidSpecies b = grammarB.newParser().parse(nameB).getLipid();
+        assertEquals(same, a.getCanonicalKey().equals(b.getCanonicalKey()), a.getCanonicalKey() + " vs " + b.getCanonicalKey());
+    }
+
+    @Test
+    public void testCanonicalKeyOfConvertedLipid() throws ParsingException {
+        VisitorParser<LipidAdduct> parser = Grammar.GOSLIN.newParser();
+        LipidSpecies structural = parser.parse("PC 16:0/18:1").getLipid();
+        for (LipidLevel level : new LipidLevel[]{LipidLevel.MOLECULAR_SUBSPECIES, LipidLevel.SPECIES}) {
+            LipidSpecies parsed = parser.parse(structural.getLipidString(level)).getLipid();
+            assertEquals(parsed.getCanonicalKey(), structural.toLevel(level).getCanonicalKey());
+        }
+        assertEquals(structural.toLevel(LipidLevel.CLASS).getCanonicalKey(), parser.parse("PC 18:0/20:4").getLipid().toLevel(LipidLevel.CLASS).getCanonicalKey());
+        assertNotEquals(structural.toLevel(LipidLevel.CLASS).getCanonicalKey(), structural.toLevel(LipidLevel.CATEGORY).getCanonicalKey());
+    }
+
+    @Test
+    public void testSettersResetCachedHashAndKey() throws ParsingException {
+        LipidAdduct lipid = Grammar.GOSLIN.newParser().parse("PC 34:1[M+H]1+");
+        LipidAdduct other = Grammar.GOSLIN.newParser().parse("PC 34:1[M+Na]1+");
+        String key = lipid.getCanonicalKey();
+        int hash = lipid.hashCode();
+        assertNotEquals(lipid, other);
+        lipid.setAdduct(other.getAdduct());
+        assertNotEquals(key, lipid.getCanonicalKey());
+        assertEquals(other.getCanonicalKey(), lipid.getCanonicalKey());
+        assertEquals(other.hashCode(), lipid.hashCode());
+        assertNotEquals(hash, lipid.hashCode());
+        assertEquals(other, lipid);
+    }
+
+    @Test
+    public void testEqualsIsSymmetricAcrossSubclasses() throws ParsingException {
+        FattyAcid fa = new FattyAcid("SPECIES", -1, 34, 0, 1, LipidFaBondType.ESTER, false, ModificationsList.NONE);
+        LipidSpeciesInfo info = new LipidSpeciesInfo(LipidLevel.SPECIES, "SPECIES", -1, 34, 0, 1, LipidFaBondType.ESTER, false, ModificationsList.NONE);
+        assertSymmetricNotEqual(fa, info);
+
+        LipidSpecies structural = Grammar.GOSLIN.newParser().parse("PC 16:0/18:1").getLipid();
+        FattyAcid[] fas = structural.getFa().values().toArray(new FattyAcid[0]);
+        LipidSpecies molecular = new LipidMolecularSubspecies(structural.getHeadGroup(), fas);
+        LipidSpecies species = new LipidSpecies(structural.getHeadGroup(), Optional.of(structural.getInfo()));
+        LipidSpecies isomeric = Grammar.GOSLIN.newParser().parse("PC 16:0/18:1(9Z)").getLipid();
+        assertSymmetricNotEqual(species, molecular);
+        assertSymmetricNotEqual(species, structural);
+        assertSymmetricNotEqual(molecular, structural);
+        assertSymmetricNotEqual(structural, isomeric);
+        assertEquals(structural, new LipidStructuralSubspecies(structural.getHeadGroup(), fas));
+        assertEquals(new LipidStructuralSubspecies(structural.getHeadGroup(), fas), structural);
+    }
+
+    private static void assertSymmetricNotEqual(Object base, Object subclass) {
+        assertNotEquals(base, subclass);
+        assertNotEquals(subclass, base);
+    }
+
+    @Test
+    public void testDoubleBondPositionsAreUnmodifiable() throws ParsingException {
+        LipidSpecies lipid = Grammar.GOSLIN.newParser().parse("PE 18:1(9Z)/16:0").getLipid();
+        FattyAcid fa = lipid.getFa().values().iterator().next();
+        assertThrows(UnsupportedOperationException.class, () -> {
+            fa.getDoubleBondPositions().put(12, "Z");
+        });
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.VisitorParser;
+import de.isas.lipidomics.palinom.exceptions.ConstraintViolationException;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class LipidFingerprintTest {
+
+    private static final List<LipidAdduct> LIPIDS = WarmUpCorpusLipids.lipids();
+    private static final String DOUBLE_BOND_POSITIONS = "\\(\\d+[EZ]?(,\\d+[EZ]?)*\\)";
+
+    @Test
+    public void testFingerprintsFollowNormalizedNames() {
+        for (LipidLevel level : LipidLevel.values()) {
+            if (level == LipidLevel.UNDEFINED) {
+                continue;
+            }
+            Map<String, Long> byName = new HashMap<>();
+            Map<Long, String> byFingerprint = new HashMap<>();
+            for (LipidAdduct lipidAdduct : LIPIDS) {
+                LipidSpecies lipid = lipidAdduct.getLipid();
+                LipidLevel lipidLevel = lipid.getInfo().getLevel();
+                if (lipidLevel == LipidLevel.UNDEFINED || level.ordinal() > lipidLevel.ordinal()) {
+                    assertThrows(ConstraintViolationException.class, () -> {
+                        LipidFingerprint.of(lipid, level);
+                    });
+                    continue;
+                }
+                String name;
+                try {
+                    name = lipid.getLipidString(level, true);
+                } catch (ConstraintViolationException ex) {
+                    // species with the level of a subspecies
+                    assertThrows(ConstraintViolationException.class, () -> {
+                        LipidFingerprint.of(lipid, level);
+                    });
+                    continue;
+                }
+                if (level != LipidLevel.ISOMERIC_SUBSPECIES) {
+                    // FA names keep their double bond positions on all levels
+                    name = name.replaceAll(DOUBLE_BOND_POSITIONS, "");
+                }
+                if (level == LipidLevel.CLASS && lipid.getLipidClass() == LipidClass.UNDEFINED) {
+                    name = lipid.getHeadGroup().getName();
+                }
+                long fingerprint = LipidFingerprint.of(lipid, level);
+                assertNotEquals(LipidFingerprint.NO_FINGERPRINT, fingerprint, name);
+                assertEquals(fingerprint, LipidFingerprint.of(lipidAdduct, level), name);
+                Long previous = byName.putIfAbsent(name, fingerprint);
+                assertEquals(previous == null ? fingerprint : previous, fingerprint, level + ": " + name);
+                String previousName = byFingerprint.putIfAbsent(fingerprint, name);
+                // molecular subspecies names keep the order of their FAs
+                if (previousName != null && level != LipidLevel.MOLECULAR_SUBSPECIES) {
+                    assertEquals(previousName, name, level.name());
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "GOSLIN, PC 16:0/18:1, LIPIDMAPS, PC(16:0/18:1), STRUCTURAL_SUBSPECIES, true",
+        "GOSLIN, PC 16:0/18:1, SWISSLIPIDS, PC(16:0/18:1), STRUCTURAL_SUBSPECIES, true",
+        "GOSLIN, PC 16:0/18:1, HMDB, PC(16:0/18:1), STRUCTURAL_SUBSPECIES, true",
+        "GOSLIN, PC 16:0/18:1, GOSLIN, PC 18:1/16:0, STRUCTURAL_SUBSPECIES, false",
+        "GOSLIN, PC 16:0/18:1, GOSLIN, PC 18:1/16:0, MOLECULAR_SUBSPECIES, true",
+        "GOSLIN, PE 18:1-16:0, LIPIDMAPS, PE(16:0_18:1), MOLECULAR_SUBSPECIES, true",
+        "GOSLIN, PE 18:1-16:0, GOSLIN, PE 18:0-16:1, MOLECULAR_SUBSPECIES, false",
+        "GOSLIN, PE 18:1-16:0, GOSLIN, PE 18:0-16:1, SPECIES, true",
+        "GOSLIN, PC 16:0/18:1, LIPIDMAPS, PC(34:1), SPECIES, true",
+        "GOSLIN, PC 34:1, GOSLIN, PC 34:2, SPECIES, false",
+        "GOSLIN, PE O-36:2, GOSLIN, PE 36:2, SPECIES, false",
+        "GOSLIN, PE O-36:2, GOSLIN, PE 36:2, CLASS, true",
+        "GOSLIN, PC 34:1, GOSLIN, PE 34:1, CLASS, false",
+        "GOSLIN, PC 34:1, GOSLIN, PE 34:1, CATEGORY, true",
+        "GOSLIN, 'PE 18:1(9Z)/16:0', LIPIDMAPS, 'PE(18:1(9Z)/16:0)', ISOMERIC_SUBSPECIES, true",
+        "GOSLIN, 'PE 18:1(9Z)/16:0', GOSLIN, 'PE 18:1(11Z)/16:0', ISOMERIC_SUBSPECIES, false",
+        "GOSLIN, 'PE 18:1(9Z)/16:0', GOSLIN, 'PE 18:1(11Z)/16:0', STRUCTURAL_SUBSPECIES, true"
+    })
+    public void testFingerprintsAcrossGrammars(Grammar grammarA, String nameA, Grammar grammarB, String nameB, LipidLevel level, boolean same) throws ParsingException {
+        LipidSpecies a = grammarA.newParser().parse(nameA).getLipid();
+        LipidSpecies b = grammarB.newParser().parse(nameB).getLipid();
+        assertEquals(same, LipidFingerprint.of(a, level) == LipidFingerprint.of(b, level), a.getLipidString() + " vs " + b.getLipidString());
+    }
+
+    @Test
+    public void testFingerprintsAreStable() throws ParsingException {
+        // fingerprints must only change together with LipidFingerprint.VERSION
+        assertEquals(1, LipidFingerprint.VERSION);
+        LipidSpecies lipid = Grammar.GOSLIN.newParser().parse("PE 18:1(9Z)/16:0").getLipid();
+        assertEquals(4073355338082078248L, LipidFingerprint.of(lipid, LipidLevel.CATEGORY));
+        assertEquals(-7979768071679666459L, LipidFingerprint.of(lipid, LipidLevel.CLASS));
+        assertEquals(7577194841174644092L, LipidFingerprint.of(lipid, LipidLevel.SPECIES));
+        assertEquals(6894429950001341003L, LipidFingerprint.of(lipid, LipidLevel.MOLECULAR_SUBSPECIES));
+        assertEquals(4437625781797076973L, LipidFingerprint.of(lipid, LipidLevel.STRUCTURAL_SUBSPECIES));
+        assertEquals(4861003270887507495L, LipidFingerprint.of(lipid, LipidLevel.ISOMERIC_SUBSPECIES));
+    }
+
+    @Test
+    public void testJoin() throws ParsingException {
+        VisitorParser<LipidAdduct> goslin = Grammar.GOSLIN.newParser();
+        VisitorParser<LipidAdduct> lipidMaps = Grammar.LIPIDMAPS.newParser();
+        List<LipidSpecies> left = Arrays.asList(
+                goslin.parse("PC 16:0/18:1").getLipid(),
+                goslin.parse("PE 34:1").getLipid(),
+                goslin.parse("PC 18:1-16:0").getLipid(),
+                goslin.parse("PS 36:2").getLipid(),
+                null
+        );
+        List<LipidSpecies> right = Arrays.asList(
+                lipidMaps.parse("PE(16:0/18:1)").getLipid(),
+                lipidMaps.parse("PC(16:0_18:1)").getLipid(),
+                lipidMaps.parse("PC(34:1)").getLipid(),
+                lipidMaps.parse("PC(18:1/16:0)").getLipid()
+        );
+        List<String> matches = new ArrayList<>();
+        LipidFingerprint.join(left, right, LipidLevel.MOLECULAR_SUBSPECIES, (l, r) -> {
+            matches.add(l + "-" + r);
+        });
+        // the species on the left and right have no molecular fingerprint
+        assertEquals(Arrays.asList("0-1", "0-3", "2-1", "2-3"), matches);
+        matches.clear();
+        LipidFingerprint.join(left, right, LipidLevel.SPECIES, (l, r) -> {
+            matches.add(l + "-" + r);
+        });
+        assertEquals(Arrays.asList("0-1", "0-2", "0-3", "1-0", "2-1", "2-2", "2-3"), matches);
+        matches.clear();
+        LipidFingerprint.join(new long[]{5L, LipidFingerprint.NO_FINGERPRINT}, new long[]{LipidFingerprint.NO_FINGERPRINT}, (l, r) -> {
+            matches.add(l + "-" + r);
+        });
+        assertTrue(matches.isEmpty());
+    }
+
+    @Test
+    public void testNoCollisionsInGeneratedLibrary() {
+        Map<Long, String> byFingerprint = new HashMap<>();
+        LipidLibraryGenerator.builder().
+                lipidClasses(Arrays.asList(LipidClass.PC, LipidClass.TAG)).
+                minCarbon(14).
+                maxCarbon(22).
+                maxDoubleBonds(4).
+                bondTypes(Arrays.asList(LipidFaBondType.ESTER, LipidFaBondType.ETHER_PLASMENYL)).
+                parallelism(1).
+                build().
+                generate((lipid) -> {
+                    LipidLevel level = lipid.getInfo().getLevel();
+                    String name = lipid.getLipidString(level, true);
+                    String previous = byFingerprint.put(LipidFingerprint.of(lipid, level), name);
+                    assertTrue(previous == null || previous.equals(name), previous + " vs " + name);
+                });
+        assertTrue(byFingerprint.size() > 1000);
+    }
+}
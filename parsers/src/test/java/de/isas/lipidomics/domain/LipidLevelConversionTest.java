@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.exceptions.ConstraintViolationException;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class LipidLevelConversionTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "'PE 18:1(9Z)/22:6(4Z,7Z,10Z,13Z,16Z,19Z)', PE 18:1/22:6, PE 18:1-22:6, PE 40:7",
+        "PC 16:0/18:1, PC 16:0/18:1, PC 16:0-18:1, PC 34:1",
+        "TAG 16:0/18:1/18:2, TAG 16:0/18:1/18:2, TAG 16:0-18:1-18:2, TAG 52:3",
+        // sphingolipids have no molecular subspecies names in this grammar
+        "Cer 18:1;2/16:0, Cer 18:1;2/16:0, , Cer 34:1;2"
+    })
+    public void testConversionMatchesParsedLipid(String name, String structural, String molecular, String species) throws ParsingException {
+        LipidAdduct lipid = Grammar.GOSLIN.newParser().parse(name);
+        LipidLevel level = lipid.getLipid().getInfo().getLevel();
+        String[] names = {structural, molecular, species};
+        LipidLevel[] levels = {LipidLevel.STRUCTURAL_SUBSPECIES, LipidLevel.MOLECULAR_SUBSPECIES, LipidLevel.SPECIES};
+        for (int i = 0; i < levels.length; i++) {
+            if (levels[i].ordinal() > level.ordinal() || names[i] == null) {
+                continue;
+            }
+            LipidAdduct converted = lipid.toLevel(levels[i]);
+            LipidAdduct parsed = Grammar.GOSLIN.newParser().parse(names[i]);
+            assertEquals(levels[i], converted.getLipid().getInfo().getLevel());
+            assertEquals(parsed.getLipidString(), converted.getLipidString());
+            assertEquals(parsed.getLipid().getInfo(), converted.getLipid().getInfo());
+            assertEquals(parsed.getSumFormula(), converted.getSumFormula());
+            assertEquals(parsed.getMass(), converted.getMass(), 1e-6);
+        }
+    }
+
+    @Test
+    public void testConvertedLipidsAreCached() throws ParsingException {
+        LipidSpecies lipid = Grammar.GOSLIN.newParser().parse("PC 16:0/18:1").getLipid();
+        assertSame(lipid, lipid.toLevel(LipidLevel.STRUCTURAL_SUBSPECIES));
+        LipidSpecies species = lipid.toLevel(LipidLevel.SPECIES);
+        assertSame(species, lipid.toLevel(LipidLevel.SPECIES));
+        assertSame(lipid.toLevel(LipidLevel.MOLECULAR_SUBSPECIES), lipid.toLevel(LipidLevel.MOLECULAR_SUBSPECIES));
+        assertEquals("PC 34:1", species.getLipidString());
+    }
+
+    @Test
+    public void testClassAndCategoryAreCanonical() throws ParsingException {
+        LipidSpecies pc1 = Grammar.GOSLIN.newParser().parse("PC 16:0/18:1").getLipid();
+        LipidSpecies pc2 = Grammar.GOSLIN.newParser().parse("PC 32:0").getLipid();
+        LipidSpecies pe = Grammar.GOSLIN.newParser().parse("PE 16:0-18:1").getLipid();
+        assertSame(pc1.toLevel(LipidLevel.CLASS), pc2.toLevel(LipidLevel.CLASS));
+        assertNotSame(pc1.toLevel(LipidLevel.CLASS), pe.toLevel(LipidLevel.CLASS));
+        assertSame(pc1.toLevel(LipidLevel.CATEGORY), pc2.toLevel(LipidLevel.CATEGORY));
+        assertSame(pc1.toLevel(LipidLevel.CATEGORY), pe.toLevel(LipidLevel.CATEGORY));
+        assertEquals(pc1.toLevel(LipidLevel.CATEGORY), pe.toLevel(LipidLevel.CATEGORY));
+        assertEquals(pc1.toLevel(LipidLevel.CATEGORY).hashCode(), pe.toLevel(LipidLevel.CATEGORY).hashCode());
+        assertEquals(LipidCategory.GP, pe.toLevel(LipidLevel.CATEGORY).getLipidCategory());
+        assertEquals("PC", pc1.toLevel(LipidLevel.CLASS).getLipidString());
+        assertEquals("GP", pc1.toLevel(LipidLevel.CATEGORY).getLipidString());
+        assertSame(pc1.toLevel(LipidLevel.CLASS), pc1.toLevel(LipidLevel.SPECIES).toLevel(LipidLevel.CLASS));
+    }
+
+    @Test
+    public void testCategoryLevelAggregatesClasses() throws ParsingException {
+        Map<LipidSpecies, Integer> counts = new HashMap<>();
+        for (String name : new String[]{"PC 16:0/18:1", "PE 34:1", "PS 36:2", "TAG 52:3", "DAG 34:1"}) {
+            LipidSpecies category = Grammar.GOSLIN.newParser().parse(name).getLipid().toLevel(LipidLevel.CATEGORY);
+            counts.merge(category, 1, Integer::sum);
+        }
+        assertEquals(2, counts.size());
+        Map<String, Integer> byName = new HashMap<>();
+        counts.forEach((lipid, count) -> {
+            byName.put(lipid.getLipidString(), count);
+        });
+        assertEquals(3, byName.get("GP"));
+        assertEquals(2, byName.get("GL"));
+    }
+
+    @Test
+    public void testConversionToMoreSpecificLevelFails() throws ParsingException {
+        LipidSpecies lipid = Grammar.GOSLIN.newParser().parse("PC 16:0-18:1").getLipid();
+        assertThrows(ConstraintViolationException.class, () -> {
+            lipid.toLevel(LipidLevel.STRUCTURAL_SUBSPECIES);
+        });
+        assertThrows(ConstraintViolationException.class, () -> {
+            lipid.toLevel(LipidLevel.UNDEFINED);
+        });
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.VisitorParser;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class LipidLibraryGeneratorTest {
+
+    private static LipidLibraryGenerator.LipidLibraryGeneratorBuilder chains() {
+        return LipidLibraryGenerator.builder().
+                minCarbon(14).
+                maxCarbon(22).
+                minDoubleBonds(0).
+                maxDoubleBonds(4).
+                minLcbHydroxy(2).
+                maxLcbHydroxy(2).
+                parallelism(4);
+    }
+
+    @Test
+    public void testUnorderedCombinationsAreGeneratedOnce() {
+        // 9 carbon counts times 5 double bond counts
+        int nChains = 9 * 5;
+        LipidLibraryGenerator generator = chains().lipidClasses(Arrays.asList(LipidClass.PC, LipidClass.LPC, LipidClass.TAG)).build();
+        ConcurrentLinkedQueue<LipidSpecies> lipids = new ConcurrentLinkedQueue<>();
+        long count = generator.generate(lipids::add);
+        assertEquals(lipids.size(), count);
+        assertEquals(nChains * (nChains + 1) / 2, lipids.stream().filter((lipid) -> {
+            return lipid.getLipidClass() == LipidClass.PC;
+        }).count());
+        assertEquals(nChains, lipids.stream().filter((lipid) -> {
+            return lipid.getLipidClass() == LipidClass.LPC;
+        }).count());
+        assertEquals(nChains * (nChains + 1) * (nChains + 2) / 6, lipids.stream().filter((lipid) -> {
+            return lipid.getLipidClass() == LipidClass.TAG;
+        }).count());
+        Set<String> names = lipids.stream().map((lipid) -> {
+            assertEquals(LipidLevel.MOLECULAR_SUBSPECIES, lipid.getInfo().getLevel());
+            return sortedChains(lipid);
+        }).collect(Collectors.toSet());
+        assertEquals(lipids.size(), names.size());
+    }
+
+    @Test
+    public void testGeneratedLipidsMatchParsedNames() throws ParsingException {
+        LipidLibraryGenerator generator = chains().lipidClasses(Arrays.asList(LipidClass.PC, LipidClass.PE, LipidClass.CER, LipidClass.SM)).
+                maxCarbon(16).
+                bondTypes(Arrays.asList(LipidFaBondType.ESTER, LipidFaBondType.ETHER_PLASMANYL, LipidFaBondType.ETHER_PLASMENYL)).
+                build();
+        ConcurrentLinkedQueue<LipidSpecies> lipids = new ConcurrentLinkedQueue<>();
+        generator.generate(lipids::add);
+        VisitorParser<LipidAdduct> parser = Grammar.GOSLIN.newParser();
+        int nEther = 0;
+        for (LipidSpecies lipid : lipids) {
+            assertTrue(lipid.getFa().values().stream().filter((fa) -> {
+                return fa.getLipidFaBondType() == LipidFaBondType.ETHER_PLASMANYL || fa.getLipidFaBondType() == LipidFaBondType.ETHER_PLASMENYL;
+            }).count() <= 1);
+            if (lipid.isEtherLipid()) {
+                nEther++;
+                assertTrue(lipid.getLipidCategory() == LipidCategory.GP || lipid.getLipidCategory() == LipidCategory.GL);
+            }
+            String lipidName = lipid.getLipidString(LipidLevel.SPECIES);
+            LipidAdduct parsed = parser.parse(lipidName);
+            assertEquals(parsed.getLipid().getElements().getSumFormula(), lipid.getElements().getSumFormula(), lipidName);
+        }
+        assertTrue(nEther > 0);
+    }
+
+    @Test
+    public void testSpeciesAreTotalsOfCombinations() {
+        List<LipidClass> lipidClasses = Arrays.asList(LipidClass.PE, LipidClass.TAG, LipidClass.CER);
+        Set<String> expected = ConcurrentHashMap.newKeySet();
+        chains().lipidClasses(lipidClasses).
+                bondTypes(Arrays.asList(LipidFaBondType.ESTER, LipidFaBondType.ETHER_PLASMENYL)).
+                build().
+                generate((lipid) -> {
+                    expected.add(lipid.getLipidString(LipidLevel.SPECIES));
+                });
+        ConcurrentLinkedQueue<LipidSpecies> species = new ConcurrentLinkedQueue<>();
+        long count = chains().lipidClasses(lipidClasses).
+                bondTypes(Arrays.asList(LipidFaBondType.ESTER, LipidFaBondType.ETHER_PLASMENYL)).
+                level(LipidLevel.SPECIES).
+                build().
+                generate(species::add);
+        assertEquals(expected.size(), count);
+        assertEquals(expected, species.stream().map((lipid) -> {
+            assertEquals(LipidLevel.SPECIES, lipid.getInfo().getLevel());
+            return lipid.getLipidString();
+        }).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void testConsumerExceptionCancelsGeneration() {
+        LipidLibraryGenerator generator = chains().lipidClasses(Collections.singletonList(LipidClass.TAG)).build();
+        assertThrows(IllegalStateException.class, () -> {
+            generator.generate((lipid) -> {
+                throw new IllegalStateException("stop");
+            });
+        });
+    }
+
+    @Test
+    public void testAllClasses() {
+        LipidLibraryGenerator generator = LipidLibraryGenerator.builder().
+                minCarbon(16).
+                maxCarbon(18).
+                maxDoubleBonds(1).
+                build();
+        assertFalse(generator.getLipidClasses().contains(LipidClass.UNDEFINED));
+        assertFalse(generator.getLipidClasses().contains(LipidClass.AA));
+        assertTrue(generator.getLipidClasses().contains(LipidClass.PC));
+        assertTrue(generator.generate((lipid) -> {
+        }) > generator.getLipidClasses().size());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            LipidLibraryGenerator.builder().minCarbon(0).maxCarbon(10).build();
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            LipidLibraryGenerator.builder().minCarbon(20).maxCarbon(10).build();
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            LipidLibraryGenerator.builder().minCarbon(10).maxCarbon(20).bondTypes(Arrays.asList(LipidFaBondType.UNDEFINED)).build();
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            LipidLibraryGenerator.builder().minCarbon(10).maxCarbon(20).level(LipidLevel.STRUCTURAL_SUBSPECIES).build();
+        });
+    }
+
+    private static String sortedChains(LipidSpecies lipid) {
+        return lipid.getHeadGroup().getName() + " " + lipid.getFa().values().stream().map((fa) -> {
+            return fa.buildSubstructureName(LipidLevel.MOLECULAR_SUBSPECIES);
+        }).sorted().collect(Collectors.joining("_"));
+    }
+}
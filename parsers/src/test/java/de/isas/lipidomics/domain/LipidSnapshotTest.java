@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.VisitorParser;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class LipidSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        Path path = directory.resolve("lipids.snapshot");
+        List<String> names = WarmUpCorpusLipids.names();
+        List<LipidAdduct> lipids = WarmUpCorpusLipids.lipids();
+        try (LipidSnapshot.Writer writer = LipidSnapshot.writer(path)) {
+            for (int i = 0; i < lipids.size(); i++) {
+                assertEquals(i, writer.add(names.get(i), lipids.get(i)));
+            }
+        }
+        LipidSnapshot snapshot = LipidSnapshot.open(path);
+        assertEquals(lipids.size(), snapshot.size());
+        for (int record = lipids.size() - 1; record >= 0; record--) {
+            String name = names.get(record);
+            assertEquals(name, snapshot.getName(record));
+            assertEquals(lipids.get(record), snapshot.get(record), name);
+            // names of several grammars may be equal
+            int first = names.indexOf(name);
+            assertEquals(first, snapshot.indexOf(name), name);
+            assertEquals(lipids.get(first), snapshot.find(name).get(), name);
+        }
+        assertEquals(-1, snapshot.indexOf("PC 99:1"));
+        assertFalse(snapshot.find("").isPresent());
+        assertThrows(IndexOutOfBoundsException.class, () -> {
+            snapshot.get(lipids.size());
+        });
+    }
+
+    @Test
+    public void testSharedHeadGroups() throws IOException, ParsingException {
+        Path path = directory.resolve("pc.snapshot");
+        VisitorParser<LipidAdduct> parser = Grammar.GOSLIN.newParser();
+        try (LipidSnapshot.Writer writer = LipidSnapshot.writer(path)) {
+            writer.add("PC 16:0/18:1", parser.parse("PC 16:0/18:1"));
+            writer.add("PC 34:1", parser.parse("PC 34:1"));
+        }
+        LipidSnapshot snapshot = LipidSnapshot.open(path);
+        assertSame(snapshot.get(0).getLipid().getHeadGroup(), snapshot.get(1).getLipid().getHeadGroup());
+        assertEquals("PC 34:1", snapshot.get(1).getLipidString());
+    }
+
+    @Test
+    public void testEmptyAndInvalidFiles() throws IOException {
+        Path path = directory.resolve("empty.snapshot");
+        LipidSnapshot.writer(path).close();
+        LipidSnapshot snapshot = LipidSnapshot.open(path);
+        assertEquals(0, snapshot.size());
+        assertEquals(-1, snapshot.indexOf("PC 34:1"));
+        Path invalid = directory.resolve("invalid.snapshot");
+        Files.write(invalid, new byte[64]);
+        assertThrows(IOException.class, () -> {
+            LipidSnapshot.open(invalid);
+        });
+    }
+}
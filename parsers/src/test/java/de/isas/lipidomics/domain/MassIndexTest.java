@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class MassIndexTest {
+
+    private static final List<LipidAdduct> LIPIDS = WarmUpCorpusLipids.lipids();
+    private static final List<Adduct> ADDUCTS = Arrays.asList(
+            new Adduct("", "+H", 1, 1),
+            new Adduct("", "+NH4", 1, 1),
+            new Adduct("", "+Na", 1, 1),
+            new Adduct("", "-H", 1, -1),
+            new Adduct("", "+HCOO", 1, -1));
+
+    @Test
+    public void testIndexIsSortedByMass() {
+        MassIndex index = MassIndex.of(LIPIDS);
+        assertTrue(index.size() > 0);
+        for (int i = 1; i < index.size(); i++) {
+            assertTrue(index.getMass(i - 1) <= index.getMass(i));
+        }
+        for (int i = 0; i < index.size(); i++) {
+            LipidAdduct lipid = index.getLipidAdduct(i);
+            assertSame(LIPIDS.get(index.getLipidId(i)), lipid);
+            assertEquals(lipid.getMass(), index.getMass(i), 0.0d);
+            assertEquals(MassIndex.NO_ADDUCT_ID, index.getAdductId(i));
+        }
+    }
+
+    @Test
+    public void testFindPpmMatchesLinearScan() {
+        MassIndex index = MassIndex.of(LIPIDS);
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            // half of the queries close to an indexed mass
+            double mass = i % 2 == 0 ? index.getMass(random.nextInt(index.size())) + (random.nextDouble() - 0.5d) * 0.01d : 100 + random.nextDouble() * 1900;
+            double ppm = 1 + random.nextInt(20);
+            MassIndex.Window window = index.findPpm(mass, ppm);
+            assertEquals(scan(index, mass - mass * ppm * 1e-6, mass + mass * ppm * 1e-6), toList(window), "mass " + mass + " ppm " + ppm);
+        }
+    }
+
+    @Test
+    public void testFindDa() {
+        MassIndex index = MassIndex.of(LIPIDS);
+        double mass = index.getMass(index.size() / 2);
+        MassIndex.Window window = index.findDa(mass, 0.5d);
+        assertFalse(window.isEmpty());
+        assertEquals(scan(index, mass - 0.5d, mass + 0.5d), toList(window));
+        assertTrue(index.findDa(-100, 1).isEmpty());
+        assertTrue(index.findDa(1e6, 1).isEmpty());
+        assertEquals(index.size(), index.find(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY).size());
+    }
+
+    @Test
+    public void testSpeciesTimesAdducts() {
+        List<LipidSpecies> species = LIPIDS.stream().map(LipidAdduct::getLipid).collect(Collectors.toList());
+        MassIndex index = MassIndex.of(species, ADDUCTS);
+        assertEquals(MassIndex.of(LIPIDS).size() * ADDUCTS.size(), index.size());
+        for (int i = 0; i < index.size(); i += 7) {
+            LipidAdduct lipidAdduct = index.getLipidAdduct(i);
+            assertSame(species.get(index.getLipidId(i)), lipidAdduct.getLipid());
+            assertSame(ADDUCTS.get(index.getAdductId(i)), lipidAdduct.getAdduct());
+            assertEquals(lipidAdduct.getMass(), index.getMass(i), 1e-9);
+        }
+    }
+
+    @Test
+    public void testJoinPpmMatchesSingleQueries() {
+        MassIndex index = MassIndex.of(LIPIDS.stream().map(LipidAdduct::getLipid).collect(Collectors.toList()), ADDUCTS);
+        Random random = new Random(7);
+        double[] peaks = new double[2000];
+        for (int i = 0; i < peaks.length; i++) {
+            peaks[i] = i % 3 == 0 ? index.getMass(random.nextInt(index.size())) : 150 + random.nextDouble() * 1500;
+        }
+        Arrays.sort(peaks);
+        List<int[]> expected = new ArrayList<>();
+        for (int peak = 0; peak < peaks.length; peak++) {
+            MassIndex.Window window = index.findPpm(peaks[peak], 5);
+            for (int entry = window.getFrom(); entry < window.getTo(); entry++) {
+                expected.add(new int[]{peak, entry});
+            }
+        }
+        List<int[]> actual = new ArrayList<>();
+        index.joinPpm(peaks, 5, (peak, entry) -> {
+            actual.add(new int[]{peak, entry});
+        });
+        assertTrue(expected.size() >= peaks.length / 3);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void testJoinRejectsUnsortedPeaks() {
+        MassIndex index = MassIndex.of(LIPIDS);
+        assertThrows(IllegalArgumentException.class, () -> {
+            index.joinDa(new double[]{500, 400}, 0.01, (peak, entry) -> {
+            });
+        });
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        MassIndex index = MassIndex.of(Collections.emptyList());
+        assertEquals(0, index.size());
+        assertTrue(index.findPpm(500, 10).isEmpty());
+        assertEquals(0, index.lowerBound(500));
+    }
+
+    private static List<Integer> scan(MassIndex index, double minMass, double maxMass) {
+        List<Integer> entries = new ArrayList<>();
+        for (int i = 0; i < index.size(); i++) {
+            if (index.getMass(i) >= minMass && index.getMass(i) <= maxMass) {
+                entries.add(i);
+            }
+        }
+        return entries;
+    }
+
+    private static List<Integer> toList(MassIndex.Window window) {
+        List<Integer> entries = new ArrayList<>();
+        for (int i = window.getFrom(); i < window.getTo(); i++) {
+            entries.add(i);
+        }
+        return entries;
+    }
+}
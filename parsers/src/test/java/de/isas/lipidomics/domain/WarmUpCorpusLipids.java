@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.domain;
+
+import de.isas.lipidomics.palinom.Grammar;
+import de.isas.lipidomics.palinom.VisitorParser;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The lipids of the warm-up corpora of all grammars, parsed once per test JVM
+ * and shared by the tests of the domain package. Names that a grammar can not
+ * parse are skipped.
+ *
+ * @author nils.hoffmann
+ */
+final class WarmUpCorpusLipids {
+
+    private static final List<String> NAMES;
+    private static final List<LipidAdduct> LIPIDS;
+
+    static {
+        List<String> names = new ArrayList<>();
+        List<LipidAdduct> lipids = new ArrayList<>();
+        for (Grammar grammar : Grammar.values()) {
+            VisitorParser<LipidAdduct> parser = grammar.newParser();
+            for (String lipidName : grammar.getWarmUpCorpus()) {
+                try {
+                    lipids.add(parser.parse(lipidName));
+                    names.add(lipidName);
+                } catch (ParsingException ex) {
+                    // not a lipid of this grammar
+                }
+            }
+        }
+        NAMES = Collections.unmodifiableList(names);
+        LIPIDS = Collections.unmodifiableList(lipids);
+    }
+
+    private WarmUpCorpusLipids() {
+    }
+
+    /**
+     * Returns the names of the parsed lipids, in the order of
+     * {@link #lipids()}. Names of several grammars may be equal.
+     *
+     * @return the lipid names.
+     */
+    static List<String> names() {
+        return NAMES;
+    }
+
+    /**
+     * Returns the parsed lipids, in grammar and corpus order.
+     *
+     * @return the lipids.
+     */
+    static List<LipidAdduct> lipids() {
+        return LIPIDS;
+    }
+}
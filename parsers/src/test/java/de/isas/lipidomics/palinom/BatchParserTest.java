@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.domain.LipidColumnStore;
+import de.isas.lipidomics.domain.LipidLevel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class BatchParserTest {
+
+    @Test
+    public void testParseAllKeepsOrder() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            names.add(i % 5 == 0 ? "no lipid" : "PE " + (30 + i % 8) + ":" + (i % 3));
+        }
+        try (BatchParser parser = BatchParser.builder().grammars(Arrays.asList(Grammar.GOSLIN)).build()) {
+            List<ParseResult<LipidAdduct>> results = parser.parseAll(names);
+            assertEquals(names.size(), results.size());
+            for (int i = 0; i < names.size(); i++) {
+                assertEquals(i, results.get(i).getIndex());
+                assertEquals(i % 5 != 0, results.get(i).isSuccess());
+                if (results.get(i).isSuccess()) {
+                    assertEquals(names.get(i), results.get(i).getValue().getLipidString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testParseAsyncWithFallback() throws Exception {
+        try (BatchParser parser = new BatchParser()) {
+            ParseResult<LipidAdduct> result = parser.parseAsync("PC(16:0/18:1)").get();
+            assertTrue(result.isSuccess());
+            assertEquals("PC 16:0/18:1", result.get().getLipidString());
+            assertEquals(Grammar.LIPIDMAPS, result.getGrammar());
+            assertEquals(Grammar.GOSLIN, parser.parse("PC 16:0/18:1").getGrammar());
+        }
+    }
+
+    @Test
+    public void testGivenExecutorIsNotShutDown() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            try (BatchParser parser = BatchParser.builder().executor(executor).build()) {
+                assertSame(executor, parser.getExecutor());
+                assertTrue(parser.parseAll(Arrays.asList("SM 18:1;2/16:0")).get(0).isSuccess());
+            }
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+        BatchParser parser = new BatchParser();
+        parser.close();
+        assertTrue(parser.getExecutor().isShutdown());
+    }
+
+    @Test
+    public void testLoadColumnStore() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 2 * BatchParser.LOAD_CHUNK_SIZE + 10; i++) {
+            names.add(i % 100 == 0 ? "no lipid" : "PC " + (14 + i % 10) + ":0/" + (16 + i % 6) + ":1");
+        }
+        List<ParseResult<LipidAdduct>> failures = new ArrayList<>();
+        LipidColumnStore.Builder builder = LipidColumnStore.builder().segmentRows(1024);
+        try (BatchParser parser = BatchParser.builder().grammars(Arrays.asList(Grammar.GOSLIN)).build()) {
+            int added = parser.load(names.iterator(), builder, failures::add);
+            assertEquals(names.size() - failures.size(), added);
+        }
+        LipidColumnStore store = builder.build();
+        assertEquals(83, failures.size());
+        assertEquals(100, failures.get(1).getIndex());
+        LipidColumnStore.View view = store.view();
+        int row = 0;
+        for (int i = 0; i < names.size(); i++) {
+            if (i % 100 == 0) {
+                continue;
+            }
+            view.moveTo(row++);
+            assertEquals(LipidLevel.STRUCTURAL_SUBSPECIES, view.getLevel());
+            assertEquals(14 + i % 10, view.getFa(0).getNCarbon());
+            assertEquals(16 + i % 6, view.getFa(1).getNCarbon());
+        }
+        assertEquals(store.size(), row);
+    }
+}
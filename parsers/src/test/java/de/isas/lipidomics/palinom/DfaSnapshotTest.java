@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.palinom.exceptions.ConstraintViolationException;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.dfa.DFAState;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+@Slf4j
+public class DfaSnapshotTest {
+
+    @ParameterizedTest
+    @EnumSource(Grammar.class)
+    public void testSaveAndLoad(Grammar grammar, @TempDir Path directory) throws IOException, ParsingException {
+        List<String> expected = parseCorpus(grammar);
+        int states = DfaSnapshot.getNumberOfStates(grammar);
+        assertTrue(states > 0);
+        Goslin.saveDfaSnapshots(EnumSet.of(grammar), directory);
+        assertTrue(Files.size(directory.resolve(grammar.name().toLowerCase() + DfaSnapshot.FILE_EXTENSION)) > 0);
+
+        clearDfa(grammar);
+        assertEquals(0, DfaSnapshot.getNumberOfStates(grammar));
+        // a grammar warmed up by another test stays ready
+        WarmUpState expectedState = Goslin.isReady(grammar) ? WarmUpState.READY : WarmUpState.RESTORED;
+        Set<Grammar> restored = Goslin.loadDfaSnapshots(EnumSet.of(grammar), directory);
+        assertEquals(EnumSet.of(grammar), restored);
+        assertEquals(expectedState, Goslin.getState(grammar));
+        assertEquals(states, DfaSnapshot.getNumberOfStates(grammar));
+
+        // all predictions for the corpus are served from the restored DFA
+        assertEquals(expected, parseCorpus(grammar));
+        assertEquals(states, DfaSnapshot.getNumberOfStates(grammar), grammar.name());
+    }
+
+    @Test
+    public void testLoadIsSkippedForPopulatedDfa() throws IOException, ParsingException {
+        parseCorpus(Grammar.GOSLIN);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DfaSnapshot.write(Grammar.GOSLIN, baos);
+        assertFalse(DfaSnapshot.read(Grammar.GOSLIN, new ByteArrayInputStream(baos.toByteArray())));
+    }
+
+    @Test
+    public void testLoadKeepsPartiallyPopulatedDfa() throws IOException, ParsingException {
+        parseCorpus(Grammar.LIPIDMAPS);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DfaSnapshot.write(Grammar.LIPIDMAPS, baos);
+        clearDfa(Grammar.LIPIDMAPS);
+        // a parse that ran before the snapshot was installed, with a name that
+        // is not in the name dictionary
+        Grammar.LIPIDMAPS.newParser().parse("PE(21:0/23:5)");
+        DFA[] decisionToDFA = Grammar.LIPIDMAPS.newAntlrParser().getInterpreter().decisionToDFA;
+        Map<DFA, Set<DFAState>> populated = new IdentityHashMap<>();
+        for (DFA dfa : decisionToDFA) {
+            if (!dfa.states.isEmpty()) {
+                populated.put(dfa, new HashSet<>(dfa.states.keySet()));
+            }
+        }
+        assertFalse(populated.isEmpty());
+        assertTrue(populated.size() < decisionToDFA.length);
+
+        assertTrue(DfaSnapshot.read(Grammar.LIPIDMAPS, new ByteArrayInputStream(baos.toByteArray())));
+        for (Map.Entry<DFA, Set<DFAState>> entry : populated.entrySet()) {
+            assertEquals(entry.getValue(), entry.getKey().states.keySet());
+        }
+        assertTrue(DfaSnapshot.getNumberOfStates(Grammar.LIPIDMAPS) > populated.values().stream().mapToInt(Set::size).sum());
+        parseCorpus(Grammar.LIPIDMAPS);
+    }
+
+    @Test
+    public void testLoadIsSkippedForOtherGrammar() throws IOException, ParsingException {
+        parseCorpus(Grammar.LIPIDMAPS);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DfaSnapshot.write(Grammar.LIPIDMAPS, baos);
+        clearDfa(Grammar.SWISSLIPIDS);
+        assertFalse(DfaSnapshot.read(Grammar.SWISSLIPIDS, new ByteArrayInputStream(baos.toByteArray())));
+        assertEquals(0, DfaSnapshot.getNumberOfStates(Grammar.SWISSLIPIDS));
+    }
+
+    @Test
+    public void testLoadMissingFile(@TempDir Path directory) throws IOException {
+        assertTrue(Goslin.loadDfaSnapshots(EnumSet.allOf(Grammar.class), directory).isEmpty());
+    }
+
+    private static void clearDfa(Grammar grammar) {
+        grammar.newAntlrParser().getInterpreter().clearDFA();
+    }
+
+    private static List<String> parseCorpus(Grammar grammar) throws ParsingException {
+        VisitorParser<LipidAdduct> parser = grammar.newParser();
+        List<String> names = new ArrayList<>();
+        for (String lipidName : grammar.getWarmUpCorpus()) {
+            LipidAdduct lipidAdduct = parser.parse(lipidName);
+            try {
+                names.add(lipidAdduct.toString());
+            } catch (ConstraintViolationException ex) {
+                // some lipids can not be rendered at their own level yet
+                names.add(ex.getMessage());
+            }
+        }
+        return names;
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+@Slf4j
+public class GoslinTest {
+
+    @Test
+    public void testBundledWarmUpCorpora() {
+        for (Grammar grammar : Grammar.values()) {
+            assertFalse(grammar.getWarmUpCorpus().isEmpty(), grammar.name());
+        }
+    }
+
+    @Test
+    public void testWarmUp() {
+        EnumSet<Grammar> grammars = EnumSet.allOf(Grammar.class);
+        Map<Grammar, WarmUpResult> results = Goslin.warmUp(grammars);
+        assertEquals(grammars, results.keySet());
+        results.values().forEach((result) -> {
+            log.info("{}", result);
+            assertEquals(WarmUpState.READY, result.getState());
+            assertEquals(result.getGrammar().getWarmUpCorpus().size(), result.getParsed(), result.getGrammar().name());
+            assertEquals(0, result.getFailed(), result.getGrammar().name());
+        });
+        assertTrue(Goslin.isReady(grammars));
+    }
+
+    @Test
+    public void testWarmUpInBackground() throws Exception {
+        EnumSet<Grammar> grammars = EnumSet.of(Grammar.GOSLIN);
+        Map<Grammar, WarmUpResult> results = Goslin.warmUpInBackground(grammars, (grammar) -> {
+            return Arrays.asList("PC 18:1/12:0", "PE 18:1(11Z)/18:1", "NOT A LIPID");
+        }).get(1, TimeUnit.MINUTES);
+        WarmUpResult result = results.get(Grammar.GOSLIN);
+        assertEquals(WarmUpState.READY, result.getState());
+        assertEquals(2, result.getParsed());
+        assertEquals(1, result.getFailed());
+        assertTrue(Goslin.isReady(Grammar.GOSLIN));
+    }
+
+    @Test
+    public void testWarmUpFailure() {
+        // a grammar that was warmed up by another test stays ready
+        WarmUpState expected = Goslin.isReady(Grammar.HMDB) ? WarmUpState.READY : WarmUpState.FAILED;
+        WarmUpResult result = Goslin.warmUp(EnumSet.of(Grammar.HMDB), (grammar) -> {
+            throw new IllegalStateException("Corpus not available!");
+        }).get(Grammar.HMDB);
+        assertEquals(WarmUpState.FAILED, result.getState());
+        assertEquals(expected, Goslin.getState(Grammar.HMDB));
+    }
+
+    @Test
+    public void testReadyGrammarStaysReady() throws Exception {
+        Goslin.warmUp(EnumSet.of(Grammar.GOSLIN), (grammar) -> {
+            return Arrays.asList("PC 18:1/12:0");
+        });
+        assertTrue(Goslin.isReady(Grammar.GOSLIN));
+        CountDownLatch warmingUp = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Map<Grammar, WarmUpResult>> future = Goslin.warmUpInBackground(EnumSet.of(Grammar.GOSLIN), (grammar) -> {
+            warmingUp.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return Arrays.asList("PE 18:1(11Z)/18:1");
+        });
+        assertTrue(warmingUp.await(1, TimeUnit.MINUTES));
+        assertTrue(Goslin.isReady(Grammar.GOSLIN));
+        release.countDown();
+        assertEquals(WarmUpState.READY, future.get(1, TimeUnit.MINUTES).get(Grammar.GOSLIN).getState());
+
+        WarmUpResult failed = Goslin.warmUp(EnumSet.of(Grammar.GOSLIN), (grammar) -> {
+            throw new IllegalStateException("Corpus not available!");
+        }).get(Grammar.GOSLIN);
+        assertEquals(WarmUpState.FAILED, failed.getState());
+        assertTrue(Goslin.isReady(Grammar.GOSLIN));
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class GrammarPreFilterTest {
+
+    private static final String[] CORPORA = {
+        "/de/isas/lipidomics/palinom/testfiles/goslin-short.csv",
+        "/de/isas/lipidomics/palinom/testfiles/goslin-test.csv",
+        "/de/isas/lipidomics/palinom/testfiles/hmdb-parsed-error-test.csv",
+        "/de/isas/lipidomics/palinom/testfiles/hmdb-parsed-test.csv",
+        "/de/isas/lipidomics/palinom/testfiles/hmdb-test.csv",
+        "/de/isas/lipidomics/palinom/testfiles/hmdb-unparsed-test.csv",
+        "/de/isas/lipidomics/palinom/testfiles/lipid-maps-test.csv",
+        "/de/isas/lipidomics/palinom/testfiles/swiss-lipids-test.csv",
+        "/de/isas/lipidomics/palinom/lipidnames.txt",
+        "/de/isas/lipidomics/palinom/lipidnames-invalid.txt",
+        "/de/isas/lipidomics/palinom/wenk-lipids.txt",
+        "/de/isas/lipidomics/palinom/wenk-lm-lipids.txt",
+        "/de/isas/lipidomics/palinom/wenk-sl-lipids.txt"
+    };
+
+    private static final List<String> NAMES = new ArrayList<>();
+
+    @BeforeAll
+    public static void readCorpora() throws IOException {
+        Set<String> names = new LinkedHashSet<>();
+        for (String corpus : CORPORA) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(GrammarPreFilterTest.class.getResourceAsStream(corpus), StandardCharsets.UTF_8))) {
+                reader.lines().forEach((line) -> {
+                    names.add(line.split("\t", -1)[0]);
+                });
+            }
+        }
+        for (Grammar grammar : Grammar.values()) {
+            names.addAll(grammar.getWarmUpCorpus());
+        }
+        NAMES.addAll(names);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Grammar.class)
+    public void testNoFalseRejectsOnBundledCorpora(Grammar grammar) {
+        GrammarPreFilter filter = grammar.getPreFilter();
+        VisitorParser<LipidAdduct> parser = grammar.newParser();
+        List<String> falseRejects = new ArrayList<>();
+        int rejected = 0;
+        for (String lipidName : NAMES) {
+            if (filter.accepts(lipidName)) {
+                continue;
+            }
+            rejected++;
+            try {
+                parser.parse(lipidName);
+                falseRejects.add(lipidName);
+            } catch (ParsingException ex) {
+                // expected
+            }
+        }
+        assertEquals(0, falseRejects.size(), "False rejects for " + grammar + ": " + falseRejects);
+        // the corpora of the other grammars contain many names of other formats
+        assertTrue(rejected > 0);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Grammar.class)
+    public void testRejectsNonLipids(Grammar grammar) {
+        GrammarPreFilter filter = grammar.getPreFilter();
+        assertFalse(filter.accepts(""));
+        assertFalse(filter.accepts("PC 34:1#"));
+        assertFalse(filter.accepts("PC 34:1é"));
+        assertFalse(filter.accepts(" PC 34:1"));
+        assertTrue(filter.accepts(grammar.getWarmUpCorpus().get(0)));
+    }
+
+    @Test
+    public void testRejectsNonLipidsForGoslin() {
+        GrammarPreFilter filter = Grammar.GOSLIN.getPreFilter();
+        assertFalse(filter.accepts("12345"));
+        assertFalse(filter.accepts("HMDB0000564"));
+        assertFalse(filter.accepts("Cortexolone"));
+        assertFalse(filter.accepts("P"));
+        assertTrue(filter.accepts("PC"));
+        assertTrue(filter.accepts("PE 16:2\\18:3;1"));
+    }
+
+    @Test
+    public void testPreFilterIsShared() {
+        assertSame(Grammar.GOSLIN.getPreFilter(), Grammar.GOSLIN.getPreFilter());
+        assertTrue(Grammar.GOSLIN.getPreFilter().isAllowed(':'));
+        assertFalse(Grammar.GOSLIN.getPreFilter().isAllowed('#'));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.domain.LipidSnapshot;
+import de.isas.lipidomics.palinom.exceptions.ParseLimitExceededException;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class NameDictionaryTest {
+
+    static final String NO_DICTIONARIES = "name dictionaries are only generated with the name-dictionaries profile";
+
+    @ParameterizedTest
+    @EnumSource(value = Grammar.class, names = {"SWISSLIPIDS", "LIPIDMAPS", "HMDB"})
+    public void testKnownNamesEqualParsedNames(Grammar grammar) throws ParsingException {
+        NameDictionary dictionary = grammar.getNameDictionary();
+        assumeTrue(dictionary.size() > 0, NO_DICTIONARIES);
+        VisitorParser<LipidAdduct> parser = grammar.newParser();
+        VisitorParser<LipidAdduct> dictionaryParser = grammar.newParser(ParserOptions.builder().
+                useNameDictionary(true).
+                build());
+        int known = 0;
+        for (String lipidName : grammar.getWarmUpCorpus()) {
+            if (!dictionary.contains(lipidName)) {
+                continue;
+            }
+            known++;
+            LipidAdduct parsed = parser.parse(lipidName);
+            LipidAdduct decoded = dictionaryParser.parse(lipidName);
+            assertEquals(parsed, decoded, lipidName);
+            assertNotSame(decoded, dictionaryParser.parse(lipidName), lipidName);
+        }
+        assertTrue(known > 0);
+    }
+
+    @Test
+    public void testUnknownNamesAreParsed() throws ParsingException {
+        NameDictionary dictionary = Grammar.SWISSLIPIDS.getNameDictionary();
+        assertFalse(dictionary.contains("TG(23:0/23:0/23:0)"));
+        assertFalse(dictionary.find("TG(23:0/23:0/23:0)").isPresent());
+        assertNull(Grammar.SWISSLIPIDS.findKnownName("TG(23:0/23:0/23:0)"));
+        VisitorParser<LipidAdduct> parser = Grammar.SWISSLIPIDS.newParser(ParserOptions.builder().
+                useNameDictionary(true).
+                build());
+        assertEquals("TG 23:0/23:0/23:0", parser.parse("TG(23:0/23:0/23:0)").getLipidString());
+        assertThrows(ParsingException.class, () -> {
+            parser.parse("PC(16:0/18:1");
+        });
+        assumeTrue(dictionary.size() > 0, NO_DICTIONARIES);
+        assertTrue(dictionary.contains("PC(16:0/18:1)"));
+        assertEquals(dictionary.find("PC(16:0/18:1)").get(), Grammar.SWISSLIPIDS.findKnownName("PC(16:0/18:1)"));
+    }
+
+    @Test
+    public void testLimitsApplyToKnownNames() {
+        VisitorParser<LipidAdduct> parser = Grammar.SWISSLIPIDS.newParser(ParserOptions.builder().
+                maxInputLength(8).
+                useNameDictionary(true).
+                build());
+        assertThrows(ParseLimitExceededException.class, () -> {
+            parser.parse("PC(16:0/18:1)");
+        });
+    }
+
+    @Test
+    public void testGrammarWithoutDictionary() {
+        NameDictionary dictionary = Grammar.GOSLIN_FRAGMENTS.getNameDictionary();
+        assertEquals(0, dictionary.size());
+        assertFalse(dictionary.find("PC 16:0/18:1").isPresent());
+        assertSame(dictionary, Grammar.GOSLIN_FRAGMENTS.getNameDictionary());
+    }
+
+    @Test
+    public void testGenerateSkipsUnparseableNames(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("goslin.snapshot");
+        int size = NameDictionaryGenerator.generate(Grammar.GOSLIN, Arrays.asList("PC 16:0/18:1", "not a lipid", "PE 34:1"), file);
+        assertEquals(2, size);
+        LipidSnapshot snapshot = LipidSnapshot.open(file);
+        assertEquals(2, snapshot.size());
+        assertEquals("PE 34:1", snapshot.find("PE 34:1").get().getLipidString());
+        assertEquals(-1, snapshot.indexOf("not a lipid"));
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.palinom.exceptions.ParseLimitExceededException;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import de.isas.lipidomics.palinom.sumformula.SumFormulaVisitorParser;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumingThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class ParseEventTest {
+
+    private static final String PARSE = "de.isas.lipidomics.Parse";
+    private static final String GRAMMAR_FALLBACK = "de.isas.lipidomics.GrammarFallback";
+    private static final String LIPID_COMPUTATION = "de.isas.lipidomics.LipidComputation";
+
+    @Test
+    public void testEventsAreRecorded(@TempDir Path directory) throws IOException, ParsingException {
+        Path file = directory.resolve("parse.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(PARSE).withThreshold(Duration.ZERO);
+            recording.enable(GRAMMAR_FALLBACK).withThreshold(Duration.ZERO);
+            recording.enable(LIPID_COMPUTATION).withThreshold(Duration.ZERO);
+            recording.start();
+            LipidAdduct lipidAdduct = Grammar.GOSLIN.newParser().parse("PC 16:0/18:1");
+            lipidAdduct.getMass();
+            lipidAdduct.getSumFormula();
+            assertThrows(ParsingException.class, () -> {
+                Grammar.GOSLIN.newParser().parse("PC 16:0/18:1/");
+            });
+            assertThrows(ParseLimitExceededException.class, () -> {
+                Grammar.GOSLIN.newParser(ParserOptions.builder().maxTokens(3).build()).parse("PC 16:0/18:1");
+            });
+            Grammar.SWISSLIPIDS.newParser(ParserOptions.builder().useNameDictionary(true).build()).parse("PC(16:0/18:1)");
+            new SumFormulaVisitorParser().parse("C6H12O6");
+            try (BatchParser parser = new BatchParser()) {
+                assertEquals(Grammar.LIPIDMAPS, parser.parse("PC(16:0/18:1)").getGrammar());
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+        List<RecordedEvent> parses = byType(events, PARSE);
+        RecordedEvent success = find(parses, "PC 16:0/18:1", "GOSLIN");
+        assertEquals(ParseEvent.SUCCESS, success.getString("outcome"));
+        assertNull(success.getString("failureType"));
+        assertTrue(success.getDuration("lexDuration").toNanos() > 0);
+        assertTrue(success.getDuration("parseDuration").toNanos() > 0);
+        assertTrue(success.getDuration("visitDuration").toNanos() > 0);
+        RecordedEvent failure = find(parses, "PC 16:0/18:1/", "GOSLIN");
+        assertEquals(ParseEvent.FAILURE, failure.getString("outcome"));
+        assertEquals("ParsingException", failure.getString("failureType"));
+        assertTrue(parses.stream().anyMatch((event) -> {
+            return "ParseLimitExceededException(TOKENS)".equals(event.getString("failureType"));
+        }));
+        RecordedEvent decoded = find(parses, "PC(16:0/18:1)", "SWISSLIPIDS");
+        assumingThat(Grammar.SWISSLIPIDS.getNameDictionary().size() > 0, () -> {
+            assertEquals(ParseEvent.DICTIONARY, decoded.getString("outcome"));
+            assertEquals(0, decoded.getDuration("lexDuration").toNanos());
+        });
+        assertEquals(ParseEvent.SUCCESS, find(parses, "C6H12O6", "SUM_FORMULA").getString("outcome"));
+
+        List<String> decisions = byType(events, GRAMMAR_FALLBACK).stream().filter((event) -> {
+            return "PC(16:0/18:1)".equals(event.getString("input"));
+        }).map((event) -> {
+            return event.getInt("position") + ":" + event.getString("grammar") + ":" + event.getString("decision");
+        }).sorted().collect(Collectors.toList());
+        assertEquals(3, decisions.size(), decisions.toString());
+        assertTrue(decisions.get(0).startsWith("0:GOSLIN:"));
+        assertTrue(decisions.get(1).startsWith("1:GOSLIN_FRAGMENTS:"));
+        assertEquals("2:LIPIDMAPS:PARSED", decisions.get(2));
+
+        List<String> computations = byType(events, LIPID_COMPUTATION).stream().map((event) -> {
+            return event.getString("computation") + ":" + event.getString("lipidClass") + ":" + event.getString("level");
+        }).collect(Collectors.toList());
+        assertTrue(computations.contains("MASS:PC:STRUCTURAL_SUBSPECIES"), computations.toString());
+        assertTrue(computations.contains("SUM_FORMULA:PC:STRUCTURAL_SUBSPECIES"), computations.toString());
+    }
+
+    @Test
+    public void testDisabledEventsDoNotChangeResults() throws ParsingException {
+        ParseEvent event = ParseEvent.start("GOSLIN", "PC 16:0/18:1", new SyntaxErrorListener());
+        event.parsed();
+        LipidAdduct lipidAdduct = Grammar.GOSLIN.newParser().parse("PC 16:0/18:1");
+        assertSame(lipidAdduct, event.succeeded(lipidAdduct));
+        event.failed(new ParsingException("failed"));
+    }
+
+    private static List<RecordedEvent> byType(List<RecordedEvent> events, String type) {
+        return events.stream().filter((event) -> {
+            return event.getEventType().getName().equals(type);
+        }).collect(Collectors.toList());
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String input, String grammar) {
+        return events.stream().filter((event) -> {
+            return input.equals(event.getString("input")) && grammar.equals(event.getString("grammar"));
+        }).findFirst().orElseThrow(() -> {
+            return new AssertionError("No event for " + input + " with grammar " + grammar + " in " + events);
+        });
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.ElementTable;
+import de.isas.lipidomics.domain.LipidAdduct;
+import de.isas.lipidomics.palinom.exceptions.ParseLimitExceededException;
+import de.isas.lipidomics.palinom.exceptions.ParseLimitExceededException.Limit;
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import de.isas.lipidomics.palinom.sumformula.SumFormulaVisitorParser;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class ParserOptionsTest {
+
+    /*
+     * Fails after several seconds without a limit, see the latency fuzzer.
+     */
+    private static final String SLOW_HMDB_NAME = "99999999999999999999999999-HODE";
+
+    @ParameterizedTest
+    @EnumSource(Grammar.class)
+    public void testGenerousLimitsAcceptWarmUpCorpus(Grammar grammar) throws ParsingException {
+        VisitorParser<LipidAdduct> parser = grammar.newParser(ParserOptions.builder().
+                maxInputLength(256).
+                maxTokens(256).
+                maxSteps(100_000).
+                maxParseTime(Duration.ofSeconds(10)).
+                build());
+        VisitorParser<LipidAdduct> unlimited = grammar.newParser();
+        for (String lipidName : grammar.getWarmUpCorpus()) {
+            try {
+                unlimited.parse(lipidName);
+            } catch (ParsingException ex) {
+                assertThrows(ParsingException.class, () -> {
+                    parser.parse(lipidName);
+                });
+                continue;
+            }
+            assertNotNull(parser.parse(lipidName), lipidName);
+        }
+    }
+
+    @Test
+    public void testMaxInputLength() throws ParsingException {
+        VisitorParser<LipidAdduct> parser = Grammar.GOSLIN.newParser(ParserOptions.builder().maxInputLength(13).build());
+        assertEquals("PC 16:0-18:1", parser.parse("PC 16:0_18:1").getLipidString());
+        ParseLimitExceededException ex = assertThrows(ParseLimitExceededException.class, () -> {
+            parser.parse("TAG 16:0_18:1_20:4");
+        });
+        assertEquals(Limit.INPUT_LENGTH, ex.getLimit());
+        assertEquals(13, ex.getMaximum());
+        assertEquals(0, ex.getStackTrace().length);
+    }
+
+    @Test
+    public void testMaxTokens() throws ParsingException {
+        VisitorParser<LipidAdduct> parser = Grammar.GOSLIN.newParser(ParserOptions.builder().maxTokens(12).build());
+        assertEquals("PC 16:0-18:1", parser.parse("PC 16:0_18:1").getLipidString());
+        ParseLimitExceededException ex = assertThrows(ParseLimitExceededException.class, () -> {
+            parser.parse("TAG 16:0_18:1_20:4");
+        });
+        assertEquals(Limit.TOKENS, ex.getLimit());
+    }
+
+    @Test
+    public void testMaxSteps() {
+        VisitorParser<LipidAdduct> parser = Grammar.HMDB.newParser(ParserOptions.builder().maxSteps(20_000).build());
+        long start = System.nanoTime();
+        ParseLimitExceededException ex = assertThrows(ParseLimitExceededException.class, () -> {
+            parser.parse(SLOW_HMDB_NAME);
+        });
+        assertEquals(Limit.STEPS, ex.getLimit());
+        assertEquals(20_000, ex.getMaximum());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    public void testMaxParseTime() {
+        VisitorParser<LipidAdduct> parser = Grammar.HMDB.newParser(ParserOptions.builder().maxParseTime(Duration.ofMillis(50)).build());
+        long start = System.nanoTime();
+        ParseLimitExceededException ex = assertThrows(ParseLimitExceededException.class, () -> {
+            parser.parse(SLOW_HMDB_NAME);
+        });
+        assertEquals(Limit.TIME, ex.getLimit());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), ex.getMaximum());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    public void testSyntaxErrorIsNotALimit() {
+        VisitorParser<LipidAdduct> parser = Grammar.GOSLIN.newParser(ParserOptions.builder().maxSteps(100_000).build());
+        ParsingException ex = assertThrows(ParsingException.class, () -> {
+            parser.parse("PC 16:0_18:1)(");
+        });
+        assertFalse(ex instanceof ParseLimitExceededException);
+    }
+
+    @Test
+    public void testSumFormulaLimits() throws ParsingException {
+        SumFormulaVisitorParser parser = new SumFormulaVisitorParser(ParserOptions.builder().maxInputLength(16).build());
+        ElementTable elements = parser.parse("C42H82NO8P");
+        assertEquals("C42H82NO8P", elements.getSumFormula());
+        assertThrows(ParseLimitExceededException.class, () -> {
+            parser.parse("C42H82NO8PC42H82NO8P");
+        });
+    }
+
+    @Test
+    public void testInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            ParserOptions.builder().maxTokens(-1).build();
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            ParserOptions.builder().maxParseTime(Duration.ZERO).build();
+        });
+        assertFalse(ParserOptions.DEFAULT.isBudgeted());
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.palinom.exceptions.ParsingException;
+import de.isas.lipidomics.palinom.sumformula.SumFormulaVisitorParser;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumingThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class ParserStatisticsTest {
+
+    @BeforeEach
+    public void enable() {
+        ParserStatistics.reset();
+        ParserStatistics.setEnabled(true);
+    }
+
+    @AfterEach
+    public void disable() throws JMException {
+        ParserStatistics.setEnabled(false);
+        ParserStatistics.unregisterMBeans();
+        ParserStatistics.reset();
+    }
+
+    @Test
+    public void testParsesAreCounted() throws ParsingException {
+        VisitorParser<?> parser = Grammar.GOSLIN.newParser();
+        parser.parse("PC 16:0/18:1");
+        parser.parse("PE 18:0/20:4");
+        parser.parse("PC 32:1");
+        assertThrows(ParsingException.class, () -> {
+            parser.parse("PC 16:0/18:1/");
+        });
+        new SumFormulaVisitorParser().parse("C6H12O6");
+
+        GrammarStatistics goslin = ParserStatistics.of(Grammar.GOSLIN);
+        assertEquals(4, goslin.getParses());
+        assertEquals(1, goslin.getFailures());
+        assertEquals(4, Arrays.stream(goslin.getLatencyHistogram()).sum());
+        assertEquals(goslin.getLatencyHistogram().length, goslin.getLatencyBucketBoundsNanos().length + 1);
+        assertTrue(goslin.getMeanLatencyNanos() > 0);
+        assertTrue(goslin.getThroughput() > 0);
+        Map<String, Long> lipidClasses = goslin.getLipidClassDistribution();
+        assertEquals(2L, lipidClasses.get("PC"));
+        assertEquals(1L, lipidClasses.get("PE"));
+        assertEquals(2, lipidClasses.size());
+        assertEquals(1, ParserStatistics.of(ParserStatistics.SUM_FORMULA).getParses());
+        assertEquals(0, ParserStatistics.of(Grammar.LIPIDMAPS).getParses());
+
+        goslin.reset();
+        assertEquals(0, goslin.getParses());
+        assertTrue(goslin.getLipidClassDistribution().isEmpty());
+    }
+
+    @Test
+    public void testDictionaryAndFallbacksAreCounted() throws ParsingException {
+        VisitorParser<?> parser = Grammar.SWISSLIPIDS.newParser(ParserOptions.builder().useNameDictionary(true).build());
+        parser.parse("PC(16:0/18:1)");
+        parser.parse("PC(16:0/18:1)");
+        parser.parse("PC(16:0/18:1(11Z))");
+        GrammarStatistics swissLipids = ParserStatistics.of(Grammar.SWISSLIPIDS);
+        assertEquals(3, swissLipids.getDictionaryLookups());
+        assumingThat(Grammar.SWISSLIPIDS.getNameDictionary().size() > 0, () -> {
+            assertTrue(swissLipids.getDictionaryHits() >= 2);
+            assertTrue(swissLipids.getDictionaryHitRate() > 0);
+        });
+        assertEquals(3, swissLipids.getParses());
+
+        try (BatchParser batchParser = new BatchParser()) {
+            assertEquals(Grammar.LIPIDMAPS, batchParser.parse("PC(16:0/18:1)").getGrammar());
+        }
+        assertEquals(1, ParserStatistics.of(Grammar.GOSLIN).getPreFilterRejections()
+                + ParserStatistics.of(Grammar.GOSLIN).getGrammarFallbacks());
+        assertEquals(1, ParserStatistics.of(Grammar.GOSLIN_FRAGMENTS).getPreFilterRejections()
+                + ParserStatistics.of(Grammar.GOSLIN_FRAGMENTS).getGrammarFallbacks());
+        assertEquals(0, ParserStatistics.of(Grammar.LIPIDMAPS).getGrammarFallbacks());
+        assertEquals(1, ParserStatistics.of(Grammar.LIPIDMAPS).getParses());
+    }
+
+    @Test
+    public void testFullContextFallbacksAreCounted() throws ParsingException {
+        SyntaxErrorListener listener = new SyntaxErrorListener();
+        Grammar.LIPIDMAPS.newParser().parse("PE(18:0/20:4(5Z,8Z,11Z,14Z))", listener);
+        assertTrue(listener.getFullContextAttempts() > 0);
+        assertEquals(listener.getFullContextAttempts(), ParserStatistics.of(Grammar.LIPIDMAPS).getFullContextFallbacks());
+        // the count does not change the listener's equality
+        assertEquals(new SyntaxErrorListener(), listener);
+        assertEquals(new SyntaxErrorListener().hashCode(), listener.hashCode());
+    }
+
+    @Test
+    public void testDisabledStatisticsAreNotRecorded() throws ParsingException {
+        ParserStatistics.setEnabled(false);
+        Grammar.GOSLIN.newParser().parse("PC 16:0/18:1");
+        assertEquals(0, ParserStatistics.of(Grammar.GOSLIN).getParses());
+        assertSame(ParseStatisticsRecorder.start("GOSLIN", new SyntaxErrorListener()), ParseStatisticsRecorder.start("HMDB", new SyntaxErrorListener()));
+    }
+
+    @Test
+    public void testUnknownGrammar() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            ParserStatistics.of("UNKNOWN");
+        });
+    }
+
+    @Test
+    public void testMBeans() throws JMException, ParsingException {
+        ParserStatistics.setEnabled(false);
+        ParserStatistics.registerMBeans();
+        ParserStatistics.registerMBeans();
+        assertTrue(ParserStatistics.isEnabled());
+        Grammar.GOSLIN.newParser().parse("PC 16:0/18:1");
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(1L, server.getAttribute(ParserStatistics.getObjectName("GOSLIN"), "Parses"));
+        assertEquals("GOSLIN", server.getAttribute(ParserStatistics.getObjectName("GOSLIN"), "Grammar"));
+        assertEquals(0L, server.getAttribute(ParserStatistics.getObjectName("SUM_FORMULA"), "Parses"));
+        TabularData lipidClasses = (TabularData) server.getAttribute(ParserStatistics.getObjectName("GOSLIN"), "LipidClassDistribution");
+        CompositeData pc = lipidClasses.get(new Object[]{"PC"});
+        assertEquals(1L, pc.get("value"));
+
+        server.invoke(ParserStatistics.getObjectName("GOSLIN"), "reset", new Object[0], new String[0]);
+        assertEquals(0, ParserStatistics.of(Grammar.GOSLIN).getParses());
+        ParserStatistics.unregisterMBeans();
+        assertFalse(server.isRegistered(ParserStatistics.getObjectName("GOSLIN")));
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2020  nils.hoffmann.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.isas.lipidomics.palinom;
+
+import de.isas.lipidomics.domain.LipidAdduct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author nils.hoffmann
+ */
+public class ParsingProcessorTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void createExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testResultsInInputOrder() throws InterruptedException {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            names.add(i % 7 == 0 ? "not a lipid " + i : "PC " + (30 + i % 10) + ":" + (i % 4));
+        }
+        ParsingProcessor processor = ParsingProcessor.builder().
+                grammars(Arrays.asList(Grammar.GOSLIN)).
+                parallelism(4).
+                maxInFlight(8).
+                executor(executor).
+                build();
+        Collector collector = new Collector(1);
+        processor.subscribe(collector);
+        new IterablePublisher(names).subscribe(processor);
+        assertTrue(collector.await());
+        assertNull(collector.error.get());
+        assertEquals(names.size(), collector.results.size());
+        for (int i = 0; i < names.size(); i++) {
+            ParseResult<LipidAdduct> result = collector.results.get(i);
+            assertEquals(i, result.getIndex());
+            assertEquals(names.get(i), result.getInput());
+            assertEquals(i % 7 != 0, result.isSuccess());
+            if (result.isSuccess()) {
+                assertEquals(Grammar.GOSLIN, result.getGrammar());
+                assertEquals(names.get(i), result.getValue().getLipidString());
+            } else {
+                assertNotNull(result.getError());
+            }
+        }
+    }
+
+    @Test
+    public void testGrammarFallback() throws InterruptedException {
+        ParsingProcessor processor = ParsingProcessor.builder().
+                grammars(Arrays.asList(Grammar.GOSLIN, Grammar.LIPIDMAPS)).
+                executor(executor).
+                build();
+        Collector collector = new Collector(Long.MAX_VALUE);
+        processor.subscribe(collector);
+        new IterablePublisher(Arrays.asList("PC 34:1", "PC(34:1)", "PC[34:1]")).subscribe(processor);
+        assertTrue(collector.await());
+        assertEquals(3, collector.results.size());
+        assertEquals(Grammar.GOSLIN, collector.results.get(0).getGrammar());
+        assertEquals(Grammar.LIPIDMAPS, collector.results.get(1).getGrammar());
+        assertEquals("PC 34:1", collector.results.get(1).getValue().getLipidString());
+        assertFalse(collector.results.get(2).isSuccess());
+    }
+
+    @Test
+    public void testDemandAndInFlightLimit() throws InterruptedException {
+        List<String> names = Collections.nCopies(100, "PE 18:1-22:6");
+        IterablePublisher publisher = new IterablePublisher(names);
+        ParsingProcessor processor = ParsingProcessor.builder().
+                grammars(Arrays.asList(Grammar.GOSLIN)).
+                parallelism(2).
+                maxInFlight(4).
+                executor(executor).
+                build();
+        Collector collector = new Collector(0);
+        processor.subscribe(collector);
+        publisher.subscribe(processor);
+        // nothing is requested from upstream without demand
+        assertEquals(0, publisher.requested.get());
+        collector.subscription.request(3);
+        collector.awaitCount(3);
+        assertEquals(3, publisher.requested.get());
+        collector.subscription.request(Long.MAX_VALUE);
+        assertTrue(collector.await());
+        assertEquals(100, collector.results.size());
+        assertTrue(publisher.maxOutstanding.get() <= 4, "Outstanding: " + publisher.maxOutstanding.get());
+    }
+
+    @Test
+    public void testWithSubmissionPublisher() throws InterruptedException {
+        ParsingProcessor processor = ParsingProcessor.builder().
+                executor(executor).
+                build();
+        Collector collector = new Collector(2);
+        processor.subscribe(collector);
+        try (SubmissionPublisher<String> publisher = new SubmissionPublisher<>(executor, 4)) {
+            publisher.subscribe(processor);
+            for (int i = 0; i < 50; i++) {
+                publisher.submit("TAG 16:0-18:1-18:" + (i % 4));
+            }
+        }
+        assertTrue(collector.await());
+        assertEquals(50, collector.results.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("TAG 16:0-18:1-18:" + (i % 4), collector.results.get(i).getValue().getLipidString());
+        }
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        IterablePublisher publisher = new IterablePublisher(Collections.nCopies(100, "PC 34:1"));
+        ParsingProcessor processor = ParsingProcessor.builder().
+                executor(executor).
+                build();
+        Collector collector = new Collector(0);
+        processor.subscribe(collector);
+        publisher.subscribe(processor);
+        collector.subscription.request(5);
+        collector.awaitCount(5);
+        collector.subscription.cancel();
+        assertTrue(publisher.cancelled);
+    }
+
+    @Test
+    public void testIllegalRequestAndSecondSubscriber() throws InterruptedException {
+        ParsingProcessor processor = new ParsingProcessor();
+        Collector collector = new Collector(0);
+        processor.subscribe(collector);
+        Collector second = new Collector(1);
+        processor.subscribe(second);
+        assertTrue(second.await());
+        assertTrue(second.error.get() instanceof IllegalStateException);
+        collector.subscription.request(0);
+        assertTrue(collector.await());
+        assertTrue(collector.error.get() instanceof IllegalArgumentException);
+        assertThrows(IllegalArgumentException.class, () -> {
+            ParsingProcessor.builder().parallelism(-1).build();
+        });
+    }
+
+    @Test
+    public void testUpstreamError() throws InterruptedException {
+        ParsingProcessor processor = new ParsingProcessor();
+        Collector collector = new Collector(1);
+        processor.subscribe(collector);
+        processor.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        processor.onError(new IllegalStateException("upstream"));
+        assertTrue(collector.await());
+        assertEquals("upstream", collector.error.get().getMessage());
+    }
+
+    /*
+     * Requests one more result whenever a result is received, after an initial
+     * request.
+     */
+    private static final class Collector implements Flow.Subscriber<ParseResult<LipidAdduct>> {
+
+        private final long initialRequest;
+        private final List<ParseResult<LipidAdduct>> results = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+
+        private Collector(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(ParseResult<LipidAdduct> item) {
+            results.add(item);
+            if (initialRequest > 0 && initialRequest != Long.MAX_VALUE) {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.set(throwable);
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+
+        private boolean await() throws InterruptedException {
+            return done.await(30, TimeUnit.SECONDS);
+        }
+
+        private void awaitCount(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (results.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(count, results.size());
+        }
+    }
+
+    /*
+     * Emits the names on the requesting thread and records the largest number
+     * of names requested but not yet emitted.
+     */
+    private static final class IterablePublisher implements Flow.Publisher<String> {
+
+        private final List<String> names;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicLong maxOutstanding = new AtomicLong();
+        private volatile boolean cancelled;
+
+        private IterablePublisher(List<String> names) {
+            this.names = names;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super String> subscriber) {
+            AtomicInteger wip = new AtomicInteger();
+            AtomicInteger emitted = new AtomicInteger();
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    long total = requested.updateAndGet((current) -> {
+                        return Math.min(names.size(), current + n);
+                    });
+                    maxOutstanding.accumulateAndGet(total - emitted.get(), Math::max);
+                    if (wip.getAndIncrement() != 0) {
+                        return;
+                    }
+                    do {
+                        while (!cancelled && emitted.get() < requested.get()) {
+                            subscriber.onNext(names.get(emitted.getAndIncrement()));
+                        }
+                        if (!cancelled && emitted.get() == names.size()) {
+                            cancelled = true;
+                            subscriber.onComplete();
+                        }
+                    } while (wip.decrementAndGet() != 0);
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+}